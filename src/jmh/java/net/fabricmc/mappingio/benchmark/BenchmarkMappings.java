@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2021 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.mappingio.benchmark;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * Mapping fixtures shared by the benchmarks.
+ */
+final class BenchmarkMappings {
+	/**
+	 * Create a generator for {@code classCount} classes with {@code membersPerClass} members split evenly into fields
+	 * and methods.
+	 */
+	static SyntheticMappings generator(int classCount, int membersPerClass, int dstNamespaceCount) {
+		return new SyntheticMappings()
+				.setClassCount(classCount)
+				.setFieldsPerClass(membersPerClass / 2)
+				.setMethodsPerClass(membersPerClass - membersPerClass / 2)
+				.setDstNamespaceCount(dstNamespaceCount);
+	}
+
+	static void deleteRecursively(Path path) throws IOException {
+		if (!Files.exists(path)) return;
+
+		Files.walkFileTree(path, new SimpleFileVisitor<Path>() {
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+				Files.delete(file);
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+				Files.delete(dir);
+				return FileVisitResult.CONTINUE;
+			}
+		});
+	}
+}
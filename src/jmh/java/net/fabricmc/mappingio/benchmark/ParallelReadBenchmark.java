@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2021 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.mappingio.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.fabricmc.mappingio.format.EnigmaReader;
+import net.fabricmc.mappingio.format.MappingFormat;
+import net.fabricmc.mappingio.format.Tiny1Reader;
+import net.fabricmc.mappingio.format.Tiny2Reader;
+import net.fabricmc.mappingio.tree.MemoryMappingTree;
+
+/**
+ * Sequential versus chunked parallel reading of large files or Enigma directories into a {@link MemoryMappingTree}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParallelReadBenchmark {
+	@Param({ "TINY", "TINY_2", "ENIGMA" })
+	public MappingFormat format;
+
+	@Param("50000")
+	public int classes;
+
+	@Param("10")
+	public int membersPerClass;
+
+	private Path dir;
+	private Path file;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		dir = Files.createTempDirectory("mappingio-bench");
+		file = dir.resolve(format.hasSingleFile() ? "mappings."+format.fileExt : "mappings");
+
+		BenchmarkMappings.generator(classes, membersPerClass, 2).write(format, file);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		BenchmarkMappings.deleteRecursively(dir);
+	}
+
+	@Benchmark
+	public MemoryMappingTree read() throws IOException {
+		MemoryMappingTree ret = new MemoryMappingTree();
+
+		switch (format) {
+		case TINY:
+			Tiny1Reader.read(file, ret);
+			break;
+		case TINY_2:
+			Tiny2Reader.read(file, ret);
+			break;
+		case ENIGMA:
+			EnigmaReader.read(file, ret);
+			break;
+		default:
+			throw new IllegalStateException();
+		}
+
+		return ret;
+	}
+
+	@Benchmark
+	public MemoryMappingTree readParallel() throws IOException {
+		MemoryMappingTree ret = new MemoryMappingTree();
+
+		switch (format) {
+		case TINY:
+			Tiny1Reader.readParallel(file, ret);
+			break;
+		case TINY_2:
+			Tiny2Reader.readParallel(file, ret);
+			break;
+		case ENIGMA:
+			EnigmaReader.readParallel(file, ret);
+			break;
+		default:
+			throw new IllegalStateException();
+		}
+
+		return ret;
+	}
+}
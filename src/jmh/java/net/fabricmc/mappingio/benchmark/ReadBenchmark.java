@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2021 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.mappingio.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.fabricmc.mappingio.MappingReader;
+import net.fabricmc.mappingio.MappingStringPool;
+import net.fabricmc.mappingio.format.MappingFormat;
+import net.fabricmc.mappingio.tree.MemoryMappingTree;
+
+/**
+ * Throughput of {@link MappingReader#read(Path, MappingFormat, net.fabricmc.mappingio.MappingVisitor)} into a
+ * {@link MemoryMappingTree} for every readable format.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReadBenchmark {
+	@Param({ "TINY", "TINY_2", "SRG", "TSRG", "TSRG2", "PROGUARD", "ENIGMA", "MIO_BINARY" })
+	public MappingFormat format;
+
+	@Param("10000")
+	public int classes;
+
+	@Param("10")
+	public int membersPerClass;
+
+	@Param("2")
+	public int dstNamespaces;
+
+	private Path dir;
+	private Path file;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		dir = Files.createTempDirectory("mappingio-bench");
+		file = dir.resolve(format.hasSingleFile() ? "mappings."+format.fileExt : "mappings");
+
+		BenchmarkMappings.generator(classes, membersPerClass, dstNamespaces).write(format, file);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		BenchmarkMappings.deleteRecursively(dir);
+	}
+
+	@Benchmark
+	public MemoryMappingTree read() throws IOException {
+		MemoryMappingTree ret = new MemoryMappingTree();
+		MappingReader.read(file, format, ret);
+
+		return ret;
+	}
+
+	@Benchmark
+	public MemoryMappingTree readPooled() throws IOException {
+		MemoryMappingTree ret = new MemoryMappingTree();
+		ret.setStringPool(new MappingStringPool());
+		MappingReader.read(file, format, ret);
+
+		return ret;
+	}
+}
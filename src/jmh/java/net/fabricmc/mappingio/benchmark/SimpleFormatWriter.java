@@ -0,0 +1,302 @@
+/*
+ * Copyright (c) 2021 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.mappingio.benchmark;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import net.fabricmc.mappingio.MappedElementKind;
+import net.fabricmc.mappingio.MappingFlag;
+import net.fabricmc.mappingio.MappingWriter;
+import net.fabricmc.mappingio.format.MappingFormat;
+
+/**
+ * Minimal streaming writer for the formats mapping-io can read but not write (SRG, TSRG, TSRG2, ProGuard).
+ *
+ * <p>Only what is needed to produce benchmark input is supported: comments, vars and, except for TSRG2, args are
+ * dropped, formats without namespace support only receive the first destination namespace.
+ */
+final class SimpleFormatWriter implements MappingWriter {
+	SimpleFormatWriter(Writer writer, MappingFormat format) {
+		switch (format) {
+		case SRG:
+		case TSRG:
+		case TSRG2:
+		case PROGUARD:
+			break;
+		default:
+			throw new IllegalArgumentException("unsupported format: "+format);
+		}
+
+		this.writer = writer;
+		this.format = format;
+	}
+
+	@Override
+	public void close() throws IOException {
+		writer.close();
+	}
+
+	@Override
+	public Set<MappingFlag> getFlags() {
+		return format == MappingFormat.SRG ? srgFlags : flags;
+	}
+
+	@Override
+	public void visitNamespaces(String srcNamespace, List<String> dstNamespaces) throws IOException {
+		dstNsCount = format == MappingFormat.TSRG2 ? dstNamespaces.size() : 1;
+		dstNames = new String[dstNsCount];
+
+		if (format == MappingFormat.TSRG2) {
+			writer.write("tsrg2 ");
+			writer.write(srcNamespace);
+
+			for (String dstNamespace : dstNamespaces) {
+				writer.write(' ');
+				writer.write(dstNamespace);
+			}
+
+			writer.write('\n');
+		}
+	}
+
+	@Override
+	public boolean visitClass(String srcName) throws IOException {
+		srcClassName = srcName;
+
+		return true;
+	}
+
+	@Override
+	public boolean visitField(String srcName, String srcDesc) throws IOException {
+		memberSrcName = srcName;
+		memberSrcDesc = srcDesc;
+
+		return true;
+	}
+
+	@Override
+	public boolean visitMethod(String srcName, String srcDesc) throws IOException {
+		memberSrcName = srcName;
+		memberSrcDesc = srcDesc;
+		memberDstDesc = null;
+
+		return true;
+	}
+
+	@Override
+	public boolean visitMethodArg(int argPosition, int lvIndex, String srcName) throws IOException {
+		if (format != MappingFormat.TSRG2) return false;
+
+		argLvIndex = lvIndex;
+		argSrcName = srcName;
+
+		return true;
+	}
+
+	@Override
+	public boolean visitMethodVar(int lvtRowIndex, int lvIndex, int startOpIdx, String srcName) throws IOException {
+		return false;
+	}
+
+	@Override
+	public void visitDstName(MappedElementKind targetKind, int namespace, String name) {
+		if (namespace < dstNsCount) dstNames[namespace] = name;
+	}
+
+	@Override
+	public void visitDstDesc(MappedElementKind targetKind, int namespace, String desc) throws IOException {
+		if (namespace == 0 && targetKind == MappedElementKind.METHOD) memberDstDesc = desc;
+	}
+
+	@Override
+	public boolean visitElementContent(MappedElementKind targetKind) throws IOException {
+		switch (format) {
+		case SRG:
+			writeSrg(targetKind);
+			break;
+		case TSRG:
+		case TSRG2:
+			writeTsrg(targetKind);
+			break;
+		case PROGUARD:
+			writeProGuard(targetKind);
+			break;
+		default:
+			throw new IllegalStateException();
+		}
+
+		Arrays.fill(dstNames, null);
+
+		return targetKind == MappedElementKind.CLASS || targetKind == MappedElementKind.METHOD && format == MappingFormat.TSRG2;
+	}
+
+	@Override
+	public void visitComment(MappedElementKind targetKind, String comment) throws IOException { }
+
+	private void writeSrg(MappedElementKind targetKind) throws IOException {
+		String name = dstName(targetKind == MappedElementKind.CLASS ? srcClassName : memberSrcName);
+
+		switch (targetKind) {
+		case CLASS:
+			dstClassName = name;
+			writer.write("CL: "+srcClassName+" "+name+"\n");
+			break;
+		case FIELD:
+			writer.write("FD: "+srcClassName+"/"+memberSrcName+" "+dstClassName+"/"+name+"\n");
+			break;
+		case METHOD:
+			if (memberDstDesc == null) throw new IllegalStateException("missing dst method desc");
+
+			writer.write("MD: "+srcClassName+"/"+memberSrcName+" "+memberSrcDesc
+					+" "+dstClassName+"/"+name+" "+memberDstDesc+"\n");
+			break;
+		default:
+			throw new IllegalStateException();
+		}
+	}
+
+	private void writeTsrg(MappedElementKind targetKind) throws IOException {
+		switch (targetKind) {
+		case CLASS:
+			writer.write(srcClassName);
+			break;
+		case FIELD:
+			writer.write('\t');
+			writer.write(memberSrcName);
+
+			if (format == MappingFormat.TSRG2) {
+				writer.write(' ');
+				writer.write(memberSrcDesc);
+			}
+
+			break;
+		case METHOD:
+			writer.write('\t');
+			writer.write(memberSrcName);
+			writer.write(' ');
+			writer.write(memberSrcDesc);
+			break;
+		case METHOD_ARG:
+			writer.write("\t\t");
+			writer.write(Integer.toString(argLvIndex));
+			writer.write(' ');
+			writer.write(argSrcName != null ? argSrcName : "o");
+			break;
+		default:
+			throw new IllegalStateException();
+		}
+
+		for (String name : dstNames) {
+			writer.write(' ');
+			writer.write(name != null ? name : "o");
+		}
+
+		writer.write('\n');
+	}
+
+	private void writeProGuard(MappedElementKind targetKind) throws IOException {
+		switch (targetKind) {
+		case CLASS:
+			writer.write(srcClassName.replace('/', '.')+" -> "+dstName(srcClassName).replace('/', '.')+":\n");
+			break;
+		case FIELD:
+			writer.write("    "+toJavaType(memberSrcDesc, 0, memberSrcDesc.length())+" "+memberSrcName+" -> "+dstName(memberSrcName)+"\n");
+			break;
+		case METHOD: {
+			String desc = memberSrcDesc;
+			int argsEnd = desc.indexOf(')');
+			StringBuilder sb = new StringBuilder("    ");
+			sb.append(toJavaType(desc, argsEnd + 1, desc.length()));
+			sb.append(' ');
+			sb.append(memberSrcName);
+			sb.append('(');
+
+			for (int pos = 1; pos < argsEnd; ) {
+				int end = pos;
+				while (desc.charAt(end) == '[') end++;
+				if (desc.charAt(end) == 'L') end = desc.indexOf(';', end);
+				end++;
+
+				if (pos > 1) sb.append(',');
+				sb.append(toJavaType(desc, pos, end));
+				pos = end;
+			}
+
+			sb.append(") -> ");
+			sb.append(dstName(memberSrcName));
+			sb.append('\n');
+			writer.write(sb.toString());
+			break;
+		}
+		default:
+			throw new IllegalStateException();
+		}
+	}
+
+	private String dstName(String srcName) {
+		return dstNames[0] != null ? dstNames[0] : srcName;
+	}
+
+	private static String toJavaType(String desc, int start, int end) {
+		int dims = 0;
+
+		while (desc.charAt(start + dims) == '[') {
+			dims++;
+		}
+
+		String ret;
+
+		switch (desc.charAt(start + dims)) {
+		case 'V': ret = "void"; break;
+		case 'Z': ret = "boolean"; break;
+		case 'C': ret = "char"; break;
+		case 'B': ret = "byte"; break;
+		case 'S': ret = "short"; break;
+		case 'I': ret = "int"; break;
+		case 'F': ret = "float"; break;
+		case 'J': ret = "long"; break;
+		case 'D': ret = "double"; break;
+		default: ret = desc.substring(start + dims + 1, end - 1).replace('/', '.');
+		}
+
+		for (int i = 0; i < dims; i++) {
+			ret = ret.concat("[]");
+		}
+
+		return ret;
+	}
+
+	private static final Set<MappingFlag> flags = EnumSet.of(MappingFlag.NEEDS_SRC_FIELD_DESC, MappingFlag.NEEDS_SRC_METHOD_DESC);
+	private static final Set<MappingFlag> srgFlags = EnumSet.of(MappingFlag.NEEDS_SRC_FIELD_DESC, MappingFlag.NEEDS_SRC_METHOD_DESC, MappingFlag.NEEDS_DST_METHOD_DESC);
+
+	private final Writer writer;
+	private final MappingFormat format;
+	private int dstNsCount;
+	private String[] dstNames;
+	private String srcClassName;
+	private String dstClassName;
+	private String memberSrcName;
+	private String memberSrcDesc;
+	private String memberDstDesc;
+	private int argLvIndex;
+	private String argSrcName;
+}
@@ -0,0 +1,520 @@
+/*
+ * Copyright (c) 2021 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.mappingio.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+
+import net.fabricmc.mappingio.MappedElementKind;
+import net.fabricmc.mappingio.MappingFlag;
+import net.fabricmc.mappingio.MappingVisitor;
+import net.fabricmc.mappingio.MappingWriter;
+import net.fabricmc.mappingio.format.EnigmaWriter;
+import net.fabricmc.mappingio.format.MappingFormat;
+import net.fabricmc.mappingio.tree.MemoryMappingTree;
+
+/**
+ * Deterministic generator for synthetic mapping sets of configurable size.
+ *
+ * <p>The generated data resembles real obfuscation mappings: short obfuscated source names, an intermediary style
+ * first destination namespace and descriptive names in any further namespaces, nested classes, descriptors
+ * referencing other mapped classes, method args and vars with plausible lv indices and optional comments.
+ *
+ * <p>The same configuration always produces the same visitation sequence, which is fed directly into a
+ * {@link MappingVisitor} by {@link #accept} without going through any intermediate representation. {@link #write}
+ * emits the data in any {@link MappingFormat} that can be read back.
+ *
+ * <p>The class can also be run directly to write files, see {@link #main}.
+ */
+public final class SyntheticMappings {
+	public SyntheticMappings setClassCount(int classCount) {
+		this.classCount = classCount;
+		return this;
+	}
+
+	public SyntheticMappings setFieldsPerClass(int fieldsPerClass) {
+		this.fieldsPerClass = fieldsPerClass;
+		return this;
+	}
+
+	public SyntheticMappings setMethodsPerClass(int methodsPerClass) {
+		this.methodsPerClass = methodsPerClass;
+		return this;
+	}
+
+	public SyntheticMappings setArgsPerMethod(int argsPerMethod) {
+		this.argsPerMethod = argsPerMethod;
+		return this;
+	}
+
+	public SyntheticMappings setVarsPerMethod(int varsPerMethod) {
+		this.varsPerMethod = varsPerMethod;
+		return this;
+	}
+
+	/**
+	 * Set the number of destination namespaces, the total namespace count is one higher.
+	 */
+	public SyntheticMappings setDstNamespaceCount(int dstNamespaceCount) {
+		if (dstNamespaceCount < 1) throw new IllegalArgumentException("at least one dst namespace is required");
+
+		this.dstNamespaceCount = dstNamespaceCount;
+		return this;
+	}
+
+	/**
+	 * Set the prefix for the generated destination namespace names, allows generating data with disjoint destination
+	 * namespaces to be merged into one tree.
+	 */
+	public SyntheticMappings setNamespacePrefix(String namespacePrefix) {
+		this.namespacePrefix = namespacePrefix;
+		return this;
+	}
+
+	/**
+	 * Set the probability for any class, field, method or arg to receive a comment.
+	 */
+	public SyntheticMappings setCommentDensity(double commentDensity) {
+		this.commentDensity = commentDensity;
+		return this;
+	}
+
+	/**
+	 * Set the probability for a class to be nested in the previous outer class.
+	 */
+	public SyntheticMappings setInnerClassDensity(double innerClassDensity) {
+		this.innerClassDensity = innerClassDensity;
+		return this;
+	}
+
+	public SyntheticMappings setSeed(long seed) {
+		this.seed = seed;
+		return this;
+	}
+
+	public String getSrcNamespace() {
+		return "official";
+	}
+
+	public List<String> getDstNamespaces() {
+		List<String> ret = new ArrayList<>(dstNamespaceCount);
+
+		for (int i = 0; i < dstNamespaceCount; i++) {
+			ret.add(namespacePrefix.concat(i == 0 ? "intermediary" : i == 1 ? "named" : "named"+i));
+		}
+
+		return ret;
+	}
+
+	public MemoryMappingTree createTree() throws IOException {
+		MemoryMappingTree ret = new MemoryMappingTree();
+		accept(ret);
+
+		return ret;
+	}
+
+	/**
+	 * Visit the generated mappings, repeating the visitation as long as requested by {@link MappingVisitor#visitEnd}.
+	 */
+	public void accept(MappingVisitor visitor) throws IOException {
+		Set<MappingFlag> flags = visitor.getFlags();
+		boolean fieldDstDescs = flags.contains(MappingFlag.NEEDS_DST_FIELD_DESC);
+		boolean methodDstDescs = flags.contains(MappingFlag.NEEDS_DST_METHOD_DESC);
+
+		do {
+			if (visitor.visitHeader()) {
+				visitor.visitNamespaces(getSrcNamespace(), getDstNamespaces());
+				visitor.visitMetadata("generator", SyntheticMappings.class.getSimpleName());
+				visitor.visitMetadata("seed", Long.toString(seed));
+			}
+
+			if (visitor.visitContent()) {
+				new Pass(visitor, fieldDstDescs, methodDstDescs).run();
+			}
+		} while (!visitor.visitEnd());
+	}
+
+	/**
+	 * Write the generated mappings to {@code file} in the requested format.
+	 *
+	 * <p>Formats without destination namespace support only receive the first destination namespace, ProGuard data is
+	 * written with the source namespace on the left hand side.
+	 */
+	public void write(MappingFormat format, Path file) throws IOException {
+		switch (format) {
+		case TINY:
+		case TINY_2:
+		case MIO_BINARY:
+			try (MappingWriter writer = MappingWriter.create(file, format)) {
+				accept(writer);
+			}
+
+			break;
+		case ENIGMA:
+			try (MappingWriter writer = new EnigmaWriter(file, true)) {
+				accept(writer);
+			}
+
+			break;
+		case SRG:
+		case TSRG:
+		case TSRG2:
+		case PROGUARD:
+			try (MappingWriter writer = new SimpleFormatWriter(Files.newBufferedWriter(file), format)) {
+				accept(writer);
+			}
+
+			break;
+		default:
+			throw new UnsupportedOperationException("format "+format+" is not supported");
+		}
+	}
+
+	private final class Pass {
+		Pass(MappingVisitor visitor, boolean fieldDstDescs, boolean methodDstDescs) {
+			this.visitor = visitor;
+			this.fieldDstDescs = fieldDstDescs;
+			this.methodDstDescs = methodDstDescs;
+		}
+
+		void run() throws IOException {
+			for (int cls = 0; cls < classCount; cls++) {
+				Random rnd = new Random(classSeed(cls));
+				rnd.nextDouble(); // consumed by outerClass
+
+				if (visitor.visitClass(srcClassName(cls))) {
+					for (int ns = 0; ns < dstNamespaceCount; ns++) {
+						visitor.visitDstName(MappedElementKind.CLASS, ns, dstClassName(cls, ns));
+					}
+
+					if (visitor.visitElementContent(MappedElementKind.CLASS)) {
+						visitComment(MappedElementKind.CLASS, rnd, "Class", cls);
+						visitMembers(cls, rnd);
+					}
+				}
+			}
+		}
+
+		private void visitMembers(int cls, Random rnd) throws IOException {
+			StringBuilder sb = new StringBuilder();
+
+			for (int field = 0; field < fieldsPerClass; field++) {
+				sb.setLength(0);
+				appendType(rnd, sb);
+				String desc = sb.toString();
+
+				if (visitor.visitField(obfName(field), desc)) {
+					visitNames(MappedElementKind.FIELD, cls, "field", field);
+					if (fieldDstDescs) visitDstDescs(MappedElementKind.FIELD, desc);
+
+					if (visitor.visitElementContent(MappedElementKind.FIELD)) {
+						visitComment(MappedElementKind.FIELD, rnd, "Field", field);
+					}
+				}
+			}
+
+			for (int method = 0; method < methodsPerClass; method++) {
+				boolean isStatic = rnd.nextInt(4) == 0;
+				int[] argLvIndices = new int[argsPerMethod];
+				int lvIndex = isStatic ? 0 : 1;
+
+				sb.setLength(0);
+				sb.append('(');
+
+				for (int arg = 0; arg < argsPerMethod; arg++) {
+					argLvIndices[arg] = lvIndex;
+					char type = appendType(rnd, sb);
+					lvIndex += type == 'J' || type == 'D' ? 2 : 1;
+				}
+
+				sb.append(')');
+
+				if (rnd.nextInt(3) == 0) {
+					sb.append('V');
+				} else {
+					appendType(rnd, sb);
+				}
+
+				String desc = sb.toString();
+
+				if (visitor.visitMethod(obfName(fieldsPerClass + method), desc)) {
+					visitNames(MappedElementKind.METHOD, cls, "method", method);
+					if (methodDstDescs) visitDstDescs(MappedElementKind.METHOD, desc);
+
+					if (visitor.visitElementContent(MappedElementKind.METHOD)) {
+						visitComment(MappedElementKind.METHOD, rnd, "Method", method);
+
+						for (int arg = 0; arg < argsPerMethod; arg++) {
+							if (visitor.visitMethodArg(arg, argLvIndices[arg], null)) {
+								visitNames(MappedElementKind.METHOD_ARG, cls, "arg", arg);
+
+								if (visitor.visitElementContent(MappedElementKind.METHOD_ARG)) {
+									visitComment(MappedElementKind.METHOD_ARG, rnd, "Argument", arg);
+								}
+							}
+						}
+
+						for (int var = 0; var < varsPerMethod; var++) {
+							if (visitor.visitMethodVar(var, lvIndex + var, 4 + var * 7, null)) {
+								visitNames(MappedElementKind.METHOD_VAR, cls, "local", var);
+								visitor.visitElementContent(MappedElementKind.METHOD_VAR);
+							}
+						}
+					}
+				}
+			}
+		}
+
+		private void visitNames(MappedElementKind kind, int cls, String prefix, int idx) throws IOException {
+			for (int ns = 0; ns < dstNamespaceCount; ns++) {
+				String name;
+
+				if (ns == 0 && kind.level == 1) { // intermediary style member name
+					name = String.format("%s_%d_%d", prefix, cls, idx);
+				} else if (ns == 0) { // obfuscated style arg/var name
+					name = obfName(idx);
+				} else {
+					name = String.format("%s%s%d", prefix, WORDS[(cls + idx * 7 + ns) % WORDS.length], idx);
+				}
+
+				visitor.visitDstName(kind, ns, name);
+			}
+		}
+
+		private void visitDstDescs(MappedElementKind kind, String desc) throws IOException {
+			for (int ns = 0; ns < dstNamespaceCount; ns++) {
+				visitor.visitDstDesc(kind, ns, mapDesc(desc, ns));
+			}
+		}
+
+		private void visitComment(MappedElementKind kind, Random rnd, String subject, int idx) throws IOException {
+			if (commentDensity <= 0 || rnd.nextDouble() >= commentDensity) return;
+
+			if (rnd.nextInt(4) == 0) {
+				visitor.visitComment(kind, String.format("%s %d of the synthetic corpus.\n\nSee the generator for details.", subject, idx));
+			} else {
+				visitor.visitComment(kind, String.format("%s %d of the synthetic corpus.", subject, idx));
+			}
+		}
+
+		/**
+		 * Append a random field type, returns the descriptor's first character ('[' for arrays, which take a single slot).
+		 */
+		private char appendType(Random rnd, StringBuilder sb) {
+			int r = rnd.nextInt(16);
+			boolean isArray = r == 0;
+
+			if (isArray) {
+				sb.append('[');
+				r = rnd.nextInt(16);
+			}
+
+			char ret;
+
+			if (r < PRIMITIVES.length()) {
+				ret = PRIMITIVES.charAt(r);
+				sb.append(ret);
+			} else if (r < 11) {
+				sb.append("Ljava/lang/String;");
+				ret = 'L';
+			} else {
+				sb.append('L');
+				sb.append(srcClassName(rnd.nextInt(classCount)));
+				sb.append(';');
+				ret = 'L';
+			}
+
+			return isArray ? '[' : ret;
+		}
+
+		private final MappingVisitor visitor;
+		private final boolean fieldDstDescs;
+		private final boolean methodDstDescs;
+	}
+
+	/**
+	 * Get the source name of the class with the given index.
+	 */
+	public String srcClassName(int cls) {
+		int outer = outerClass(cls);
+
+		if (outer == cls) {
+			return obfName(cls);
+		} else {
+			return srcClassName(outer)+"$"+obfName(cls);
+		}
+	}
+
+	/**
+	 * Get the destination name of the class with the given index in the given namespace.
+	 */
+	public String dstClassName(int cls, int namespace) {
+		int outer = outerClass(cls);
+
+		if (outer != cls) {
+			return dstClassName(outer, namespace)+"$"+simpleDstClassName(cls, namespace);
+		} else if (namespace == 0) {
+			return "net/minecraft/"+simpleDstClassName(cls, namespace);
+		} else {
+			return String.format("net/minecraft/%s/%s", WORDS[cls % WORDS.length].toLowerCase(Locale.ENGLISH), simpleDstClassName(cls, namespace));
+		}
+	}
+
+	private String simpleDstClassName(int cls, int namespace) {
+		if (namespace == 0) {
+			return "class_"+cls;
+		} else {
+			return WORDS[(cls * 31 + namespace) % WORDS.length]+WORDS[(cls / WORDS.length + namespace) % WORDS.length]+cls;
+		}
+	}
+
+	private int outerClass(int cls) {
+		int ret = cls;
+
+		while (ret > 0 && new Random(classSeed(ret)).nextDouble() < innerClassDensity) {
+			ret--;
+		}
+
+		return ret;
+	}
+
+	private long classSeed(int cls) {
+		return seed * 1_000_003L + cls;
+	}
+
+	private String mapDesc(String desc, int namespace) {
+		StringBuilder ret = new StringBuilder(desc.length() * 2);
+		int start = 0;
+		int pos;
+
+		while ((pos = desc.indexOf('L', start)) >= 0) {
+			int end = desc.indexOf(';', pos);
+			ret.append(desc, start, pos + 1);
+			String cls = desc.substring(pos + 1, end);
+
+			if (cls.startsWith("java/")) {
+				ret.append(cls);
+			} else {
+				ret.append(dstClassName(obfIndex(cls.substring(cls.lastIndexOf('$') + 1)), namespace));
+			}
+
+			start = end;
+		}
+
+		ret.append(desc, start, desc.length());
+
+		return ret.toString();
+	}
+
+	/**
+	 * Encode {@code idx} as a lower case letter sequence: a, b, .., z, aa, ab, ..
+	 */
+	static String obfName(int idx) {
+		StringBuilder ret = new StringBuilder(4);
+		idx++;
+
+		do {
+			idx--;
+			ret.append((char) ('a' + idx % 26));
+			idx /= 26;
+		} while (idx > 0);
+
+		return ret.reverse().toString();
+	}
+
+	static int obfIndex(String name) {
+		int ret = 0;
+
+		for (int i = 0; i < name.length(); i++) {
+			ret = ret * 26 + (name.charAt(i) - 'a' + 1);
+		}
+
+		return ret - 1;
+	}
+
+	/**
+	 * Write synthetic mapping files.
+	 *
+	 * <p>Usage: {@code SyntheticMappings <outputDir> [key=value]...} with the keys classes, fields, methods, args,
+	 * vars, namespaces (dst namespace count), comments (density), inner (density), seed and formats (comma separated
+	 * {@link MappingFormat} names, all readable formats by default).
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length == 0) {
+			System.err.println("usage: SyntheticMappings <outputDir> [key=value]...");
+			System.exit(1);
+		}
+
+		Path dir = Paths.get(args[0]);
+		SyntheticMappings generator = new SyntheticMappings();
+		String formats = "TINY,TINY_2,ENIGMA,SRG,TSRG,TSRG2,PROGUARD";
+
+		for (int i = 1; i < args.length; i++) {
+			int pos = args[i].indexOf('=');
+			if (pos < 0) throw new IllegalArgumentException("invalid argument: "+args[i]);
+			String value = args[i].substring(pos + 1);
+
+			switch (args[i].substring(0, pos)) {
+			case "classes": generator.setClassCount(Integer.parseInt(value)); break;
+			case "fields": generator.setFieldsPerClass(Integer.parseInt(value)); break;
+			case "methods": generator.setMethodsPerClass(Integer.parseInt(value)); break;
+			case "args": generator.setArgsPerMethod(Integer.parseInt(value)); break;
+			case "vars": generator.setVarsPerMethod(Integer.parseInt(value)); break;
+			case "namespaces": generator.setDstNamespaceCount(Integer.parseInt(value)); break;
+			case "comments": generator.setCommentDensity(Double.parseDouble(value)); break;
+			case "inner": generator.setInnerClassDensity(Double.parseDouble(value)); break;
+			case "seed": generator.setSeed(Long.parseLong(value)); break;
+			case "formats": formats = value; break;
+			default: throw new IllegalArgumentException("unknown key: "+args[i]);
+			}
+		}
+
+		Files.createDirectories(dir);
+
+		for (String name : formats.split(",")) {
+			MappingFormat format = MappingFormat.valueOf(name.trim().toUpperCase(Locale.ENGLISH));
+			Path file = dir.resolve(format.hasSingleFile() ? format.name().toLowerCase(Locale.ENGLISH)+"."+format.fileExt : format.name().toLowerCase(Locale.ENGLISH));
+			long startTime = System.nanoTime();
+
+			generator.write(format, file);
+
+			System.out.printf("wrote %s in %d ms%n", file, (System.nanoTime() - startTime) / 1_000_000);
+		}
+	}
+
+	private static final String PRIMITIVES = "IZJDFBCS";
+	private static final String[] WORDS = { "Block", "Entity", "World", "Render", "Item", "Sound", "Network", "Util",
+			"Chunk", "Light", "Screen", "Model", "Biome", "Recipe", "Player", "Texture" };
+
+	private int classCount = 10_000;
+	private int fieldsPerClass = 5;
+	private int methodsPerClass = 5;
+	private int argsPerMethod = 2;
+	private int varsPerMethod = 0;
+	private int dstNamespaceCount = 2;
+	private String namespacePrefix = "";
+	private double commentDensity = 0;
+	private double innerClassDensity = 0.2;
+	private long seed = 1;
+}
@@ -0,0 +1,249 @@
+/*
+ * Copyright (c) 2021 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.mappingio.benchmark;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.fabricmc.mappingio.MappedElementKind;
+import net.fabricmc.mappingio.MappingVisitor;
+import net.fabricmc.mappingio.tree.CompactMappingTree;
+import net.fabricmc.mappingio.tree.DescriptorCache;
+import net.fabricmc.mappingio.tree.MappingTree.ClassMapping;
+import net.fabricmc.mappingio.tree.MappingTree.MethodMapping;
+import net.fabricmc.mappingio.tree.MemoryMappingTree;
+
+/**
+ * Throughput of the {@link MemoryMappingTree} query and traversal operations.
+ *
+ * <p>Each lookup benchmark iterates over all classes or methods of the tree once per invocation.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TreeBenchmark {
+	@Param("10000")
+	public int classes;
+
+	@Param("10")
+	public int membersPerClass;
+
+	@Param("2")
+	public int dstNamespaces;
+
+	@Param({ "false", "true" })
+	public boolean indexByDstNames;
+
+	private SyntheticMappings generator;
+	private SyntheticMappings extraGenerator;
+	private MemoryMappingTree tree;
+	private DescriptorCache descCache;
+	private String[] srcClassNames;
+	private String[] dstClassNames;
+	private String[] dstMethodOwners;
+	private String[] dstMethodNames;
+	private String[] dstMethodDescs;
+	private String[] srcMethodDescs;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		generator = BenchmarkMappings.generator(classes, membersPerClass, dstNamespaces);
+		extraGenerator = BenchmarkMappings.generator(classes, membersPerClass, dstNamespaces).setNamespacePrefix("extra_");
+		tree = generator.createTree();
+		tree.setIndexByDstNames(indexByDstNames);
+		descCache = new DescriptorCache(tree);
+
+		List<String> srcNames = new ArrayList<>();
+		List<String> dstNames = new ArrayList<>();
+		List<String> methodOwners = new ArrayList<>();
+		List<String> methodNames = new ArrayList<>();
+		List<String> methodDescs = new ArrayList<>();
+		List<String> methodSrcDescs = new ArrayList<>();
+
+		for (ClassMapping cls : tree.getClasses()) {
+			srcNames.add(cls.getSrcName());
+			dstNames.add(cls.getDstName(DST_NS));
+
+			for (MethodMapping method : cls.getMethods()) {
+				methodOwners.add(cls.getDstName(DST_NS));
+				methodNames.add(method.getDstName(DST_NS));
+				methodDescs.add(method.getDstDesc(DST_NS));
+				methodSrcDescs.add(method.getSrcDesc());
+			}
+		}
+
+		srcClassNames = srcNames.toArray(new String[0]);
+		dstClassNames = dstNames.toArray(new String[0]);
+		dstMethodOwners = methodOwners.toArray(new String[0]);
+		dstMethodNames = methodNames.toArray(new String[0]);
+		dstMethodDescs = methodDescs.toArray(new String[0]);
+		srcMethodDescs = methodSrcDescs.toArray(new String[0]);
+	}
+
+	/**
+	 * Populate a new tree directly from the generator without any I/O or parsing.
+	 */
+	@Benchmark
+	public MemoryMappingTree build() throws IOException {
+		MemoryMappingTree ret = new MemoryMappingTree(indexByDstNames);
+		generator.accept(ret);
+
+		return ret;
+	}
+
+	/**
+	 * Like {@link #build}, but populating a {@link CompactMappingTree}.
+	 */
+	@Benchmark
+	public CompactMappingTree buildCompact() throws IOException {
+		CompactMappingTree ret = new CompactMappingTree();
+		generator.accept(ret);
+
+		return ret;
+	}
+
+	/**
+	 * Like {@link #build}, but then merge in the same number of additional dst namespaces.
+	 */
+	@Benchmark
+	public MemoryMappingTree buildAndMerge() throws IOException {
+		MemoryMappingTree ret = new MemoryMappingTree(indexByDstNames);
+		generator.accept(ret);
+		extraGenerator.accept(ret);
+
+		return ret;
+	}
+
+	@Benchmark
+	public void accept(Blackhole bh) throws IOException {
+		tree.accept(new ConsumingVisitor(bh));
+	}
+
+	@Benchmark
+	public void getClassBySrcName(Blackhole bh) {
+		for (String name : srcClassNames) {
+			bh.consume(tree.getClass(name));
+		}
+	}
+
+	@Benchmark
+	public void getClassByDstName(Blackhole bh) {
+		for (String name : dstClassNames) {
+			bh.consume(tree.getClass(name, DST_NS));
+		}
+	}
+
+	@Benchmark
+	public void getMethodByDstName(Blackhole bh) {
+		for (int i = 0; i < dstMethodNames.length; i++) {
+			bh.consume(tree.getMethod(dstMethodOwners[i], dstMethodNames[i], dstMethodDescs[i], DST_NS));
+		}
+	}
+
+	@Benchmark
+	public void mapDesc(Blackhole bh) {
+		for (String desc : srcMethodDescs) {
+			bh.consume(tree.mapDesc(desc, DST_NS));
+		}
+	}
+
+	/**
+	 * Like {@link #mapDesc}, but going through a {@link DescriptorCache} of the default capacity.
+	 */
+	@Benchmark
+	public void mapDescCached(Blackhole bh) {
+		for (String desc : srcMethodDescs) {
+			bh.consume(descCache.mapDesc(desc, DST_NS));
+		}
+	}
+
+	private static final class ConsumingVisitor implements MappingVisitor {
+		ConsumingVisitor(Blackhole bh) {
+			this.bh = bh;
+		}
+
+		@Override
+		public void visitNamespaces(String srcNamespace, List<String> dstNamespaces) {
+			bh.consume(dstNamespaces);
+		}
+
+		@Override
+		public boolean visitClass(String srcName) {
+			bh.consume(srcName);
+			return true;
+		}
+
+		@Override
+		public boolean visitField(String srcName, String srcDesc) {
+			bh.consume(srcName);
+			bh.consume(srcDesc);
+			return true;
+		}
+
+		@Override
+		public boolean visitMethod(String srcName, String srcDesc) {
+			bh.consume(srcName);
+			bh.consume(srcDesc);
+			return true;
+		}
+
+		@Override
+		public boolean visitMethodArg(int argPosition, int lvIndex, String srcName) {
+			bh.consume(lvIndex);
+			return true;
+		}
+
+		@Override
+		public boolean visitMethodVar(int lvtRowIndex, int lvIndex, int startOpIdx, String srcName) {
+			bh.consume(lvIndex);
+			return true;
+		}
+
+		@Override
+		public void visitDstName(MappedElementKind targetKind, int namespace, String name) {
+			bh.consume(name);
+		}
+
+		@Override
+		public void visitComment(MappedElementKind targetKind, String comment) {
+			bh.consume(comment);
+		}
+
+		private final Blackhole bh;
+	}
+
+	private static final int DST_NS = 1;
+}
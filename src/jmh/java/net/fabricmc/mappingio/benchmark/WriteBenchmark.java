@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2021 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.mappingio.benchmark;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.fabricmc.mappingio.MappingWriter;
+import net.fabricmc.mappingio.format.EnigmaWriter;
+import net.fabricmc.mappingio.format.MappingFormat;
+import net.fabricmc.mappingio.format.Tiny1Writer;
+import net.fabricmc.mappingio.format.Tiny2Writer;
+import net.fabricmc.mappingio.tree.MemoryMappingTree;
+
+/**
+ * Throughput of {@link Tiny1Writer}, {@link Tiny2Writer} and {@link EnigmaWriter} fed from a {@link MemoryMappingTree}.
+ *
+ * <p>The single file writers output to a discarding {@link Writer} to exclude disk I/O, the Enigma writer has to
+ * output to a temporary directory.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WriteBenchmark {
+	@Param({ "TINY", "TINY_2", "ENIGMA" })
+	public MappingFormat format;
+
+	@Param("10000")
+	public int classes;
+
+	@Param("10")
+	public int membersPerClass;
+
+	@Param("2")
+	public int dstNamespaces;
+
+	private MemoryMappingTree tree;
+	private Path dir;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		tree = BenchmarkMappings.generator(classes, membersPerClass, dstNamespaces).createTree();
+		dir = Files.createTempDirectory("mappingio-bench");
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		BenchmarkMappings.deleteRecursively(dir);
+	}
+
+	@Benchmark
+	public void write() throws IOException {
+		MappingWriter writer;
+
+		switch (format) {
+		case TINY:
+			writer = new Tiny1Writer(new NullWriter());
+			break;
+		case TINY_2:
+			writer = new Tiny2Writer(new NullWriter(), false);
+			break;
+		case ENIGMA:
+			writer = new EnigmaWriter(dir.resolve("enigma"), true);
+			break;
+		default:
+			throw new IllegalStateException();
+		}
+
+		try (MappingWriter w = writer) {
+			tree.accept(w);
+		}
+	}
+
+	private static final class NullWriter extends Writer {
+		@Override
+		public void write(int c) { }
+
+		@Override
+		public void write(String str, int off, int len) { }
+
+		@Override
+		public void write(char[] cbuf, int off, int len) { }
+
+		@Override
+		public void flush() { }
+
+		@Override
+		public void close() { }
+	}
+}
@@ -0,0 +1,380 @@
+/*
+ * Copyright (c) 2021 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.mappingio;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import net.fabricmc.mappingio.format.MappingFormat;
+import net.fabricmc.mappingio.format.MioBinaryReader;
+import net.fabricmc.mappingio.format.MioBinaryWriter;
+import net.fabricmc.mappingio.tree.MemoryMappingTree;
+
+/**
+ * Content addressed on-disk cache of parsed mapping trees.
+ *
+ * <p>Entries are keyed by a hash of the source files and a caller supplied configuration string describing how the
+ * tree is derived from them, e.g. the adapter chain. Regular files are hashed by content, directories (Enigma) by
+ * their file list with sizes and modification times. Trees are stored in the {@link MappingFormat#MIO_BINARY} format,
+ * which loads considerably faster than re-parsing and re-merging the text sources.
+ *
+ * <p>Entries are written to a temporary file and atomically moved into place, multiple processes may thus share the
+ * same cache directory. Every entry ends with a trailer holding the payload's length and CRC32, damaged entries are
+ * treated as a cache miss and recreated. The cache size is bounded by evicting the least recently used entries after
+ * every write, temporary files left behind by crashed processes are removed along the way.
+ */
+public final class MappingCache {
+	public MappingCache(Path dir, long maxSize) {
+		if (maxSize < 0) throw new IllegalArgumentException("invalid max size: "+maxSize);
+
+		this.dir = dir;
+		this.maxSize = maxSize;
+	}
+
+	public Path getDirectory() {
+		return dir;
+	}
+
+	public long getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * Read a mapping file or directory through the cache, see {@link MappingReader#read(Path, MappingFormat, MappingVisitor)}.
+	 *
+	 * @param format the format or null to detect it
+	 */
+	public MemoryMappingTree read(Path file, MappingFormat format) throws IOException {
+		return load(Collections.singletonList(file), "read:"+format, tree -> MappingReader.read(file, format, tree));
+	}
+
+	/**
+	 * Obtain a tree derived from the supplied sources, loading it from the cache if possible.
+	 *
+	 * @param sources the files and directories the tree is derived from
+	 * @param config description of everything besides the sources affecting the result, e.g. adapter configuration
+	 * @param loader creates the tree from the sources on a cache miss
+	 */
+	public MemoryMappingTree load(List<Path> sources, String config, Loader loader) throws IOException {
+		Path file = dir.resolve(computeKey(sources, config)+FILE_SUFFIX);
+
+		if (Files.isRegularFile(file)) {
+			MemoryMappingTree ret = new MemoryMappingTree();
+
+			try {
+				MioBinaryReader.read(readEntry(file), ret);
+				touch(file);
+
+				return ret;
+			} catch (IOException | RuntimeException e) {
+				// corrupted or concurrently evicted entry, recreate it
+				Files.deleteIfExists(file);
+			}
+		}
+
+		MemoryMappingTree ret = new MemoryMappingTree();
+		loader.load(ret);
+		store(ret, file);
+
+		return ret;
+	}
+
+	/**
+	 * Delete all cache entries and stale temporary files.
+	 */
+	public void clear() throws IOException {
+		for (Path file : listEntries()) {
+			Files.deleteIfExists(file);
+		}
+
+		for (Path file : listTempFiles()) {
+			try {
+				deleteIfStale(file, Files.readAttributes(file, BasicFileAttributes.class));
+			} catch (IOException e) {
+				// moved into place or deleted by its writer meanwhile
+			}
+		}
+	}
+
+	/**
+	 * Read an entry's payload after validating its trailer.
+	 *
+	 * @throws IOException if the entry is truncated or its content doesn't match the checksum
+	 */
+	private static ByteBuffer readEntry(Path file) throws IOException {
+		byte[] data = Files.readAllBytes(file);
+		int payloadLen = data.length - TRAILER_SIZE;
+		if (payloadLen < 0) throw new IOException("truncated cache entry "+file);
+
+		ByteBuffer trailer = ByteBuffer.wrap(data, payloadLen, TRAILER_SIZE); // big endian
+		long storedLen = trailer.getLong();
+		int storedCrc = trailer.getInt();
+
+		CRC32 crc = new CRC32();
+		crc.update(data, 0, payloadLen);
+
+		if (storedLen != payloadLen || storedCrc != (int) crc.getValue()) {
+			throw new IOException("corrupted cache entry "+file);
+		}
+
+		return ByteBuffer.wrap(data, 0, payloadLen);
+	}
+
+	private String computeKey(List<Path> sources, String config) throws IOException {
+		MessageDigest digest;
+
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+
+		update(digest, KEY_VERSION);
+		update(digest, config);
+
+		for (Path source : sources) {
+			if (Files.isDirectory(source)) {
+				update(digest, "dir");
+				List<Path> files;
+
+				try (Stream<Path> stream = Files.walk(source)) {
+					files = stream.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+				}
+
+				for (Path file : files) {
+					BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+					update(digest, source.relativize(file).toString().replace(source.getFileSystem().getSeparator(), "/"));
+					update(digest, Long.toString(attrs.size()));
+					update(digest, Long.toString(attrs.lastModifiedTime().toMillis()));
+				}
+			} else {
+				update(digest, "file");
+
+				try (InputStream is = Files.newInputStream(source)) {
+					byte[] buffer = new byte[65536];
+					int len;
+
+					while ((len = is.read(buffer)) >= 0) {
+						digest.update(buffer, 0, len);
+					}
+				}
+			}
+		}
+
+		StringBuilder ret = new StringBuilder(64);
+
+		for (byte b : digest.digest()) {
+			ret.append(Character.forDigit(b >>> 4 & 0xf, 16));
+			ret.append(Character.forDigit(b & 0xf, 16));
+		}
+
+		return ret.toString();
+	}
+
+	private static void update(MessageDigest digest, String value) {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		int len = bytes.length;
+
+		digest.update(new byte[] { (byte) (len >>> 24), (byte) (len >>> 16), (byte) (len >>> 8), (byte) len });
+		digest.update(bytes);
+	}
+
+	private void store(MemoryMappingTree tree, Path file) throws IOException {
+		Files.createDirectories(dir);
+		Path tmp = Files.createTempFile(dir, TMP_PREFIX, TMP_SUFFIX);
+
+		try {
+			try (MappingWriter writer = new MioBinaryWriter(new EntryOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp))))) {
+				tree.accept(writer);
+			}
+
+			try {
+				Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(tmp);
+		}
+
+		evict();
+	}
+
+	/**
+	 * Delete the least recently used entries until the cache size is within bounds.
+	 *
+	 * <p>Temporary files of writes in progress count towards the size, stale ones are deleted.
+	 */
+	private void evict() throws IOException {
+		List<Path> files = listEntries();
+		List<BasicFileAttributes> attrs = new ArrayList<>(files.size());
+		long size = 0;
+
+		for (Path file : files) {
+			BasicFileAttributes attr = Files.readAttributes(file, BasicFileAttributes.class);
+			attrs.add(attr);
+			size += attr.size();
+		}
+
+		for (Path file : listTempFiles()) {
+			BasicFileAttributes attr;
+
+			try {
+				attr = Files.readAttributes(file, BasicFileAttributes.class);
+			} catch (IOException e) {
+				continue; // moved into place or deleted by its writer meanwhile
+			}
+
+			if (!deleteIfStale(file, attr)) size += attr.size();
+		}
+
+		if (size <= maxSize) return;
+
+		List<Integer> order = new ArrayList<>(files.size());
+		for (int i = 0; i < files.size(); i++) order.add(i);
+		order.sort(Comparator.comparing(i -> attrs.get(i).lastModifiedTime()));
+
+		for (int i : order) {
+			if (size <= maxSize) break;
+
+			try {
+				Files.deleteIfExists(files.get(i));
+			} catch (IOException e) {
+				continue; // in use by another process, try the next one
+			}
+
+			size -= attrs.get(i).size();
+		}
+	}
+
+	/**
+	 * Delete a temporary file if it is too old to still belong to a write in progress.
+	 *
+	 * @return whether the file was stale and got deleted
+	 */
+	private static boolean deleteIfStale(Path file, BasicFileAttributes attr) {
+		if (System.currentTimeMillis() - attr.lastModifiedTime().toMillis() < STALE_TMP_AGE) return false;
+
+		try {
+			Files.deleteIfExists(file);
+			return true;
+		} catch (IOException e) {
+			return false; // still in use
+		}
+	}
+
+	private List<Path> listEntries() throws IOException {
+		return list("*"+FILE_SUFFIX);
+	}
+
+	private List<Path> listTempFiles() throws IOException {
+		return list(TMP_PREFIX+"*"+TMP_SUFFIX);
+	}
+
+	private List<Path> list(String glob) throws IOException {
+		List<Path> ret = new ArrayList<>();
+		if (!Files.isDirectory(dir)) return ret;
+
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, glob)) {
+			for (Path file : stream) {
+				ret.add(file);
+			}
+		}
+
+		return ret;
+	}
+
+	private static void touch(Path file) {
+		try {
+			Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+		} catch (IOException e) {
+			// not essential, only affects the eviction order
+		}
+	}
+
+	/**
+	 * Stream appending the entry trailer with the written payload's length and CRC32 upon closing.
+	 */
+	private static final class EntryOutputStream extends FilterOutputStream {
+		EntryOutputStream(OutputStream out) {
+			super(out);
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			out.write(b);
+			crc.update(b);
+			length++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			out.write(b, off, len);
+			crc.update(b, off, len);
+			length += len;
+		}
+
+		@Override
+		public void close() throws IOException {
+			try (OutputStream os = out) {
+				ByteBuffer trailer = ByteBuffer.allocate(TRAILER_SIZE);
+				trailer.putLong(length);
+				trailer.putInt((int) crc.getValue());
+				os.write(trailer.array());
+			}
+		}
+
+		private final CRC32 crc = new CRC32();
+		private long length;
+	}
+
+	@FunctionalInterface
+	public interface Loader {
+		void load(MemoryMappingTree tree) throws IOException;
+	}
+
+	private static final String KEY_VERSION = "mappingio-cache-2";
+	private static final String FILE_SUFFIX = ".mio";
+	private static final String TMP_PREFIX = "tmp";
+	private static final String TMP_SUFFIX = ".tmp";
+	private static final int TRAILER_SIZE = 8 + 4; // payload length, crc32
+	private static final long STALE_TMP_AGE = 60 * 60 * 1000; // 1 hour in ms, no write takes that long
+
+	private final Path dir;
+	private final long maxSize;
+}
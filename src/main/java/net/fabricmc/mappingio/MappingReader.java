@@ -28,6 +28,7 @@ import java.util.List;
 
 import net.fabricmc.mappingio.format.EnigmaReader;
 import net.fabricmc.mappingio.format.MappingFormat;
+import net.fabricmc.mappingio.format.MioBinaryReader;
 import net.fabricmc.mappingio.format.ProGuardReader;
 import net.fabricmc.mappingio.format.SrgReader;
 import net.fabricmc.mappingio.format.Tiny1Reader;
@@ -64,6 +65,8 @@ public final class MappingReader {
 			return MappingFormat.TINY_2;
 		case "tsr": // tsrg2 <nsA> <nsB> ..<nsN>
 			return MappingFormat.TSRG2;
+		case "\0MI": // binary magic \0MIO
+			return MappingFormat.MIO_BINARY;
 		case "PK:":
 		case "CL:":
 		case "MD:":
@@ -92,7 +95,9 @@ public final class MappingReader {
 			if (format == null) throw new IOException("invalid/unsupported mapping format");
 		}
 
-		if (format.hasNamespaces) {
+		if (format == MappingFormat.MIO_BINARY) {
+			return MioBinaryReader.getNamespaces(file);
+		} else if (format.hasNamespaces) {
 			try (Reader reader = Files.newBufferedReader(file)) {
 				return getNamespaces(reader, format);
 			}
@@ -122,6 +127,8 @@ public final class MappingReader {
 				return Tiny2Reader.getNamespaces(reader);
 			case TSRG2:
 				return TsrgReader.getNamespaces(reader);
+			case MIO_BINARY:
+				throw new IllegalArgumentException("format "+format+" is not applicable to a character stream");
 			default:
 				throw new IllegalStateException();
 			}
@@ -141,8 +148,27 @@ public final class MappingReader {
 		}
 
 		if (format.hasSingleFile()) {
-			try (Reader reader = Files.newBufferedReader(file)) {
-				read(reader, format, visitor);
+			switch (format) {
+			case TINY:
+				Tiny1Reader.read(file, visitor);
+				break;
+			case TINY_2:
+				Tiny2Reader.read(file, visitor);
+				break;
+			case SRG:
+				SrgReader.read(file, visitor);
+				break;
+			case TSRG:
+			case TSRG2:
+				TsrgReader.read(file, visitor);
+				break;
+			case MIO_BINARY:
+				MioBinaryReader.read(file, visitor);
+				break;
+			default:
+				try (Reader reader = Files.newBufferedReader(file)) {
+					read(reader, format, visitor);
+				}
 			}
 		} else {
 			switch (format) {
@@ -187,6 +213,8 @@ public final class MappingReader {
 		case PROGUARD:
 			ProGuardReader.read(reader, visitor);
 			break;
+		case MIO_BINARY:
+			throw new IllegalArgumentException("format "+format+" is not applicable to a character stream");
 		default:
 			throw new IllegalStateException();
 		}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2021 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.mappingio;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Pool for canonicalizing names, descriptors and similar strings.
+ *
+ * <p>Mapping data contains many repeated strings, e.g. common descriptors, owner names or arg names. Sharing one
+ * instance per distinct value reduces the retained size of loaded mappings considerably. Strings can be interned
+ * directly from character or byte data, which avoids creating a temporary {@link String} if the value is already
+ * present.
+ *
+ * <p>The pool is not thread safe, it has to be confined to one thread or externally synchronized.
+ */
+public final class MappingStringPool {
+	public MappingStringPool() {
+		this(1024);
+	}
+
+	public MappingStringPool(int expectedSize) {
+		int capacity = Integer.highestOneBit(Math.max(expectedSize, 8) * 2 - 1) << 1;
+		strings = new String[capacity];
+		hashes = new int[capacity];
+	}
+
+	/**
+	 * Get the canonical instance for str, adding it to the pool if absent.
+	 */
+	public String intern(String str) {
+		if (str == null) return null;
+
+		int hash = str.hashCode();
+		int mask = strings.length - 1;
+
+		for (int i = mix(hash) & mask; ; i = (i + 1) & mask) {
+			String s = strings[i];
+
+			if (s == null) {
+				add(i, hash, str);
+				return str;
+			} else if (s == str || hashes[i] == hash && s.equals(str)) {
+				return s;
+			}
+		}
+	}
+
+	/**
+	 * Get the canonical instance for the characters buffer[offset..offset+length), creating it if absent.
+	 */
+	public String intern(char[] buffer, int offset, int length) {
+		int hash = 0;
+
+		for (int i = 0; i < length; i++) {
+			hash = 31 * hash + buffer[offset + i];
+		}
+
+		int mask = strings.length - 1;
+
+		probeLoop: for (int i = mix(hash) & mask; ; i = (i + 1) & mask) {
+			String s = strings[i];
+
+			if (s == null) {
+				String ret = new String(buffer, offset, length);
+				add(i, hash, ret);
+
+				return ret;
+			} else if (hashes[i] == hash && s.length() == length) {
+				for (int j = 0; j < length; j++) {
+					if (s.charAt(j) != buffer[offset + j]) continue probeLoop;
+				}
+
+				return s;
+			}
+		}
+	}
+
+	/**
+	 * Get the canonical instance for the ISO 8859-1 (and thus also ASCII) encoded bytes
+	 * buffer[offset..offset+length), creating it if absent.
+	 */
+	public String internLatin1(byte[] buffer, int offset, int length) {
+		int hash = 0;
+
+		for (int i = 0; i < length; i++) {
+			hash = 31 * hash + (buffer[offset + i] & 0xff);
+		}
+
+		int mask = strings.length - 1;
+
+		probeLoop: for (int i = mix(hash) & mask; ; i = (i + 1) & mask) {
+			String s = strings[i];
+
+			if (s == null) {
+				String ret = new String(buffer, offset, length, StandardCharsets.ISO_8859_1);
+				add(i, hash, ret);
+
+				return ret;
+			} else if (hashes[i] == hash && s.length() == length) {
+				for (int j = 0; j < length; j++) {
+					if (s.charAt(j) != (buffer[offset + j] & 0xff)) continue probeLoop;
+				}
+
+				return s;
+			}
+		}
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public void clear() {
+		for (int i = 0; i < strings.length; i++) {
+			strings[i] = null;
+		}
+
+		size = 0;
+	}
+
+	private void add(int idx, int hash, String str) {
+		strings[idx] = str;
+		hashes[idx] = hash;
+
+		if (++size * 2 > strings.length) { // keep the load factor <= 0.5 for short probe sequences
+			String[] oldStrings = strings;
+			int[] oldHashes = hashes;
+			int mask = oldStrings.length * 2 - 1;
+			strings = new String[oldStrings.length * 2];
+			hashes = new int[strings.length];
+
+			for (int i = 0; i < oldStrings.length; i++) {
+				String s = oldStrings[i];
+				if (s == null) continue;
+
+				int h = oldHashes[i];
+				int j = mix(h) & mask;
+
+				while (strings[j] != null) {
+					j = (j + 1) & mask;
+				}
+
+				strings[j] = s;
+				hashes[j] = h;
+			}
+		}
+	}
+
+	private static int mix(int hash) {
+		hash *= 0x9e3779b9; // String.hashCode has poor low bits for short strings, spread them
+
+		return hash ^ hash >>> 16;
+	}
+
+	private String[] strings;
+	private int[] hashes;
+	private int size;
+}
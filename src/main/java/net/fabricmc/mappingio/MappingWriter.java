@@ -24,12 +24,15 @@ import java.nio.file.Path;
 
 import net.fabricmc.mappingio.format.EnigmaWriter;
 import net.fabricmc.mappingio.format.MappingFormat;
+import net.fabricmc.mappingio.format.MioBinaryWriter;
 import net.fabricmc.mappingio.format.Tiny1Writer;
 import net.fabricmc.mappingio.format.Tiny2Writer;
 
 public interface MappingWriter extends Closeable, MappingVisitor {
 	static MappingWriter create(Path file, MappingFormat format) throws IOException {
-		if (format.hasSingleFile()) {
+		if (format == MappingFormat.MIO_BINARY) {
+			return new MioBinaryWriter(Files.newOutputStream(file));
+		} else if (format.hasSingleFile()) {
 			return create(Files.newBufferedWriter(file), format);
 		} else {
 			switch (format) {
@@ -41,6 +44,7 @@ public interface MappingWriter extends Closeable, MappingVisitor {
 
 	static MappingWriter create(Writer writer, MappingFormat format) throws IOException {
 		if (!format.hasSingleFile()) throw new IllegalArgumentException("format "+format+" is not applicable to a single writer");
+		if (format == MappingFormat.MIO_BINARY) throw new IllegalArgumentException("format "+format+" is not applicable to a character stream");
 
 		switch (format) {
 		case TINY: return new Tiny1Writer(writer);
@@ -29,6 +29,9 @@ import net.fabricmc.mappingio.MappedElementKind;
 import net.fabricmc.mappingio.MappingFlag;
 import net.fabricmc.mappingio.MappingUtil;
 import net.fabricmc.mappingio.MappingVisitor;
+import net.fabricmc.mappingio.tree.MappingTreeView;
+import net.fabricmc.mappingio.tree.MappingTreeView.ClassMappingView;
+import net.fabricmc.mappingio.tree.MemoryMappingTree;
 
 /**
  * Adapter switching the source namespace with one of the destination namespaces.
@@ -39,6 +42,13 @@ import net.fabricmc.mappingio.MappingVisitor;
  * <p>After gathering the class map, the implementation delays src-named visit* invocations until the replacement dst
  * name is known, then replays it with the adjusted names.
  *
+ * <p>If the class names are available through a {@link MappingTreeView}, e.g. when visiting a tree, the class map may
+ * be supplied as {@code classMapSource} in the constructor instead. Descriptors are then remapped by looking up the
+ * classes in that tree, which avoids the pre-pass. Classes visited without their newSourceNs name, e.g. repeated
+ * visits of a class only to supply its members, get that name from the tree as well. Uniqueness is left to the
+ * input as requested by the next visitor. This should be combined with {@link MemoryMappingTree#setIndexByDstNames}
+ * to avoid linear lookups by destination name.
+ *
  * <p>By default elements without a name in newSourceNs will keep using the original srcName. This behavior can be
  * changed by setting {@code dropMissingNewSrcName} to true in the constructor.
  */
@@ -55,15 +65,30 @@ public final class MappingSourceNsSwitch extends ForwardingMappingVisitor {
 	 * @param dropMissingNewSrcName whether to drop elements without a name in newSourceNs, will use original srcName otherwise
 	 */
 	public MappingSourceNsSwitch(MappingVisitor next, String newSourceNs, boolean dropMissingNewSrcName) {
+		this(next, newSourceNs, dropMissingNewSrcName, null);
+	}
+
+	/**
+	 * Create a new MappingSourceNsSwitch instance using a tree to remap descriptors in a single pass.
+	 *
+	 * @param next MappingVisitor to pass the output to
+	 * @param newSourceNs namespace to use for the new source name
+	 * @param dropMissingNewSrcName whether to drop elements without a name in newSourceNs, will use original srcName otherwise
+	 * @param classMapSource tree containing the class names in the visited source namespace and newSourceNs, or null
+	 * to gather the class map in a pre-pass
+	 */
+	public MappingSourceNsSwitch(MappingVisitor next, String newSourceNs, boolean dropMissingNewSrcName, MappingTreeView classMapSource) {
 		super(next);
 
 		this.newSourceNsName = newSourceNs;
 		this.dropMissingNewSrcName = dropMissingNewSrcName;
+		this.classMapSource = classMapSource;
+		this.classMapReady = classMapSource != null;
 	}
 
 	@Override
 	public Set<MappingFlag> getFlags() {
-		if (passThrough) {
+		if (passThrough || classMapSource != null) {
 			return next.getFlags();
 		} else {
 			Set<MappingFlag> ret = EnumSet.noneOf(MappingFlag.class);
@@ -77,7 +102,7 @@ public final class MappingSourceNsSwitch extends ForwardingMappingVisitor {
 
 	@Override
 	public void reset() {
-		classMapReady = false;
+		classMapReady = classMapSource != null;
 		passThrough = false;
 		classMap.clear();
 
@@ -86,43 +111,57 @@ public final class MappingSourceNsSwitch extends ForwardingMappingVisitor {
 
 	@Override
 	public boolean visitHeader() throws IOException {
-		if (!classMapReady) return true;
+		if (!classMapReady || classMapSource != null) return true; // namespaces are needed to decide whether to pass through
 
 		return next.visitHeader();
 	}
 
 	@Override
 	public void visitNamespaces(String srcNamespace, List<String> dstNamespaces) throws IOException {
-		if (!classMapReady) {
+		if (!classMapReady || classMapSource != null) {
 			if (srcNamespace.equals(newSourceNsName)) {
 				classMapReady = true;
 				passThrough = true;
 				relayHeaderOrMetadata = next.visitHeader();
 
 				if (relayHeaderOrMetadata) next.visitNamespaces(srcNamespace, dstNamespaces);
-			} else {
-				newSourceNs = dstNamespaces.indexOf(newSourceNsName);
-				if (newSourceNs < 0) throw new RuntimeException("invalid new source ns "+newSourceNsName+": not in "+dstNamespaces+" or "+srcNamespace);
 
-				oldSourceNsName = srcNamespace;
+				return;
+			}
+
+			newSourceNs = dstNamespaces.indexOf(newSourceNsName);
+			if (newSourceNs < 0) throw new RuntimeException("invalid new source ns "+newSourceNsName+": not in "+dstNamespaces+" or "+srcNamespace);
 
-				int count = dstNamespaces.size();
-				dstNames = new String[count];
+			oldSourceNsName = srcNamespace;
+
+			int count = dstNamespaces.size();
+			dstNames = new String[count];
+
+			if (classMapSource == null) return; // relayed in the next pass
+
+			classMapSrcNs = classMapSource.getNamespaceId(srcNamespace);
+			classMapDstNs = classMapSource.getNamespaceId(newSourceNsName);
+
+			if (classMapSrcNs == MappingTreeView.NULL_NAMESPACE_ID || classMapDstNs == MappingTreeView.NULL_NAMESPACE_ID) {
+				throw new RuntimeException("class map source lacks namespace "+srcNamespace+" or "+newSourceNsName);
 			}
+
+			relayHeaderOrMetadata = next.visitHeader();
+			if (!relayHeaderOrMetadata) return;
 		} else {
 			relayHeaderOrMetadata = true; // if next.visitHeader didn't return true in visitHeader, visitNamespaces wouldn't have been called
+		}
 
-			List<String> newDstNamespaces = new ArrayList<>(dstNamespaces);
-			newDstNamespaces.set(newSourceNs, oldSourceNsName);
-			next.visitNamespaces(newSourceNsName, newDstNamespaces);
+		List<String> newDstNamespaces = new ArrayList<>(dstNamespaces);
+		newDstNamespaces.set(newSourceNs, oldSourceNsName);
+		next.visitNamespaces(newSourceNsName, newDstNamespaces);
 
-			Set<MappingFlag> flags = next.getFlags();
+		Set<MappingFlag> flags = next.getFlags();
 
-			if (flags.contains(MappingFlag.NEEDS_DST_FIELD_DESC) || flags.contains(MappingFlag.NEEDS_DST_METHOD_DESC)) {
-				dstDescs = new String[dstNamespaces.size()];
-			} else {
-				dstDescs = null;
-			}
+		if (flags.contains(MappingFlag.NEEDS_DST_FIELD_DESC) || flags.contains(MappingFlag.NEEDS_DST_METHOD_DESC)) {
+			dstDescs = new String[dstNamespaces.size()];
+		} else {
+			dstDescs = null;
 		}
 	}
 
@@ -239,6 +278,11 @@ public final class MappingSourceNsSwitch extends ForwardingMappingVisitor {
 
 		String dstName = dstNames[newSourceNs];
 
+		if (dstName == null && targetKind == MappedElementKind.CLASS && classMapSource != null) {
+			ClassMappingView cls = classMapSource.getClass(srcName, classMapSrcNs);
+			if (cls != null) dstName = cls.getName(classMapDstNs);
+		}
+
 		if (dstName == null
 				&& targetKind != MappedElementKind.METHOD_ARG && targetKind != MappedElementKind.METHOD_VAR) { // src name is optional for arg/var, leave as null
 			if (dropMissingNewSrcName) {
@@ -257,10 +301,10 @@ public final class MappingSourceNsSwitch extends ForwardingMappingVisitor {
 			relay = next.visitClass(dstName);
 			break;
 		case FIELD:
-			relay = next.visitField(dstName, srcDesc != null ? MappingUtil.mapDesc(srcDesc, classMap) : null);
+			relay = next.visitField(dstName, srcDesc != null ? mapDesc(srcDesc) : null);
 			break;
 		case METHOD:
-			relay = next.visitMethod(dstName, srcDesc != null ? MappingUtil.mapDesc(srcDesc, classMap) : null);
+			relay = next.visitMethod(dstName, srcDesc != null ? mapDesc(srcDesc) : null);
 			break;
 		case METHOD_ARG:
 			relay = next.visitMethodArg(argIdx, lvIndex, dstName);
@@ -299,8 +343,19 @@ public final class MappingSourceNsSwitch extends ForwardingMappingVisitor {
 		return relay;
 	}
 
+	private String mapDesc(String desc) {
+		if (classMapSource != null) {
+			return classMapSource.mapDesc(desc, classMapSrcNs, classMapDstNs);
+		} else {
+			return MappingUtil.mapDesc(desc, classMap);
+		}
+	}
+
 	private final String newSourceNsName;
 	private final boolean dropMissingNewSrcName;
+	private final MappingTreeView classMapSource;
+	private int classMapSrcNs;
+	private int classMapDstNs;
 
 	private int newSourceNs;
 	private String oldSourceNsName;
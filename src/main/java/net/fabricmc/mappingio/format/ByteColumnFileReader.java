@@ -0,0 +1,329 @@
+/*
+ * Copyright (c) 2021 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.mappingio.format;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+import net.fabricmc.mappingio.MappingStringPool;
+
+/**
+ * {@link ColumnReader} operating directly on UTF-8 encoded bytes of a file read into memory or memory mapped.
+ *
+ * <p>Separators and line breaks are located on the raw bytes, only columns that are actually requested get decoded
+ * into strings. The readable region is the buffer's position to its limit, the buffer itself is never modified.
+ */
+final class ByteColumnFileReader implements ColumnReader {
+	ByteColumnFileReader(ByteBuffer buffer, char columnSeparator) {
+		this(buffer, buffer.position(), buffer.limit(), 1, columnSeparator);
+	}
+
+	/**
+	 * Create a reader for the region start..end of buffer, reporting lineNumber for the line containing start.
+	 */
+	ByteColumnFileReader(ByteBuffer buffer, int start, int end, int lineNumber, char columnSeparator) {
+		if (columnSeparator >= 0x80) throw new IllegalArgumentException("non-ascii column separator");
+
+		this.buffer = buffer;
+		this.array = buffer.hasArray() ? buffer.array() : null;
+		this.arrayOffset = array != null ? buffer.arrayOffset() : 0;
+		this.columnSeparator = (byte) columnSeparator;
+		this.pos = start;
+		this.limit = end;
+		this.lineNumber = lineNumber;
+	}
+
+	@Override
+	public void close() {
+		// mapped buffers can't be unmapped explicitly, the mapping gets released once the buffer is unreachable
+	}
+
+	@Override
+	public boolean nextCol(String expect) {
+		if (eol) return false;
+
+		int len = expect.length();
+		int end = pos + len;
+		if (end > limit) return false;
+
+		for (int i = 0; i < len; i++) {
+			if (buffer.get(pos + i) != expect.charAt(i)) return false; // expect is ascii, any non-ascii byte mismatches
+		}
+
+		byte trailing = 0;
+
+		if (end < limit // not eof
+				&& (trailing = buffer.get(end)) != columnSeparator // not end of column
+				&& trailing != '\n' // not end of line
+				&& trailing != '\r') {
+			return false; // read failed, column contains data beyond expect
+		}
+
+		// successful read
+
+		pos = end;
+
+		// seek to the start of the next column
+		if (end < limit && trailing == columnSeparator) {
+			pos++;
+		} else {
+			eol = true;
+		}
+
+		return true;
+	}
+
+	@Override
+	public String nextCol() throws IOException {
+		return nextCol(false);
+	}
+
+	@Override
+	public String nextEscapedCol() throws IOException {
+		return nextCol(true);
+	}
+
+	@Override
+	public String nextCol(boolean unescape) throws IOException {
+		if (eol) return null;
+
+		int start = pos;
+		int end = start;
+		int bits = 0;
+		boolean escaped = false;
+
+		while (end < limit) {
+			byte b = buffer.get(end);
+			if (b == columnSeparator || b == '\n' || b == '\r') break; // end of the current column
+
+			bits |= b;
+			if (b == '\\') escaped = true;
+			end++;
+		}
+
+		// seek to the start of the next column
+		if (end < limit && buffer.get(end) == columnSeparator) {
+			pos = end + 1;
+		} else {
+			pos = end;
+			eol = true;
+		}
+
+		return decode(start, end, bits < 0, unescape && escaped, true);
+	}
+
+	@Override
+	public String nextCols(boolean unescape) throws IOException {
+		if (eol) return null;
+
+		int start = pos;
+		int end = start;
+		int bits = 0;
+		boolean escaped = false;
+
+		while (end < limit) {
+			byte b = buffer.get(end);
+			if (b == '\n' || b == '\r') break;
+
+			bits |= b;
+			if (b == '\\') escaped = true;
+			end++;
+		}
+
+		pos = end;
+		eol = true;
+
+		return decode(start, end, bits < 0, unescape && escaped, false);
+	}
+
+	@Override
+	public int nextIntCol() throws IOException {
+		if (eol) return -1;
+
+		// fast path for plain non-negative decimals that can't overflow, everything else is delegated to Integer.parseInt
+
+		int end = pos;
+		int ret = 0;
+
+		while (end < limit && end - pos < 9) {
+			byte b = buffer.get(end);
+			if (b < '0' || b > '9') break;
+
+			ret = ret * 10 + (b - '0');
+			end++;
+		}
+
+		if (end > pos) {
+			byte trailing = end < limit ? buffer.get(end) : (byte) '\n';
+
+			if (trailing == columnSeparator) {
+				pos = end + 1;
+				return ret;
+			} else if (trailing == '\n' || trailing == '\r') {
+				pos = end;
+				eol = true;
+				return ret;
+			}
+		}
+
+		String str = nextCol(false);
+
+		try {
+			return Integer.parseInt(str);
+		} catch (NumberFormatException e) {
+			throw new IOException("invalid number in line "+lineNumber+": "+str);
+		}
+	}
+
+	@Override
+	public boolean nextLine(int indent) {
+		while (pos < limit) {
+			byte b = buffer.get(pos);
+
+			if (b == '\n') {
+				if (indent == 0) { // skip empty lines if indent is 0
+					if (pos + 1 >= limit) break;
+
+					b = buffer.get(pos + 1);
+
+					if (b == '\n' || b == '\r') { // 2+ consecutive new lines, consume first nl and retry
+						pos++;
+						lineNumber++;
+						continue;
+					}
+				}
+
+				if (pos + indent + 1 > limit) return false;
+
+				for (int i = 1; i <= indent; i++) {
+					if (buffer.get(pos + i) != '\t') return false;
+				}
+
+				pos += indent + 1;
+				lineNumber++;
+				eol = false;
+
+				return true;
+			}
+
+			pos++;
+		}
+
+		eol = eof = true;
+
+		return false;
+	}
+
+	@Override
+	public boolean hasExtraIndents() {
+		return pos < limit && buffer.get(pos) == '\t';
+	}
+
+	@Override
+	public int getLineNumber() {
+		return lineNumber;
+	}
+
+	@Override
+	public boolean isAtEof() {
+		return eof;
+	}
+
+	@Override
+	public void setStringPool(MappingStringPool stringPool) {
+		this.stringPool = stringPool;
+	}
+
+	@Override
+	public void mark() {
+		mark = pos;
+	}
+
+	@Override
+	public void reset() {
+		if (mark < 0) throw new IllegalStateException("not marked");
+
+		pos = mark;
+	}
+
+	private String decode(int start, int end, boolean nonAscii, boolean unescape, boolean poolable) throws IOException {
+		int len = end - start;
+		if (len == 0) return "";
+
+		MappingStringPool pool = poolable && len <= MAX_POOLED_LENGTH ? stringPool : null;
+		byte[] bytes;
+		int offset;
+
+		if (array != null) {
+			bytes = array;
+			offset = arrayOffset + start;
+		} else {
+			if (decodeBuffer.length < len) decodeBuffer = new byte[Math.max(len, decodeBuffer.length * 2)];
+
+			for (int i = 0; i < len; i++) {
+				decodeBuffer[i] = buffer.get(start + i);
+			}
+
+			bytes = decodeBuffer;
+			offset = 0;
+		}
+
+		if (pool != null && !nonAscii && !unescape) { // hash and compare the raw bytes, only allocating for new strings
+			return pool.internLatin1(bytes, offset, len);
+		}
+
+		String ret;
+
+		if (nonAscii) { // strict decoding, malformed input fails like with a Reader instead of getting replaced
+			if (utf8Decoder == null) {
+				utf8Decoder = StandardCharsets.UTF_8.newDecoder()
+						.onMalformedInput(CodingErrorAction.REPORT)
+						.onUnmappableCharacter(CodingErrorAction.REPORT);
+			}
+
+			try {
+				ret = utf8Decoder.decode(ByteBuffer.wrap(bytes, offset, len)).toString();
+			} catch (CharacterCodingException e) {
+				throw new IOException("invalid UTF-8 in line "+lineNumber, e);
+			}
+		} else {
+			ret = new String(bytes, offset, len, StandardCharsets.ISO_8859_1); // latin1 is a plain copy
+		}
+
+		if (unescape) ret = Tiny2Util.unescape(ret);
+
+		return pool != null ? pool.intern(ret) : ret;
+	}
+
+	private final ByteBuffer buffer;
+	private final byte[] array;
+	private final int arrayOffset;
+	private final byte columnSeparator;
+	private final int limit;
+	private MappingStringPool stringPool;
+	private byte[] decodeBuffer = new byte[256];
+	private CharsetDecoder utf8Decoder;
+	private int pos;
+	private int mark = -1;
+	private int lineNumber;
+	private boolean eol; // tracks whether the last column has been read, otherwise ambiguous if the last col is empty
+	private boolean eof;
+}
@@ -16,12 +16,13 @@
 
 package net.fabricmc.mappingio.format;
 
-import java.io.Closeable;
 import java.io.IOException;
 import java.io.Reader;
 import java.util.Arrays;
 
-final class ColumnFileReader implements Closeable {
+import net.fabricmc.mappingio.MappingStringPool;
+
+final class ColumnFileReader implements ColumnReader {
 	ColumnFileReader(Reader reader, char columnSeparator) {
 		this.reader = reader;
 		this.columnSeparator = columnSeparator;
@@ -41,6 +42,7 @@ final class ColumnFileReader implements Closeable {
 	 * @return true if the column was read and had the expected content, false otherwise
 	 * @throws IOException
 	 */
+	@Override
 	public boolean nextCol(String expect) throws IOException {
 		if (eol) return false;
 
@@ -77,6 +79,7 @@ final class ColumnFileReader implements Closeable {
 	/**
 	 * Read and consume a column without unescaping.
 	 */
+	@Override
 	public String nextCol() throws IOException {
 		return nextCol(false);
 	}
@@ -84,6 +87,7 @@ final class ColumnFileReader implements Closeable {
 	/**
 	 * Read and consume a column with unescaping.
 	 */
+	@Override
 	public String nextEscapedCol() throws IOException {
 		return nextCol(true);
 	}
@@ -91,6 +95,7 @@ final class ColumnFileReader implements Closeable {
 	/**
 	 * Read and consume a column and unescape it if requested.
 	 */
+	@Override
 	public String nextCol(boolean unescape) throws IOException {
 		if (eol) return null;
 
@@ -139,11 +144,16 @@ final class ColumnFileReader implements Closeable {
 		}
 
 		int len = end - start;
+		MappingStringPool pool = len <= MAX_POOLED_LENGTH ? stringPool : null;
 
 		if (len == 0) {
 			return "";
 		} else if (firstEscaped >= 0) {
-			return Tiny2Util.unescape(String.valueOf(buffer, start, len));
+			String ret = Tiny2Util.unescape(String.valueOf(buffer, start, len));
+
+			return pool != null ? pool.intern(ret) : ret;
+		} else if (pool != null) {
+			return pool.intern(buffer, start, len);
 		} else {
 			return String.valueOf(buffer, start, len);
 		}
@@ -152,6 +162,7 @@ final class ColumnFileReader implements Closeable {
 	/**
 	 * Read and consume all column until eol and unescape if requested.
 	 */
+	@Override
 	public String nextCols(boolean unescape) throws IOException {
 		if (eol) return null;
 
@@ -200,6 +211,7 @@ final class ColumnFileReader implements Closeable {
 	/**
 	 * Read and consume a column and convert it to integer.
 	 */
+	@Override
 	public int nextIntCol() throws IOException {
 		String str = nextCol(false);
 
@@ -210,6 +222,7 @@ final class ColumnFileReader implements Closeable {
 		}
 	}
 
+	@Override
 	public boolean nextLine(int indent) throws IOException {
 		fillLopo: do {
 			while (bufferPos < bufferLimit) {
@@ -250,18 +263,27 @@ final class ColumnFileReader implements Closeable {
 		return false;
 	}
 
+	@Override
 	public boolean hasExtraIndents() throws IOException {
 		return fillBuffer(1) && buffer[bufferPos] == '\t';
 	}
 
+	@Override
 	public int getLineNumber() {
 		return lineNumber;
 	}
 
+	@Override
 	public boolean isAtEof() {
 		return eof;
 	}
 
+	@Override
+	public void setStringPool(MappingStringPool stringPool) {
+		this.stringPool = stringPool;
+	}
+
+	@Override
 	public void mark() {
 		if (bufferPos > 0) {
 			int available = bufferLimit - bufferPos;
@@ -273,6 +295,7 @@ final class ColumnFileReader implements Closeable {
 		mark = bufferPos;
 	}
 
+	@Override
 	public void reset() {
 		if (mark < 0) throw new IllegalStateException("not marked");
 
@@ -315,6 +338,7 @@ final class ColumnFileReader implements Closeable {
 
 	private final Reader reader;
 	private final char columnSeparator;
+	private MappingStringPool stringPool;
 	private char[] buffer = new char[4096 * 4];
 	private int bufferPos;
 	private int bufferLimit;
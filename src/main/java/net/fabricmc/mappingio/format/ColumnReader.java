@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2021 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.mappingio.format;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import net.fabricmc.mappingio.MappingStringPool;
+import net.fabricmc.mappingio.MappingVisitor;
+import net.fabricmc.mappingio.tree.MemoryMappingTree;
+
+/**
+ * Line and column oriented access to a mapping file, see {@link ColumnFileReader} and {@link ByteColumnFileReader}.
+ */
+interface ColumnReader extends Closeable {
+	/**
+	 * Open a UTF-8 encoded file for column reading.
+	 *
+	 * <p>The file will be accessed as a byte buffer as obtained by {@link #readBuffer} if possible, otherwise through a
+	 * regular {@link java.io.Reader}.
+	 */
+	static ColumnReader open(Path file, char columnSeparator) throws IOException {
+		ByteBuffer buffer = readBuffer(file);
+
+		if (buffer != null) {
+			return new ByteColumnFileReader(buffer, columnSeparator);
+		} else {
+			return new ColumnFileReader(Files.newBufferedReader(file), columnSeparator);
+		}
+	}
+
+	/**
+	 * Obtain a file's content as a byte buffer.
+	 *
+	 * <p>The file is read into memory. Memory mapping can be enabled with the system property
+	 * {@code mappingIo.enableMappedIo}, it is opt-in since a mapping stays alive until garbage collected and keeps the
+	 * file from being overwritten or deleted on some platforms, e.g. Windows.
+	 *
+	 * @return the buffer or null if the file is too large for a single buffer
+	 */
+	static ByteBuffer readBuffer(Path file) throws IOException {
+		long size = Files.size(file);
+
+		if (size > MAX_BUFFER_SIZE) {
+			return null;
+		} else if (!ENABLE_MAPPED_IO || size < MIN_MAPPED_SIZE) {
+			return ByteBuffer.wrap(Files.readAllBytes(file));
+		} else {
+			try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+				return channel.map(FileChannel.MapMode.READ_ONLY, 0, size); // stays valid after closing the channel
+			}
+		}
+	}
+
+	/**
+	 * Determine the string pool a reader should use for visiting visitor.
+	 *
+	 * @return the pool set on visitor if it is a {@link MemoryMappingTree}, null otherwise
+	 */
+	static MappingStringPool getStringPool(MappingVisitor visitor) {
+		return visitor instanceof MemoryMappingTree ? ((MemoryMappingTree) visitor).getStringPool() : null;
+	}
+
+	/**
+	 * Try to read the current column with specific expected content.
+	 *
+	 * <p>The reader will point to the next column or end of line if successful, otherwise remains unchanged.
+	 *
+	 * @param expect content to expect
+	 * @return true if the column was read and had the expected content, false otherwise
+	 * @throws IOException
+	 */
+	boolean nextCol(String expect) throws IOException;
+
+	/**
+	 * Read and consume a column without unescaping.
+	 */
+	String nextCol() throws IOException;
+
+	/**
+	 * Read and consume a column with unescaping.
+	 */
+	String nextEscapedCol() throws IOException;
+
+	/**
+	 * Read and consume a column and unescape it if requested.
+	 */
+	String nextCol(boolean unescape) throws IOException;
+
+	/**
+	 * Read and consume all column until eol and unescape if requested.
+	 */
+	String nextCols(boolean unescape) throws IOException;
+
+	/**
+	 * Read and consume a column and convert it to integer.
+	 */
+	int nextIntCol() throws IOException;
+
+	boolean nextLine(int indent) throws IOException;
+	boolean hasExtraIndents() throws IOException;
+	int getLineNumber();
+	boolean isAtEof();
+
+	/**
+	 * Set the pool to canonicalize read columns with, null to disable pooling.
+	 *
+	 * <p>Columns longer than {@link #MAX_POOLED_LENGTH}, e.g. comments, as well as the results of
+	 * {@link #nextCols(boolean)} bypass the pool.
+	 */
+	void setStringPool(MappingStringPool stringPool);
+
+	void mark();
+	void reset();
+
+	boolean ENABLE_MAPPED_IO = Boolean.getBoolean("mappingIo.enableMappedIo");
+	int MAX_POOLED_LENGTH = 256;
+	int MIN_MAPPED_SIZE = 256 * 1024; // mapping has a fixed overhead, smaller files are faster to read
+	int MAX_BUFFER_SIZE = Integer.MAX_VALUE - 8; // largest array size supported by common VMs
+}
@@ -22,11 +22,15 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 import net.fabricmc.mappingio.MappedElementKind;
 import net.fabricmc.mappingio.MappingFlag;
+import net.fabricmc.mappingio.MappingStringPool;
 import net.fabricmc.mappingio.MappingUtil;
 import net.fabricmc.mappingio.MappingVisitor;
 import net.fabricmc.mappingio.tree.MappingTree;
@@ -38,6 +42,7 @@ public final class EnigmaReader {
 	}
 
 	public static void read(Path dir, String sourceNs, String targetNs, MappingVisitor visitor) throws IOException {
+		MappingStringPool stringPool = ColumnReader.getStringPool(visitor);
 		Set<MappingFlag> flags = visitor.getFlags();
 		MappingVisitor parentVisitor = null;
 
@@ -59,14 +64,8 @@ public final class EnigmaReader {
 			Files.walkFileTree(dir, new SimpleFileVisitor<Path>() {
 				@Override
 				public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
-					if (file.getFileName().toString().endsWith(".mapping")) {
-						try (ColumnFileReader reader = new ColumnFileReader(Files.newBufferedReader(file), ' ')) {
-							do {
-								if (reader.nextCol("CLASS")) { // class: CLASS <name-a> [<name-b>]
-									readClass(reader, 0, null, null, commentSb, finalVisitor);
-								}
-							} while (reader.nextLine(0));
-						}
+					if (isMappingFile(file)) {
+						readFile(file, stringPool, commentSb, finalVisitor);
 					}
 
 					return FileVisitResult.CONTINUE;
@@ -81,7 +80,60 @@ public final class EnigmaReader {
 		}
 	}
 
-	private static void readClass(ColumnFileReader reader, int indent, String outerSrcClass, String outerDstClass, StringBuilder commentSb, MappingVisitor visitor) throws IOException {
+	/**
+	 * Read a directory in parallel using the common {@link ForkJoinPool}, see {@link #readParallel(Path, String, String, ForkJoinPool, MappingVisitor)}.
+	 */
+	public static void readParallel(Path dir, MappingVisitor visitor) throws IOException {
+		readParallel(dir, ForkJoinPool.commonPool(), visitor);
+	}
+
+	public static void readParallel(Path dir, ForkJoinPool pool, MappingVisitor visitor) throws IOException {
+		readParallel(dir, MappingUtil.NS_SOURCE_FALLBACK, MappingUtil.NS_TARGET_FALLBACK, pool, visitor);
+	}
+
+	/**
+	 * Read a directory by parsing its mapping files concurrently on the supplied pool.
+	 *
+	 * <p>The files are parsed into separate recordings which are then replayed in path order, independent of the
+	 * file system's iteration order. The visitor is invoked from the calling thread only.
+	 */
+	public static void readParallel(Path dir, String sourceNs, String targetNs, ForkJoinPool pool, MappingVisitor visitor) throws IOException {
+		List<Path> files = new ArrayList<>();
+
+		Files.walkFileTree(dir, new SimpleFileVisitor<Path>() {
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+				if (isMappingFile(file)) files.add(file);
+
+				return FileVisitResult.CONTINUE;
+			}
+		});
+
+		Collections.sort(files);
+
+		List<RecordingVisitor> recordings = ParallelReader.parse(files, pool,
+				(file, recorder) -> readFile(file, null, new StringBuilder(200), recorder));
+
+		ParallelReader.accept(recordings, sourceNs, Collections.singletonList(targetNs), Collections.emptyList(), false, visitor);
+	}
+
+	private static boolean isMappingFile(Path file) {
+		return file.getFileName().toString().endsWith(".mapping");
+	}
+
+	private static void readFile(Path file, MappingStringPool stringPool, StringBuilder commentSb, MappingVisitor visitor) throws IOException {
+		try (ColumnReader reader = ColumnReader.open(file, ' ')) {
+			reader.setStringPool(stringPool);
+
+			do {
+				if (reader.nextCol("CLASS")) { // class: CLASS <name-a> [<name-b>]
+					readClass(reader, 0, null, null, commentSb, visitor);
+				}
+			} while (reader.nextLine(0));
+		}
+	}
+
+	private static void readClass(ColumnReader reader, int indent, String outerSrcClass, String outerDstClass, StringBuilder commentSb, MappingVisitor visitor) throws IOException {
 		String srcInnerName = reader.nextCol();
 		if (srcInnerName == null || srcInnerName.isEmpty()) throw new IOException("missing class-name-a in line "+reader.getLineNumber());
 
@@ -103,7 +155,7 @@ public final class EnigmaReader {
 		readClassBody(reader, indent, srcName, dstName, commentSb, visitor);
 	}
 
-	private static void readClassBody(ColumnFileReader reader, int indent, String srcClass, String dstClass, StringBuilder commentSb, MappingVisitor visitor) throws IOException {
+	private static void readClassBody(ColumnReader reader, int indent, String srcClass, String dstClass, StringBuilder commentSb, MappingVisitor visitor) throws IOException {
 		boolean visited = false;
 		int state = 0; // 0=invalid 1=visit -1=skip
 
@@ -182,7 +234,7 @@ public final class EnigmaReader {
 		return state;
 	}
 
-	private static void readMethod(ColumnFileReader reader, int indent, StringBuilder commentSb, MappingVisitor visitor) throws IOException {
+	private static void readMethod(ColumnReader reader, int indent, StringBuilder commentSb, MappingVisitor visitor) throws IOException {
 		if (!visitor.visitElementContent(MappedElementKind.METHOD)) return;
 
 		while (reader.nextLine(indent + 2)) {
@@ -209,7 +261,7 @@ public final class EnigmaReader {
 		submitComment(MappedElementKind.METHOD, commentSb, visitor);
 	}
 
-	private static void readElement(ColumnFileReader reader, MappedElementKind kind, int indent, StringBuilder commentSb, MappingVisitor visitor) throws IOException {
+	private static void readElement(ColumnReader reader, MappedElementKind kind, int indent, StringBuilder commentSb, MappingVisitor visitor) throws IOException {
 		if (!visitor.visitElementContent(kind)) return;
 
 		while (reader.nextLine(indent + kind.level + 1)) {
@@ -221,7 +273,7 @@ public final class EnigmaReader {
 		submitComment(kind, commentSb, visitor);
 	}
 
-	private static void readComment(ColumnFileReader reader, StringBuilder commentSb) throws IOException {
+	private static void readComment(ColumnReader reader, StringBuilder commentSb) throws IOException {
 		if (commentSb.length() > 0) commentSb.append('\n');
 
 		String comment = reader.nextCols(true);
@@ -18,7 +18,9 @@ package net.fabricmc.mappingio.format;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.DirectoryNotEmptyException;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
@@ -27,46 +29,126 @@ import java.nio.file.SimpleFileVisitor;
 import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
 
 import net.fabricmc.mappingio.MappedElementKind;
 import net.fabricmc.mappingio.MappingFlag;
 import net.fabricmc.mappingio.MappingWriter;
 
+/**
+ * Writer for Enigma's directory based mapping format with a file per top level class.
+ *
+ * <p>By default the output is written directly to the files, reopening them whenever the top level class changes. For
+ * input not grouped by top level class, e.g. after a namespace switch, the writer can instead buffer each file's
+ * content in memory and write every file once at the end, optionally on a {@link ForkJoinPool}. Buffers exceeding
+ * the configured size are spilled to their files early.
+ *
+ * <p>The {@link #incremental incremental} mode renders all files in memory and replaces the directory's content
+ * while only touching files whose content actually changed.
+ */
 public final class EnigmaWriter implements MappingWriter {
 	public EnigmaWriter(Path dir, boolean deleteExistingFiles) throws IOException {
+		this(dir, deleteExistingFiles, 0, null);
+	}
+
+	/**
+	 * Create a new EnigmaWriter instance buffering the output in memory.
+	 *
+	 * @param dir directory to write to
+	 * @param deleteExistingFiles whether to delete all existing .mapping files in dir first
+	 * @param maxBufferSize amount of buffered chars that triggers writing the buffers out early, 0 to write directly
+	 * to the files without buffering
+	 * @param writePool pool to write the buffered files on concurrently, or null to write them on the visiting thread
+	 */
+	public EnigmaWriter(Path dir, boolean deleteExistingFiles, long maxBufferSize, ForkJoinPool writePool) throws IOException {
+		this(dir, deleteExistingFiles, maxBufferSize, writePool, false);
+	}
+
+	private EnigmaWriter(Path dir, boolean deleteExistingFiles, long maxBufferSize, ForkJoinPool writePool, boolean incremental) throws IOException {
+		if (maxBufferSize < 0) throw new IllegalArgumentException("negative maxBufferSize");
+
 		this.dir = dir.toAbsolutePath().normalize();
+		this.maxBufferSize = maxBufferSize;
+		this.writePool = writePool;
+		this.incremental = incremental;
+		this.buffers = maxBufferSize > 0 ? new LinkedHashMap<>() : null;
 
 		if (deleteExistingFiles && Files.exists(dir)) {
-			Files.walkFileTree(dir, new SimpleFileVisitor<Path>() {
-				@Override
-				public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
-					if (file.getFileName().toString().endsWith(".mapping")) {
-						Files.delete(file);
-					}
+			deleteMappingFiles(this.dir, Collections.emptySet());
+		}
+	}
+
+	/**
+	 * Create a new EnigmaWriter instance replacing the directory's content incrementally.
+	 *
+	 * <p>Each top level class' file is rendered in memory and compared with the existing file at the end. Only
+	 * missing or changed files are written, .mapping files not produced by the visitation are deleted. The result is
+	 * the same as with {@code deleteExistingFiles}, but unchanged files are left untouched.
+	 *
+	 * <p>The directory is only updated once the visitation completes with {@link #visitEnd}. Closing the writer before,
+	 * e.g. after a failure, discards the rendered content and leaves the directory as it was.
+	 *
+	 * @param dir directory to write to
+	 * @param writePool pool to compare and write the files on concurrently, or null to do so on the visiting thread
+	 */
+	public static EnigmaWriter incremental(Path dir, ForkJoinPool writePool) throws IOException {
+		return new EnigmaWriter(dir, false, Long.MAX_VALUE, writePool, true);
+	}
 
-					return FileVisitResult.CONTINUE;
+	/**
+	 * Delete all .mapping files in dir except keep and the directories left empty.
+	 */
+	private static void deleteMappingFiles(Path dir, Set<Path> keep) throws IOException {
+		Files.walkFileTree(dir, new SimpleFileVisitor<Path>() {
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+				if (file.getFileName().toString().endsWith(".mapping") && !keep.contains(file)) {
+					Files.delete(file);
 				}
 
-				@Override
-				public FileVisitResult postVisitDirectory(Path file, IOException exc) throws IOException {
-					try {
-						if (!dir.equals(file)) Files.delete(file);
-					} catch (DirectoryNotEmptyException e) {
-						// ignore
-					}
+				return FileVisitResult.CONTINUE;
+			}
 
-					return FileVisitResult.CONTINUE;
+			@Override
+			public FileVisitResult postVisitDirectory(Path file, IOException exc) throws IOException {
+				try {
+					if (!dir.equals(file)) Files.delete(file);
+				} catch (DirectoryNotEmptyException e) {
+					// ignore
 				}
-			});
-		}
+
+				return FileVisitResult.CONTINUE;
+			}
+		});
 	}
 
 	@Override
 	public void close() throws IOException {
-		if (writer != null) {
+		if (incremental) {
+			// only a completed visitation may replace the directory's content, see visitEnd, anything else is discarded
+			closed = true;
+			buffers.clear();
+			writer = null;
+			writerClass = null;
+		} else if (buffers != null) {
+			if (writerClass != null) {
+				deactivateBuffer();
+				writer = null;
+				writerClass = null;
+			}
+
+			flushBuffers();
+			buffers.clear();
+		} else if (writer != null) {
 			writer.close();
 			writer = null;
 			writerClass = null;
@@ -125,11 +207,28 @@ public final class EnigmaWriter implements MappingWriter {
 
 	@Override
 	public boolean visitEnd() throws IOException {
+		if (incremental && !closed) replaceFiles();
 		close();
 
 		return true;
 	}
 
+	/**
+	 * Write the changed files and delete the obsolete ones at the end of an incremental visitation.
+	 */
+	private void replaceFiles() throws IOException {
+		if (writerClass != null) deactivateBuffer();
+
+		Set<Path> files = new HashSet<>();
+
+		for (FileBuffer buffer : buffers.values()) {
+			files.add(buffer.file);
+		}
+
+		flushBuffers();
+		if (Files.exists(dir)) deleteMappingFiles(dir, files);
+	}
+
 	@Override
 	public void visitDstName(MappedElementKind targetKind, int namespace, String name) throws IOException {
 		if (namespace != 0) return;
@@ -157,49 +256,36 @@ public final class EnigmaWriter implements MappingWriter {
 				Path file = dir.resolve(name+".mapping").normalize();
 				if (!file.startsWith(dir)) throw new RuntimeException("invalid name: "+name);
 
-				if (writer != null) {
-					writer.close();
-				}
-
-				writerClass = name;
-
-				if (Files.exists(file)) {
-					// initialize writtenClass with last CLASS entry
+				if (buffers != null) {
+					if (writerClass != null) deactivateBuffer();
+					if (bufferedSize > maxBufferSize) flushBuffers();
 
-					List<String> writtenClassParts = new ArrayList<>();
+					FileBuffer buffer = buffers.get(name);
 
-					try (BufferedReader reader = Files.newBufferedReader(file)) {
-						String line;
-
-						while ((line = reader.readLine()) != null) {
-							int offset = 0;
-
-							while (offset < line.length() && line.charAt(offset) == '\t') {
-								offset++;
-							}
-
-							if (line.startsWith("CLASS ", offset)) {
-								int start = offset + 6;
-								int end = line.indexOf(' ', start);
-								if (end < 0) end = line.length();
-								String part = line.substring(start, end);
+					if (buffer == null) {
+						buffer = new FileBuffer(file, !incremental && Files.exists(file) ? readWrittenClass(file) : "");
+						buffers.put(name, buffer);
+					}
 
-								while (writtenClassParts.size() > offset) {
-									writtenClassParts.remove(writtenClassParts.size() - 1);
-								}
+					writer = buffer;
+					writtenClass = buffer.writtenClass;
+					bufferStartSize = buffer.content.length();
+				} else {
+					if (writer != null) {
+						writer.close();
+					}
 
-								writtenClassParts.add(part);
-							}
-						}
+					if (Files.exists(file)) {
+						writtenClass = readWrittenClass(file);
+					} else {
+						writtenClass = "";
+						Files.createDirectories(file.getParent());
 					}
 
-					writtenClass = String.join("$", writtenClassParts);
-				} else {
-					writtenClass = "";
-					Files.createDirectories(file.getParent());
+					writer = Files.newBufferedWriter(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND, StandardOpenOption.CREATE);
 				}
 
-				writer = Files.newBufferedWriter(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND, StandardOpenOption.CREATE);
+				writerClass = name;
 			}
 
 			// write mismatched/missing class parts
@@ -259,6 +345,94 @@ public final class EnigmaWriter implements MappingWriter {
 		return true;
 	}
 
+	/**
+	 * Determine the last CLASS entry written to an existing file, with the nesting joined by '$'.
+	 */
+	private static String readWrittenClass(Path file) throws IOException {
+		List<String> writtenClassParts = new ArrayList<>();
+
+		try (BufferedReader reader = Files.newBufferedReader(file)) {
+			String line;
+
+			while ((line = reader.readLine()) != null) {
+				int offset = 0;
+
+				while (offset < line.length() && line.charAt(offset) == '\t') {
+					offset++;
+				}
+
+				if (line.startsWith("CLASS ", offset)) {
+					int start = offset + 6;
+					int end = line.indexOf(' ', start);
+					if (end < 0) end = line.length();
+					String part = line.substring(start, end);
+
+					while (writtenClassParts.size() > offset) {
+						writtenClassParts.remove(writtenClassParts.size() - 1);
+					}
+
+					writtenClassParts.add(part);
+				}
+			}
+		}
+
+		return String.join("$", writtenClassParts);
+	}
+
+	/**
+	 * Store the current buffer's state before switching to another top level class.
+	 */
+	private void deactivateBuffer() {
+		FileBuffer buffer = (FileBuffer) writer;
+		buffer.writtenClass = writtenClass;
+		bufferedSize += buffer.content.length() - bufferStartSize;
+	}
+
+	/**
+	 * Write all buffered content to the files and clear the buffers, keeping the written class state.
+	 *
+	 * <p>The content is appended to the files, or replaces them if it differs in incremental mode.
+	 */
+	private void flushBuffers() throws IOException {
+		List<FileBuffer> pending = new ArrayList<>();
+
+		for (FileBuffer buffer : buffers.values()) {
+			if (buffer.content.length() > 0) pending.add(buffer);
+		}
+
+		if (writePool == null || pending.size() <= 1) {
+			for (FileBuffer buffer : pending) {
+				writeBuffer(buffer);
+			}
+		} else {
+			List<CompletableFuture<Void>> futures = new ArrayList<>(pending.size());
+
+			for (FileBuffer buffer : pending) {
+				futures.add(CompletableFuture.runAsync(() -> {
+					try {
+						writeBuffer(buffer);
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				}, writePool));
+			}
+
+			for (CompletableFuture<Void> future : futures) {
+				ParallelReader.getResult(future);
+			}
+		}
+
+		bufferedSize = 0;
+	}
+
+	private void writeBuffer(FileBuffer buffer) throws IOException {
+		if (incremental) {
+			buffer.replaceIfChanged();
+		} else {
+			buffer.flush();
+		}
+	}
+
 	private static int getNextOuterEnd(String name, int startPos) {
 		int pos;
 
@@ -313,11 +487,86 @@ public final class EnigmaWriter implements MappingWriter {
 		}
 	}
 
+	/**
+	 * In-memory content of a single top level class' file.
+	 */
+	private static final class FileBuffer extends Writer {
+		FileBuffer(Path file, String writtenClass) {
+			this.file = file;
+			this.writtenClass = writtenClass;
+		}
+
+		@Override
+		public void write(int c) {
+			content.append((char) c);
+		}
+
+		@Override
+		public void write(char[] cbuf, int off, int len) {
+			content.append(cbuf, off, len);
+		}
+
+		@Override
+		public void write(String str) {
+			content.append(str);
+		}
+
+		@Override
+		public void write(String str, int off, int len) {
+			content.append(str, off, off + len);
+		}
+
+		/**
+		 * Append the buffered content to the file and clear the buffer.
+		 */
+		@Override
+		public void flush() throws IOException {
+			Files.createDirectories(file.getParent());
+
+			try (Writer writer = Files.newBufferedWriter(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND, StandardOpenOption.CREATE)) {
+				writer.append(content);
+			}
+
+			content = new StringBuilder(); // release the memory
+		}
+
+		/**
+		 * Replace the file with the buffered content unless it already has that exact content, then clear the buffer.
+		 */
+		void replaceIfChanged() throws IOException {
+			byte[] data = content.toString().getBytes(StandardCharsets.UTF_8);
+			content = new StringBuilder();
+
+			if (Files.isRegularFile(file)
+					&& Files.size(file) == data.length
+					&& Arrays.equals(Files.readAllBytes(file), data)) {
+				return;
+			}
+
+			Files.createDirectories(file.getParent());
+			Files.write(file, data);
+		}
+
+		@Override
+		public void close() { }
+
+		final Path file;
+		StringBuilder content = new StringBuilder();
+		String writtenClass;
+	}
+
 	private static final Set<MappingFlag> flags = EnumSet.of(MappingFlag.NEEDS_UNIQUENESS, MappingFlag.NEEDS_SRC_FIELD_DESC, MappingFlag.NEEDS_SRC_METHOD_DESC);
 	private static final String toEscape = "\\\n\r\0\t";
 	private static final String escaped = "\\nr0t";
 
 	private final Path dir;
+	private final long maxBufferSize;
+	private final ForkJoinPool writePool;
+	private final boolean incremental;
+	private boolean closed;
+	private final Map<String, FileBuffer> buffers;
+	private long bufferedSize;
+	private int bufferStartSize;
 
 	private Writer writer;
 	private String writerClass;
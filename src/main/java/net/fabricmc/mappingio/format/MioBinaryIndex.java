@@ -0,0 +1,320 @@
+/*
+ * Copyright (c) 2021 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.mappingio.format;
+
+import static net.fabricmc.mappingio.format.MioBinaryUtil.CLASS_FIELD_COUNT;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.CLASS_METHOD_COUNT;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.COL_SRC_NAME;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.MEMBER_DESC;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.METHOD_ARG_COUNT;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.METHOD_VAR_COUNT;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.SECTION_CLASSES;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.SECTION_FIELDS;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.SECTION_METHODS;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.SECTION_VARS;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.getFixedColumns;
+
+import java.io.IOException;
+import java.nio.IntBuffer;
+
+/**
+ * Random access index of a {@link MappingFormat#MIO_BINARY} file, the payload of {@link MioBinaryUtil#SECTION_INDEX}.
+ *
+ * <p>The index consists of 32 bit big endian ints:
+ * <ul>
+ * <li>the string count followed by the offset of every string's length prefix within the string section payload
+ * <li>for every element section: the element count followed by the same columns as the section, but with the child
+ * counts replaced by the index of the first child
+ * <li>for the src and every dst namespace: the number of classes with a name in it followed by their indices ordered
+ * by that name
+ * <li>the field and method indices with each class' members ordered by src name and src desc
+ * </ul>
+ *
+ * <p>Names are ordered by their UTF-8 bytes, which is the same as code point order. Equal names retain the element
+ * order to let lookups find the first one like a sequential scan would.
+ */
+final class MioBinaryIndex {
+	MioBinaryIndex(IntBuffer data, int dstNsCount) throws IOException {
+		this.data = data;
+
+		int pos = 0;
+		stringCount = getChecked(pos++);
+		stringOffsetStart = pos;
+		pos += stringCount;
+
+		for (int i = 0; i < ELEMENT_SECTION_COUNT; i++) {
+			int size = getChecked(pos++);
+			tableSizes[i] = size;
+			tableStarts[i] = pos;
+			pos += (getFixedColumns(SECTION_CLASSES + i) + dstNsCount) * size;
+		}
+
+		classOrderSizes = new int[dstNsCount + 1];
+		classOrderStarts = new int[dstNsCount + 1];
+
+		for (int ns = 0; ns <= dstNsCount; ns++) {
+			int size = getChecked(pos++);
+			classOrderSizes[ns] = size;
+			classOrderStarts[ns] = pos;
+			pos += size;
+		}
+
+		fieldOrderStart = pos;
+		pos += size(SECTION_FIELDS);
+		methodOrderStart = pos;
+		pos += size(SECTION_METHODS);
+
+		if (pos != data.limit()) throw new IOException("index size mismatch: expected "+pos+" ints, got "+data.limit());
+	}
+
+	private int getChecked(int pos) throws IOException {
+		if (pos >= data.limit()) throw new IOException("truncated index");
+
+		int ret = data.get(pos);
+		if (ret < 0) throw new IOException("invalid count "+ret+" in index");
+
+		return ret;
+	}
+
+	int getStringCount() {
+		return stringCount;
+	}
+
+	/**
+	 * Get the offset of a string's length prefix relative to the start of the string section payload.
+	 */
+	int getStringOffset(int id) {
+		return data.get(stringOffsetStart + id - 1);
+	}
+
+	int size(int section) {
+		return tableSizes[section - SECTION_CLASSES];
+	}
+
+	int get(int section, int column, int idx) {
+		int table = section - SECTION_CLASSES;
+
+		return data.get(tableStarts[table] + column * tableSizes[table] + idx);
+	}
+
+	/**
+	 * Get the (exclusive) end of an element's children, the start is available through {@link #get}.
+	 */
+	int getChildEnd(int section, int column, int idx, int childSection) {
+		return idx + 1 < size(section) ? get(section, column, idx + 1) : size(childSection);
+	}
+
+	/**
+	 * Get the number of classes with a name in the namespace, namespace -1 is the src namespace.
+	 */
+	int getClassOrderSize(int namespace) {
+		return classOrderSizes[namespace + 1];
+	}
+
+	int getOrderedClass(int namespace, int pos) {
+		return data.get(classOrderStarts[namespace + 1] + pos);
+	}
+
+	int getOrderedField(int pos) {
+		return data.get(fieldOrderStart + pos);
+	}
+
+	int getOrderedMethod(int pos) {
+		return data.get(methodOrderStart + pos);
+	}
+
+	/**
+	 * Create the index content.
+	 *
+	 * @param columns the columns of every element section as stored in the file
+	 * @param sizes the element count of every element section
+	 * @param stringOffsets the string offsets indexed by string id
+	 * @param comparator string comparator operating on string ids
+	 */
+	static int[] build(int[][][] columns, int[] sizes, int dstNsCount, int[] stringOffsets, StringComparator comparator) {
+		int len = 1 + stringOffsets.length - 1 + ELEMENT_SECTION_COUNT + dstNsCount + 1 + sizes[SECTION_FIELDS - SECTION_CLASSES] + sizes[SECTION_METHODS - SECTION_CLASSES];
+
+		for (int i = 0; i < ELEMENT_SECTION_COUNT; i++) {
+			len += (getFixedColumns(SECTION_CLASSES + i) + dstNsCount) * sizes[i];
+		}
+
+		int[][] classOrders = new int[dstNsCount + 1][];
+
+		for (int ns = 0; ns <= dstNsCount; ns++) {
+			classOrders[ns] = orderClasses(columns[0], sizes[0], ns == 0 ? COL_SRC_NAME : getFixedColumns(SECTION_CLASSES) + ns - 1, comparator);
+			len += classOrders[ns].length;
+		}
+
+		int[] ret = new int[len];
+		int pos = 0;
+
+		ret[pos++] = stringOffsets.length - 1;
+		System.arraycopy(stringOffsets, 1, ret, pos, stringOffsets.length - 1);
+		pos += stringOffsets.length - 1;
+
+		for (int i = 0; i < ELEMENT_SECTION_COUNT; i++) {
+			int section = SECTION_CLASSES + i;
+			int size = sizes[i];
+			ret[pos++] = size;
+
+			for (int column = 0; column < getFixedColumns(section) + dstNsCount; column++) {
+				if (isCountColumn(section, column)) {
+					int start = 0;
+
+					for (int j = 0; j < size; j++) {
+						ret[pos + j] = start;
+						start += columns[i][column][j];
+					}
+				} else {
+					System.arraycopy(columns[i][column], 0, ret, pos, size);
+				}
+
+				pos += size;
+			}
+		}
+
+		for (int[] order : classOrders) {
+			ret[pos++] = order.length;
+			System.arraycopy(order, 0, ret, pos, order.length);
+			pos += order.length;
+		}
+
+		int[][] classes = columns[0];
+		pos = orderMembers(classes, sizes[0], CLASS_FIELD_COUNT, columns[SECTION_FIELDS - SECTION_CLASSES], comparator, ret, pos);
+		pos = orderMembers(classes, sizes[0], CLASS_METHOD_COUNT, columns[SECTION_METHODS - SECTION_CLASSES], comparator, ret, pos);
+		assert pos == len;
+
+		return ret;
+	}
+
+	private static boolean isCountColumn(int section, int column) {
+		switch (section) {
+		case SECTION_CLASSES: return column == CLASS_FIELD_COUNT || column == CLASS_METHOD_COUNT;
+		case SECTION_METHODS: return column == METHOD_ARG_COUNT || column == METHOD_VAR_COUNT;
+		default: return false;
+		}
+	}
+
+	private static int[] orderClasses(int[][] classes, int size, int nameColumn, StringComparator comparator) {
+		int[] names = classes[nameColumn];
+		int count = 0;
+
+		for (int i = 0; i < size; i++) {
+			if (names[i] != 0) count++;
+		}
+
+		int[] ret = new int[count];
+		count = 0;
+
+		for (int i = 0; i < size; i++) {
+			if (names[i] != 0) ret[count++] = i;
+		}
+
+		sort(ret, 0, ret.length, (a, b) -> comparator.compare(names[a], names[b]), new int[ret.length]);
+
+		return ret;
+	}
+
+	private static int orderMembers(int[][] classes, int classCount, int countColumn, int[][] members, StringComparator comparator, int[] out, int pos) {
+		int[] names = members[COL_SRC_NAME];
+		int[] descs = members[MEMBER_DESC];
+		IndexComparator memberComparator = (a, b) -> {
+			int cmp = comparator.compare(names[a], names[b]);
+
+			return cmp != 0 ? cmp : comparator.compare(descs[a], descs[b]);
+		};
+
+		int start = pos;
+		int[] tmp = new int[16];
+
+		for (int cls = 0; cls < classCount; cls++) {
+			int count = classes[countColumn][cls];
+
+			for (int i = 0; i < count; i++) {
+				out[pos + i] = pos - start + i;
+			}
+
+			if (count > tmp.length) tmp = new int[count];
+			sort(out, pos, pos + count, memberComparator, tmp);
+			pos += count;
+		}
+
+		return pos;
+	}
+
+	/**
+	 * Stable merge sort of a[from..to) using tmp as scratch space.
+	 */
+	private static void sort(int[] a, int from, int to, IndexComparator comparator, int[] tmp) {
+		if (to - from < 8) { // insertion sort
+			for (int i = from + 1; i < to; i++) {
+				int value = a[i];
+				int j = i;
+
+				while (j > from && comparator.compare(a[j - 1], value) > 0) {
+					a[j] = a[j - 1];
+					j--;
+				}
+
+				a[j] = value;
+			}
+
+			return;
+		}
+
+		int mid = (from + to) >>> 1;
+		sort(a, from, mid, comparator, tmp);
+		sort(a, mid, to, comparator, tmp);
+		if (comparator.compare(a[mid - 1], a[mid]) <= 0) return;
+
+		int len = mid - from;
+		System.arraycopy(a, from, tmp, 0, len);
+
+		int i = 0;
+		int j = mid;
+		int k = from;
+
+		while (i < len && j < to) {
+			a[k++] = comparator.compare(a[j], tmp[i]) < 0 ? a[j++] : tmp[i++];
+		}
+
+		System.arraycopy(tmp, i, a, k, len - i);
+	}
+
+	/**
+	 * Comparator for strings referenced by their id, id 0 (null) has to be ordered first.
+	 */
+	interface StringComparator {
+		int compare(int idA, int idB);
+	}
+
+	private interface IndexComparator {
+		int compare(int a, int b);
+	}
+
+	private static final int ELEMENT_SECTION_COUNT = SECTION_VARS - SECTION_CLASSES + 1;
+
+	private final IntBuffer data;
+	private final int stringCount;
+	private final int stringOffsetStart;
+	private final int[] tableSizes = new int[ELEMENT_SECTION_COUNT];
+	private final int[] tableStarts = new int[ELEMENT_SECTION_COUNT];
+	private final int[] classOrderSizes;
+	private final int[] classOrderStarts;
+	private final int fieldOrderStart;
+	private final int methodOrderStart;
+}
@@ -0,0 +1,410 @@
+/*
+ * Copyright (c) 2021 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.mappingio.format;
+
+import static net.fabricmc.mappingio.format.MioBinaryUtil.ARG_LV_INDEX;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.ARG_POSITION;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.CLASS_FIELD_COUNT;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.CLASS_METHOD_COUNT;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.COL_COMMENT;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.COL_SRC_NAME;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.MAGIC;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.MEMBER_DESC;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.METHOD_ARG_COUNT;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.METHOD_VAR_COUNT;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.SECTION_ARGS;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.SECTION_CLASSES;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.SECTION_END;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.SECTION_FIELDS;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.SECTION_HEADER;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.SECTION_INDEX;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.SECTION_METHODS;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.SECTION_STRINGS;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.SECTION_VARS;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.VAR_LVT_ROW_INDEX;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.VAR_LV_INDEX;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.VAR_START_OP_IDX;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.VERSION;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.getFixedColumns;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.hasMagic;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.isStringColumn;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.readVarInt;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import net.fabricmc.mappingio.MappedElementKind;
+import net.fabricmc.mappingio.MappingStringPool;
+import net.fabricmc.mappingio.MappingVisitor;
+
+/**
+ * Reader for the {@link MappingFormat#MIO_BINARY} format, see {@link MioBinaryUtil} for the layout.
+ *
+ * <p>The file is decoded into its string table and columns upfront, the visitation is replayed from those and may be
+ * repeated for visitors that need multiple passes without reading the file again.
+ */
+public final class MioBinaryReader {
+	public static List<String> getNamespaces(Path file) throws IOException {
+		return getNamespaces(readBuffer(file));
+	}
+
+	public static List<String> getNamespaces(ByteBuffer buffer) throws IOException {
+		Content content = decode(buffer, null, true);
+		List<String> ret = new ArrayList<>(content.dstNamespaces.length + 1);
+		ret.add(content.srcNamespace);
+		ret.addAll(Arrays.asList(content.dstNamespaces));
+
+		return ret;
+	}
+
+	public static void read(Path file, MappingVisitor visitor) throws IOException {
+		read(readBuffer(file), visitor);
+	}
+
+	public static void read(InputStream in, MappingVisitor visitor) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		int len;
+
+		while ((len = in.read(buffer)) >= 0) {
+			out.write(buffer, 0, len);
+		}
+
+		read(ByteBuffer.wrap(out.toByteArray()), visitor);
+	}
+
+	public static void read(ByteBuffer buffer, MappingVisitor visitor) throws IOException {
+		Content content = decode(buffer, ColumnReader.getStringPool(visitor), false);
+
+		do {
+			if (visitor.visitHeader()) {
+				visitor.visitNamespaces(content.srcNamespace, Arrays.asList(content.dstNamespaces));
+
+				for (int i = 0; i < content.metadata.length; i += 2) {
+					visitor.visitMetadata(content.metadata[i], content.metadata[i + 1]);
+				}
+			}
+
+			if (visitor.visitContent()) {
+				new Pass(content, visitor).run();
+			}
+		} while (!visitor.visitEnd());
+	}
+
+	private static ByteBuffer readBuffer(Path file) throws IOException {
+		ByteBuffer ret = ColumnReader.readBuffer(file);
+
+		return ret != null ? ret : ByteBuffer.wrap(Files.readAllBytes(file));
+	}
+
+	private static Content decode(ByteBuffer buffer, MappingStringPool pool, boolean headerOnly) throws IOException {
+		buffer = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+
+		if (!hasMagic(buffer)) throw new IOException("invalid/unsupported mio binary file: no mio header");
+
+		buffer.position(buffer.position() + MAGIC.length);
+		int version = buffer.get() & 0xff;
+		if (version != VERSION) throw new IOException("invalid/unsupported mio binary file: unknown version "+version);
+
+		Content ret = new Content();
+
+		try {
+			int section;
+
+			while ((section = buffer.get() & 0xff) != SECTION_END) {
+				int len = buffer.getInt();
+				if (len < 0 || len > buffer.remaining()) throw new IOException("invalid section length "+len+" at "+buffer.position());
+
+				int end = buffer.position() + len;
+				ByteBuffer payload = buffer.duplicate();
+				payload.limit(end);
+				buffer.position(end);
+
+				switch (section) {
+				case SECTION_STRINGS:
+					ret.strings = readStrings(payload, pool);
+					break;
+				case SECTION_HEADER:
+					readHeader(payload, ret);
+					if (headerOnly) return ret;
+					break;
+				case SECTION_CLASSES:
+				case SECTION_FIELDS:
+				case SECTION_METHODS:
+				case SECTION_ARGS:
+				case SECTION_VARS:
+					if (ret.dstNamespaces == null) throw new IOException("element section "+section+" before header");
+					ret.tables[section - SECTION_CLASSES] = readTable(payload, section, ret.dstNamespaces.length, ret.strings);
+					break;
+				case SECTION_INDEX: // only needed for random access
+				default: // unknown section, skip
+				}
+			}
+		} catch (BufferUnderflowException e) {
+			throw new IOException("truncated mio binary file", e);
+		}
+
+		if (ret.dstNamespaces == null) throw new IOException("missing header section");
+
+		for (int i = 0; i < ret.tables.length; i++) {
+			if (ret.tables[i] == null) ret.tables[i] = new Table(new int[getFixedColumns(SECTION_CLASSES + i) + ret.dstNamespaces.length][0]);
+		}
+
+		checkChildCount(ret.getTable(SECTION_CLASSES).columns[CLASS_FIELD_COUNT], ret.getTable(SECTION_FIELDS).size);
+		checkChildCount(ret.getTable(SECTION_CLASSES).columns[CLASS_METHOD_COUNT], ret.getTable(SECTION_METHODS).size);
+		checkChildCount(ret.getTable(SECTION_METHODS).columns[METHOD_ARG_COUNT], ret.getTable(SECTION_ARGS).size);
+		checkChildCount(ret.getTable(SECTION_METHODS).columns[METHOD_VAR_COUNT], ret.getTable(SECTION_VARS).size);
+
+		return ret;
+	}
+
+	private static String[] readStrings(ByteBuffer payload, MappingStringPool pool) throws IOException {
+		int count = readVarInt(payload);
+		String[] ret = new String[count + 1]; // id 0 is null
+		byte[] bytes = new byte[64];
+
+		for (int i = 1; i <= count; i++) {
+			int len = readVarInt(payload);
+			if (len > payload.remaining()) throw new IOException("invalid string length "+len+" at "+payload.position());
+			if (len > bytes.length) bytes = new byte[Math.max(len, bytes.length * 2)];
+
+			payload.get(bytes, 0, len);
+			ret[i] = decodeString(bytes, len, pool);
+		}
+
+		return ret;
+	}
+
+	private static String decodeString(byte[] bytes, int len, MappingStringPool pool) {
+		for (int i = 0; i < len; i++) {
+			if (bytes[i] < 0) { // non-ascii
+				String ret = new String(bytes, 0, len, StandardCharsets.UTF_8);
+
+				return pool != null ? pool.intern(ret) : ret;
+			}
+		}
+
+		return pool != null ? pool.internLatin1(bytes, 0, len) : new String(bytes, 0, len, StandardCharsets.ISO_8859_1);
+	}
+
+	private static void readHeader(ByteBuffer payload, Content content) throws IOException {
+		content.srcNamespace = readHeaderString(payload, content);
+		content.dstNamespaces = new String[readVarInt(payload)];
+
+		for (int i = 0; i < content.dstNamespaces.length; i++) {
+			content.dstNamespaces[i] = readHeaderString(payload, content);
+		}
+
+		content.metadata = new String[readVarInt(payload) * 2];
+
+		for (int i = 0; i < content.metadata.length; i++) {
+			content.metadata[i] = readHeaderString(payload, content);
+		}
+
+		if (content.srcNamespace == null) throw new IOException("missing src namespace");
+	}
+
+	private static String readHeaderString(ByteBuffer payload, Content content) throws IOException {
+		int id = readVarInt(payload);
+		if (id == 0) return null;
+
+		if (content.strings == null) throw new IOException("header section before string section");
+		if (id >= content.strings.length) throw new IOException("invalid string id "+id+" in header");
+
+		return content.strings[id];
+	}
+
+	private static Table readTable(ByteBuffer payload, int section, int dstNsCount, String[] strings) throws IOException {
+		return new Table(readColumns(payload, section, dstNsCount, strings != null ? strings.length : 1));
+	}
+
+	/**
+	 * Decode the columns of an element section.
+	 *
+	 * @param stringCount the number of valid string ids including id 0
+	 */
+	static int[][] readColumns(ByteBuffer payload, int section, int dstNsCount, int stringCount) throws IOException {
+		int size = readVarInt(payload);
+		if (size > payload.remaining()) throw new IOException("invalid element count "+size+" in section "+section); // every value takes at least 1 byte
+
+		int[][] ret = new int[getFixedColumns(section) + dstNsCount][size];
+
+		for (int column = 0; column < ret.length; column++) {
+			int[] values = ret[column];
+			boolean isString = isStringColumn(section, column);
+
+			for (int i = 0; i < size; i++) {
+				int value = readVarInt(payload);
+				if (isString && value >= stringCount) throw new IOException("invalid string id "+value+" in section "+section);
+
+				values[i] = value;
+			}
+		}
+
+		return ret;
+	}
+
+	static void checkChildCount(int[] counts, int childCount) throws IOException {
+		long sum = 0;
+
+		for (int count : counts) {
+			sum += count;
+		}
+
+		if (sum != childCount) throw new IOException("child count mismatch: "+sum+" referenced, "+childCount+" present");
+	}
+
+	private static final class Content {
+		Table getTable(int section) {
+			return tables[section - SECTION_CLASSES];
+		}
+
+		String[] strings;
+		String srcNamespace;
+		String[] dstNamespaces;
+		String[] metadata; // alternating key and value
+		final Table[] tables = new Table[SECTION_VARS - SECTION_CLASSES + 1];
+	}
+
+	private static final class Table {
+		Table(int[][] columns) {
+			this.size = columns[0].length;
+			this.columns = columns;
+		}
+
+		final int size;
+		final int[][] columns;
+	}
+
+	/**
+	 * Single visitation of the decoded content, tracks the position within each element table.
+	 */
+	private static final class Pass {
+		Pass(Content content, MappingVisitor visitor) {
+			this.strings = content.strings;
+			this.dstNsCount = content.dstNamespaces.length;
+			this.classes = content.getTable(SECTION_CLASSES).columns;
+			this.classCount = content.getTable(SECTION_CLASSES).size;
+			this.fields = content.getTable(SECTION_FIELDS).columns;
+			this.methods = content.getTable(SECTION_METHODS).columns;
+			this.args = content.getTable(SECTION_ARGS).columns;
+			this.vars = content.getTable(SECTION_VARS).columns;
+			this.visitor = visitor;
+		}
+
+		void run() throws IOException {
+			for (int cls = 0; cls < classCount; cls++) {
+				int fieldCount = classes[CLASS_FIELD_COUNT][cls];
+				int methodCount = classes[CLASS_METHOD_COUNT][cls];
+
+				if (visitor.visitClass(strings[classes[COL_SRC_NAME][cls]])
+						&& visitElement(MappedElementKind.CLASS, classes, getFixedColumns(SECTION_CLASSES), cls)) {
+					int fieldEnd = field + fieldCount;
+
+					for (; field < fieldEnd; field++) {
+						if (visitor.visitField(strings[fields[COL_SRC_NAME][field]], strings[fields[MEMBER_DESC][field]])) {
+							visitElement(MappedElementKind.FIELD, fields, getFixedColumns(SECTION_FIELDS), field);
+						}
+					}
+
+					int methodEnd = method + methodCount;
+
+					for (; method < methodEnd; method++) {
+						visitMethod();
+					}
+				} else {
+					field += fieldCount;
+
+					for (int methodEnd = method + methodCount; method < methodEnd; method++) {
+						skipMethodChildren();
+					}
+				}
+			}
+		}
+
+		private void visitMethod() throws IOException {
+			int argCount = methods[METHOD_ARG_COUNT][method];
+			int varCount = methods[METHOD_VAR_COUNT][method];
+
+			if (!visitor.visitMethod(strings[methods[COL_SRC_NAME][method]], strings[methods[MEMBER_DESC][method]])
+					|| !visitElement(MappedElementKind.METHOD, methods, getFixedColumns(SECTION_METHODS), method)) {
+				skipMethodChildren();
+				return;
+			}
+
+			for (int argEnd = arg + argCount; arg < argEnd; arg++) {
+				if (visitor.visitMethodArg(args[ARG_POSITION][arg] - 1, args[ARG_LV_INDEX][arg] - 1, strings[args[COL_SRC_NAME][arg]])) {
+					visitElement(MappedElementKind.METHOD_ARG, args, getFixedColumns(SECTION_ARGS), arg);
+				}
+			}
+
+			for (int varEnd = var + varCount; var < varEnd; var++) {
+				if (visitor.visitMethodVar(vars[VAR_LVT_ROW_INDEX][var] - 1, vars[VAR_LV_INDEX][var] - 1, vars[VAR_START_OP_IDX][var] - 1, strings[vars[COL_SRC_NAME][var]])) {
+					visitElement(MappedElementKind.METHOD_VAR, vars, getFixedColumns(SECTION_VARS), var);
+				}
+			}
+		}
+
+		private void skipMethodChildren() {
+			arg += methods[METHOD_ARG_COUNT][method];
+			var += methods[METHOD_VAR_COUNT][method];
+		}
+
+		/**
+		 * Visit an element's dst names, content and comment.
+		 *
+		 * @return whether the element's children should be visited
+		 */
+		private boolean visitElement(MappedElementKind kind, int[][] columns, int fixedColumns, int idx) throws IOException {
+			for (int ns = 0; ns < dstNsCount; ns++) {
+				int name = columns[fixedColumns + ns][idx];
+				if (name != 0) visitor.visitDstName(kind, ns, strings[name]);
+			}
+
+			if (!visitor.visitElementContent(kind)) return false;
+
+			int comment = columns[COL_COMMENT][idx];
+			if (comment != 0) visitor.visitComment(kind, strings[comment]);
+
+			return true;
+		}
+
+		private final String[] strings;
+		private final int dstNsCount;
+		private final int[][] classes;
+		private final int classCount;
+		private final int[][] fields;
+		private final int[][] methods;
+		private final int[][] args;
+		private final int[][] vars;
+		private final MappingVisitor visitor;
+		private int field;
+		private int method;
+		private int arg;
+		private int var;
+	}
+}
@@ -0,0 +1,916 @@
+/*
+ * Copyright (c) 2021 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.mappingio.format;
+
+import static net.fabricmc.mappingio.format.MioBinaryUtil.ARG_LV_INDEX;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.ARG_POSITION;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.CLASS_FIELD_COUNT;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.CLASS_METHOD_COUNT;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.COL_COMMENT;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.COL_SRC_NAME;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.MAGIC;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.MEMBER_DESC;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.METHOD_ARG_COUNT;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.METHOD_VAR_COUNT;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.SECTION_ARGS;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.SECTION_CLASSES;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.SECTION_END;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.SECTION_FIELDS;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.SECTION_HEADER;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.SECTION_INDEX;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.SECTION_METHODS;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.SECTION_STRINGS;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.SECTION_VARS;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.VAR_LVT_ROW_INDEX;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.VAR_LV_INDEX;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.VAR_START_OP_IDX;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.VERSION;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.getFixedColumns;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.hasMagic;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.readVarInt;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import net.fabricmc.mappingio.MappedElementKind;
+import net.fabricmc.mappingio.MappingFlag;
+import net.fabricmc.mappingio.MappingVisitor;
+import net.fabricmc.mappingio.tree.MappingTreeView;
+
+/**
+ * Read-only {@link MappingTreeView} operating directly on a {@link MappingFormat#MIO_BINARY} file.
+ *
+ * <p>Lookups binary search the name ordered permutations of the file's random access index, strings are only decoded
+ * when returned. Elements are lightweight handles created on demand, the view itself doesn't retain any per-element
+ * state. Opening a file is thus cheap regardless of its size, which suits processes that only query a few mappings.
+ *
+ * <p>Files written without index by {@link MioBinaryWriter} get indexed in memory upon construction, which requires
+ * decoding the element sections but still no strings.
+ *
+ * <p>The view is immutable and safe for concurrent use.
+ */
+public final class MioBinaryTreeView implements MappingTreeView {
+	/**
+	 * Open a file by memory mapping it.
+	 *
+	 * <p>The file is always mapped, independent of the {@code mappingIo.enableMappedIo} opt-in of the text readers,
+	 * since the view relies on it to stay zero-copy. The mapping stays alive until the view is garbage collected and
+	 * keeps the file from being overwritten or deleted on some platforms, e.g. Windows. Pass a heap buffer to
+	 * {@link #MioBinaryTreeView(ByteBuffer)} where that is a problem.
+	 *
+	 * @throws IOException if the file can't be read or is larger than a single buffer can map (2 GB)
+	 */
+	public static MioBinaryTreeView open(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE) throw new IOException("mio binary file too large to map: "+size+" bytes");
+
+			return new MioBinaryTreeView(channel.map(FileChannel.MapMode.READ_ONLY, 0, size)); // stays valid after closing the channel
+		}
+	}
+
+	public MioBinaryTreeView(ByteBuffer buffer) throws IOException {
+		buffer = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+		this.buffer = buffer;
+
+		if (!hasMagic(buffer)) throw new IOException("invalid/unsupported mio binary file: no mio header");
+
+		buffer.position(buffer.position() + MAGIC.length);
+		int version = buffer.get() & 0xff;
+		if (version != VERSION) throw new IOException("invalid/unsupported mio binary file: unknown version "+version);
+
+		ByteBuffer strings = null;
+		ByteBuffer header = null;
+		ByteBuffer indexData = null;
+		ByteBuffer[] elements = new ByteBuffer[SECTION_VARS - SECTION_CLASSES + 1];
+
+		try {
+			int section;
+
+			while ((section = buffer.get() & 0xff) != SECTION_END) {
+				int len = buffer.getInt();
+				if (len < 0 || len > buffer.remaining()) throw new IOException("invalid section length "+len+" at "+buffer.position());
+
+				ByteBuffer payload = buffer.duplicate();
+				payload.limit(buffer.position() + len);
+				buffer.position(buffer.position() + len);
+
+				switch (section) {
+				case SECTION_STRINGS:
+					strings = payload;
+					break;
+				case SECTION_HEADER:
+					header = payload;
+					break;
+				case SECTION_CLASSES:
+				case SECTION_FIELDS:
+				case SECTION_METHODS:
+				case SECTION_ARGS:
+				case SECTION_VARS:
+					elements[section - SECTION_CLASSES] = payload;
+					break;
+				case SECTION_INDEX:
+					indexData = payload;
+					break;
+				default: // unknown section, skip
+				}
+			}
+
+			if (strings == null) throw new IOException("missing string section");
+			if (header == null) throw new IOException("missing header section");
+
+			stringsStart = strings.position();
+
+			// header, strings can only be resolved once the index is available
+
+			int srcNamespaceId = readVarInt(header);
+			int[] dstNamespaceIds = new int[readVarInt(header)];
+
+			for (int i = 0; i < dstNamespaceIds.length; i++) {
+				dstNamespaceIds[i] = readVarInt(header);
+			}
+
+			int[] metadataIds = new int[readVarInt(header) * 2];
+
+			for (int i = 0; i < metadataIds.length; i++) {
+				metadataIds[i] = readVarInt(header);
+			}
+
+			dstNsCount = dstNamespaceIds.length;
+
+			if (indexData != null) {
+				ByteBuffer slice = indexData.slice();
+				slice.limit(slice.limit() & ~3);
+				index = new MioBinaryIndex(slice.order(ByteOrder.BIG_ENDIAN).asIntBuffer(), dstNsCount);
+			} else {
+				index = buildIndex(strings, elements);
+			}
+
+			for (int id : dstNamespaceIds) checkStringId(id);
+			for (int id : metadataIds) checkStringId(id);
+			checkStringId(srcNamespaceId);
+
+			srcNamespace = getString(srcNamespaceId);
+			if (srcNamespace == null) throw new IOException("missing src namespace");
+
+			String[] dstNamespaces = new String[dstNsCount];
+
+			for (int i = 0; i < dstNsCount; i++) {
+				dstNamespaces[i] = getString(dstNamespaceIds[i]);
+			}
+
+			this.dstNamespaces = Collections.unmodifiableList(Arrays.asList(dstNamespaces));
+
+			List<Map.Entry<String, String>> metadata = new ArrayList<>(metadataIds.length / 2);
+
+			for (int i = 0; i < metadataIds.length; i += 2) {
+				metadata.add(new AbstractMap.SimpleImmutableEntry<>(getString(metadataIds[i]), getString(metadataIds[i + 1])));
+			}
+
+			this.metadata = Collections.unmodifiableList(metadata);
+		} catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+			throw new IOException("truncated/corrupted mio binary file", e);
+		}
+	}
+
+	/**
+	 * Create the index for a file that doesn't contain one.
+	 */
+	private MioBinaryIndex buildIndex(ByteBuffer strings, ByteBuffer[] elements) throws IOException {
+		ByteBuffer stringScan = strings.duplicate();
+		int[] stringOffsets = new int[readVarInt(stringScan) + 1];
+
+		for (int i = 1; i < stringOffsets.length; i++) {
+			stringOffsets[i] = stringScan.position() - stringsStart;
+			int len = readVarInt(stringScan);
+			if (len > stringScan.remaining()) throw new IOException("invalid string length "+len+" at "+stringScan.position());
+
+			stringScan.position(stringScan.position() + len);
+		}
+
+		int[][][] columns = new int[elements.length][][];
+		int[] sizes = new int[elements.length];
+
+		for (int i = 0; i < elements.length; i++) {
+			int section = SECTION_CLASSES + i;
+
+			if (elements[i] != null) {
+				columns[i] = MioBinaryReader.readColumns(elements[i], section, dstNsCount, stringOffsets.length);
+			} else {
+				columns[i] = new int[getFixedColumns(section) + dstNsCount][0];
+			}
+
+			sizes[i] = columns[i][0].length;
+		}
+
+		MioBinaryReader.checkChildCount(columns[0][CLASS_FIELD_COUNT], sizes[SECTION_FIELDS - SECTION_CLASSES]);
+		MioBinaryReader.checkChildCount(columns[0][CLASS_METHOD_COUNT], sizes[SECTION_METHODS - SECTION_CLASSES]);
+		MioBinaryReader.checkChildCount(columns[SECTION_METHODS - SECTION_CLASSES][METHOD_ARG_COUNT], sizes[SECTION_ARGS - SECTION_CLASSES]);
+		MioBinaryReader.checkChildCount(columns[SECTION_METHODS - SECTION_CLASSES][METHOD_VAR_COUNT], sizes[SECTION_VARS - SECTION_CLASSES]);
+
+		int[] data = MioBinaryIndex.build(columns, sizes, dstNsCount, stringOffsets,
+				(a, b) -> compareStrings(a != 0 ? stringsStart + stringOffsets[a] : -1, b != 0 ? stringsStart + stringOffsets[b] : -1));
+
+		return new MioBinaryIndex(IntBuffer.wrap(data), dstNsCount);
+	}
+
+	private void checkStringId(int id) throws IOException {
+		if (id > index.getStringCount()) throw new IOException("invalid string id "+id+" in header");
+	}
+
+	@Override
+	public String getSrcNamespace() {
+		return srcNamespace;
+	}
+
+	@Override
+	public List<String> getDstNamespaces() {
+		return dstNamespaces;
+	}
+
+	@Override
+	public List<Map.Entry<String, String>> getMetadata() {
+		return metadata;
+	}
+
+	@Override
+	public String getMetadata(String key) {
+		for (Map.Entry<String, String> entry : metadata) {
+			if (entry.getKey().equals(key)) return entry.getValue();
+		}
+
+		return null;
+	}
+
+	@Override
+	public List<ClassEntry> getClasses() {
+		return new AbstractList<ClassEntry>() {
+			@Override
+			public ClassEntry get(int idx) {
+				if (idx < 0 || idx >= size()) throw new IndexOutOfBoundsException(Integer.toString(idx));
+
+				return new ClassEntry(MioBinaryTreeView.this, idx);
+			}
+
+			@Override
+			public int size() {
+				return index.size(SECTION_CLASSES);
+			}
+		};
+	}
+
+	@Override
+	public ClassEntry getClass(String srcName) {
+		return getClass(srcName, SRC_NAMESPACE_ID);
+	}
+
+	@Override
+	public ClassEntry getClass(String name, int namespace) {
+		int idx = findClass(name, 0, name.length(), namespace);
+
+		return idx >= 0 ? new ClassEntry(this, idx) : null;
+	}
+
+	@Override
+	public String mapClassName(String name, int srcNamespace, int dstNamespace) {
+		String ret = mapClassName(name, 0, name.length(), srcNamespace, dstNamespace);
+
+		return ret != null ? ret : name;
+	}
+
+	@Override
+	public String mapClassName(CharSequence name, int start, int end, int srcNamespace, int dstNamespace) {
+		if (srcNamespace == dstNamespace) return null;
+
+		int cls = findClass(name, start, end, srcNamespace);
+		if (cls < 0) return null;
+
+		int id = index.get(SECTION_CLASSES, getNameColumn(SECTION_CLASSES, dstNamespace), cls);
+		if (id == 0 || compare(name, start, end, id) == 0) return null;
+
+		return getString(id);
+	}
+
+	/**
+	 * Binary search the class with the name name[start..end) in the namespace.
+	 *
+	 * @return the class index or -1 if there is none
+	 */
+	private int findClass(CharSequence name, int start, int end, int namespace) {
+		int column = getNameColumn(SECTION_CLASSES, namespace);
+		int low = 0;
+		int high = index.getClassOrderSize(namespace);
+
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+
+			if (compare(name, start, end, index.get(SECTION_CLASSES, column, index.getOrderedClass(namespace, mid))) > 0) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+
+		if (low < index.getClassOrderSize(namespace)) {
+			int cls = index.getOrderedClass(namespace, low);
+			if (compare(name, start, end, index.get(SECTION_CLASSES, column, cls)) == 0) return cls;
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Find the member of a class best matching the src name and desc.
+	 *
+	 * <p>An exact match is preferred, otherwise a missing descriptor on either side or a parameter-only descriptor
+	 * being the prefix of the other descriptor is tolerated. The element order decides among equivalent candidates.
+	 *
+	 * @return the member index or -1 if there is none
+	 */
+	private int findMember(int cls, boolean method, String name, String desc) {
+		int section = method ? SECTION_METHODS : SECTION_FIELDS;
+		int countColumn = method ? CLASS_METHOD_COUNT : CLASS_FIELD_COUNT;
+		int start = index.get(SECTION_CLASSES, countColumn, cls);
+		int end = index.getChildEnd(SECTION_CLASSES, countColumn, cls, section);
+		int low = start;
+		int high = end;
+
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+
+			if (compare(name, 0, name.length(), index.get(section, COL_SRC_NAME, getOrderedMember(method, mid))) > 0) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+
+		int firstMatch = -1;
+		int nullDescMatch = -1;
+		int prefixMatch = -1;
+		boolean partialDesc = desc != null && desc.endsWith(")");
+
+		for (int pos = low; pos < end; pos++) {
+			int member = getOrderedMember(method, pos);
+			if (compare(name, 0, name.length(), index.get(section, COL_SRC_NAME, member)) != 0) break;
+
+			if (desc == null) {
+				if (firstMatch < 0 || member < firstMatch) firstMatch = member;
+				continue;
+			}
+
+			int descId = index.get(section, MEMBER_DESC, member);
+
+			if (descId == 0) {
+				if (nullDescMatch < 0 || member < nullDescMatch) nullDescMatch = member;
+			} else if (compare(desc, 0, desc.length(), descId) == 0) {
+				return member; // equal descs retain the element order, the first one is the earliest
+			} else if (prefixMatch < 0 || member < prefixMatch) {
+				String candidateDesc = getString(descId);
+
+				if (partialDesc ? candidateDesc.startsWith(desc) : candidateDesc.endsWith(")") && desc.startsWith(candidateDesc)) {
+					prefixMatch = member;
+				}
+			}
+		}
+
+		if (desc == null) return firstMatch;
+
+		return nullDescMatch >= 0 ? nullDescMatch : prefixMatch;
+	}
+
+	private int getOrderedMember(boolean method, int pos) {
+		return method ? index.getOrderedMethod(pos) : index.getOrderedField(pos);
+	}
+
+	private int getNameColumn(int section, int namespace) {
+		return namespace < 0 ? COL_SRC_NAME : getFixedColumns(section) + namespace;
+	}
+
+	String getString(int id) {
+		if (id == 0) return null;
+
+		int pos = stringsStart + index.getStringOffset(id);
+		int len = getVarInt(pos);
+		pos += getVarIntSize(len);
+
+		byte[] bytes = new byte[len];
+		boolean ascii = true;
+
+		for (int i = 0; i < len; i++) {
+			byte b = buffer.get(pos + i);
+			bytes[i] = b;
+			if (b < 0) ascii = false;
+		}
+
+		return new String(bytes, ascii ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Compare name[start..end) with a stored string by code point.
+	 */
+	private int compare(CharSequence name, int start, int end, int id) {
+		int pos = stringsStart + index.getStringOffset(id);
+		int len = getVarInt(pos);
+		pos += getVarIntSize(len);
+		int storedEnd = pos + len;
+
+		while (start < end && pos < storedEnd) {
+			int b = buffer.get(pos++) & 0xff;
+			int c = name.charAt(start++);
+
+			if (b < 0x80 && c < 0x80) { // ascii fast path
+				if (b != c) return c - b;
+				continue;
+			}
+
+			// decode a full code point on both sides
+
+			if (Character.isHighSurrogate((char) c) && start < end && Character.isLowSurrogate(name.charAt(start))) {
+				c = Character.toCodePoint((char) c, name.charAt(start++));
+			}
+
+			int cp;
+
+			if (b < 0x80) {
+				cp = b;
+			} else if (b < 0xe0) {
+				cp = (b & 0x1f) << 6 | buffer.get(pos++) & 0x3f;
+			} else if (b < 0xf0) {
+				cp = (b & 0x0f) << 12 | (buffer.get(pos++) & 0x3f) << 6 | buffer.get(pos++) & 0x3f;
+			} else {
+				cp = (b & 0x07) << 18 | (buffer.get(pos++) & 0x3f) << 12 | (buffer.get(pos++) & 0x3f) << 6 | buffer.get(pos++) & 0x3f;
+			}
+
+			if (c != cp) return c - cp;
+		}
+
+		return (start < end ? 1 : 0) - (pos < storedEnd ? 1 : 0);
+	}
+
+	/**
+	 * Compare two stored strings by their UTF-8 bytes, -1 represents null and is ordered first.
+	 */
+	private int compareStrings(int posA, int posB) {
+		if (posA < 0 || posB < 0) return Integer.compare(posA < 0 ? 0 : 1, posB < 0 ? 0 : 1);
+
+		int lenA = getVarInt(posA);
+		int lenB = getVarInt(posB);
+		posA += getVarIntSize(lenA);
+		posB += getVarIntSize(lenB);
+		int len = Math.min(lenA, lenB);
+
+		for (int i = 0; i < len; i++) {
+			int cmp = (buffer.get(posA + i) & 0xff) - (buffer.get(posB + i) & 0xff);
+			if (cmp != 0) return cmp;
+		}
+
+		return lenA - lenB;
+	}
+
+	private int getVarInt(int pos) {
+		int ret = 0;
+		int shift = 0;
+		byte b;
+
+		do {
+			b = buffer.get(pos++);
+			ret |= (b & 0x7f) << shift;
+			shift += 7;
+		} while (b < 0);
+
+		return ret;
+	}
+
+	private static int getVarIntSize(int value) {
+		int ret = 1;
+
+		while ((value & ~0x7f) != 0) {
+			value >>>= 7;
+			ret++;
+		}
+
+		return ret;
+	}
+
+	@Override
+	public void accept(MappingVisitor visitor) throws IOException {
+		do {
+			if (visitor.visitHeader()) {
+				visitor.visitNamespaces(srcNamespace, dstNamespaces);
+
+				for (Map.Entry<String, String> entry : metadata) {
+					visitor.visitMetadata(entry.getKey(), entry.getValue());
+				}
+			}
+
+			if (visitor.visitContent()) {
+				Set<MappingFlag> flags = visitor.getFlags();
+				boolean supplyFieldDstDescs = flags.contains(MappingFlag.NEEDS_DST_FIELD_DESC);
+				boolean supplyMethodDstDescs = flags.contains(MappingFlag.NEEDS_DST_METHOD_DESC);
+
+				for (ClassEntry cls : getClasses()) {
+					cls.accept(visitor, supplyFieldDstDescs, supplyMethodDstDescs);
+				}
+			}
+		} while (!visitor.visitEnd());
+	}
+
+	abstract static class Entry implements ElementMappingView {
+		Entry(MioBinaryTreeView tree, int section, int idx) {
+			this.tree = tree;
+			this.section = section;
+			this.idx = idx;
+		}
+
+		abstract MappedElementKind getKind();
+
+		@Override
+		public final MioBinaryTreeView getTree() {
+			return tree;
+		}
+
+		@Override
+		public final String getSrcName() {
+			return tree.getString(get(COL_SRC_NAME));
+		}
+
+		@Override
+		public final String getDstName(int namespace) {
+			return tree.getString(get(getFixedColumns(section) + namespace));
+		}
+
+		@Override
+		public final String getComment() {
+			return tree.getString(get(COL_COMMENT));
+		}
+
+		final int get(int column) {
+			return tree.index.get(section, column, idx);
+		}
+
+		final boolean acceptElement(MappingVisitor visitor, String srcDesc) throws IOException {
+			MappedElementKind kind = getKind();
+
+			for (int ns = 0; ns < tree.dstNsCount; ns++) {
+				String dstName = getDstName(ns);
+
+				if (dstName != null) visitor.visitDstName(kind, ns, dstName);
+			}
+
+			if (srcDesc != null) {
+				for (int ns = 0; ns < tree.dstNsCount; ns++) {
+					visitor.visitDstDesc(kind, ns, tree.mapDesc(srcDesc, ns));
+				}
+			}
+
+			if (!visitor.visitElementContent(kind)) {
+				return false;
+			}
+
+			String comment = getComment();
+			if (comment != null) visitor.visitComment(kind, comment);
+
+			return true;
+		}
+
+		@Override
+		public final boolean equals(Object obj) {
+			if (obj == null || obj.getClass() != getClass()) return false;
+
+			Entry o = (Entry) obj;
+
+			return tree == o.tree && idx == o.idx;
+		}
+
+		@Override
+		public final int hashCode() {
+			return idx * 31 + section;
+		}
+
+		final MioBinaryTreeView tree;
+		final int section;
+		final int idx;
+	}
+
+	static final class ClassEntry extends Entry implements ClassMappingView {
+		ClassEntry(MioBinaryTreeView tree, int idx) {
+			super(tree, SECTION_CLASSES, idx);
+		}
+
+		@Override
+		MappedElementKind getKind() {
+			return MappedElementKind.CLASS;
+		}
+
+		@Override
+		public List<FieldEntry> getFields() {
+			int start = get(CLASS_FIELD_COUNT);
+			int end = tree.index.getChildEnd(SECTION_CLASSES, CLASS_FIELD_COUNT, idx, SECTION_FIELDS);
+
+			return new ChildList<FieldEntry>(start, end) {
+				@Override
+				FieldEntry create(int childIdx) {
+					return new FieldEntry(ClassEntry.this, childIdx);
+				}
+			};
+		}
+
+		@Override
+		public FieldEntry getField(String srcName, String srcDesc) {
+			int ret = tree.findMember(idx, false, srcName, srcDesc);
+
+			return ret >= 0 ? new FieldEntry(this, ret) : null;
+		}
+
+		@Override
+		public List<MethodEntry> getMethods() {
+			int start = get(CLASS_METHOD_COUNT);
+			int end = tree.index.getChildEnd(SECTION_CLASSES, CLASS_METHOD_COUNT, idx, SECTION_METHODS);
+
+			return new ChildList<MethodEntry>(start, end) {
+				@Override
+				MethodEntry create(int childIdx) {
+					return new MethodEntry(ClassEntry.this, childIdx);
+				}
+			};
+		}
+
+		@Override
+		public MethodEntry getMethod(String srcName, String srcDesc) {
+			int ret = tree.findMember(idx, true, srcName, srcDesc);
+
+			return ret >= 0 ? new MethodEntry(this, ret) : null;
+		}
+
+		void accept(MappingVisitor visitor, boolean supplyFieldDstDescs, boolean supplyMethodDstDescs) throws IOException {
+			if (!visitor.visitClass(getSrcName()) || !acceptElement(visitor, null)) {
+				return;
+			}
+
+			for (FieldEntry field : getFields()) {
+				field.accept(visitor, supplyFieldDstDescs);
+			}
+
+			for (MethodEntry method : getMethods()) {
+				method.accept(visitor, supplyMethodDstDescs);
+			}
+		}
+
+		@Override
+		public String toString() {
+			return getSrcName();
+		}
+	}
+
+	abstract static class MemberEntry extends Entry implements MemberMappingView {
+		MemberEntry(ClassEntry owner, int section, int idx) {
+			super(owner.tree, section, idx);
+
+			this.owner = owner;
+		}
+
+		@Override
+		public final ClassEntry getOwner() {
+			return owner;
+		}
+
+		@Override
+		public final String getSrcDesc() {
+			return tree.getString(get(MEMBER_DESC));
+		}
+
+		final ClassEntry owner;
+	}
+
+	static final class FieldEntry extends MemberEntry implements FieldMappingView {
+		FieldEntry(ClassEntry owner, int idx) {
+			super(owner, SECTION_FIELDS, idx);
+		}
+
+		@Override
+		MappedElementKind getKind() {
+			return MappedElementKind.FIELD;
+		}
+
+		void accept(MappingVisitor visitor, boolean supplyDstDescs) throws IOException {
+			String srcDesc = getSrcDesc();
+
+			if (visitor.visitField(getSrcName(), srcDesc)) {
+				acceptElement(visitor, supplyDstDescs ? srcDesc : null);
+			}
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%s;;%s", getSrcName(), getSrcDesc());
+		}
+	}
+
+	static final class MethodEntry extends MemberEntry implements MethodMappingView {
+		MethodEntry(ClassEntry owner, int idx) {
+			super(owner, SECTION_METHODS, idx);
+		}
+
+		@Override
+		MappedElementKind getKind() {
+			return MappedElementKind.METHOD;
+		}
+
+		@Override
+		public List<MethodArgEntry> getArgs() {
+			int start = get(METHOD_ARG_COUNT);
+			int end = tree.index.getChildEnd(SECTION_METHODS, METHOD_ARG_COUNT, idx, SECTION_ARGS);
+
+			return new ChildList<MethodArgEntry>(start, end) {
+				@Override
+				MethodArgEntry create(int childIdx) {
+					return new MethodArgEntry(MethodEntry.this, childIdx);
+				}
+			};
+		}
+
+		@Override
+		public List<MethodVarEntry> getVars() {
+			int start = get(METHOD_VAR_COUNT);
+			int end = tree.index.getChildEnd(SECTION_METHODS, METHOD_VAR_COUNT, idx, SECTION_VARS);
+
+			return new ChildList<MethodVarEntry>(start, end) {
+				@Override
+				MethodVarEntry create(int childIdx) {
+					return new MethodVarEntry(MethodEntry.this, childIdx);
+				}
+			};
+		}
+
+		void accept(MappingVisitor visitor, boolean supplyDstDescs) throws IOException {
+			String srcDesc = getSrcDesc();
+
+			if (visitor.visitMethod(getSrcName(), srcDesc) && acceptElement(visitor, supplyDstDescs ? srcDesc : null)) {
+				for (MethodArgEntry arg : getArgs()) {
+					arg.accept(visitor);
+				}
+
+				for (MethodVarEntry var : getVars()) {
+					var.accept(visitor);
+				}
+			}
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%s%s", getSrcName(), getSrcDesc());
+		}
+	}
+
+	static final class MethodArgEntry extends Entry implements MethodArgMappingView {
+		MethodArgEntry(MethodEntry method, int idx) {
+			super(method.tree, SECTION_ARGS, idx);
+
+			this.method = method;
+		}
+
+		@Override
+		MappedElementKind getKind() {
+			return MappedElementKind.METHOD_ARG;
+		}
+
+		@Override
+		public MethodEntry getMethod() {
+			return method;
+		}
+
+		@Override
+		public int getArgPosition() {
+			return get(ARG_POSITION) - 1;
+		}
+
+		@Override
+		public int getLvIndex() {
+			return get(ARG_LV_INDEX) - 1;
+		}
+
+		void accept(MappingVisitor visitor) throws IOException {
+			if (visitor.visitMethodArg(getArgPosition(), getLvIndex(), getSrcName())) {
+				acceptElement(visitor, null);
+			}
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%d/%d:%s", getArgPosition(), getLvIndex(), getSrcName());
+		}
+
+		private final MethodEntry method;
+	}
+
+	static final class MethodVarEntry extends Entry implements MethodVarMappingView {
+		MethodVarEntry(MethodEntry method, int idx) {
+			super(method.tree, SECTION_VARS, idx);
+
+			this.method = method;
+		}
+
+		@Override
+		MappedElementKind getKind() {
+			return MappedElementKind.METHOD_VAR;
+		}
+
+		@Override
+		public MethodEntry getMethod() {
+			return method;
+		}
+
+		@Override
+		public int getLvtRowIndex() {
+			return get(VAR_LVT_ROW_INDEX) - 1;
+		}
+
+		@Override
+		public int getLvIndex() {
+			return get(VAR_LV_INDEX) - 1;
+		}
+
+		@Override
+		public int getStartOpIdx() {
+			return get(VAR_START_OP_IDX) - 1;
+		}
+
+		void accept(MappingVisitor visitor) throws IOException {
+			if (visitor.visitMethodVar(getLvtRowIndex(), getLvIndex(), getStartOpIdx(), getSrcName())) {
+				acceptElement(visitor, null);
+			}
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%d/%d@%d:%s", getLvtRowIndex(), getLvIndex(), getStartOpIdx(), getSrcName());
+		}
+
+		private final MethodEntry method;
+	}
+
+	/**
+	 * List creating the entries for a range of child elements on demand.
+	 */
+	private abstract static class ChildList<T> extends AbstractList<T> {
+		ChildList(int start, int end) {
+			this.start = start;
+			this.end = end;
+		}
+
+		abstract T create(int childIdx);
+
+		@Override
+		public T get(int idx) {
+			if (idx < 0 || idx >= end - start) throw new IndexOutOfBoundsException(Integer.toString(idx));
+
+			return create(start + idx);
+		}
+
+		@Override
+		public int size() {
+			return end - start;
+		}
+
+		private final int start;
+		private final int end;
+	}
+
+	private final ByteBuffer buffer;
+	private final int stringsStart;
+	private final int dstNsCount;
+	private final MioBinaryIndex index;
+	private final String srcNamespace;
+	private final List<String> dstNamespaces;
+	private final List<Map.Entry<String, String>> metadata;
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2021 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.mappingio.format;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Layout of the {@link MappingFormat#MIO_BINARY} format.
+ *
+ * <p>A file starts with {@link #MAGIC} and a version byte, followed by sections until {@link #SECTION_END}. Each
+ * section consists of a tag byte, a 4 byte big endian payload length and the payload. Readers skip unknown sections.
+ *
+ * <p>All numbers in the payloads are unsigned LEB128 varints. Strings are referenced by their id in the string
+ * section, id 0 represents null and the ids are assigned in descending frequency to keep the common ones short.
+ *
+ * <p>Every element kind has its own section with the element count followed by one column per attribute with a
+ * value for each element. The fixed columns are followed by the dst name columns in namespace order. Elements are
+ * grouped by their parent in parent order, the parents store the child counts. Attributes that may be -1 are
+ * stored incremented by one.
+ *
+ * <p>The optional {@link #SECTION_INDEX} repeats the content in a fixed width form suitable for random access and adds
+ * name ordered permutations for binary searching, see {@link MioBinaryIndex}.
+ */
+final class MioBinaryUtil {
+	static boolean hasMagic(ByteBuffer buffer) {
+		if (buffer.remaining() < MAGIC.length + 1) return false;
+
+		for (int i = 0; i < MAGIC.length; i++) {
+			if (buffer.get(buffer.position() + i) != MAGIC[i]) return false;
+		}
+
+		return true;
+	}
+
+	static int getFixedColumns(int section) {
+		switch (section) {
+		case SECTION_CLASSES: return CLASS_COLUMNS;
+		case SECTION_FIELDS: return FIELD_COLUMNS;
+		case SECTION_METHODS: return METHOD_COLUMNS;
+		case SECTION_ARGS: return ARG_COLUMNS;
+		case SECTION_VARS: return VAR_COLUMNS;
+		default: throw new IllegalArgumentException("not an element section: "+section);
+		}
+	}
+
+	static boolean isStringColumn(int section, int column) {
+		return column == COL_SRC_NAME
+				|| column == COL_COMMENT
+				|| column == MEMBER_DESC && (section == SECTION_FIELDS || section == SECTION_METHODS)
+				|| column >= getFixedColumns(section);
+	}
+
+	static int readVarInt(ByteBuffer buffer) throws IOException {
+		int ret = 0;
+
+		for (int shift = 0; shift < 35; shift += 7) {
+			byte b = buffer.get();
+			ret |= (b & 0x7f) << shift;
+			if (b >= 0) return ret;
+		}
+
+		throw new IOException("invalid varint at "+(buffer.position() - 5));
+	}
+
+	static final byte[] MAGIC = { 0, 'M', 'I', 'O' };
+	static final int VERSION = 1;
+
+	static final int SECTION_END = 0;
+	static final int SECTION_STRINGS = 1;
+	static final int SECTION_HEADER = 2;
+	static final int SECTION_CLASSES = 3;
+	static final int SECTION_FIELDS = 4;
+	static final int SECTION_METHODS = 5;
+	static final int SECTION_ARGS = 6;
+	static final int SECTION_VARS = 7;
+	static final int SECTION_INDEX = 8;
+
+	// columns shared by all element sections
+	static final int COL_SRC_NAME = 0;
+	static final int COL_COMMENT = 1;
+
+	static final int CLASS_FIELD_COUNT = 2;
+	static final int CLASS_METHOD_COUNT = 3;
+	static final int CLASS_COLUMNS = 4;
+
+	static final int MEMBER_DESC = 2;
+	static final int FIELD_COLUMNS = 3;
+	static final int METHOD_ARG_COUNT = 3;
+	static final int METHOD_VAR_COUNT = 4;
+	static final int METHOD_COLUMNS = 5;
+
+	static final int ARG_POSITION = 2;
+	static final int ARG_LV_INDEX = 3;
+	static final int ARG_COLUMNS = 4;
+
+	static final int VAR_LVT_ROW_INDEX = 2;
+	static final int VAR_LV_INDEX = 3;
+	static final int VAR_START_OP_IDX = 4;
+	static final int VAR_COLUMNS = 5;
+}
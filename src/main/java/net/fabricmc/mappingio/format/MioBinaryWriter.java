@@ -0,0 +1,446 @@
+/*
+ * Copyright (c) 2021 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.mappingio.format;
+
+import static net.fabricmc.mappingio.format.MioBinaryUtil.ARG_LV_INDEX;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.ARG_POSITION;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.CLASS_FIELD_COUNT;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.CLASS_METHOD_COUNT;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.COL_COMMENT;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.COL_SRC_NAME;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.MAGIC;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.MEMBER_DESC;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.METHOD_ARG_COUNT;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.METHOD_VAR_COUNT;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.SECTION_ARGS;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.SECTION_CLASSES;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.SECTION_END;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.SECTION_FIELDS;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.SECTION_HEADER;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.SECTION_INDEX;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.SECTION_METHODS;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.SECTION_STRINGS;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.SECTION_VARS;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.VAR_LVT_ROW_INDEX;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.VAR_LV_INDEX;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.VAR_START_OP_IDX;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.VERSION;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.getFixedColumns;
+import static net.fabricmc.mappingio.format.MioBinaryUtil.isStringColumn;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import net.fabricmc.mappingio.MappedElementKind;
+import net.fabricmc.mappingio.MappingFlag;
+import net.fabricmc.mappingio.MappingWriter;
+
+/**
+ * Writer for the {@link MappingFormat#MIO_BINARY} format, see {@link MioBinaryUtil} for the layout.
+ *
+ * <p>The content is buffered until {@link #visitEnd()} since the string table has to precede it.
+ *
+ * <p>Writing the random access index lets {@link MioBinaryTreeView} open the file without decoding it, at the cost of
+ * two to three times the file size.
+ */
+public final class MioBinaryWriter implements MappingWriter {
+	public MioBinaryWriter(OutputStream out) {
+		this(out, false);
+	}
+
+	public MioBinaryWriter(OutputStream out, boolean writeIndex) {
+		this.out = out;
+		this.writeIndex = writeIndex;
+	}
+
+	@Override
+	public void close() throws IOException {
+		out.close();
+	}
+
+	@Override
+	public Set<MappingFlag> getFlags() {
+		return flags;
+	}
+
+	@Override
+	public void visitNamespaces(String srcNamespace, List<String> dstNamespaces) {
+		this.srcNamespace = addString(srcNamespace);
+		this.dstNamespaces = new int[dstNamespaces.size()];
+
+		for (int i = 0; i < this.dstNamespaces.length; i++) {
+			this.dstNamespaces[i] = addString(dstNamespaces.get(i));
+		}
+
+		int dstNsCount = dstNamespaces.size();
+		classes = new Table(SECTION_CLASSES, dstNsCount);
+		fields = new Table(SECTION_FIELDS, dstNsCount);
+		methods = new Table(SECTION_METHODS, dstNsCount);
+		args = new Table(SECTION_ARGS, dstNsCount);
+		vars = new Table(SECTION_VARS, dstNsCount);
+	}
+
+	@Override
+	public void visitMetadata(String key, String value) {
+		metadata.add(addString(key));
+		metadata.add(addString(value));
+	}
+
+	@Override
+	public boolean visitClass(String srcName) {
+		classes.add(addString(srcName));
+
+		return true;
+	}
+
+	@Override
+	public boolean visitField(String srcName, String srcDesc) {
+		if (classes.size == 0) throw new IllegalStateException("field without owning class");
+
+		int idx = fields.add(addString(srcName));
+		fields.set(idx, MEMBER_DESC, addString(srcDesc));
+		classes.increment(classes.size - 1, CLASS_FIELD_COUNT);
+
+		return true;
+	}
+
+	@Override
+	public boolean visitMethod(String srcName, String srcDesc) {
+		if (classes.size == 0) throw new IllegalStateException("method without owning class");
+
+		int idx = methods.add(addString(srcName));
+		methods.set(idx, MEMBER_DESC, addString(srcDesc));
+		classes.increment(classes.size - 1, CLASS_METHOD_COUNT);
+
+		return true;
+	}
+
+	@Override
+	public boolean visitMethodArg(int argPosition, int lvIndex, String srcName) {
+		if (methods.size == 0) throw new IllegalStateException("method arg without owning method");
+
+		int idx = args.add(addString(srcName));
+		args.set(idx, ARG_POSITION, argPosition + 1);
+		args.set(idx, ARG_LV_INDEX, lvIndex + 1);
+		methods.increment(methods.size - 1, METHOD_ARG_COUNT);
+
+		return true;
+	}
+
+	@Override
+	public boolean visitMethodVar(int lvtRowIndex, int lvIndex, int startOpIdx, String srcName) {
+		if (methods.size == 0) throw new IllegalStateException("method var without owning method");
+
+		int idx = vars.add(addString(srcName));
+		vars.set(idx, VAR_LVT_ROW_INDEX, lvtRowIndex + 1);
+		vars.set(idx, VAR_LV_INDEX, lvIndex + 1);
+		vars.set(idx, VAR_START_OP_IDX, startOpIdx + 1);
+		methods.increment(methods.size - 1, METHOD_VAR_COUNT);
+
+		return true;
+	}
+
+	@Override
+	public void visitDstName(MappedElementKind targetKind, int namespace, String name) {
+		Table table = getTable(targetKind);
+		table.set(table.size - 1, table.fixedColumns + namespace, addString(name));
+	}
+
+	@Override
+	public void visitComment(MappedElementKind targetKind, String comment) {
+		Table table = getTable(targetKind);
+		table.set(table.size - 1, COL_COMMENT, addString(comment));
+	}
+
+	@Override
+	public boolean visitEnd() throws IOException {
+		if (classes == null) throw new IllegalStateException("missing namespaces");
+
+		int[] idMap = sortStrings();
+		ByteSink sink = new ByteSink();
+
+		out.write(MAGIC);
+		out.write(VERSION);
+
+		// strings
+
+		sink.writeVarInt(strings.size());
+		int[] stringOffsets = new int[strings.size() + 1];
+		byte[][] stringBytes = new byte[strings.size() + 1][];
+
+		for (int i = 0; i < strings.size(); i++) {
+			byte[] bytes = strings.get(i).getBytes(StandardCharsets.UTF_8);
+			stringOffsets[i + 1] = sink.size;
+			stringBytes[i + 1] = bytes;
+			sink.writeVarInt(bytes.length);
+			sink.write(bytes);
+		}
+
+		writeSection(SECTION_STRINGS, sink);
+
+		// header
+
+		sink.writeVarInt(idMap[srcNamespace]);
+		sink.writeVarInt(dstNamespaces.length);
+
+		for (int ns : dstNamespaces) {
+			sink.writeVarInt(idMap[ns]);
+		}
+
+		sink.writeVarInt(metadata.size() / 2);
+
+		for (int id : metadata) {
+			sink.writeVarInt(idMap[id]);
+		}
+
+		writeSection(SECTION_HEADER, sink);
+
+		// elements
+
+		Table[] tables = { classes, fields, methods, args, vars };
+
+		for (Table table : tables) {
+			table.write(sink, idMap);
+			writeSection(table.section, sink);
+		}
+
+		if (writeIndex) {
+			int[][][] columns = new int[tables.length][][];
+			int[] sizes = new int[tables.length];
+
+			for (int i = 0; i < tables.length; i++) {
+				columns[i] = tables[i].getFinalColumns(idMap);
+				sizes[i] = tables[i].size;
+			}
+
+			int[] index = MioBinaryIndex.build(columns, sizes, dstNamespaces.length, stringOffsets,
+					(a, b) -> compareUtf8(stringBytes[a], stringBytes[b]));
+
+			for (int value : index) {
+				sink.writeInt(value);
+			}
+
+			writeSection(SECTION_INDEX, sink);
+		}
+
+		out.write(SECTION_END);
+		out.flush();
+
+		return true;
+	}
+
+	private Table getTable(MappedElementKind kind) {
+		switch (kind) {
+		case CLASS: return classes;
+		case FIELD: return fields;
+		case METHOD: return methods;
+		case METHOD_ARG: return args;
+		case METHOD_VAR: return vars;
+		default: throw new IllegalArgumentException("invalid kind: "+kind);
+		}
+	}
+
+	private int addString(String str) {
+		if (str == null) return 0;
+
+		int[] entry = stringIds.get(str);
+
+		if (entry == null) {
+			strings.add(str);
+			entry = new int[] { strings.size(), 0 };
+			stringIds.put(str, entry);
+		}
+
+		entry[1]++;
+
+		return entry[0];
+	}
+
+	/**
+	 * Sort the string table by descending use count.
+	 *
+	 * @return the mapping from the provisional (insertion order) ids to the final ids
+	 */
+	private int[] sortStrings() {
+		String[] sorted = strings.toArray(new String[0]);
+		Arrays.sort(sorted, (a, b) -> Integer.compare(stringIds.get(b)[1], stringIds.get(a)[1]));
+
+		int[] ret = new int[sorted.length + 1];
+
+		for (int i = 0; i < sorted.length; i++) {
+			ret[stringIds.get(sorted[i])[0]] = i + 1;
+		}
+
+		strings.clear();
+		strings.addAll(Arrays.asList(sorted));
+
+		return ret;
+	}
+
+	/**
+	 * Compare UTF-8 encoded strings by their unsigned bytes, null first.
+	 */
+	private static int compareUtf8(byte[] a, byte[] b) {
+		if (a == null || b == null) return a == b ? 0 : (a == null ? -1 : 1);
+
+		int len = Math.min(a.length, b.length);
+
+		for (int i = 0; i < len; i++) {
+			int cmp = (a[i] & 0xff) - (b[i] & 0xff);
+			if (cmp != 0) return cmp;
+		}
+
+		return a.length - b.length;
+	}
+
+	private void writeSection(int section, ByteSink sink) throws IOException {
+		out.write(section);
+		out.write(sink.size >>> 24);
+		out.write(sink.size >>> 16);
+		out.write(sink.size >>> 8);
+		out.write(sink.size);
+		out.write(sink.data, 0, sink.size);
+		sink.size = 0;
+	}
+
+	/**
+	 * Columns of one element kind, the string columns hold provisional string ids.
+	 */
+	private static final class Table {
+		Table(int section, int dstNsCount) {
+			this.section = section;
+			this.fixedColumns = getFixedColumns(section);
+			this.columns = new int[fixedColumns + dstNsCount][16];
+		}
+
+		int add(int srcName) {
+			if (size == columns[0].length) {
+				for (int i = 0; i < columns.length; i++) {
+					columns[i] = Arrays.copyOf(columns[i], size * 2);
+				}
+			}
+
+			columns[COL_SRC_NAME][size] = srcName;
+
+			return size++;
+		}
+
+		void set(int idx, int column, int value) {
+			columns[column][idx] = value;
+		}
+
+		void increment(int idx, int column) {
+			columns[column][idx]++;
+		}
+
+		/**
+		 * Get the columns trimmed to the element count with the string ids mapped to the final ids.
+		 */
+		int[][] getFinalColumns(int[] idMap) {
+			int[][] ret = new int[columns.length][];
+
+			for (int column = 0; column < columns.length; column++) {
+				ret[column] = Arrays.copyOf(columns[column], size);
+
+				if (isStringColumn(section, column)) {
+					for (int i = 0; i < size; i++) {
+						ret[column][i] = idMap[ret[column][i]];
+					}
+				}
+			}
+
+			return ret;
+		}
+
+		void write(ByteSink sink, int[] idMap) {
+			sink.writeVarInt(size);
+
+			for (int column = 0; column < columns.length; column++) {
+				int[] values = columns[column];
+				boolean isString = isStringColumn(section, column);
+
+				for (int i = 0; i < size; i++) {
+					sink.writeVarInt(isString ? idMap[values[i]] : values[i]);
+				}
+			}
+		}
+
+		final int section;
+		final int fixedColumns;
+		final int[][] columns;
+		int size;
+	}
+
+	private static final class ByteSink {
+		void write(byte[] bytes) {
+			ensureCapacity(bytes.length);
+			System.arraycopy(bytes, 0, data, size, bytes.length);
+			size += bytes.length;
+		}
+
+		void writeVarInt(int value) {
+			ensureCapacity(5);
+
+			while ((value & ~0x7f) != 0) {
+				data[size++] = (byte) (value & 0x7f | 0x80);
+				value >>>= 7;
+			}
+
+			data[size++] = (byte) value;
+		}
+
+		void writeInt(int value) {
+			ensureCapacity(4);
+			data[size++] = (byte) (value >>> 24);
+			data[size++] = (byte) (value >>> 16);
+			data[size++] = (byte) (value >>> 8);
+			data[size++] = (byte) value;
+		}
+
+		private void ensureCapacity(int extra) {
+			if (size + extra > data.length) {
+				data = Arrays.copyOf(data, Math.max(data.length * 2, size + extra));
+			}
+		}
+
+		byte[] data = new byte[8192];
+		int size;
+	}
+
+	private static final Set<MappingFlag> flags = EnumSet.of(MappingFlag.NEEDS_UNIQUENESS);
+
+	private final OutputStream out;
+	private final boolean writeIndex;
+	private final List<String> strings = new ArrayList<>();
+	private final Map<String, int[]> stringIds = new HashMap<>(); // str -> { provisional id, use count }
+	private int srcNamespace;
+	private int[] dstNamespaces;
+	private final List<Integer> metadata = new ArrayList<>(); // alternating key and value ids
+	private Table classes;
+	private Table fields;
+	private Table methods;
+	private Table args;
+	private Table vars;
+}
@@ -0,0 +1,281 @@
+/*
+ * Copyright (c) 2021 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.mappingio.format;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+
+import net.fabricmc.mappingio.MappingFlag;
+import net.fabricmc.mappingio.MappingVisitor;
+import net.fabricmc.mappingio.tree.MemoryMappingTree;
+
+/**
+ * Support for reading line based formats in independently parsed chunks.
+ *
+ * <p>The content is split at line boundaries, each chunk gets parsed into its own {@link RecordingVisitor} on a
+ * {@link ForkJoinPool} and the recordings are finally replayed to the actual visitor in file order. Only parsing and
+ * string decoding happen concurrently, the visitor itself is always invoked from the calling thread.
+ */
+final class ParallelReader {
+	interface ChunkParser {
+		/**
+		 * Parse a chunk's content, the reader is positioned at the line break preceding the chunk's first line.
+		 */
+		void parse(ColumnReader reader, MappingVisitor visitor) throws IOException;
+	}
+
+	interface InputParser<T> {
+		/**
+		 * Parse a single input, e.g. a file, as a part of a larger content.
+		 */
+		void parse(T input, MappingVisitor visitor) throws IOException;
+	}
+
+	/**
+	 * Determine a chunk count suitable for the pool's parallelism and the content size.
+	 */
+	static int getChunkCount(ForkJoinPool pool, int size) {
+		return Math.max(1, Math.min(pool.getParallelism() * CHUNKS_PER_THREAD, size / MIN_CHUNK_SIZE));
+	}
+
+	/**
+	 * Find the first line break at or after pos that is followed by linePrefix.
+	 *
+	 * @return the line break's position or end if there is none
+	 */
+	static int findLineBreak(ByteBuffer buffer, int pos, int end, String linePrefix) {
+		int prefixLen = linePrefix.length();
+
+		lineLoop: for (; pos < end; pos++) {
+			if (buffer.get(pos) != '\n') continue;
+			if (pos + prefixLen >= end) return end;
+
+			for (int i = 0; i < prefixLen; i++) {
+				if (buffer.get(pos + 1 + i) != linePrefix.charAt(i)) continue lineLoop;
+			}
+
+			return pos;
+		}
+
+		return end;
+	}
+
+	/**
+	 * Split the region start..end into up to chunkCount chunks of similar size.
+	 *
+	 * <p>Every chunk starts at a line break followed by linePrefix, which start is expected to be as well.
+	 *
+	 * @return the chunk boundaries, chunk i covering ret[i]..ret[i+1]
+	 */
+	static int[] split(ByteBuffer buffer, int start, int end, int chunkCount, String linePrefix) {
+		int[] ret = new int[chunkCount + 1];
+		int count = 0;
+		ret[count++] = start;
+
+		for (int i = 1; i < chunkCount; i++) {
+			int target = (int) (start + (long) (end - start) * i / chunkCount);
+			int pos = findLineBreak(buffer, Math.max(target, ret[count - 1] + 1), end, linePrefix);
+			if (pos >= end) break;
+
+			ret[count++] = pos;
+		}
+
+		ret[count++] = end;
+
+		return count == ret.length ? ret : Arrays.copyOf(ret, count);
+	}
+
+	/**
+	 * Parse all chunks concurrently into separate recordings.
+	 *
+	 * @param lineNumber line number of the line containing bounds[0]
+	 * @return the recordings in chunk order
+	 */
+	static List<RecordingVisitor> parse(ByteBuffer buffer, int[] bounds, int lineNumber, char columnSeparator,
+			ForkJoinPool pool, ChunkParser parser) throws IOException {
+		int chunkCount = bounds.length - 1;
+
+		// count the line breaks per chunk to be able to report absolute line numbers
+
+		List<CompletableFuture<Integer>> lineCounts = new ArrayList<>(chunkCount);
+
+		for (int i = 0; i < chunkCount; i++) {
+			int start = bounds[i];
+			int end = bounds[i + 1];
+
+			lineCounts.add(CompletableFuture.supplyAsync(() -> {
+				int ret = 0;
+
+				for (int pos = start; pos < end; pos++) {
+					if (buffer.get(pos) == '\n') ret++;
+				}
+
+				return ret;
+			}, pool));
+		}
+
+		List<CompletableFuture<RecordingVisitor>> chunks = new ArrayList<>(chunkCount);
+
+		for (int i = 0; i < chunkCount; i++) {
+			int start = bounds[i];
+			int end = bounds[i + 1];
+			int startLine = lineNumber;
+
+			chunks.add(CompletableFuture.supplyAsync(() -> {
+				RecordingVisitor ret = new RecordingVisitor();
+
+				try (ColumnReader reader = new ByteColumnFileReader(buffer, start, end, startLine, columnSeparator)) {
+					parser.parse(reader, ret);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+
+				return ret;
+			}, pool));
+
+			lineNumber += getResult(lineCounts.get(i));
+		}
+
+		List<RecordingVisitor> ret = new ArrayList<>(chunkCount);
+
+		for (CompletableFuture<RecordingVisitor> chunk : chunks) {
+			ret.add(getResult(chunk));
+		}
+
+		return ret;
+	}
+
+	/**
+	 * Parse independent inputs concurrently into separate recordings.
+	 *
+	 * <p>The inputs are grouped into up to one batch per chunk for the pool's parallelism, keeping the per-task
+	 * overhead low for many small inputs. Each batch is recorded in input order.
+	 *
+	 * @return the recordings in input order
+	 */
+	static <T> List<RecordingVisitor> parse(List<T> inputs, ForkJoinPool pool, InputParser<? super T> parser) throws IOException {
+		int batchCount = Math.max(1, Math.min(pool.getParallelism() * CHUNKS_PER_THREAD, inputs.size()));
+		List<CompletableFuture<RecordingVisitor>> batches = new ArrayList<>(batchCount);
+
+		for (int i = 0; i < batchCount; i++) {
+			List<T> batch = inputs.subList((int) ((long) inputs.size() * i / batchCount), (int) ((long) inputs.size() * (i + 1) / batchCount));
+
+			batches.add(CompletableFuture.supplyAsync(() -> {
+				RecordingVisitor ret = new RecordingVisitor();
+
+				try {
+					for (T input : batch) {
+						parser.parse(input, ret);
+					}
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+
+				return ret;
+			}, pool));
+		}
+
+		List<RecordingVisitor> ret = new ArrayList<>(batchCount);
+
+		for (CompletableFuture<RecordingVisitor> batch : batches) {
+			ret.add(getResult(batch));
+		}
+
+		return ret;
+	}
+
+	/**
+	 * Visit the recorded chunks in order as if the content was read sequentially.
+	 *
+	 * <p>headerMetadata is visited in the header, metadata recorded by the chunks along with the content. Unless the
+	 * format guarantees unique content with all metadata in the header, visitors requiring uniqueness or header
+	 * metadata receive the data through a {@link MemoryMappingTree}, like with the format's sequential reader.
+	 *
+	 * @param uniqueContent whether the format visits every element once and has no metadata within the content
+	 */
+	static void accept(List<RecordingVisitor> chunks, String srcNamespace, List<String> dstNamespaces,
+			Collection<Map.Entry<String, String>> headerMetadata, boolean uniqueContent, MappingVisitor visitor) throws IOException {
+		Set<MappingFlag> flags = visitor.getFlags();
+		MappingVisitor parentVisitor = null;
+
+		if (!uniqueContent && (flags.contains(MappingFlag.NEEDS_UNIQUENESS) || flags.contains(MappingFlag.NEEDS_HEADER_METADATA))) {
+			parentVisitor = visitor;
+			visitor = new MemoryMappingTree();
+		}
+
+		do {
+			if (visitor.visitHeader()) {
+				visitor.visitNamespaces(srcNamespace, dstNamespaces);
+
+				for (Map.Entry<String, String> entry : headerMetadata) {
+					visitor.visitMetadata(entry.getKey(), entry.getValue());
+				}
+			}
+
+			if (visitor.visitContent()) {
+				for (RecordingVisitor chunk : chunks) {
+					chunk.replay(visitor);
+				}
+			}
+		} while (!visitor.visitEnd());
+
+		if (parentVisitor != null) {
+			((MemoryMappingTree) visitor).accept(parentVisitor);
+		}
+	}
+
+	/**
+	 * Wait for a future's result, rethrowing its failure as thrown by the task.
+	 *
+	 * <p>Tasks are expected to wrap {@link IOException}s in {@link UncheckedIOException}, which gets unwrapped again.
+	 * Interruption is reported as {@link InterruptedIOException} with the thread's interrupt status set.
+	 */
+	static <T> T getResult(CompletableFuture<T> future) throws IOException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+
+			if (cause instanceof UncheckedIOException) {
+				throw ((UncheckedIOException) cause).getCause();
+			} else if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
+			} else {
+				throw new RuntimeException(cause);
+			}
+		}
+	}
+
+	private static final int CHUNKS_PER_THREAD = 4;
+	private static final int MIN_CHUNK_SIZE = 1 << 20;
+}
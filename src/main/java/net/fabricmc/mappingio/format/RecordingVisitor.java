@@ -0,0 +1,234 @@
+/*
+ * Copyright (c) 2021 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.mappingio.format;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import net.fabricmc.mappingio.MappedElementKind;
+import net.fabricmc.mappingio.MappingVisitor;
+
+/**
+ * Visitor recording the content visitation for replaying it later to another visitor.
+ *
+ * <p>The recording is a compact op log, replaying it is considerably cheaper than visiting a
+ * {@link net.fabricmc.mappingio.tree.MemoryMappingTree} and preserves the original visitation order. The replay
+ * honors the visit methods' return values like a reader would, namespaces aren't recorded.
+ */
+final class RecordingVisitor implements MappingVisitor {
+	@Override
+	public void visitNamespaces(String srcNamespace, List<String> dstNamespaces) { }
+
+	@Override
+	public void visitMetadata(String key, String value) {
+		addOp(OP_METADATA);
+		addString(key);
+		addString(value);
+	}
+
+	@Override
+	public boolean visitClass(String srcName) {
+		addOp(OP_CLASS);
+		addString(srcName);
+
+		return true;
+	}
+
+	@Override
+	public boolean visitField(String srcName, String srcDesc) {
+		addOp(OP_FIELD);
+		addString(srcName);
+		addString(srcDesc);
+
+		return true;
+	}
+
+	@Override
+	public boolean visitMethod(String srcName, String srcDesc) {
+		addOp(OP_METHOD);
+		addString(srcName);
+		addString(srcDesc);
+
+		return true;
+	}
+
+	@Override
+	public boolean visitMethodArg(int argPosition, int lvIndex, String srcName) {
+		addOp(OP_METHOD_ARG);
+		addInt(argPosition);
+		addInt(lvIndex);
+		addString(srcName);
+
+		return true;
+	}
+
+	@Override
+	public boolean visitMethodVar(int lvtRowIndex, int lvIndex, int startOpIdx, String srcName) {
+		addOp(OP_METHOD_VAR);
+		addInt(lvtRowIndex);
+		addInt(lvIndex);
+		addInt(startOpIdx);
+		addString(srcName);
+
+		return true;
+	}
+
+	@Override
+	public void visitDstName(MappedElementKind targetKind, int namespace, String name) {
+		addOp(OP_DST_NAME | targetKind.ordinal() << KIND_SHIFT | namespace << NAMESPACE_SHIFT);
+		addString(name);
+	}
+
+	@Override
+	public void visitDstDesc(MappedElementKind targetKind, int namespace, String desc) {
+		addOp(OP_DST_DESC | targetKind.ordinal() << KIND_SHIFT | namespace << NAMESPACE_SHIFT);
+		addString(desc);
+	}
+
+	@Override
+	public boolean visitElementContent(MappedElementKind targetKind) {
+		addOp(OP_ELEMENT_CONTENT | targetKind.ordinal() << KIND_SHIFT);
+
+		return true;
+	}
+
+	@Override
+	public void visitComment(MappedElementKind targetKind, String comment) {
+		addOp(OP_COMMENT | targetKind.ordinal() << KIND_SHIFT);
+		addString(comment);
+	}
+
+	/**
+	 * Replay the recorded content visitation, excluding header, namespaces and end.
+	 */
+	public void replay(MappingVisitor visitor) throws IOException {
+		int intPos = 0;
+		int stringPos = 0;
+		int skipLevel = Integer.MAX_VALUE; // elements with a level above skipLevel are skipped
+
+		for (int i = 0; i < opCount; i++) {
+			int op = ops[i];
+			MappedElementKind kind = KINDS[op >>> KIND_SHIFT & KIND_MASK];
+			int level;
+
+			switch (op & OP_MASK) {
+			case OP_METADATA:
+				visitor.visitMetadata(strings[stringPos], strings[stringPos + 1]);
+				stringPos += 2;
+				break;
+			case OP_CLASS:
+				level = 0;
+
+				if (level <= skipLevel) {
+					skipLevel = visitor.visitClass(strings[stringPos]) ? Integer.MAX_VALUE : level;
+				}
+
+				stringPos++;
+				break;
+			case OP_FIELD:
+			case OP_METHOD:
+				level = 1;
+
+				if (level <= skipLevel) {
+					boolean visit = (op & OP_MASK) == OP_FIELD
+							? visitor.visitField(strings[stringPos], strings[stringPos + 1])
+							: visitor.visitMethod(strings[stringPos], strings[stringPos + 1]);
+					skipLevel = visit ? Integer.MAX_VALUE : level;
+				}
+
+				stringPos += 2;
+				break;
+			case OP_METHOD_ARG:
+				level = 2;
+
+				if (level <= skipLevel) {
+					skipLevel = visitor.visitMethodArg(ints[intPos], ints[intPos + 1], strings[stringPos]) ? Integer.MAX_VALUE : level;
+				}
+
+				intPos += 2;
+				stringPos++;
+				break;
+			case OP_METHOD_VAR:
+				level = 2;
+
+				if (level <= skipLevel) {
+					skipLevel = visitor.visitMethodVar(ints[intPos], ints[intPos + 1], ints[intPos + 2], strings[stringPos]) ? Integer.MAX_VALUE : level;
+				}
+
+				intPos += 3;
+				stringPos++;
+				break;
+			case OP_DST_NAME:
+				if (skipLevel == Integer.MAX_VALUE) visitor.visitDstName(kind, op >>> NAMESPACE_SHIFT, strings[stringPos]);
+				stringPos++;
+				break;
+			case OP_DST_DESC:
+				if (skipLevel == Integer.MAX_VALUE) visitor.visitDstDesc(kind, op >>> NAMESPACE_SHIFT, strings[stringPos]);
+				stringPos++;
+				break;
+			case OP_ELEMENT_CONTENT:
+				if (skipLevel == Integer.MAX_VALUE && !visitor.visitElementContent(kind)) skipLevel = kind.level;
+				break;
+			case OP_COMMENT:
+				if (skipLevel == Integer.MAX_VALUE) visitor.visitComment(kind, strings[stringPos]);
+				stringPos++;
+				break;
+			default:
+				throw new IllegalStateException();
+			}
+		}
+	}
+
+	private void addOp(int op) {
+		if (opCount == ops.length) ops = Arrays.copyOf(ops, ops.length * 2);
+		ops[opCount++] = op;
+	}
+
+	private void addInt(int value) {
+		if (intCount == ints.length) ints = Arrays.copyOf(ints, ints.length * 2);
+		ints[intCount++] = value;
+	}
+
+	private void addString(String value) {
+		if (stringCount == strings.length) strings = Arrays.copyOf(strings, strings.length * 2);
+		strings[stringCount++] = value;
+	}
+
+	private static final int OP_METADATA = 0;
+	private static final int OP_CLASS = 1;
+	private static final int OP_FIELD = 2;
+	private static final int OP_METHOD = 3;
+	private static final int OP_METHOD_ARG = 4;
+	private static final int OP_METHOD_VAR = 5;
+	private static final int OP_DST_NAME = 6;
+	private static final int OP_DST_DESC = 7;
+	private static final int OP_ELEMENT_CONTENT = 8;
+	private static final int OP_COMMENT = 9;
+	private static final int OP_MASK = 0xf;
+	private static final int KIND_SHIFT = 4;
+	private static final int KIND_MASK = 0xf;
+	private static final int NAMESPACE_SHIFT = 8;
+	private static final MappedElementKind[] KINDS = MappedElementKind.values();
+
+	private int[] ops = new int[1024];
+	private int opCount;
+	private int[] ints = new int[64];
+	private int intCount;
+	private String[] strings = new String[1024];
+	private int stringCount;
+}
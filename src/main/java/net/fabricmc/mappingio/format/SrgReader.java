@@ -18,6 +18,7 @@ package net.fabricmc.mappingio.format;
 
 import java.io.IOException;
 import java.io.Reader;
+import java.nio.file.Path;
 import java.util.Collections;
 import java.util.Set;
 
@@ -37,7 +38,19 @@ public final class SrgReader {
 		read(new ColumnFileReader(reader, ' '), sourceNs, targetNs, visitor);
 	}
 
-	private static void read(ColumnFileReader reader, String sourceNs, String targetNs, MappingVisitor visitor) throws IOException {
+	public static void read(Path file, MappingVisitor visitor) throws IOException {
+		read(file, MappingUtil.NS_SOURCE_FALLBACK, MappingUtil.NS_TARGET_FALLBACK, visitor);
+	}
+
+	public static void read(Path file, String sourceNs, String targetNs, MappingVisitor visitor) throws IOException {
+		try (ColumnReader reader = ColumnReader.open(file, ' ')) {
+			read(reader, sourceNs, targetNs, visitor);
+		}
+	}
+
+	private static void read(ColumnReader reader, String sourceNs, String targetNs, MappingVisitor visitor) throws IOException {
+		reader.setStringPool(ColumnReader.getStringPool(visitor));
+
 		Set<MappingFlag> flags = visitor.getFlags();
 		MappingVisitor parentVisitor = null;
 
@@ -18,9 +18,14 @@ package net.fabricmc.mappingio.format;
 
 import java.io.IOException;
 import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 import net.fabricmc.mappingio.MappedElementKind;
 import net.fabricmc.mappingio.MappingFlag;
@@ -33,7 +38,7 @@ public final class Tiny1Reader {
 		return getNamespaces(new ColumnFileReader(reader, '\t'));
 	}
 
-	private static List<String> getNamespaces(ColumnFileReader reader) throws IOException {
+	private static List<String> getNamespaces(ColumnReader reader) throws IOException {
 		if (!reader.nextCol("v1")) { // magic/version
 			throw new IOException("invalid/unsupported tiny file: no tiny 1 header");
 		}
@@ -52,7 +57,145 @@ public final class Tiny1Reader {
 		read(new ColumnFileReader(reader, '\t'), visitor);
 	}
 
-	private static void read(ColumnFileReader reader, MappingVisitor visitor) throws IOException {
+	public static void read(Path file, MappingVisitor visitor) throws IOException {
+		try (ColumnReader reader = ColumnReader.open(file, '\t')) {
+			read(reader, visitor);
+		}
+	}
+
+	/**
+	 * Read a file in parallel using the common {@link ForkJoinPool}, see {@link #readParallel(Path, ForkJoinPool, MappingVisitor)}.
+	 */
+	public static void readParallel(Path file, MappingVisitor visitor) throws IOException {
+		readParallel(file, ForkJoinPool.commonPool(), visitor);
+	}
+
+	/**
+	 * Read a file by parsing chunks of it concurrently on the supplied pool.
+	 *
+	 * <p>The visitor is invoked from the calling thread only and sees the same visitation order as with a sequential
+	 * read, visitors requiring uniqueness or header metadata get served from a {@link MemoryMappingTree}.
+	 *
+	 * <p>Files that can't be buffered in memory or are too small to benefit are read sequentially.
+	 */
+	public static void readParallel(Path file, ForkJoinPool pool, MappingVisitor visitor) throws IOException {
+		ByteBuffer buffer = ColumnReader.readBuffer(file);
+
+		if (buffer == null) {
+			read(file, visitor);
+			return;
+		}
+
+		int size = buffer.limit();
+		int chunkCount = ParallelReader.getChunkCount(pool, size);
+
+		if (chunkCount <= 1) {
+			read(new ByteColumnFileReader(buffer, '\t'), visitor);
+			return;
+		}
+
+		List<String> namespaces = getNamespaces(new ByteColumnFileReader(buffer, '\t'));
+		String srcNamespace = namespaces.get(0);
+		List<String> dstNamespaces = namespaces.subList(1, namespaces.size());
+		int dstNsCount = dstNamespaces.size();
+
+		int contentStart = ParallelReader.findLineBreak(buffer, 0, size, "");
+		int[] bounds = alignBounds(buffer, ParallelReader.split(buffer, contentStart, size, chunkCount, ""));
+		List<RecordingVisitor> chunks = ParallelReader.parse(buffer, bounds, 1, '\t', pool,
+				(reader, chunkVisitor) -> readContent(reader, dstNsCount, chunkVisitor));
+
+		ParallelReader.accept(chunks, srcNamespace, dstNamespaces, Collections.emptyList(), false, visitor);
+	}
+
+	/**
+	 * Move the chunk boundaries forward to lines that refer to a different class than the preceding content.
+	 *
+	 * <p>A sequential read visits the class again for such lines regardless of its state, so every chunk can start
+	 * without knowledge of the previous chunk's last class while producing the exact sequential visitation.
+	 */
+	private static int[] alignBounds(ByteBuffer buffer, int[] bounds) {
+		int end = bounds[bounds.length - 1];
+		int[] ret = new int[bounds.length];
+		int count = 0;
+		ret[count++] = bounds[0];
+
+		for (int i = 1; i < bounds.length - 1; i++) {
+			int pos = Math.max(bounds[i], ret[count - 1]);
+
+			// find the class of the last class referencing line before pos
+
+			int prevClassStart = -1;
+
+			for (int lineEnd = pos; lineEnd > bounds[0] && prevClassStart < 0; ) {
+				int lineStart = lineEnd - 1;
+				while (lineStart > bounds[0] && buffer.get(lineStart) != '\n') lineStart--;
+
+				prevClassStart = getClassColumn(buffer, lineStart + 1, lineEnd);
+				lineEnd = lineStart;
+			}
+
+			// advance to the first class referencing line with a different class
+
+			while (pos < end) {
+				int lineEnd = ParallelReader.findLineBreak(buffer, pos + 1, end, "");
+				int classStart = getClassColumn(buffer, pos + 1, lineEnd);
+
+				if (classStart >= 0) {
+					if (prevClassStart < 0 || !columnEquals(buffer, classStart, prevClassStart, end)) break;
+					prevClassStart = classStart;
+				}
+
+				pos = lineEnd;
+			}
+
+			if (pos < end && pos > ret[count - 1]) ret[count++] = pos;
+		}
+
+		ret[count++] = end;
+
+		return count == ret.length ? ret : Arrays.copyOf(ret, count);
+	}
+
+	/**
+	 * Locate the class column of a CLASS, FIELD or METHOD line.
+	 *
+	 * @return the column's start or -1 if the line doesn't refer to a class
+	 */
+	private static int getClassColumn(ByteBuffer buffer, int lineStart, int lineEnd) {
+		for (String prefix : CLASS_LINE_PREFIXES) {
+			int len = prefix.length();
+			if (lineEnd - lineStart <= len) continue;
+
+			boolean matches = true;
+
+			for (int i = 0; i < len; i++) {
+				if (buffer.get(lineStart + i) != prefix.charAt(i)) {
+					matches = false;
+					break;
+				}
+			}
+
+			if (matches) return lineStart + len;
+		}
+
+		return -1;
+	}
+
+	private static boolean columnEquals(ByteBuffer buffer, int startA, int startB, int end) {
+		for (int i = 0; ; i++) {
+			int a = startA + i < end ? buffer.get(startA + i) : '\n';
+			int b = startB + i < end ? buffer.get(startB + i) : '\n';
+			boolean endA = a == '\t' || a == '\n' || a == '\r';
+			boolean endB = b == '\t' || b == '\n' || b == '\r';
+
+			if (endA || endB) return endA == endB;
+			if (a != b) return false;
+		}
+	}
+
+	private static void read(ColumnReader reader, MappingVisitor visitor) throws IOException {
+		reader.setStringPool(ColumnReader.getStringPool(visitor));
+
 		if (!reader.nextCol("v1")) { // magic/version
 			throw new IOException("invalid/unsupported tiny file: no tiny 1 header");
 		}
@@ -84,77 +227,7 @@ public final class Tiny1Reader {
 			}
 
 			if (visitor.visitContent()) {
-				String lastClass = null;
-				boolean lastClassDstNamed = false;;
-				boolean visitLastClass = false;
-
-				while (reader.nextLine(0)) {
-					boolean isMethod;
-
-					if (reader.nextCol("CLASS")) { // class: CLASS <names>...
-						String srcName = reader.nextCol();
-						if (srcName == null || srcName.isEmpty()) throw new IOException("missing class-name-a in line "+reader.getLineNumber());
-
-						if (!lastClassDstNamed || !srcName.equals(lastClass)) {
-							lastClass = srcName;
-							lastClassDstNamed = true;
-							visitLastClass = visitor.visitClass(srcName);
-
-							if (visitLastClass) {
-								readDstNames(reader, MappedElementKind.CLASS, dstNsCount, visitor);
-								visitLastClass = visitor.visitElementContent(MappedElementKind.CLASS);
-							}
-						}
-					} else if ((isMethod = reader.nextCol("METHOD")) || reader.nextCol("FIELD")) { // method: METHOD cls-a desc-a <names>... or field: FIELD cls-a desc-a <names>...
-						String srcOwner = reader.nextCol();
-						if (srcOwner == null || srcOwner.isEmpty()) throw new IOException("missing class-name-a in line "+reader.getLineNumber());
-
-						if (!srcOwner.equals(lastClass)) {
-							lastClass = srcOwner;
-							lastClassDstNamed = false;
-							visitLastClass = visitor.visitClass(srcOwner) && visitor.visitElementContent(MappedElementKind.CLASS);
-						}
-
-						if (visitLastClass) {
-							String srcDesc = reader.nextCol();
-							if (srcDesc == null || srcDesc.isEmpty()) throw new IOException("missing desc-a in line "+reader.getLineNumber());
-							String srcName = reader.nextCol();
-							if (srcName == null || srcName.isEmpty()) throw new IOException("missing name-a in line "+reader.getLineNumber());
-
-							if (isMethod && visitor.visitMethod(srcName, srcDesc)
-									|| !isMethod && visitor.visitField(srcName, srcDesc)) {
-								MappedElementKind kind = isMethod ? MappedElementKind.METHOD : MappedElementKind.FIELD;
-								readDstNames(reader, kind, dstNsCount, visitor);
-								visitor.visitElementContent(kind);
-							}
-						}
-					} else {
-						String line = reader.nextCol();
-						final String prefix = "# INTERMEDIARY-COUNTER ";
-						String[] parts;
-
-						if (line.startsWith(prefix)
-								&& (parts = line.substring(prefix.length()).split(" ")).length == 2) {
-							String property = null;
-
-							switch (parts[0]) {
-							case "class":
-								property = nextIntermediaryClassProperty;
-								break;
-							case "field":
-								property = nextIntermediaryFieldProperty;
-								break;
-							case "method":
-								property = nextIntermediaryMethodProperty;
-								break;
-							}
-
-							if (property != null) {
-								visitor.visitMetadata(property, parts[1]);
-							}
-						}
-					}
-				}
+				readContent(reader, dstNsCount, visitor);
 			}
 
 			if (visitor.visitEnd()) break;
@@ -167,7 +240,81 @@ public final class Tiny1Reader {
 		}
 	}
 
-	private static void readDstNames(ColumnFileReader reader, MappedElementKind subjectKind, int dstNsCount, MappingVisitor visitor) throws IOException {
+	private static void readContent(ColumnReader reader, int dstNsCount, MappingVisitor visitor) throws IOException {
+		String lastClass = null;
+		boolean lastClassDstNamed = false;
+		boolean visitLastClass = false;
+
+		while (reader.nextLine(0)) {
+			boolean isMethod;
+
+			if (reader.nextCol("CLASS")) { // class: CLASS <names>...
+				String srcName = reader.nextCol();
+				if (srcName == null || srcName.isEmpty()) throw new IOException("missing class-name-a in line "+reader.getLineNumber());
+
+				if (!lastClassDstNamed || !srcName.equals(lastClass)) {
+					lastClass = srcName;
+					lastClassDstNamed = true;
+					visitLastClass = visitor.visitClass(srcName);
+
+					if (visitLastClass) {
+						readDstNames(reader, MappedElementKind.CLASS, dstNsCount, visitor);
+						visitLastClass = visitor.visitElementContent(MappedElementKind.CLASS);
+					}
+				}
+			} else if ((isMethod = reader.nextCol("METHOD")) || reader.nextCol("FIELD")) { // method: METHOD cls-a desc-a <names>... or field: FIELD cls-a desc-a <names>...
+				String srcOwner = reader.nextCol();
+				if (srcOwner == null || srcOwner.isEmpty()) throw new IOException("missing class-name-a in line "+reader.getLineNumber());
+
+				if (!srcOwner.equals(lastClass)) {
+					lastClass = srcOwner;
+					lastClassDstNamed = false;
+					visitLastClass = visitor.visitClass(srcOwner) && visitor.visitElementContent(MappedElementKind.CLASS);
+				}
+
+				if (visitLastClass) {
+					String srcDesc = reader.nextCol();
+					if (srcDesc == null || srcDesc.isEmpty()) throw new IOException("missing desc-a in line "+reader.getLineNumber());
+					String srcName = reader.nextCol();
+					if (srcName == null || srcName.isEmpty()) throw new IOException("missing name-a in line "+reader.getLineNumber());
+
+					if (isMethod && visitor.visitMethod(srcName, srcDesc)
+							|| !isMethod && visitor.visitField(srcName, srcDesc)) {
+						MappedElementKind kind = isMethod ? MappedElementKind.METHOD : MappedElementKind.FIELD;
+						readDstNames(reader, kind, dstNsCount, visitor);
+						visitor.visitElementContent(kind);
+					}
+				}
+			} else {
+				String line = reader.nextCol();
+				final String prefix = "# INTERMEDIARY-COUNTER ";
+				String[] parts;
+
+				if (line.startsWith(prefix)
+						&& (parts = line.substring(prefix.length()).split(" ")).length == 2) {
+					String property = null;
+
+					switch (parts[0]) {
+					case "class":
+						property = nextIntermediaryClassProperty;
+						break;
+					case "field":
+						property = nextIntermediaryFieldProperty;
+						break;
+					case "method":
+						property = nextIntermediaryMethodProperty;
+						break;
+					}
+
+					if (property != null) {
+						visitor.visitMetadata(property, parts[1]);
+					}
+				}
+			}
+		}
+	}
+
+	private static void readDstNames(ColumnReader reader, MappedElementKind subjectKind, int dstNsCount, MappingVisitor visitor) throws IOException {
 		for (int dstNs = 0; dstNs < dstNsCount; dstNs++) {
 			String name = reader.nextCol();
 			if (name == null) throw new IOException("missing name columns in line "+reader.getLineNumber());
@@ -176,6 +323,8 @@ public final class Tiny1Reader {
 		}
 	}
 
+	private static final String[] CLASS_LINE_PREFIXES = { "CLASS\t", "FIELD\t", "METHOD\t" };
+
 	static final String nextIntermediaryClassProperty = "next-intermediary-class";
 	static final String nextIntermediaryFieldProperty = "next-intermediary-field";
 	static final String nextIntermediaryMethodProperty = "next-intermediary-method";
@@ -18,8 +18,13 @@ package net.fabricmc.mappingio.format;
 
 import java.io.IOException;
 import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 
 import net.fabricmc.mappingio.MappedElementKind;
 import net.fabricmc.mappingio.MappingFlag;
@@ -30,7 +35,7 @@ public final class Tiny2Reader {
 		return getNamespaces(new ColumnFileReader(reader, '\t'));
 	}
 
-	private static List<String> getNamespaces(ColumnFileReader reader) throws IOException {
+	private static List<String> getNamespaces(ColumnReader reader) throws IOException {
 		if (!reader.nextCol("tiny") // magic
 				|| reader.nextIntCol() != 2 // major version
 				|| reader.nextIntCol() < 0) { // minor version
@@ -51,7 +56,81 @@ public final class Tiny2Reader {
 		read(new ColumnFileReader(reader, '\t'), visitor);
 	}
 
-	private static void read(ColumnFileReader reader, MappingVisitor visitor) throws IOException {
+	public static void read(Path file, MappingVisitor visitor) throws IOException {
+		try (ColumnReader reader = ColumnReader.open(file, '\t')) {
+			read(reader, visitor);
+		}
+	}
+
+	/**
+	 * Read a file in parallel using the common {@link ForkJoinPool}, see {@link #readParallel(Path, ForkJoinPool, MappingVisitor)}.
+	 */
+	public static void readParallel(Path file, MappingVisitor visitor) throws IOException {
+		readParallel(file, ForkJoinPool.commonPool(), visitor);
+	}
+
+	/**
+	 * Read a file by parsing its top level class blocks concurrently on the supplied pool.
+	 *
+	 * <p>The header is read upfront, the content is split at class lines into chunks of similar size. The visitor is
+	 * invoked from the calling thread only and sees the same visitation order as with a sequential read.
+	 *
+	 * <p>Files that can't be buffered in memory or are too small to benefit are read sequentially.
+	 */
+	public static void readParallel(Path file, ForkJoinPool pool, MappingVisitor visitor) throws IOException {
+		ByteBuffer buffer = ColumnReader.readBuffer(file);
+
+		if (buffer == null) {
+			read(file, visitor);
+			return;
+		}
+
+		int size = buffer.limit();
+		int chunkCount = ParallelReader.getChunkCount(pool, size);
+
+		if (chunkCount <= 1) {
+			read(new ByteColumnFileReader(buffer, '\t'), visitor);
+			return;
+		}
+
+		ColumnReader reader = new ByteColumnFileReader(buffer, '\t');
+		List<String> namespaces = getNamespaces(reader);
+		String srcNamespace = namespaces.get(0);
+		List<String> dstNamespaces = namespaces.subList(1, namespaces.size());
+		int dstNsCount = dstNamespaces.size();
+		List<Map.Entry<String, String>> metadata = new ArrayList<>();
+		boolean escapeNames = false;
+
+		while (reader.nextLine(1)) {
+			String key = reader.nextCol();
+			if (key == null) throw new IOException("missing property key in line "+reader.getLineNumber());
+			String value = reader.nextEscapedCol(); // may be missing -> null
+
+			if (key.equals(Tiny2Util.escapedNamesProperty)) {
+				escapeNames = true;
+			}
+
+			metadata.add(new AbstractMap.SimpleImmutableEntry<>(key, value));
+		}
+
+		int contentStart = ParallelReader.findLineBreak(buffer, 0, size, "c\t");
+		int lineNumber = 1;
+
+		for (int pos = 0; pos < contentStart; pos++) {
+			if (buffer.get(pos) == '\n') lineNumber++;
+		}
+
+		boolean finalEscapeNames = escapeNames;
+		int[] bounds = ParallelReader.split(buffer, contentStart, size, chunkCount, "c\t");
+		List<RecordingVisitor> chunks = ParallelReader.parse(buffer, bounds, lineNumber, '\t', pool,
+				(chunkReader, chunkVisitor) -> readContent(chunkReader, dstNsCount, finalEscapeNames, chunkVisitor));
+
+		ParallelReader.accept(chunks, srcNamespace, dstNamespaces, metadata, true, visitor);
+	}
+
+	private static void read(ColumnReader reader, MappingVisitor visitor) throws IOException {
+		reader.setStringPool(ColumnReader.getStringPool(visitor));
+
 		if (!reader.nextCol("tiny") // magic
 				|| reader.nextIntCol() != 2 // major version
 				|| reader.nextIntCol() < 0) { // minor version
@@ -103,16 +182,7 @@ public final class Tiny2Reader {
 			}
 
 			if (visitor.visitContent()) {
-				while (reader.nextLine(0)) {
-					if (reader.nextCol("c")) { // class: c <names>...
-						String srcName = reader.nextCol(escapeNames);
-						if (srcName == null || srcName.isEmpty()) throw new IOException("missing class-name-a in line "+reader.getLineNumber());
-
-						if (visitor.visitClass(srcName)) {
-							readClass(reader, dstNsCount, escapeNames, visitor);
-						}
-					}
-				}
+				readContent(reader, dstNsCount, escapeNames, visitor);
 			}
 
 			if (visitor.visitEnd()) break;
@@ -122,7 +192,20 @@ public final class Tiny2Reader {
 		}
 	}
 
-	private static void readClass(ColumnFileReader reader, int dstNsCount, boolean escapeNames, MappingVisitor visitor) throws IOException {
+	private static void readContent(ColumnReader reader, int dstNsCount, boolean escapeNames, MappingVisitor visitor) throws IOException {
+		while (reader.nextLine(0)) {
+			if (reader.nextCol("c")) { // class: c <names>...
+				String srcName = reader.nextCol(escapeNames);
+				if (srcName == null || srcName.isEmpty()) throw new IOException("missing class-name-a in line "+reader.getLineNumber());
+
+				if (visitor.visitClass(srcName)) {
+					readClass(reader, dstNsCount, escapeNames, visitor);
+				}
+			}
+		}
+	}
+
+	private static void readClass(ColumnReader reader, int dstNsCount, boolean escapeNames, MappingVisitor visitor) throws IOException {
 		readDstNames(reader, MappedElementKind.CLASS, dstNsCount, escapeNames, visitor);
 		if (!visitor.visitElementContent(MappedElementKind.CLASS)) return;
 
@@ -151,7 +234,7 @@ public final class Tiny2Reader {
 		}
 	}
 
-	private static void readMethod(ColumnFileReader reader, int dstNsCount, boolean escapeNames, MappingVisitor visitor) throws IOException {
+	private static void readMethod(ColumnReader reader, int dstNsCount, boolean escapeNames, MappingVisitor visitor) throws IOException {
 		readDstNames(reader, MappedElementKind.METHOD, dstNsCount, escapeNames, visitor);
 		if (!visitor.visitElementContent(MappedElementKind.METHOD)) return;
 
@@ -185,7 +268,7 @@ public final class Tiny2Reader {
 		}
 	}
 
-	private static void readElement(ColumnFileReader reader, MappedElementKind kind, int dstNsCount, boolean escapeNames, MappingVisitor visitor) throws IOException {
+	private static void readElement(ColumnReader reader, MappedElementKind kind, int dstNsCount, boolean escapeNames, MappingVisitor visitor) throws IOException {
 		readDstNames(reader, kind, dstNsCount, escapeNames, visitor);
 		if (!visitor.visitElementContent(kind)) return;
 
@@ -196,14 +279,14 @@ public final class Tiny2Reader {
 		}
 	}
 
-	private static void readComment(ColumnFileReader reader, MappedElementKind subjectKind, MappingVisitor visitor) throws IOException {
+	private static void readComment(ColumnReader reader, MappedElementKind subjectKind, MappingVisitor visitor) throws IOException {
 		String comment = reader.nextEscapedCol();
 		if (comment == null) throw new IOException("missing comment in line "+reader.getLineNumber());
 
 		visitor.visitComment(subjectKind, comment);
 	}
 
-	private static void readDstNames(ColumnFileReader reader, MappedElementKind subjectKind, int dstNsCount, boolean escapeNames, MappingVisitor visitor) throws IOException {
+	private static void readDstNames(ColumnReader reader, MappedElementKind subjectKind, int dstNsCount, boolean escapeNames, MappingVisitor visitor) throws IOException {
 		for (int dstNs = 0; dstNs < dstNsCount; dstNs++) {
 			String name = reader.nextCol(escapeNames);
 			if (name == null) throw new IOException("missing name columns in line "+reader.getLineNumber());
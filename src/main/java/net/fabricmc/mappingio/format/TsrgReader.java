@@ -18,6 +18,7 @@ package net.fabricmc.mappingio.format;
 
 import java.io.IOException;
 import java.io.Reader;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -33,7 +34,7 @@ public final class TsrgReader {
 		return getNamespaces(new ColumnFileReader(reader, ' '));
 	}
 
-	private static List<String> getNamespaces(ColumnFileReader reader) throws IOException {
+	private static List<String> getNamespaces(ColumnReader reader) throws IOException {
 		if (reader.nextCol("tsrg2")) { // tsrg2 magic
 			List<String> ret = new ArrayList<>();
 			String ns;
@@ -56,7 +57,19 @@ public final class TsrgReader {
 		read(new ColumnFileReader(reader, ' '), sourceNs, targetNs, visitor);
 	}
 
-	private static void read(ColumnFileReader reader, String sourceNs, String targetNs, MappingVisitor visitor) throws IOException {
+	public static void read(Path file, MappingVisitor visitor) throws IOException {
+		read(file, MappingUtil.NS_SOURCE_FALLBACK, MappingUtil.NS_TARGET_FALLBACK, visitor);
+	}
+
+	public static void read(Path file, String sourceNs, String targetNs, MappingVisitor visitor) throws IOException {
+		try (ColumnReader reader = ColumnReader.open(file, ' ')) {
+			read(reader, sourceNs, targetNs, visitor);
+		}
+	}
+
+	private static void read(ColumnReader reader, String sourceNs, String targetNs, MappingVisitor visitor) throws IOException {
+		reader.setStringPool(ColumnReader.getStringPool(visitor));
+
 		boolean isTsrg2 = reader.nextCol("tsrg2");
 		String srcNamespace;
 		List<String> dstNamespaces;
@@ -111,7 +124,7 @@ public final class TsrgReader {
 		}
 	}
 
-	private static void readClass(ColumnFileReader reader, boolean isTsrg2, int dstNsCount, List<String> nameTmp, MappingVisitor visitor) throws IOException {
+	private static void readClass(ColumnReader reader, boolean isTsrg2, int dstNsCount, List<String> nameTmp, MappingVisitor visitor) throws IOException {
 		readDstNames(reader, MappedElementKind.CLASS, 0, dstNsCount, visitor);
 		if (!visitor.visitElementContent(MappedElementKind.CLASS)) return;
 
@@ -174,7 +187,7 @@ public final class TsrgReader {
 		}
 	}
 
-	private static void readMethod(ColumnFileReader reader, int dstNsCount, MappingVisitor visitor) throws IOException {
+	private static void readMethod(ColumnReader reader, int dstNsCount, MappingVisitor visitor) throws IOException {
 		readDstNames(reader, MappedElementKind.METHOD, 0, dstNsCount, visitor);
 		if (!visitor.visitElementContent(MappedElementKind.METHOD)) return;
 
@@ -198,12 +211,12 @@ public final class TsrgReader {
 		}
 	}
 
-	private static void readElement(ColumnFileReader reader, MappedElementKind kind, int dstNsOffset, int dstNsCount, MappingVisitor visitor) throws IOException {
+	private static void readElement(ColumnReader reader, MappedElementKind kind, int dstNsOffset, int dstNsCount, MappingVisitor visitor) throws IOException {
 		readDstNames(reader, kind, dstNsOffset, dstNsCount, visitor);
 		visitor.visitElementContent(kind);
 	}
 
-	private static void readDstNames(ColumnFileReader reader, MappedElementKind subjectKind, int dstNsOffset, int dstNsCount, MappingVisitor visitor) throws IOException {
+	private static void readDstNames(ColumnReader reader, MappedElementKind subjectKind, int dstNsOffset, int dstNsCount, MappingVisitor visitor) throws IOException {
 		for (int dstNs = dstNsOffset; dstNs < dstNsCount; dstNs++) {
 			String name = reader.nextCol();
 			if (name == null) throw new IOException("missing name columns in line "+reader.getLineNumber());
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2021 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.mappingio.tree;
+
+import java.util.Collection;
+
+import net.fabricmc.mappingio.tree.MappingTreeView.MethodArgMappingView;
+import net.fabricmc.mappingio.tree.MappingTreeView.MethodVarMappingView;
+
+/**
+ * Method arg and var matching shared by the tree implementations.
+ *
+ * <p>The src name passed in is compared against each candidate's name in {@code srcNs}, which is
+ * {@link MappingTreeView#SRC_NAMESPACE_ID} unless the caller presents another namespace as its source.
+ */
+final class ArgVarMatcher {
+	static <T extends MethodArgMappingView> T getArg(Collection<? extends T> args, int argPosition, int lvIndex, String srcName, int srcNs) {
+		if (argPosition >= 0 || lvIndex >= 0) {
+			for (T entry : args) {
+				if (argPosition >= 0 && entry.getArgPosition() == argPosition
+						|| lvIndex >= 0 && entry.getLvIndex() == lvIndex) {
+					return entry;
+				}
+			}
+		}
+
+		if (srcName != null) {
+			for (T entry : args) {
+				if (srcName.equals(entry.getName(srcNs))
+						&& (argPosition < 0 || entry.getArgPosition() < 0)
+						&& (lvIndex < 0 || entry.getLvIndex() < 0)) {
+					return entry;
+				}
+			}
+		}
+
+		return null;
+	}
+
+	static <T extends MethodVarMappingView> T getVar(Collection<? extends T> vars, int lvtRowIndex, int lvIndex, int startOpIdx, String srcName, int srcNs) {
+		if (lvtRowIndex >= 0) {
+			boolean hasMissing = false;
+
+			for (T entry : vars) {
+				if (entry.getLvtRowIndex() == lvtRowIndex) {
+					return entry;
+				} else if (entry.getLvtRowIndex() < 0) {
+					hasMissing = true;
+				}
+			}
+
+			if (!hasMissing) return null;
+		}
+
+		if (lvIndex >= 0) {
+			boolean hasMissing = false;
+			T bestMatch = null;
+
+			for (T entry : vars) {
+				if (entry.getLvIndex() != lvIndex) {
+					if (entry.getLvIndex() < 0) hasMissing = true;
+					continue;
+				}
+
+				if (bestMatch == null) {
+					bestMatch = entry;
+				} else {
+					int startOpDeltaImprovement;
+
+					if (startOpIdx < 0 || bestMatch.getStartOpIdx() < 0 && entry.getStartOpIdx() < 0) {
+						startOpDeltaImprovement = 0;
+					} else if (bestMatch.getStartOpIdx() < 0) {
+						startOpDeltaImprovement = 1;
+					} else if (entry.getStartOpIdx() < 0) {
+						startOpDeltaImprovement = -1;
+					} else {
+						startOpDeltaImprovement = Math.abs(bestMatch.getStartOpIdx() - startOpIdx) - Math.abs(entry.getStartOpIdx() - startOpIdx);
+					}
+
+					if (startOpDeltaImprovement > 0 || startOpDeltaImprovement == 0 && srcName != null && srcName.equals(entry.getName(srcNs)) && !srcName.equals(bestMatch.getName(srcNs))) {
+						bestMatch = entry;
+					}
+				}
+			}
+
+			if (!hasMissing || bestMatch != null) return bestMatch;
+		}
+
+		if (srcName != null) {
+			for (T entry : vars) {
+				if (srcName.equals(entry.getName(srcNs))
+						&& (lvtRowIndex < 0 || entry.getLvtRowIndex() < 0)
+						&& (lvIndex < 0 || entry.getLvIndex() < 0)) {
+					return entry;
+				}
+			}
+		}
+
+		return null;
+	}
+}
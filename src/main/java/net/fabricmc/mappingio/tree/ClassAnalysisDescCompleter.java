@@ -17,6 +17,7 @@
 package net.fabricmc.mappingio.tree;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.ByteBuffer;
@@ -29,8 +30,19 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
 import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassVisitor;
@@ -40,68 +52,107 @@ import org.objectweb.asm.Opcodes;
 
 import net.fabricmc.mappingio.tree.MappingTree.ClassMapping;
 import net.fabricmc.mappingio.tree.MappingTree.FieldMapping;
+import net.fabricmc.mappingio.tree.MappingTree.MemberMapping;
 import net.fabricmc.mappingio.tree.MappingTree.MethodMapping;
 
+/**
+ * Completes missing member descriptors in a mapping tree from class files.
+ *
+ * <p>Only the class name is read from classes that are unmapped or don't miss any member descriptors, such classes
+ * are skipped without visiting their members.
+ */
 public final class ClassAnalysisDescCompleter {
 	public static void process(Path path, String namespace, MappingTree mappingTree) throws IOException {
+		processWithStats(path, namespace, mappingTree);
+	}
+
+	/**
+	 * Process classes like {@link #process}, reporting how many classes were processed or skipped.
+	 */
+	public static Stats processWithStats(Path path, String namespace, MappingTree mappingTree) throws IOException {
 		AnalyzingVisitor visitor = new AnalyzingVisitor(namespace, mappingTree);
 
+		processPath(path, (data, offset, length) -> processClass(data, offset, length, visitor));
+
+		return visitor.getStats();
+	}
+
+	/**
+	 * Process classes in parallel using the common {@link ForkJoinPool}, see {@link #processParallel(Path, String, MappingTree, ForkJoinPool)}.
+	 */
+	public static void processParallel(Path path, String namespace, MappingTree mappingTree) throws IOException {
+		processParallel(path, namespace, mappingTree, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Process classes by parsing them concurrently on the supplied pool.
+	 *
+	 * <p>The class files are read and the mapping tree gets updated on the calling thread, the pool only parses the
+	 * classes into member lists. The tree thus doesn't have to be thread safe and receives the same updates in the same
+	 * order as with {@link #process}.
+	 *
+	 * <p>Pools without parallelism fall back to sequential processing.
+	 */
+	public static void processParallel(Path path, String namespace, MappingTree mappingTree, ForkJoinPool pool) throws IOException {
+		processParallelWithStats(path, namespace, mappingTree, pool);
+	}
+
+	/**
+	 * Process classes like {@link #processParallel(Path, String, MappingTree, ForkJoinPool)}, reporting how many
+	 * classes were processed or skipped.
+	 */
+	public static Stats processParallelWithStats(Path path, String namespace, MappingTree mappingTree, ForkJoinPool pool) throws IOException {
+		if (pool.getParallelism() <= 1) {
+			return processWithStats(path, namespace, mappingTree);
+		}
+
+		AnalyzingVisitor visitor = new AnalyzingVisitor(namespace, mappingTree);
+		ParallelAnalyzer analyzer = new ParallelAnalyzer(visitor, pool);
+		processPath(path, analyzer);
+		analyzer.finish();
+
+		return visitor.getStats();
+	}
+
+	private static void processPath(Path path, ClassConsumer consumer) throws IOException {
 		if (Files.isDirectory(path)) {
-			Files.walkFileTree(path, new DirVisitor(visitor));
+			Files.walkFileTree(path, new DirVisitor(consumer));
 		} else {
-			processFile(path, null, visitor);
+			processFile(path, null, consumer);
 		}
 	}
 
+	/**
+	 * Receiver for class file content, the array may be reused after returning.
+	 */
+	private interface ClassConsumer {
+		void accept(byte[] data, int offset, int length);
+	}
+
 	private static final class DirVisitor extends SimpleFileVisitor<Path> {
-		DirVisitor(AnalyzingVisitor visitor) {
-			this.visitor = visitor;
+		DirVisitor(ClassConsumer consumer) {
+			this.consumer = consumer;
 		}
 
 		@Override
 		public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
-			buffer = processFile(file, buffer, visitor);
+			buffer = processFile(file, buffer, consumer);
 
 			return FileVisitResult.CONTINUE;
 		}
 
-		private final AnalyzingVisitor visitor;
+		private final ClassConsumer consumer;
 		ByteBuffer buffer;
 	}
 
-	@SuppressWarnings("resource")
-	private static ByteBuffer processFile(Path file, ByteBuffer buffer, AnalyzingVisitor visitor) throws IOException {
+	private static ByteBuffer processFile(Path file, ByteBuffer buffer, ClassConsumer consumer) throws IOException {
 		String fileName = file.getFileName().toString().toLowerCase(Locale.ENGLISH);
 
-		if (fileName.endsWith(".jar")) {
-			URI uri = file.toUri();
-
-			try {
-				uri = new URI("jar:".concat(uri.getScheme()), uri.getHost(), uri.getPath(), uri.getFragment());
-			} catch (URISyntaxException e) {
-				throw new IOException(e);
-			}
-
-			FileSystem fs = null;
-			boolean closeFs = false;
-
-			try {
-				try {
-					fs = FileSystems.newFileSystem(uri, Collections.emptyMap());
-					closeFs = true;
-				} catch (FileSystemAlreadyExistsException e) {
-					fs = FileSystems.getFileSystem(uri);
-				}
-
-				DirVisitor dirVisitor = new DirVisitor(visitor);
-
-				for (Path rootDir : fs.getRootDirectories()) {
-					Files.walkFileTree(rootDir, dirVisitor);
-				}
-
-				buffer = dirVisitor.buffer;
-			} finally {
-				if (closeFs) fs.close();
+		if (fileName.endsWith(".jar") || fileName.endsWith(".zip")) {
+			if (file.getFileSystem() == FileSystems.getDefault()) {
+				buffer = processZip(file, buffer, consumer);
+			} else { // not accessible through ZipFile
+				buffer = processZipFs(file, buffer, consumer);
 			}
 		} else if (fileName.endsWith(".class")) {
 			try (SeekableByteChannel channel = Files.newByteChannel(file)) {
@@ -118,13 +169,95 @@ public final class ClassAnalysisDescCompleter {
 			}
 
 			buffer.flip();
-			processClass(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining(), visitor);
+			consumer.accept(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
 			buffer.clear();
 		}
 
 		return buffer;
 	}
 
+	/**
+	 * Process all class entries of a zip file, directly iterating its central directory.
+	 *
+	 * <p>Entries get selected by name, only class entries are read.
+	 */
+	private static ByteBuffer processZip(Path file, ByteBuffer buffer, ClassConsumer consumer) throws IOException {
+		try (ZipFile zip = new ZipFile(file.toFile())) {
+			Enumeration<? extends ZipEntry> entries = zip.entries();
+
+			while (entries.hasMoreElements()) {
+				ZipEntry entry = entries.nextElement();
+				String name = entry.getName();
+
+				if (entry.isDirectory()
+						|| !name.regionMatches(true, name.length() - CLASS_SUFFIX.length(), CLASS_SUFFIX, 0, CLASS_SUFFIX.length())) {
+					continue;
+				}
+
+				long size = entry.getSize();
+
+				if (buffer == null || size >= buffer.capacity()) {
+					buffer = ByteBuffer.allocate((int) Math.min(Math.max(size + 1, 8192), 100_000_000));
+				}
+
+				try (InputStream is = zip.getInputStream(entry)) {
+					byte[] data = buffer.array();
+					int len = 0;
+					int read;
+
+					while ((read = is.read(data, len, data.length - len)) >= 0) {
+						len += read;
+
+						if (len == data.length) {
+							buffer = ByteBuffer.allocate(data.length * 2);
+							System.arraycopy(data, 0, buffer.array(), 0, len);
+							data = buffer.array();
+						}
+					}
+
+					consumer.accept(data, 0, len);
+				}
+			}
+		}
+
+		return buffer;
+	}
+
+	@SuppressWarnings("resource")
+	private static ByteBuffer processZipFs(Path file, ByteBuffer buffer, ClassConsumer consumer) throws IOException {
+		URI uri = file.toUri();
+
+		try {
+			uri = new URI("jar:".concat(uri.getScheme()), uri.getHost(), uri.getPath(), uri.getFragment());
+		} catch (URISyntaxException e) {
+			throw new IOException(e);
+		}
+
+		FileSystem fs = null;
+		boolean closeFs = false;
+
+		try {
+			try {
+				fs = FileSystems.newFileSystem(uri, Collections.emptyMap());
+				closeFs = true;
+			} catch (FileSystemAlreadyExistsException e) {
+				fs = FileSystems.getFileSystem(uri);
+			}
+
+			DirVisitor dirVisitor = new DirVisitor(consumer);
+
+			for (Path rootDir : fs.getRootDirectories()) {
+				Files.walkFileTree(rootDir, dirVisitor);
+			}
+
+			buffer = dirVisitor.buffer;
+		} finally {
+			if (closeFs) fs.close();
+		}
+
+		return buffer;
+	}
+
 	public static void processClass(byte[] classBytes, String namespace, MappingTree mappingTree) {
 		processClass(classBytes, 0, classBytes.length, new AnalyzingVisitor(namespace, mappingTree));
 	}
@@ -134,13 +267,104 @@ public final class ClassAnalysisDescCompleter {
 	}
 
 	private static void processClass(byte[] classBytes, int offset, int length, AnalyzingVisitor visitor) {
-		ClassReader reader = new ClassReader(classBytes, offset, length);
+		ClassReader reader = new ClassReader(classBytes, offset, length); // only parses the constant pool offsets
+		if (!visitor.checkClass(reader.getClassName())) return;
+
 		reader.accept(visitor, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG);
 	}
 
+	/**
+	 * Parses classes on a pool and applies the results on the calling thread in submission order.
+	 */
+	private static final class ParallelAnalyzer implements ClassConsumer {
+		ParallelAnalyzer(AnalyzingVisitor visitor, ForkJoinPool pool) {
+			this.visitor = visitor;
+			this.pool = pool;
+			this.maxPending = pool.getParallelism() * 16;
+		}
+
+		@Override
+		public void accept(byte[] data, int offset, int length) {
+			if (!visitor.checkClass(new ClassReader(data, offset, length).getClassName())) return;
+
+			byte[] copy = Arrays.copyOfRange(data, offset, offset + length);
+			pending.add(pool.submit(() -> ClassMembers.parse(copy)));
+
+			while (pending.size() > maxPending) { // bound the memory use, the oldest class is likely already parsed
+				pending.poll().join().replay(visitor);
+			}
+		}
+
+		void finish() {
+			ForkJoinTask<ClassMembers> task;
+
+			while ((task = pending.poll()) != null) {
+				task.join().replay(visitor);
+			}
+		}
+
+		private final AnalyzingVisitor visitor;
+		private final ForkJoinPool pool;
+		private final int maxPending;
+		private final Queue<ForkJoinTask<ClassMembers>> pending = new ArrayDeque<>();
+	}
+
+	/**
+	 * Class name and member names+descs extracted from a class file.
+	 */
+	private static final class ClassMembers extends ClassVisitor {
+		static ClassMembers parse(byte[] classBytes) {
+			ClassMembers ret = new ClassMembers();
+			new ClassReader(classBytes).accept(ret, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG);
+
+			return ret;
+		}
+
+		private ClassMembers() {
+			super(ASM_API_VERSION);
+		}
+
+		@Override
+		public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+			this.name = name;
+		}
+
+		@Override
+		public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value) {
+			fields.add(name);
+			fields.add(descriptor);
+
+			return null;
+		}
+
+		@Override
+		public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+			methods.add(name);
+			methods.add(descriptor);
+
+			return null;
+		}
+
+		void replay(ClassVisitor visitor) {
+			visitor.visit(0, 0, name, null, null, null);
+
+			for (int i = 0; i < fields.size(); i += 2) {
+				visitor.visitField(0, fields.get(i), fields.get(i + 1), null, null);
+			}
+
+			for (int i = 0; i < methods.size(); i += 2) {
+				visitor.visitMethod(0, methods.get(i), methods.get(i + 1), null, null);
+			}
+		}
+
+		private String name;
+		private final List<String> fields = new ArrayList<>(); // alternating name and desc
+		private final List<String> methods = new ArrayList<>(); // alternating name and desc
+	}
+
 	private static final class AnalyzingVisitor extends ClassVisitor {
 		AnalyzingVisitor(String namespace, MappingTree mappingTree) {
-			super(Integer.getInteger("mappingIo.asmApiVersion", Opcodes.ASM9));
+			super(ASM_API_VERSION);
 
 			this.namespace = namespace != null ? mappingTree.getNamespaceId(namespace) : MappingTreeView.SRC_NAMESPACE_ID;
 			if (this.namespace == MappingTreeView.NULL_NAMESPACE_ID) throw new IllegalArgumentException("Unknown namespace: "+namespace);
@@ -148,6 +372,35 @@ public final class ClassAnalysisDescCompleter {
 			this.mappingTree = mappingTree;
 		}
 
+		/**
+		 * Determine whether a class needs to be visited and count it accordingly.
+		 *
+		 * @return true if the class is mapped and misses any member descriptor
+		 */
+		boolean checkClass(String name) {
+			ClassMapping cls = mappingTree.getClass(name, namespace);
+
+			if (cls != null && (hasMissingDesc(cls.getFields()) || hasMissingDesc(cls.getMethods()))) {
+				processedClasses++;
+				return true;
+			} else {
+				skippedClasses++;
+				return false;
+			}
+		}
+
+		private static boolean hasMissingDesc(Collection<? extends MemberMapping> members) {
+			for (MemberMapping member : members) {
+				if (member.getSrcDesc() == null) return true;
+			}
+
+			return false;
+		}
+
+		Stats getStats() {
+			return new Stats(processedClasses, skippedClasses);
+		}
+
 		@Override
 		public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
 			cls = mappingTree.getClass(name, namespace);
@@ -182,5 +435,36 @@ public final class ClassAnalysisDescCompleter {
 		private final int namespace;
 		private final MappingTree mappingTree;
 		private ClassMapping cls;
+		private int processedClasses;
+		private int skippedClasses;
+	}
+
+	/**
+	 * Number of classes that got analyzed and that were skipped since they were unmapped or already complete.
+	 */
+	public static final class Stats {
+		Stats(int processedClasses, int skippedClasses) {
+			this.processedClasses = processedClasses;
+			this.skippedClasses = skippedClasses;
+		}
+
+		public int getProcessedClasses() {
+			return processedClasses;
+		}
+
+		public int getSkippedClasses() {
+			return skippedClasses;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("Stats[processed=%d, skipped=%d]", processedClasses, skippedClasses);
+		}
+
+		private final int processedClasses;
+		private final int skippedClasses;
 	}
+
+	private static final int ASM_API_VERSION = Integer.getInteger("mappingIo.asmApiVersion", Opcodes.ASM9);
+	private static final String CLASS_SUFFIX = ".class";
 }
@@ -0,0 +1,1561 @@
+/*
+ * Copyright (c) 2021 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.mappingio.tree;
+
+import java.io.IOException;
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import net.fabricmc.mappingio.MappedElementKind;
+import net.fabricmc.mappingio.MappingFlag;
+import net.fabricmc.mappingio.MappingVisitor;
+
+/**
+ * {@link MappingTree} storing its elements in parallel primitive arrays instead of individual objects.
+ *
+ * <p>Every element kind has its own table of int columns indexed by element id, names and descriptors are stored once
+ * in a shared string table and referenced by their index in it. Elements are linked to their siblings in insertion
+ * order, classes and members are additionally indexed by source name in open-addressing hash tables. The
+ * {@link ClassMapping}, {@link FieldMapping} etc. instances handed out are flyweights created on demand, they only
+ * hold the element id and compare equal if they refer to the same element.
+ *
+ * <p>Removing elements or replacing names doesn't free their storage, use {@link #CompactMappingTree(MappingTree)} to
+ * obtain a trimmed copy after many modifications. The semantics otherwise match {@link MemoryMappingTree}.
+ */
+public final class CompactMappingTree implements MappingTree, MappingVisitor {
+	public CompactMappingTree() { }
+
+	public CompactMappingTree(MappingTree src) {
+		setSrcNamespace(src.getSrcNamespace());
+		setDstNamespaces(src.getDstNamespaces());
+
+		for (Map.Entry<String, String> entry : src.getMetadata()) {
+			addMetadata(entry.getKey(), entry.getValue());
+		}
+
+		for (ClassMapping cls : src.getClasses()) {
+			addClass(cls);
+		}
+
+		trimToSize();
+	}
+
+	/**
+	 * Release the excess capacity reserved for adding more data.
+	 */
+	public void trimToSize() {
+		strings.trimToSize();
+		classes.trimToSize();
+		fields.trimToSize();
+		methods.trimToSize();
+		args.trimToSize();
+		vars.trimToSize();
+	}
+
+	@Override
+	public String getSrcNamespace() {
+		return srcNamespace;
+	}
+
+	@Override
+	public String setSrcNamespace(String namespace) {
+		String ret = srcNamespace;
+		srcNamespace = namespace;
+
+		return ret;
+	}
+
+	@Override
+	public List<String> getDstNamespaces() {
+		return dstNamespaces;
+	}
+
+	@Override
+	public List<String> setDstNamespaces(List<String> namespaces) {
+		List<String> ret = dstNamespaces;
+		dstNamespaces = namespaces;
+		setDstNamespaceCount(namespaces != null ? namespaces.size() : 0);
+
+		return ret;
+	}
+
+	private void setDstNamespaceCount(int count) {
+		classes.setDstNamespaceCount(count);
+		fields.setDstNamespaceCount(count);
+		methods.setDstNamespaceCount(count);
+		args.setDstNamespaceCount(count);
+		vars.setDstNamespaceCount(count);
+	}
+
+	@Override
+	public Collection<Map.Entry<String, String>> getMetadata() {
+		return metadata;
+	}
+
+	@Override
+	public String getMetadata(String key) {
+		for (Map.Entry<String, String> entry : metadata) {
+			if (entry.getKey().equals(key)) return entry.getValue();
+		}
+
+		return null;
+	}
+
+	@Override
+	public void addMetadata(String key, String value) {
+		metadata.add(new AbstractMap.SimpleEntry<>(key, value));
+	}
+
+	@Override
+	public String removeMetadata(String key) {
+		for (Iterator<Map.Entry<String, String>> it = metadata.iterator(); it.hasNext(); ) {
+			Map.Entry<String, String> entry = it.next();
+
+			if (entry.getKey().equals(key)) {
+				it.remove();
+
+				return entry.getValue();
+			}
+		}
+
+		return null;
+	}
+
+	@Override
+	public Collection<ClassEntry> getClasses() {
+		return new EntryCollection<>(classes, NONE);
+	}
+
+	@Override
+	public ClassEntry getClass(String srcName) {
+		int id = findClass(srcName, SRC_NAMESPACE_ID);
+
+		return id != NONE ? new ClassEntry(id) : null;
+	}
+
+	@Override
+	public ClassEntry getClass(String name, int namespace) {
+		int id = findClass(name, namespace);
+
+		return id != NONE ? new ClassEntry(id) : null;
+	}
+
+	private int findClass(String name, int namespace) {
+		int nameId = strings.find(name);
+		if (nameId == NONE) return NONE;
+
+		if (namespace < 0) {
+			for (int slot = classIndex.getSlot(0, nameId); ; slot = classIndex.nextSlot(slot)) {
+				int id = classIndex.get(slot);
+				if (id == NONE || classes.srcNames[id] == nameId) return id;
+			}
+		} else {
+			for (int id = classes.rootFirst; id != NONE; id = classes.next[id]) {
+				if (!classes.isRemoved(id) && classes.getDstName(id, namespace) == nameId) return id;
+			}
+
+			return NONE;
+		}
+	}
+
+	@Override
+	public String mapClassName(String name, int srcNamespace, int dstNamespace) {
+		assert name.indexOf('.') < 0;
+
+		if (srcNamespace == dstNamespace) return name;
+
+		int id = findClass(name, srcNamespace);
+		if (id == NONE) return name;
+
+		String ret = strings.get(dstNamespace < 0 ? classes.srcNames[id] : classes.getDstName(id, dstNamespace));
+
+		return ret != null ? ret : name;
+	}
+
+	@Override
+	public ClassEntry addClass(ClassMapping cls) {
+		if (cls instanceof ClassEntry && cls.getTree() == this && !classes.isRemoved(((ClassEntry) cls).id)) return (ClassEntry) cls;
+
+		return new ClassEntry(addClass(cls, getSrcNsEquivalent(cls), getDstNsEquivalents(cls.getTree())));
+	}
+
+	private int addClass(ClassMapping cls, int srcNs, int[] dstNsMap) {
+		String name = cls.getName(srcNs);
+		int id = findClass(name, SRC_NAMESPACE_ID);
+
+		if (id == NONE) {
+			id = addClass(strings.add(name));
+		}
+
+		copyElement(classes, id, cls, dstNsMap);
+
+		for (FieldMapping field : cls.getFields()) {
+			addMember(fields, fieldIndex, id, field, srcNs, dstNsMap);
+		}
+
+		for (MethodMapping method : cls.getMethods()) {
+			addMember(methods, methodIndex, id, method, srcNs, dstNsMap);
+		}
+
+		return id;
+	}
+
+	private int addClass(int srcName) {
+		int ret = classes.add(NONE, srcName);
+		classIndex.add(ret);
+		classCount++;
+
+		return ret;
+	}
+
+	@Override
+	public ClassEntry removeClass(String srcName) {
+		int id = findClass(srcName, SRC_NAMESPACE_ID);
+		if (id == NONE) return null;
+
+		for (int field = fields.getFirst(id); field != NONE; field = fields.next[field]) {
+			if (!fields.isRemoved(field)) fieldIndex.remove(field);
+		}
+
+		for (int method = methods.getFirst(id); method != NONE; method = methods.next[method]) {
+			if (!methods.isRemoved(method)) methodIndex.remove(method);
+		}
+
+		classIndex.remove(id);
+		classes.markRemoved(id);
+		classCount--;
+
+		return new ClassEntry(id);
+	}
+
+	private int getSrcNsEquivalent(ElementMapping mapping) {
+		int ret = mapping.getTree().getNamespaceId(srcNamespace);
+		if (ret == NULL_NAMESPACE_ID) throw new UnsupportedOperationException("can't find source namespace in referenced mapping tree");
+
+		return ret;
+	}
+
+	private int[] getDstNsEquivalents(MappingTreeView tree) {
+		int[] ret = new int[classes.dstNamespaceCount];
+
+		for (int i = 0; i < ret.length; i++) {
+			ret[i] = tree.getNamespaceId(dstNamespaces.get(i));
+		}
+
+		return ret;
+	}
+
+	/**
+	 * Copy the dst names and the comment from src where not already present.
+	 */
+	private void copyElement(ElementTable table, int id, ElementMapping src, int[] dstNsMap) {
+		for (int i = 0; i < dstNsMap.length; i++) {
+			int srcNs = dstNsMap[i];
+			if (srcNs == NULL_NAMESPACE_ID || table.getDstName(id, i) != 0) continue;
+
+			String name = src.getName(srcNs);
+			if (name != null) table.setDstName(id, i, strings.add(name));
+		}
+
+		String comment = src.getComment();
+
+		if (comment != null && table.getComment(id) == null) {
+			table.setComment(id, comment);
+		}
+	}
+
+	/**
+	 * Find the member best matching srcName and srcDesc, using the same rules as {@link MemoryMappingTree}.
+	 *
+	 * <p>An exact match is preferred, otherwise a missing descriptor on either side or a parameter-only descriptor
+	 * being the prefix of the other descriptor is tolerated.
+	 */
+	private int findMember(ElementTable table, ElementIndex index, int owner, String srcName, String srcDesc) {
+		int nameId = strings.find(srcName);
+		if (nameId == NONE) return NONE;
+
+		int descId = srcDesc != null ? strings.find(srcDesc) : 0;
+		boolean partialDesc = srcDesc != null && srcDesc.endsWith(")");
+		int nullDescMatch = NONE;
+		int prefixMatch = NONE;
+
+		for (int slot = index.getSlot(owner, nameId); ; slot = index.nextSlot(slot)) {
+			int id = index.get(slot);
+			if (id == NONE) break;
+			if (table.parents[id] != owner || table.srcNames[id] != nameId) continue;
+
+			int desc = table.descs[id];
+
+			if (desc == descId) { // exact match
+				return id;
+			} else if (srcDesc == null) { // [no desc] -> [full desc/partial desc]
+				if (prefixMatch == NONE || id < prefixMatch) prefixMatch = id;
+			} else if (desc == 0) { // [full desc/partial desc] -> [no desc]
+				if (nullDescMatch == NONE || id < nullDescMatch) nullDescMatch = id;
+			} else if (partialDesc ? strings.get(desc).startsWith(srcDesc) : srcDesc.indexOf(')') >= 0 && srcDesc.startsWith(strings.get(desc))) {
+				if (prefixMatch == NONE || id < prefixMatch) prefixMatch = id;
+			}
+		}
+
+		return nullDescMatch != NONE ? nullDescMatch : prefixMatch;
+	}
+
+	private int addMember(ElementTable table, ElementIndex index, int owner, MemberMapping src, int srcNs, int[] dstNsMap) {
+		String name = src.getName(srcNs);
+		String desc = src.getDesc(srcNs);
+		int id = findMember(table, index, owner, name, desc);
+
+		if (id == NONE) {
+			id = addMember(table, index, owner, strings.add(name), strings.add(desc));
+		} else if (desc != null && isMoreSpecificDesc(table, id, desc)) { // extra location info
+			table.descs[id] = strings.add(desc);
+		}
+
+		copyElement(table, id, src, dstNsMap);
+
+		if (table == methods) {
+			MethodMapping method = (MethodMapping) src;
+
+			for (MethodArgMapping arg : method.getArgs()) {
+				addArg(id, arg, srcNs, dstNsMap);
+			}
+
+			for (MethodVarMapping var : method.getVars()) {
+				addVar(id, var, srcNs, dstNsMap);
+			}
+		}
+
+		return id;
+	}
+
+	private int addMember(ElementTable table, ElementIndex index, int owner, int srcName, int srcDesc) {
+		int ret = table.add(owner, srcName);
+		table.descs[ret] = srcDesc;
+		index.add(ret);
+
+		return ret;
+	}
+
+	private boolean isMoreSpecificDesc(ElementTable table, int id, String desc) {
+		int oldDesc = table.descs[id];
+
+		return oldDesc == 0 || table == methods && strings.get(oldDesc).endsWith(")") && !desc.endsWith(")");
+	}
+
+	private void setMemberDesc(ElementTable table, ElementIndex index, int id, String desc) {
+		int descId = strings.add(desc);
+		if (table.descs[id] == descId) return;
+
+		int owner = table.parents[id];
+		int nameId = table.srcNames[id];
+
+		for (int slot = index.getSlot(owner, nameId); ; slot = index.nextSlot(slot)) {
+			int other = index.get(slot);
+			if (other == NONE) break;
+
+			if (other != id && table.parents[other] == owner && table.srcNames[other] == nameId && table.descs[other] == descId) {
+				throw new IllegalArgumentException("conflicting name+desc after changing desc to "+desc+" for "+createEntry(table, id));
+			}
+		}
+
+		table.descs[id] = descId;
+	}
+
+	private int findArg(int method, int argPosition, int lvIndex, String srcName) {
+		MethodArgEntry ret = ArgVarMatcher.getArg(new EntryCollection<MethodArgEntry>(args, method), argPosition, lvIndex, srcName, SRC_NAMESPACE_ID);
+
+		return ret != null ? ret.id : NONE;
+	}
+
+	private int addArg(int method, int argPosition, int lvIndex, String srcName) {
+		int ret = args.add(method, strings.add(srcName));
+		args.setAttr(ret, ARG_POSITION, argPosition);
+		args.setAttr(ret, ARG_LV_INDEX, lvIndex);
+
+		return ret;
+	}
+
+	private int addArg(int method, MethodArgMapping src, int srcNs, int[] dstNsMap) {
+		String srcName = src.getName(srcNs);
+		int id = findArg(method, src.getArgPosition(), src.getLvIndex(), srcName);
+
+		if (id == NONE) {
+			id = addArg(method, src.getArgPosition(), src.getLvIndex(), srcName);
+		} else {
+			updateArg(id, src.getArgPosition(), src.getLvIndex());
+			if (srcName != null && args.srcNames[id] == 0) args.srcNames[id] = strings.add(srcName);
+		}
+
+		copyElement(args, id, src, dstNsMap);
+
+		return id;
+	}
+
+	private void updateArg(int id, int argPosition, int lvIndex) {
+		if (argPosition >= 0 && args.getAttr(id, ARG_POSITION) < 0) args.setAttr(id, ARG_POSITION, argPosition);
+		if (lvIndex >= 0 && args.getAttr(id, ARG_LV_INDEX) < 0) args.setAttr(id, ARG_LV_INDEX, lvIndex);
+	}
+
+	private int findVar(int method, int lvtRowIndex, int lvIndex, int startOpIdx, String srcName) {
+		MethodVarEntry ret = ArgVarMatcher.getVar(new EntryCollection<MethodVarEntry>(vars, method), lvtRowIndex, lvIndex, startOpIdx, srcName, SRC_NAMESPACE_ID);
+
+		return ret != null ? ret.id : NONE;
+	}
+
+	private int addVar(int method, int lvtRowIndex, int lvIndex, int startOpIdx, String srcName) {
+		int ret = vars.add(method, strings.add(srcName));
+		vars.setAttr(ret, VAR_LVT_ROW_INDEX, lvtRowIndex);
+		vars.setAttr(ret, VAR_LV_INDEX, lvIndex);
+		vars.setAttr(ret, VAR_START_OP_IDX, startOpIdx);
+
+		return ret;
+	}
+
+	private int addVar(int method, MethodVarMapping src, int srcNs, int[] dstNsMap) {
+		String srcName = src.getName(srcNs);
+		int id = findVar(method, src.getLvtRowIndex(), src.getLvIndex(), src.getStartOpIdx(), srcName);
+
+		if (id == NONE) {
+			id = addVar(method, src.getLvtRowIndex(), src.getLvIndex(), src.getStartOpIdx(), srcName);
+		} else {
+			updateVar(id, src.getLvtRowIndex(), src.getLvIndex(), src.getStartOpIdx());
+			if (srcName != null && vars.srcNames[id] == 0) vars.srcNames[id] = strings.add(srcName);
+		}
+
+		copyElement(vars, id, src, dstNsMap);
+
+		return id;
+	}
+
+	private void updateVar(int id, int lvtRowIndex, int lvIndex, int startOpIdx) {
+		if (lvtRowIndex >= 0 && vars.getAttr(id, VAR_LVT_ROW_INDEX) < 0) vars.setAttr(id, VAR_LVT_ROW_INDEX, lvtRowIndex);
+
+		if (lvIndex >= 0 && startOpIdx >= 0 && (vars.getAttr(id, VAR_LV_INDEX) < 0 || vars.getAttr(id, VAR_START_OP_IDX) < 0)) {
+			vars.setAttr(id, VAR_LV_INDEX, lvIndex);
+			vars.setAttr(id, VAR_START_OP_IDX, startOpIdx);
+		}
+	}
+
+	private AbstractEntry createEntry(ElementTable table, int id) {
+		switch (table.kind) {
+		case CLASS:
+			return new ClassEntry(id);
+		case FIELD:
+			return new FieldEntry(id);
+		case METHOD:
+			return new MethodEntry(id);
+		case METHOD_ARG:
+			return new MethodArgEntry(id);
+		case METHOD_VAR:
+			return new MethodVarEntry(id);
+		default:
+			throw new IllegalStateException();
+		}
+	}
+
+	@Override
+	public void accept(MappingVisitor visitor) throws IOException {
+		do {
+			if (visitor.visitHeader()) {
+				visitor.visitNamespaces(srcNamespace, dstNamespaces);
+
+				for (Map.Entry<String, String> entry : metadata) {
+					visitor.visitMetadata(entry.getKey(), entry.getValue());
+				}
+			}
+
+			if (visitor.visitContent()) {
+				Set<MappingFlag> flags = visitor.getFlags();
+				boolean supplyFieldDstDescs = flags.contains(MappingFlag.NEEDS_DST_FIELD_DESC);
+				boolean supplyMethodDstDescs = flags.contains(MappingFlag.NEEDS_DST_METHOD_DESC);
+
+				for (int cls = classes.rootFirst; cls != NONE; cls = classes.next[cls]) {
+					if (classes.isRemoved(cls)
+							|| !visitor.visitClass(strings.get(classes.srcNames[cls]))
+							|| !acceptElement(visitor, classes, cls, false)) {
+						continue;
+					}
+
+					for (int field = fields.getFirst(cls); field != NONE; field = fields.next[field]) {
+						if (!fields.isRemoved(field) && visitor.visitField(strings.get(fields.srcNames[field]), strings.get(fields.descs[field]))) {
+							acceptElement(visitor, fields, field, supplyFieldDstDescs);
+						}
+					}
+
+					for (int method = methods.getFirst(cls); method != NONE; method = methods.next[method]) {
+						if (methods.isRemoved(method)
+								|| !visitor.visitMethod(strings.get(methods.srcNames[method]), strings.get(methods.descs[method]))
+								|| !acceptElement(visitor, methods, method, supplyMethodDstDescs)) {
+							continue;
+						}
+
+						for (int arg = args.getFirst(method); arg != NONE; arg = args.next[arg]) {
+							if (!args.isRemoved(arg) && visitor.visitMethodArg(args.getAttr(arg, ARG_POSITION), args.getAttr(arg, ARG_LV_INDEX), strings.get(args.srcNames[arg]))) {
+								acceptElement(visitor, args, arg, false);
+							}
+						}
+
+						for (int var = vars.getFirst(method); var != NONE; var = vars.next[var]) {
+							if (!vars.isRemoved(var)
+									&& visitor.visitMethodVar(vars.getAttr(var, VAR_LVT_ROW_INDEX), vars.getAttr(var, VAR_LV_INDEX), vars.getAttr(var, VAR_START_OP_IDX), strings.get(vars.srcNames[var]))) {
+								acceptElement(visitor, vars, var, false);
+							}
+						}
+					}
+				}
+			}
+		} while (!visitor.visitEnd());
+	}
+
+	private boolean acceptElement(MappingVisitor visitor, ElementTable table, int id, boolean supplyDstDescs) throws IOException {
+		MappedElementKind kind = table.kind;
+		int dstNsCount = table.dstNamespaceCount;
+
+		for (int i = 0; i < dstNsCount; i++) {
+			int dstName = table.getDstName(id, i);
+
+			if (dstName != 0) visitor.visitDstName(kind, i, strings.get(dstName));
+		}
+
+		if (supplyDstDescs && table.descs[id] != 0) {
+			String srcDesc = strings.get(table.descs[id]);
+
+			for (int i = 0; i < dstNsCount; i++) {
+				visitor.visitDstDesc(kind, i, mapDesc(srcDesc, i));
+			}
+		}
+
+		if (!visitor.visitElementContent(kind)) {
+			return false;
+		}
+
+		String comment = table.getComment(id);
+		if (comment != null) visitor.visitComment(kind, comment);
+
+		return true;
+	}
+
+	@Override
+	public void reset() {
+		currentTable = null;
+		currentEntry = NONE;
+		currentClass = NONE;
+		currentMethod = NONE;
+	}
+
+	@Override
+	public void visitNamespaces(String srcNamespace, List<String> dstNamespaces) {
+		srcNsMap = SRC_NAMESPACE_ID;
+		dstNameMap = new int[dstNamespaces.size()];
+
+		if (this.srcNamespace != null) { // ns already set, try to merge
+			if (!srcNamespace.equals(this.srcNamespace)) {
+				srcNsMap = this.dstNamespaces.indexOf(srcNamespace);
+				if (srcNsMap < 0) throw new UnsupportedOperationException("can't merge with disassociated src namespace"); // srcNamespace must already be present
+			}
+
+			int newDstNamespaces = 0;
+
+			for (int i = 0; i < dstNameMap.length; i++) {
+				String dstNs = dstNamespaces.get(i);
+				int idx = this.dstNamespaces.indexOf(dstNs);
+
+				if (idx < 0) {
+					if (dstNs.equals(this.srcNamespace)) throw new UnsupportedOperationException("can't merge with existing src namespace in new dst namespaces");
+					if (newDstNamespaces == 0) this.dstNamespaces = new ArrayList<>(this.dstNamespaces);
+
+					idx = this.dstNamespaces.size();
+					this.dstNamespaces.add(dstNs);
+					newDstNamespaces++;
+				}
+
+				dstNameMap[i] = idx;
+			}
+
+			if (newDstNamespaces > 0) {
+				setDstNamespaceCount(this.dstNamespaces.size());
+			}
+		} else {
+			this.srcNamespace = srcNamespace;
+			this.dstNamespaces = dstNamespaces;
+			setDstNamespaceCount(dstNamespaces.size());
+
+			for (int i = 0; i < dstNameMap.length; i++) {
+				dstNameMap[i] = i;
+			}
+		}
+	}
+
+	@Override
+	public void visitMetadata(String key, String value) {
+		this.metadata.add(new AbstractMap.SimpleEntry<>(key, value));
+	}
+
+	@Override
+	public boolean visitClass(String srcName) {
+		currentMethod = NONE;
+
+		int cls = findClass(srcName, srcNsMap);
+
+		if (cls == NONE) {
+			if (srcNsMap >= 0) { // can't create new entry without src name
+				currentEntry = currentClass = NONE;
+				return false;
+			}
+
+			cls = addClass(strings.add(srcName));
+		}
+
+		currentTable = classes;
+		currentEntry = currentClass = cls;
+
+		return true;
+	}
+
+	@Override
+	public boolean visitField(String srcName, String srcDesc) {
+		if (currentClass == NONE) throw new UnsupportedOperationException("Tried to visit field before owning class");
+
+		currentMethod = NONE;
+
+		int field = findMember(fields, fieldIndex, currentClass, srcName, srcDesc, srcNsMap);
+
+		if (field == NONE) {
+			if (srcNsMap >= 0) { // can't create new entry without src name
+				currentEntry = NONE;
+				return false;
+			}
+
+			field = addMember(fields, fieldIndex, currentClass, strings.add(srcName), strings.add(srcDesc));
+		} else if (srcDesc != null && fields.descs[field] == 0) {
+			setMemberDesc(fields, fieldIndex, field, mapDesc(srcDesc, srcNsMap, SRC_NAMESPACE_ID)); // assumes the class mapping is already sufficiently present..
+		}
+
+		currentTable = fields;
+		currentEntry = field;
+
+		return true;
+	}
+
+	@Override
+	public boolean visitMethod(String srcName, String srcDesc) {
+		if (currentClass == NONE) throw new UnsupportedOperationException("Tried to visit method before owning class");
+
+		int method = findMember(methods, methodIndex, currentClass, srcName, srcDesc, srcNsMap);
+
+		if (method == NONE) {
+			if (srcNsMap >= 0) { // can't create new entry without src name
+				currentEntry = currentMethod = NONE;
+				return false;
+			}
+
+			method = addMember(methods, methodIndex, currentClass, strings.add(srcName), strings.add(srcDesc));
+		} else if (srcDesc != null && isMoreSpecificDesc(methods, method, srcDesc)) {
+			setMemberDesc(methods, methodIndex, method, mapDesc(srcDesc, srcNsMap, SRC_NAMESPACE_ID)); // assumes the class mapping is already sufficiently present..
+		}
+
+		currentTable = methods;
+		currentEntry = currentMethod = method;
+
+		return true;
+	}
+
+	private int findMember(ElementTable table, ElementIndex index, int owner, String name, String desc, int namespace) {
+		if (namespace < 0) return findMember(table, index, owner, name, desc);
+
+		ClassEntry cls = new ClassEntry(owner);
+		AbstractEntry ret = table == fields ? cls.getField(name, desc, namespace) : cls.getMethod(name, desc, namespace);
+
+		return ret != null ? ret.id : NONE;
+	}
+
+	@Override
+	public boolean visitMethodArg(int argPosition, int lvIndex, String srcName) {
+		if (currentMethod == NONE) throw new UnsupportedOperationException("Tried to visit method argument before owning method");
+
+		int arg = findArg(currentMethod, argPosition, lvIndex, srcName);
+
+		if (arg == NONE) {
+			arg = addArg(currentMethod, argPosition, lvIndex, srcName);
+		} else {
+			updateArg(arg, argPosition, lvIndex);
+
+			if (srcName != null) {
+				assert !srcName.isEmpty();
+				args.srcNames[arg] = strings.add(srcName);
+			}
+		}
+
+		currentTable = args;
+		currentEntry = arg;
+
+		return true;
+	}
+
+	@Override
+	public boolean visitMethodVar(int lvtRowIndex, int lvIndex, int startOpIdx, String srcName) {
+		if (currentMethod == NONE) throw new UnsupportedOperationException("Tried to visit method variable before owning method");
+
+		int var = findVar(currentMethod, lvtRowIndex, lvIndex, startOpIdx, srcName);
+
+		if (var == NONE) {
+			var = addVar(currentMethod, lvtRowIndex, lvIndex, startOpIdx, srcName);
+		} else {
+			updateVar(var, lvtRowIndex, lvIndex, startOpIdx);
+
+			if (srcName != null) {
+				assert !srcName.isEmpty();
+				vars.srcNames[var] = strings.add(srcName);
+			}
+		}
+
+		currentTable = vars;
+		currentEntry = var;
+
+		return true;
+	}
+
+	@Override
+	public boolean visitEnd() {
+		reset();
+
+		return true;
+	}
+
+	@Override
+	public void visitDstName(MappedElementKind targetKind, int namespace, String name) {
+		namespace = dstNameMap[namespace];
+
+		if (currentEntry == NONE) throw new UnsupportedOperationException("Tried to visit mapped name before owner");
+		currentTable.setDstName(currentEntry, namespace, strings.add(name));
+	}
+
+	@Override
+	public void visitComment(MappedElementKind targetKind, String comment) {
+		ElementTable table;
+		int id;
+
+		switch (targetKind) {
+		case CLASS:
+			table = classes;
+			id = currentClass;
+			break;
+		case METHOD:
+			table = methods;
+			id = currentMethod;
+			break;
+		default:
+			table = currentTable;
+			id = currentEntry;
+		}
+
+		if (id == NONE) throw new UnsupportedOperationException("Tried to visit comment before owning target");
+		table.setComment(id, comment);
+	}
+
+	abstract class AbstractEntry implements ElementMapping {
+		AbstractEntry(int id) {
+			this.id = id;
+		}
+
+		abstract ElementTable getTable();
+
+		@Override
+		public CompactMappingTree getTree() {
+			return CompactMappingTree.this;
+		}
+
+		@Override
+		public final String getSrcName() {
+			return strings.get(getTable().getSrcName(id));
+		}
+
+		@Override
+		public final String getDstName(int namespace) {
+			return strings.get(getTable().getDstName(id, namespace));
+		}
+
+		@Override
+		public void setDstName(String name, int namespace) {
+			getTable().setDstName(id, namespace, strings.add(name));
+		}
+
+		@Override
+		public final String getComment() {
+			return getTable().getComment(id);
+		}
+
+		@Override
+		public final void setComment(String comment) {
+			getTable().setComment(id, comment);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (obj == this) return true;
+			if (obj == null || obj.getClass() != getClass()) return false;
+
+			AbstractEntry o = (AbstractEntry) obj;
+
+			return o.id == id && o.getTree() == getTree();
+		}
+
+		@Override
+		public int hashCode() {
+			return id * 31 + getTable().kind.ordinal();
+		}
+
+		final int id;
+	}
+
+	final class ClassEntry extends AbstractEntry implements ClassMapping {
+		ClassEntry(int id) {
+			super(id);
+		}
+
+		@Override
+		ElementTable getTable() {
+			return classes;
+		}
+
+		@Override
+		public Collection<FieldEntry> getFields() {
+			return new EntryCollection<>(fields, id);
+		}
+
+		@Override
+		public FieldEntry getField(String srcName, String srcDesc) {
+			int ret = findMember(fields, fieldIndex, id, srcName, srcDesc);
+
+			return ret != NONE ? new FieldEntry(ret) : null;
+		}
+
+		@Override
+		public FieldEntry getField(String name, String desc, int namespace) {
+			return (FieldEntry) ClassMapping.super.getField(name, desc, namespace);
+		}
+
+		@Override
+		public FieldEntry addField(FieldMapping field) {
+			if (field instanceof FieldEntry && field.getOwner().equals(this) && !fields.isRemoved(((FieldEntry) field).id)) return (FieldEntry) field;
+
+			return new FieldEntry(addMember(fields, fieldIndex, id, field, getSrcNsEquivalent(field), getDstNsEquivalents(field.getTree())));
+		}
+
+		@Override
+		public FieldEntry removeField(String srcName, String srcDesc) {
+			int ret = findMember(fields, fieldIndex, id, srcName, srcDesc);
+			if (ret == NONE) return null;
+
+			fieldIndex.remove(ret);
+			fields.markRemoved(ret);
+
+			return new FieldEntry(ret);
+		}
+
+		@Override
+		public Collection<MethodEntry> getMethods() {
+			return new EntryCollection<>(methods, id);
+		}
+
+		@Override
+		public MethodEntry getMethod(String srcName, String srcDesc) {
+			int ret = findMember(methods, methodIndex, id, srcName, srcDesc);
+
+			return ret != NONE ? new MethodEntry(ret) : null;
+		}
+
+		@Override
+		public MethodEntry getMethod(String name, String desc, int namespace) {
+			return (MethodEntry) ClassMapping.super.getMethod(name, desc, namespace);
+		}
+
+		@Override
+		public MethodEntry addMethod(MethodMapping method) {
+			if (method instanceof MethodEntry && method.getOwner().equals(this) && !methods.isRemoved(((MethodEntry) method).id)) return (MethodEntry) method;
+
+			return new MethodEntry(addMember(methods, methodIndex, id, method, getSrcNsEquivalent(method), getDstNsEquivalents(method.getTree())));
+		}
+
+		@Override
+		public MethodEntry removeMethod(String srcName, String srcDesc) {
+			int ret = findMember(methods, methodIndex, id, srcName, srcDesc);
+			if (ret == NONE) return null;
+
+			methodIndex.remove(ret);
+			methods.markRemoved(ret);
+
+			return new MethodEntry(ret);
+		}
+
+		@Override
+		public String toString() {
+			return getSrcName();
+		}
+	}
+
+	abstract class MemberEntry extends AbstractEntry implements MemberMapping {
+		MemberEntry(int id) {
+			super(id);
+		}
+
+		abstract ElementIndex getIndex();
+
+		@Override
+		public final ClassEntry getOwner() {
+			return new ClassEntry(getTable().parents[id]);
+		}
+
+		@Override
+		public final String getSrcDesc() {
+			return strings.get(getTable().descs[id]);
+		}
+
+		@Override
+		public final void setSrcDesc(String desc) {
+			setMemberDesc(getTable(), getIndex(), id, desc);
+		}
+	}
+
+	final class FieldEntry extends MemberEntry implements FieldMapping {
+		FieldEntry(int id) {
+			super(id);
+		}
+
+		@Override
+		ElementTable getTable() {
+			return fields;
+		}
+
+		@Override
+		ElementIndex getIndex() {
+			return fieldIndex;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%s;;%s", getSrcName(), getSrcDesc());
+		}
+	}
+
+	final class MethodEntry extends MemberEntry implements MethodMapping {
+		MethodEntry(int id) {
+			super(id);
+		}
+
+		@Override
+		ElementTable getTable() {
+			return methods;
+		}
+
+		@Override
+		ElementIndex getIndex() {
+			return methodIndex;
+		}
+
+		@Override
+		public Collection<MethodArgEntry> getArgs() {
+			return new EntryCollection<>(args, id);
+		}
+
+		@Override
+		public MethodArgEntry getArg(int argPosition, int lvIndex, String srcName) {
+			int ret = findArg(id, argPosition, lvIndex, srcName);
+
+			return ret != NONE ? new MethodArgEntry(ret) : null;
+		}
+
+		@Override
+		public MethodArgEntry addArg(MethodArgMapping arg) {
+			if (arg instanceof MethodArgEntry && arg.getMethod().equals(this) && !args.isRemoved(((MethodArgEntry) arg).id)) return (MethodArgEntry) arg;
+
+			return new MethodArgEntry(CompactMappingTree.this.addArg(id, arg, getSrcNsEquivalent(arg), getDstNsEquivalents(arg.getTree())));
+		}
+
+		@Override
+		public MethodArgEntry removeArg(int argPosition, int lvIndex, String srcName) {
+			int ret = findArg(id, argPosition, lvIndex, srcName);
+			if (ret == NONE) return null;
+
+			args.markRemoved(ret);
+
+			return new MethodArgEntry(ret);
+		}
+
+		@Override
+		public Collection<MethodVarEntry> getVars() {
+			return new EntryCollection<>(vars, id);
+		}
+
+		@Override
+		public MethodVarEntry getVar(int lvtRowIndex, int lvIndex, int startOpIdx, String srcName) {
+			int ret = findVar(id, lvtRowIndex, lvIndex, startOpIdx, srcName);
+
+			return ret != NONE ? new MethodVarEntry(ret) : null;
+		}
+
+		@Override
+		public MethodVarEntry addVar(MethodVarMapping var) {
+			if (var instanceof MethodVarEntry && var.getMethod().equals(this) && !vars.isRemoved(((MethodVarEntry) var).id)) return (MethodVarEntry) var;
+
+			return new MethodVarEntry(CompactMappingTree.this.addVar(id, var, getSrcNsEquivalent(var), getDstNsEquivalents(var.getTree())));
+		}
+
+		@Override
+		public MethodVarEntry removeVar(int lvtRowIndex, int lvIndex, int startOpIdx, String srcName) {
+			int ret = findVar(id, lvtRowIndex, lvIndex, startOpIdx, srcName);
+			if (ret == NONE) return null;
+
+			vars.markRemoved(ret);
+
+			return new MethodVarEntry(ret);
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%s%s", getSrcName(), getSrcDesc());
+		}
+	}
+
+	final class MethodArgEntry extends AbstractEntry implements MethodArgMapping {
+		MethodArgEntry(int id) {
+			super(id);
+		}
+
+		@Override
+		ElementTable getTable() {
+			return args;
+		}
+
+		@Override
+		public MethodEntry getMethod() {
+			return new MethodEntry(args.parents[id]);
+		}
+
+		@Override
+		public int getArgPosition() {
+			return args.getAttr(id, ARG_POSITION);
+		}
+
+		@Override
+		public void setArgPosition(int position) {
+			args.setAttr(id, ARG_POSITION, position);
+		}
+
+		@Override
+		public int getLvIndex() {
+			return args.getAttr(id, ARG_LV_INDEX);
+		}
+
+		@Override
+		public void setLvIndex(int index) {
+			args.setAttr(id, ARG_LV_INDEX, index);
+		}
+
+		public void setSrcName(String name) {
+			args.srcNames[id] = strings.add(name);
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%d/%d:%s", getArgPosition(), getLvIndex(), getSrcName());
+		}
+	}
+
+	final class MethodVarEntry extends AbstractEntry implements MethodVarMapping {
+		MethodVarEntry(int id) {
+			super(id);
+		}
+
+		@Override
+		ElementTable getTable() {
+			return vars;
+		}
+
+		@Override
+		public MethodEntry getMethod() {
+			return new MethodEntry(vars.parents[id]);
+		}
+
+		@Override
+		public int getLvtRowIndex() {
+			return vars.getAttr(id, VAR_LVT_ROW_INDEX);
+		}
+
+		@Override
+		public void setLvtRowIndex(int index) {
+			vars.setAttr(id, VAR_LVT_ROW_INDEX, index);
+		}
+
+		@Override
+		public int getLvIndex() {
+			return vars.getAttr(id, VAR_LV_INDEX);
+		}
+
+		@Override
+		public int getStartOpIdx() {
+			return vars.getAttr(id, VAR_START_OP_IDX);
+		}
+
+		@Override
+		public void setLvIndex(int lvIndex, int startOpIdx) {
+			vars.setAttr(id, VAR_LV_INDEX, lvIndex);
+			vars.setAttr(id, VAR_START_OP_IDX, startOpIdx);
+		}
+
+		public void setSrcName(String name) {
+			vars.srcNames[id] = strings.add(name);
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%d/%d@%d:%s", getLvtRowIndex(), getLvIndex(), getStartOpIdx(), getSrcName());
+		}
+	}
+
+	/**
+	 * Live view of the non-removed elements in a sibling list, creating flyweights while iterating.
+	 */
+	private final class EntryCollection<T extends AbstractEntry> extends AbstractCollection<T> {
+		EntryCollection(ElementTable table, int parent) {
+			this.table = table;
+			this.parent = parent;
+		}
+
+		@Override
+		public Iterator<T> iterator() {
+			return new Iterator<T>() {
+				@Override
+				public boolean hasNext() {
+					return skipRemoved() != NONE;
+				}
+
+				@Override
+				@SuppressWarnings("unchecked")
+				public T next() {
+					int id = skipRemoved();
+					if (id == NONE) throw new NoSuchElementException();
+
+					nextId = table.next[id];
+
+					return (T) createEntry(table, id);
+				}
+
+				private int skipRemoved() {
+					while (nextId != NONE && table.isRemoved(nextId)) {
+						nextId = table.next[nextId];
+					}
+
+					return nextId;
+				}
+
+				private int nextId = table.getFirst(parent);
+			};
+		}
+
+		@Override
+		public int size() {
+			if (table == classes) return classCount;
+
+			int ret = 0;
+
+			for (int id = table.getFirst(parent); id != NONE; id = table.next[id]) {
+				if (!table.isRemoved(id)) ret++;
+			}
+
+			return ret;
+		}
+
+		private final ElementTable table;
+		private final int parent;
+	}
+
+	/**
+	 * Column storage for the elements of one kind.
+	 *
+	 * <p>String columns hold string table indices with 0 representing null. Every element is appended to a sibling
+	 * list, its parent's for child elements or the table's root list otherwise. Removed elements stay in the list,
+	 * their src name index is stored inverted to mark them.
+	 */
+	static final class ElementTable {
+		ElementTable(MappedElementKind kind, ElementTable parentTable, int parentList, boolean hasDesc, int attrCount, int childListCount) {
+			int capacity = 16;
+
+			this.kind = kind;
+			this.parentTable = parentTable;
+			this.parentList = parentList;
+			this.attrCount = attrCount;
+			this.childListStride = childListCount * 2;
+			this.srcNames = new int[capacity];
+			this.next = new int[capacity];
+			this.parents = parentTable != null ? new int[capacity] : null;
+			this.descs = hasDesc ? new int[capacity] : null;
+			this.attrs = attrCount > 0 ? new int[capacity * attrCount] : null;
+			this.childLists = childListStride > 0 ? new int[capacity * childListStride] : null;
+			this.dstNames = new int[0];
+		}
+
+		int add(int parent, int srcName) {
+			int id = size;
+			if (id == srcNames.length) grow(Math.max(16, id + (id >>> 1)));
+
+			size++;
+			srcNames[id] = srcName;
+			next[id] = NONE;
+
+			if (childLists != null) Arrays.fill(childLists, id * childListStride, (id + 1) * childListStride, NONE);
+
+			if (parentTable == null) {
+				if (rootLast == NONE) {
+					rootFirst = id;
+				} else {
+					next[rootLast] = id;
+				}
+
+				rootLast = id;
+			} else {
+				parents[id] = parent;
+
+				int listIdx = parent * parentTable.childListStride + parentList * 2;
+				int last = parentTable.childLists[listIdx + 1];
+
+				if (last == NONE) {
+					parentTable.childLists[listIdx] = id;
+				} else {
+					next[last] = id;
+				}
+
+				parentTable.childLists[listIdx + 1] = id;
+			}
+
+			return id;
+		}
+
+		int getFirst(int parent) {
+			if (parentTable == null) return rootFirst;
+
+			return parentTable.childLists[parent * parentTable.childListStride + parentList * 2];
+		}
+
+		boolean isRemoved(int id) {
+			return srcNames[id] < 0;
+		}
+
+		void markRemoved(int id) {
+			if (srcNames[id] >= 0) srcNames[id] = ~srcNames[id];
+		}
+
+		int getSrcName(int id) {
+			int ret = srcNames[id];
+
+			return ret >= 0 ? ret : ~ret;
+		}
+
+		int getDstName(int id, int namespace) {
+			if (namespace >= dstNamespaceCount) throw new IndexOutOfBoundsException(Integer.toString(namespace));
+
+			return dstNames[id * dstNamespaceCount + namespace];
+		}
+
+		void setDstName(int id, int namespace, int name) {
+			if (namespace >= dstNamespaceCount) throw new IndexOutOfBoundsException(Integer.toString(namespace));
+
+			dstNames[id * dstNamespaceCount + namespace] = name;
+		}
+
+		int getAttr(int id, int attr) {
+			return attrs[id * attrCount + attr];
+		}
+
+		void setAttr(int id, int attr, int value) {
+			attrs[id * attrCount + attr] = value;
+		}
+
+		String getComment(int id) {
+			return comments != null ? comments[id] : null;
+		}
+
+		void setComment(int id, String comment) {
+			if (comments == null) {
+				if (comment == null) return;
+				comments = new String[srcNames.length];
+			}
+
+			comments[id] = comment;
+		}
+
+		void setDstNamespaceCount(int count) {
+			if (count == dstNamespaceCount) return;
+
+			int[] newDstNames = new int[srcNames.length * count];
+			int copyCount = Math.min(count, dstNamespaceCount);
+
+			for (int id = 0; id < size; id++) {
+				System.arraycopy(dstNames, id * dstNamespaceCount, newDstNames, id * count, copyCount);
+			}
+
+			dstNames = newDstNames;
+			dstNamespaceCount = count;
+		}
+
+		void trimToSize() {
+			if (size < srcNames.length) grow(size);
+		}
+
+		private void grow(int capacity) {
+			srcNames = Arrays.copyOf(srcNames, capacity);
+			next = Arrays.copyOf(next, capacity);
+			if (parents != null) parents = Arrays.copyOf(parents, capacity);
+			if (descs != null) descs = Arrays.copyOf(descs, capacity);
+			if (attrs != null) attrs = Arrays.copyOf(attrs, capacity * attrCount);
+			if (childLists != null) childLists = Arrays.copyOf(childLists, capacity * childListStride);
+			if (comments != null) comments = Arrays.copyOf(comments, capacity);
+			dstNames = Arrays.copyOf(dstNames, capacity * dstNamespaceCount);
+		}
+
+		final MappedElementKind kind;
+		private final ElementTable parentTable;
+		private final int parentList;
+		private final int attrCount;
+		private final int childListStride;
+		int size;
+		int[] srcNames;
+		int[] next;
+		int[] parents;
+		int[] descs;
+		private int[] attrs;
+		private int[] childLists;
+		private String[] comments;
+		private int[] dstNames;
+		int dstNamespaceCount;
+		int rootFirst = NONE;
+		private int rootLast = NONE;
+	}
+
+	/**
+	 * Open-addressing hash index over an {@link ElementTable}, keyed by parent and src name index.
+	 *
+	 * <p>The slots store element id + 1, 0 marks an empty slot. Multiple elements may share a key, callers iterate the
+	 * probe sequence from {@link #getSlot} until {@link #get} returns {@link #NONE} and filter by key themselves.
+	 */
+	static final class ElementIndex {
+		ElementIndex(ElementTable table) {
+			this.table = table;
+		}
+
+		int getSlot(int parent, int srcName) {
+			return hash(parent, srcName) & (slots.length - 1);
+		}
+
+		int nextSlot(int slot) {
+			return (slot + 1) & (slots.length - 1);
+		}
+
+		int get(int slot) {
+			return slots[slot] - 1;
+		}
+
+		void add(int id) {
+			if ((size + 1) * 2 > slots.length) {
+				int[] oldSlots = slots;
+				slots = new int[oldSlots.length * 2];
+
+				for (int value : oldSlots) {
+					if (value != 0) insert(value - 1);
+				}
+			}
+
+			insert(id);
+			size++;
+		}
+
+		private void insert(int id) {
+			int slot = getHomeSlot(id);
+
+			while (slots[slot] != 0) {
+				slot = nextSlot(slot);
+			}
+
+			slots[slot] = id + 1;
+		}
+
+		void remove(int id) {
+			int hole = getHomeSlot(id);
+
+			while (slots[hole] != id + 1) {
+				if (slots[hole] == 0) return;
+				hole = nextSlot(hole);
+			}
+
+			// backward shift deletion: move up later entries of the probe sequence that may occupy the hole
+
+			int mask = slots.length - 1;
+			slots[hole] = 0;
+			size--;
+
+			for (int slot = nextSlot(hole); slots[slot] != 0; slot = nextSlot(slot)) {
+				int home = getHomeSlot(slots[slot] - 1);
+
+				if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+					slots[hole] = slots[slot];
+					slots[slot] = 0;
+					hole = slot;
+				}
+			}
+		}
+
+		private int getHomeSlot(int id) {
+			return getSlot(table.parents != null ? table.parents[id] : 0, table.getSrcName(id));
+		}
+
+		private static int hash(int parent, int srcName) {
+			int ret = (parent * 0x9e3779b9 + srcName) * 0x85ebca6b;
+
+			return ret ^ ret >>> 16;
+		}
+
+		private final ElementTable table;
+		private int[] slots = new int[64];
+		private int size;
+	}
+
+	/**
+	 * Append-only table of unique strings, index 0 represents null.
+	 */
+	static final class StringTable {
+		/**
+		 * Get the index for str, adding it if absent.
+		 */
+		int add(String str) {
+			if (str == null) return 0;
+
+			int mask = slots.length - 1;
+
+			for (int slot = mix(str.hashCode()) & mask; ; slot = (slot + 1) & mask) {
+				int id = slots[slot];
+
+				if (id == 0) {
+					id = size++;
+					if (id == strings.length) strings = Arrays.copyOf(strings, id * 2);
+					strings[id] = str;
+					slots[slot] = id;
+					if (size * 2 > slots.length) rehash();
+
+					return id;
+				}
+
+				String s = strings[id];
+				if (s == str || s.hashCode() == str.hashCode() && s.equals(str)) return id;
+			}
+		}
+
+		/**
+		 * Get the index for str without adding it.
+		 *
+		 * @return the index or {@link #NONE} if absent
+		 */
+		int find(String str) {
+			if (str == null) return 0;
+
+			int mask = slots.length - 1;
+
+			for (int slot = mix(str.hashCode()) & mask; ; slot = (slot + 1) & mask) {
+				int id = slots[slot];
+				if (id == 0) return NONE;
+
+				String s = strings[id];
+				if (s == str || s.hashCode() == str.hashCode() && s.equals(str)) return id;
+			}
+		}
+
+		String get(int id) {
+			return strings[id];
+		}
+
+		void trimToSize() {
+			if (size < strings.length) strings = Arrays.copyOf(strings, size);
+		}
+
+		private void rehash() {
+			int[] newSlots = new int[slots.length * 2];
+			int mask = newSlots.length - 1;
+
+			for (int id = 1; id < size; id++) {
+				int slot = mix(strings[id].hashCode()) & mask;
+
+				while (newSlots[slot] != 0) {
+					slot = (slot + 1) & mask;
+				}
+
+				newSlots[slot] = id;
+			}
+
+			slots = newSlots;
+		}
+
+		private static int mix(int hash) {
+			hash *= 0x9e3779b9;
+
+			return hash ^ hash >>> 16;
+		}
+
+		private String[] strings = new String[1024];
+		private int size = 1;
+		private int[] slots = new int[2048];
+	}
+
+	static final int NONE = -1;
+
+	private static final int CLASS_FIELDS = 0;
+	private static final int CLASS_METHODS = 1;
+	private static final int METHOD_ARGS = 0;
+	private static final int METHOD_VARS = 1;
+	private static final int ARG_POSITION = 0;
+	private static final int ARG_LV_INDEX = 1;
+	private static final int VAR_LVT_ROW_INDEX = 0;
+	private static final int VAR_LV_INDEX = 1;
+	private static final int VAR_START_OP_IDX = 2;
+
+	private String srcNamespace;
+	private List<String> dstNamespaces;
+	private final List<Map.Entry<String, String>> metadata = new ArrayList<>();
+	private final StringTable strings = new StringTable();
+	private final ElementTable classes = new ElementTable(MappedElementKind.CLASS, null, 0, false, 0, 2);
+	private final ElementTable fields = new ElementTable(MappedElementKind.FIELD, classes, CLASS_FIELDS, true, 0, 0);
+	private final ElementTable methods = new ElementTable(MappedElementKind.METHOD, classes, CLASS_METHODS, true, 0, 2);
+	private final ElementTable args = new ElementTable(MappedElementKind.METHOD_ARG, methods, METHOD_ARGS, false, 2, 0);
+	private final ElementTable vars = new ElementTable(MappedElementKind.METHOD_VAR, methods, METHOD_VARS, false, 3, 0);
+	private final ElementIndex classIndex = new ElementIndex(classes);
+	private final ElementIndex fieldIndex = new ElementIndex(fields);
+	private final ElementIndex methodIndex = new ElementIndex(methods);
+	private int classCount;
+
+	private int srcNsMap;
+	private int[] dstNameMap;
+	private ElementTable currentTable;
+	private int currentEntry = NONE;
+	private int currentClass = NONE;
+	private int currentMethod = NONE;
+}
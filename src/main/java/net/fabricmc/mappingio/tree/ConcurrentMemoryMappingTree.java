@@ -0,0 +1,1274 @@
+/*
+ * Copyright (c) 2021 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.mappingio.tree;
+
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import net.fabricmc.mappingio.MappedElementKind;
+import net.fabricmc.mappingio.MappingFlag;
+import net.fabricmc.mappingio.MappingVisitor;
+import net.fabricmc.mappingio.tree.MemoryMappingTree.MemberKey;
+
+/**
+ * {@link MappingTree} implementation that may be read and modified by multiple threads concurrently.
+ *
+ * <p>Classes are kept in concurrent maps by src name and by dst name for every namespace, there is no global lock.
+ * Member and method arg/var modifications lock the owning class or method respectively, names and comments are
+ * updated atomically without locking. Iterating elements is weakly consistent and the class order is unspecified.
+ *
+ * <p>Unlike {@link MemoryMappingTree} this tree is no {@link MappingVisitor} itself since visiting is inherently
+ * stateful. Every thread has to feed its input through its own visitor obtained from {@link #newVisitor()} instead.
+ * The namespaces are fixed upon construction, visitors may only supply a subset of them in any order.
+ */
+public final class ConcurrentMemoryMappingTree implements MappingTree {
+	@SuppressWarnings("unchecked")
+	public ConcurrentMemoryMappingTree(String srcNamespace, List<String> dstNamespaces) {
+		this.srcNamespace = srcNamespace;
+		this.dstNamespaces = Collections.unmodifiableList(new ArrayList<>(dstNamespaces));
+		this.classesByDstNames = new Map[dstNamespaces.size()];
+
+		for (int i = 0; i < classesByDstNames.length; i++) {
+			classesByDstNames[i] = new ConcurrentHashMap<>();
+		}
+	}
+
+	public ConcurrentMemoryMappingTree(MappingTreeView src) throws IOException {
+		this(src.getSrcNamespace(), src.getDstNamespaces());
+
+		src.accept(newVisitor());
+	}
+
+	/**
+	 * Create a new visitor adding the visited mappings to this tree.
+	 *
+	 * <p>Each visitor may only be used by one thread at a time, but any number of visitors may visit concurrently.
+	 */
+	public MappingVisitor newVisitor() {
+		return new Visitor();
+	}
+
+	@Override
+	public String getSrcNamespace() {
+		return srcNamespace;
+	}
+
+	@Override
+	public String setSrcNamespace(String namespace) {
+		String ret = srcNamespace;
+		srcNamespace = namespace;
+
+		return ret;
+	}
+
+	@Override
+	public List<String> getDstNamespaces() {
+		return dstNamespaces;
+	}
+
+	/**
+	 * Rename the dst namespaces, the namespace count can't be changed.
+	 */
+	@Override
+	public List<String> setDstNamespaces(List<String> namespaces) {
+		if (namespaces.size() != dstNamespaces.size()) throw new UnsupportedOperationException("can't change the namespace count of a concurrent tree");
+
+		List<String> ret = dstNamespaces;
+		dstNamespaces = Collections.unmodifiableList(new ArrayList<>(namespaces));
+
+		return ret;
+	}
+
+	@Override
+	public Collection<Map.Entry<String, String>> getMetadata() {
+		return Collections.unmodifiableList(metadata);
+	}
+
+	@Override
+	public String getMetadata(String key) {
+		for (Map.Entry<String, String> entry : metadata) {
+			if (entry.getKey().equals(key)) return entry.getValue();
+		}
+
+		return null;
+	}
+
+	@Override
+	public void addMetadata(String key, String value) {
+		metadata.add(new AbstractMap.SimpleImmutableEntry<>(key, value));
+	}
+
+	@Override
+	public String removeMetadata(String key) {
+		for (Map.Entry<String, String> entry : metadata) {
+			if (entry.getKey().equals(key) && metadata.remove(entry)) {
+				return entry.getValue();
+			}
+		}
+
+		return null;
+	}
+
+	@Override
+	public Collection<ClassEntry> getClasses() {
+		return Collections.unmodifiableCollection(classesBySrcName.values());
+	}
+
+	@Override
+	public ClassEntry getClass(String srcName) {
+		return classesBySrcName.get(srcName);
+	}
+
+	@Override
+	public ClassEntry getClass(String name, int namespace) {
+		if (namespace < 0) {
+			return classesBySrcName.get(name);
+		} else {
+			return classesByDstNames[namespace].get(name);
+		}
+	}
+
+	@Override
+	public ClassEntry addClass(ClassMapping cls) {
+		ClassEntry entry = cls instanceof ClassEntry && cls.getTree() == this ? (ClassEntry) cls : new ClassEntry(this, cls, getSrcNsEquivalent(cls));
+		ClassEntry ret = classesBySrcName.putIfAbsent(entry.getSrcName(), entry);
+
+		if (ret != null) {
+			ret.copyFrom(entry, false);
+
+			return ret;
+		}
+
+		synchronized (entry) { // index the dst names that couldn't be indexed before the entry was added
+			for (int i = 0; i < classesByDstNames.length; i++) {
+				String dstName = entry.getDstName(i);
+				if (dstName != null) classesByDstNames[i].put(dstName, entry);
+			}
+		}
+
+		return entry;
+	}
+
+	private int getSrcNsEquivalent(ElementMapping mapping) {
+		int ret = mapping.getTree().getNamespaceId(srcNamespace);
+		if (ret == NULL_NAMESPACE_ID) throw new UnsupportedOperationException("can't find source namespace in referenced mapping tree");
+
+		return ret;
+	}
+
+	@Override
+	public ClassEntry removeClass(String srcName) {
+		ClassEntry ret = classesBySrcName.remove(srcName);
+
+		if (ret != null) {
+			synchronized (ret) {
+				for (int i = 0; i < classesByDstNames.length; i++) {
+					String dstName = ret.getDstName(i);
+					if (dstName != null) classesByDstNames[i].remove(dstName, ret);
+				}
+			}
+		}
+
+		return ret;
+	}
+
+	@Override
+	public void accept(MappingVisitor visitor) throws IOException {
+		do {
+			if (visitor.visitHeader()) {
+				visitor.visitNamespaces(srcNamespace, dstNamespaces);
+
+				for (Map.Entry<String, String> entry : metadata) {
+					visitor.visitMetadata(entry.getKey(), entry.getValue());
+				}
+			}
+
+			if (visitor.visitContent()) {
+				Set<MappingFlag> flags = visitor.getFlags();
+				boolean supplyFieldDstDescs = flags.contains(MappingFlag.NEEDS_DST_FIELD_DESC);
+				boolean supplyMethodDstDescs = flags.contains(MappingFlag.NEEDS_DST_METHOD_DESC);
+
+				for (ClassEntry cls : classesBySrcName.values()) {
+					cls.accept(visitor, supplyFieldDstDescs, supplyMethodDstDescs);
+				}
+			}
+		} while (!visitor.visitEnd());
+	}
+
+	/**
+	 * Visitor adding to the tree, holds the per-thread visitation state.
+	 */
+	private final class Visitor implements MappingVisitor {
+		@Override
+		public void reset() {
+			currentEntry = null;
+			currentClass = null;
+			currentMethod = null;
+		}
+
+		@Override
+		public void visitNamespaces(String srcNamespace, List<String> dstNamespaces) {
+			List<String> treeDstNamespaces = ConcurrentMemoryMappingTree.this.dstNamespaces;
+
+			if (srcNamespace.equals(ConcurrentMemoryMappingTree.this.srcNamespace)) {
+				srcNsMap = SRC_NAMESPACE_ID;
+			} else {
+				srcNsMap = treeDstNamespaces.indexOf(srcNamespace);
+				if (srcNsMap < 0) throw new UnsupportedOperationException("can't merge with disassociated src namespace"); // srcNamespace must already be present
+			}
+
+			dstNameMap = new int[dstNamespaces.size()];
+
+			for (int i = 0; i < dstNameMap.length; i++) {
+				String dstNs = dstNamespaces.get(i);
+				int idx = treeDstNamespaces.indexOf(dstNs);
+				if (idx < 0) throw new UnsupportedOperationException("can't add namespace "+dstNs+" to a concurrent tree");
+
+				dstNameMap[i] = idx;
+			}
+		}
+
+		@Override
+		public void visitMetadata(String key, String value) {
+			addMetadata(key, value);
+		}
+
+		@Override
+		public boolean visitClass(String srcName) {
+			currentMethod = null;
+
+			ClassEntry cls;
+
+			if (srcNsMap >= 0) { // can't create new entry without src name
+				cls = ConcurrentMemoryMappingTree.this.getClass(srcName, srcNsMap);
+
+				if (cls == null) {
+					currentEntry = currentClass = null;
+					return false;
+				}
+			} else {
+				cls = classesBySrcName.get(srcName);
+				if (cls == null) cls = addClass(new ClassEntry(ConcurrentMemoryMappingTree.this, srcName));
+			}
+
+			currentEntry = currentClass = cls;
+
+			return true;
+		}
+
+		@Override
+		public boolean visitField(String srcName, String srcDesc) {
+			if (currentClass == null) throw new UnsupportedOperationException("Tried to visit field before owning class");
+
+			currentMethod = null;
+
+			FieldEntry field;
+
+			synchronized (currentClass) {
+				field = currentClass.getField(srcName, srcDesc, srcNsMap);
+
+				if (field == null) {
+					if (srcNsMap >= 0) { // can't create new entry without src name
+						currentEntry = null;
+						return false;
+					}
+
+					field = currentClass.addField(new FieldEntry(currentClass, srcName, srcDesc));
+				} else if (srcDesc != null && field.srcDesc == null) {
+					field.setSrcDesc(mapDesc(srcDesc, srcNsMap, SRC_NAMESPACE_ID)); // assumes the class mapping is already sufficiently present..
+				}
+			}
+
+			currentEntry = field;
+
+			return true;
+		}
+
+		@Override
+		public boolean visitMethod(String srcName, String srcDesc) {
+			if (currentClass == null) throw new UnsupportedOperationException("Tried to visit method before owning class");
+
+			MethodEntry method;
+
+			synchronized (currentClass) {
+				method = currentClass.getMethod(srcName, srcDesc, srcNsMap);
+
+				if (method == null) {
+					if (srcNsMap >= 0) { // can't create new entry without src name
+						currentEntry = currentMethod = null;
+						return false;
+					}
+
+					method = currentClass.addMethod(new MethodEntry(currentClass, srcName, srcDesc));
+				} else if (srcDesc != null && (method.srcDesc == null || method.srcDesc.endsWith(")") && !srcDesc.endsWith(")"))) {
+					method.setSrcDesc(mapDesc(srcDesc, srcNsMap, SRC_NAMESPACE_ID)); // assumes the class mapping is already sufficiently present..
+				}
+			}
+
+			currentEntry = currentMethod = method;
+
+			return true;
+		}
+
+		@Override
+		public boolean visitMethodArg(int argPosition, int lvIndex, String srcName) {
+			if (currentMethod == null) throw new UnsupportedOperationException("Tried to visit method argument before owning method");
+
+			MethodArgEntry arg;
+
+			synchronized (currentMethod) {
+				arg = currentMethod.getArg(argPosition, lvIndex, srcName);
+
+				if (arg == null) {
+					arg = currentMethod.addArg(new MethodArgEntry(currentMethod, argPosition, lvIndex, srcName));
+				} else {
+					if (argPosition >= 0 && arg.argPosition < 0) arg.setArgPosition(argPosition);
+					if (lvIndex >= 0 && arg.lvIndex < 0) arg.setLvIndex(lvIndex);
+
+					if (srcName != null) {
+						assert !srcName.isEmpty();
+						arg.setSrcName(srcName);
+					}
+				}
+			}
+
+			currentEntry = arg;
+
+			return true;
+		}
+
+		@Override
+		public boolean visitMethodVar(int lvtRowIndex, int lvIndex, int startOpIdx, String srcName) {
+			if (currentMethod == null) throw new UnsupportedOperationException("Tried to visit method variable before owning method");
+
+			MethodVarEntry var;
+
+			synchronized (currentMethod) {
+				var = currentMethod.getVar(lvtRowIndex, lvIndex, startOpIdx, srcName);
+
+				if (var == null) {
+					var = currentMethod.addVar(new MethodVarEntry(currentMethod, lvtRowIndex, lvIndex, startOpIdx, srcName));
+				} else {
+					if (lvtRowIndex >= 0 && var.lvtRowIndex < 0) var.setLvtRowIndex(lvtRowIndex);
+					if (lvIndex >= 0 && startOpIdx >= 0 && (var.lvIndex < 0 || var.startOpIdx < 0)) var.setLvIndex(lvIndex, startOpIdx);
+
+					if (srcName != null) {
+						assert !srcName.isEmpty();
+						var.setSrcName(srcName);
+					}
+				}
+			}
+
+			currentEntry = var;
+
+			return true;
+		}
+
+		@Override
+		public boolean visitEnd() {
+			reset();
+
+			return true;
+		}
+
+		@Override
+		public void visitDstName(MappedElementKind targetKind, int namespace, String name) {
+			namespace = dstNameMap[namespace];
+
+			if (currentEntry == null) throw new UnsupportedOperationException("Tried to visit mapped name before owner");
+			currentEntry.setDstName(name, namespace);
+		}
+
+		@Override
+		public void visitComment(MappedElementKind targetKind, String comment) {
+			Entry<?> entry;
+
+			switch (targetKind) {
+			case CLASS:
+				entry = currentClass;
+				break;
+			case METHOD:
+				entry = currentMethod;
+				break;
+			default:
+				entry = currentEntry;
+			}
+
+			if (entry == null) throw new UnsupportedOperationException("Tried to visit comment before owning target");
+			entry.setComment(comment);
+		}
+
+		private int srcNsMap;
+		private int[] dstNameMap;
+		private Entry<?> currentEntry;
+		private ClassEntry currentClass;
+		private MethodEntry currentMethod;
+	}
+
+	abstract static class Entry<T extends Entry<T>> implements ElementMapping {
+		protected Entry(ConcurrentMemoryMappingTree tree, String srcName) {
+			this.srcName = srcName;
+			this.dstNames = new AtomicReferenceArray<>(tree.dstNamespaces.size());
+		}
+
+		protected Entry(ConcurrentMemoryMappingTree tree, ElementMapping src, int srcNsEquivalent) {
+			this(tree, src.getName(srcNsEquivalent));
+
+			for (int i = 0; i < dstNames.length(); i++) {
+				int dstNsEquivalent = src.getTree().getNamespaceId(tree.dstNamespaces.get(i));
+
+				if (dstNsEquivalent != NULL_NAMESPACE_ID) {
+					dstNames.set(i, src.getName(dstNsEquivalent));
+				}
+			}
+
+			comment = src.getComment();
+		}
+
+		public abstract MappedElementKind getKind();
+
+		@Override
+		public final String getSrcName() {
+			return srcName;
+		}
+
+		@Override
+		public final String getDstName(int namespace) {
+			return dstNames.get(namespace);
+		}
+
+		@Override
+		public void setDstName(String name, int namespace) {
+			dstNames.set(namespace, name);
+		}
+
+		@Override
+		public final String getComment() {
+			return comment;
+		}
+
+		@Override
+		public final void setComment(String comment) {
+			this.comment = comment;
+		}
+
+		protected final boolean acceptElement(MappingVisitor visitor, String[] dstDescs) throws IOException {
+			MappedElementKind kind = getKind();
+
+			for (int i = 0; i < dstNames.length(); i++) {
+				String dstName = dstNames.get(i);
+
+				if (dstName != null) visitor.visitDstName(kind, i, dstName);
+			}
+
+			if (dstDescs != null) {
+				for (int i = 0; i < dstDescs.length; i++) {
+					String dstDesc = dstDescs[i];
+
+					if (dstDesc != null) visitor.visitDstDesc(kind, i, dstDesc);
+				}
+			}
+
+			if (!visitor.visitElementContent(kind)) {
+				return false;
+			}
+
+			String comment = this.comment;
+			if (comment != null) visitor.visitComment(kind, comment);
+
+			return true;
+		}
+
+		protected void copyFrom(T o, boolean replace) {
+			for (int i = 0; i < dstNames.length(); i++) {
+				String name = o.getDstName(i);
+
+				if (name != null && (replace || getDstName(i) == null)) {
+					setDstName(name, i);
+				}
+			}
+
+			String comment = o.getComment();
+
+			if (comment != null && (replace || this.comment == null)) {
+				this.comment = comment;
+			}
+		}
+
+		protected volatile String srcName;
+		protected final AtomicReferenceArray<String> dstNames;
+		protected volatile String comment;
+	}
+
+	static final class ClassEntry extends Entry<ClassEntry> implements ClassMapping {
+		ClassEntry(ConcurrentMemoryMappingTree tree, String srcName) {
+			super(tree, srcName);
+
+			this.tree = tree;
+		}
+
+		ClassEntry(ConcurrentMemoryMappingTree tree, ClassMapping src, int srcNsEquivalent) {
+			super(tree, src, srcNsEquivalent);
+
+			this.tree = tree;
+
+			for (FieldMapping field : src.getFields()) {
+				addField(field);
+			}
+
+			for (MethodMapping method : src.getMethods()) {
+				addMethod(method);
+			}
+		}
+
+		@Override
+		public MappedElementKind getKind() {
+			return MappedElementKind.CLASS;
+		}
+
+		@Override
+		public ConcurrentMemoryMappingTree getTree() {
+			return tree;
+		}
+
+		@Override
+		public void setDstName(String name, int namespace) {
+			synchronized (this) { // keeps the dst name index consistent with concurrent renames
+				String prev = dstNames.getAndSet(namespace, name);
+				if (Objects.equals(prev, name) || tree.classesBySrcName.get(srcName) != this) return; // unchanged or not part of the tree (yet)
+
+				Map<String, ClassEntry> index = tree.classesByDstNames[namespace];
+				if (prev != null) index.remove(prev, this);
+				if (name != null) index.put(name, this);
+			}
+		}
+
+		@Override
+		public Collection<FieldEntry> getFields() {
+			Map<MemberKey, FieldEntry> fields = this.fields;
+			if (fields == null) return Collections.emptyList();
+
+			return Collections.unmodifiableCollection(fields.values());
+		}
+
+		@Override
+		public synchronized FieldEntry getField(String srcName, String srcDesc) {
+			return getMember(srcName, srcDesc, fields, flags, FLAG_HAS_ANY_FIELD_DESC, FLAG_MISSES_ANY_FIELD_DESC);
+		}
+
+		@Override
+		public FieldEntry getField(String name, String desc, int namespace) {
+			return (FieldEntry) ClassMapping.super.getField(name, desc, namespace);
+		}
+
+		@Override
+		public FieldEntry addField(FieldMapping field) {
+			FieldEntry entry = field instanceof FieldEntry && field.getOwner() == this ? (FieldEntry) field : new FieldEntry(this, field, tree.getSrcNsEquivalent(field));
+
+			synchronized (this) {
+				if (fields == null) fields = new ConcurrentHashMap<>();
+
+				return addMember(entry, fields, FLAG_HAS_ANY_FIELD_DESC, FLAG_MISSES_ANY_FIELD_DESC);
+			}
+		}
+
+		@Override
+		public synchronized FieldEntry removeField(String srcName, String srcDesc) {
+			FieldEntry ret = getField(srcName, srcDesc);
+			if (ret != null) fields.remove(ret.key);
+
+			return ret;
+		}
+
+		@Override
+		public Collection<MethodEntry> getMethods() {
+			Map<MemberKey, MethodEntry> methods = this.methods;
+			if (methods == null) return Collections.emptyList();
+
+			return Collections.unmodifiableCollection(methods.values());
+		}
+
+		@Override
+		public synchronized MethodEntry getMethod(String srcName, String srcDesc) {
+			return getMember(srcName, srcDesc, methods, flags, FLAG_HAS_ANY_METHOD_DESC, FLAG_MISSES_ANY_METHOD_DESC);
+		}
+
+		@Override
+		public MethodEntry getMethod(String name, String desc, int namespace) {
+			return (MethodEntry) ClassMapping.super.getMethod(name, desc, namespace);
+		}
+
+		@Override
+		public MethodEntry addMethod(MethodMapping method) {
+			MethodEntry entry = method instanceof MethodEntry && method.getOwner() == this ? (MethodEntry) method : new MethodEntry(this, method, tree.getSrcNsEquivalent(method));
+
+			synchronized (this) {
+				if (methods == null) methods = new ConcurrentHashMap<>();
+
+				return addMember(entry, methods, FLAG_HAS_ANY_METHOD_DESC, FLAG_MISSES_ANY_METHOD_DESC);
+			}
+		}
+
+		@Override
+		public synchronized MethodEntry removeMethod(String srcName, String srcDesc) {
+			MethodEntry ret = getMethod(srcName, srcDesc);
+			if (ret != null) methods.remove(ret.key);
+
+			return ret;
+		}
+
+		private static <T extends MemberEntry<T>> T getMember(String srcName, String srcDesc, Map<MemberKey, T> map, int flags, int flagHasAny, int flagMissesAny) {
+			if (map == null) return null;
+
+			boolean hasAnyDesc = (flags & flagHasAny) != 0;
+			boolean missedAnyDesc = (flags & flagMissesAny) != 0;
+
+			if (srcDesc == null) { // null desc
+				if (missedAnyDesc) { // may have full match [no desc] -> [no desc]
+					T ret = map.get(new MemberKey(srcName, null));
+					if (ret != null) return ret;
+				}
+
+				if (hasAnyDesc) { // may have name match [no desc] -> [full desc/partial desc]
+					for (T entry : map.values()) {
+						if (entry.srcName.equals(srcName)) return entry;
+					}
+				}
+			} else if (srcDesc.endsWith(")")) { // parameter-only desc
+				if (missedAnyDesc) { // may have full match [partial desc] -> [partial desc]
+					T ret = map.get(new MemberKey(srcName, srcDesc));
+					if (ret != null) return ret;
+
+					ret = map.get(new MemberKey(srcName, null));
+					if (ret != null) return ret;
+				}
+
+				if (hasAnyDesc) { // may have partial-desc match [partial desc] -> [full desc]
+					for (T entry : map.values()) {
+						if (entry.srcName.equals(srcName)
+								&& entry.srcDesc.startsWith(srcDesc)) {
+							return entry;
+						}
+					}
+				}
+			} else { // regular desc
+				if (hasAnyDesc) { // may have full match [full desc] -> [full desc]
+					T ret = map.get(new MemberKey(srcName, srcDesc));
+					if (ret != null) return ret;
+				}
+
+				if (missedAnyDesc) { // may have name/partial-desc match [full desc] -> [no desc/partial desc]
+					T ret = map.get(new MemberKey(srcName, null));
+					if (ret != null) return ret;
+
+					if (srcDesc.indexOf(')') >= 0) {
+						for (T entry : map.values()) {
+							if (entry.srcName.equals(srcName)
+									&& entry.srcDesc != null && srcDesc.startsWith(entry.srcDesc)) {
+								return entry;
+							}
+						}
+					}
+				}
+			}
+
+			return null;
+		}
+
+		/**
+		 * Add or merge a member, has to be called with the class lock held.
+		 */
+		private <T extends MemberEntry<T>> T addMember(T entry, Map<MemberKey, T> map, int flagHasAny, int flagMissesAny) {
+			T ret = map.putIfAbsent(entry.key, entry);
+
+			if (ret != null) { // same desc
+				ret.copyFrom(entry, false);
+
+				return ret;
+			} else if (entry.srcDesc != null && !entry.srcDesc.endsWith(")")) { // may have replaced desc-less
+				flags |= flagHasAny;
+
+				if ((flags & flagMissesAny) != 0) {
+					ret = map.remove(new MemberKey(entry.srcName, null));
+
+					if (ret != null) { // compatible entry exists, copy desc + extra content
+						map.remove(entry.key);
+						ret.key = entry.key;
+						ret.srcDesc = entry.srcDesc;
+						map.put(ret.key, ret);
+						ret.copyFrom(entry, false);
+						entry = ret;
+					}
+				}
+
+				return entry;
+			} else { // entry.srcDesc == null or partial, may have replaced desc-containing
+				if ((flags & flagHasAny) != 0) {
+					for (T prevEntry : map.values()) {
+						if (prevEntry != entry && prevEntry.srcName.equals(entry.srcName) && prevEntry.srcDesc != null
+								&& (entry.srcDesc == null || prevEntry.srcDesc.startsWith(entry.srcDesc))) {
+							map.remove(entry.key);
+							prevEntry.copyFrom(entry, false);
+
+							return prevEntry;
+						}
+					}
+				}
+
+				flags |= flagMissesAny;
+
+				return entry;
+			}
+		}
+
+		void accept(MappingVisitor visitor, boolean supplyFieldDstDescs, boolean supplyMethodDstDescs) throws IOException {
+			if (visitor.visitClass(srcName) && acceptElement(visitor, null)) {
+				for (FieldEntry field : getFields()) {
+					field.accept(visitor, supplyFieldDstDescs);
+				}
+
+				for (MethodEntry method : getMethods()) {
+					method.accept(visitor, supplyMethodDstDescs);
+				}
+			}
+		}
+
+		@Override
+		protected void copyFrom(ClassEntry o, boolean replace) {
+			super.copyFrom(o, replace);
+
+			for (FieldEntry oField : o.getFields()) {
+				synchronized (this) {
+					FieldEntry field = getField(oField.srcName, oField.srcDesc);
+
+					if (field == null) { // missing
+						addField(oField);
+					} else {
+						if (oField.srcDesc != null && field.srcDesc == null) field.setSrcDesc(oField.srcDesc); // extra location info
+						field.copyFrom(oField, replace);
+					}
+				}
+			}
+
+			for (MethodEntry oMethod : o.getMethods()) {
+				synchronized (this) {
+					MethodEntry method = getMethod(oMethod.srcName, oMethod.srcDesc);
+
+					if (method == null) { // missing
+						addMethod(oMethod);
+					} else {
+						if (oMethod.srcDesc != null && method.srcDesc == null) method.setSrcDesc(oMethod.srcDesc); // extra location info
+						method.copyFrom(oMethod, replace);
+					}
+				}
+			}
+		}
+
+		@Override
+		public String toString() {
+			return srcName;
+		}
+
+		private static final byte FLAG_HAS_ANY_FIELD_DESC = 1;
+		private static final byte FLAG_MISSES_ANY_FIELD_DESC = 2;
+		private static final byte FLAG_HAS_ANY_METHOD_DESC = 4;
+		private static final byte FLAG_MISSES_ANY_METHOD_DESC = 8;
+
+		protected final ConcurrentMemoryMappingTree tree;
+		private volatile Map<MemberKey, FieldEntry> fields = null; // created and modified with the class lock held
+		private volatile Map<MemberKey, MethodEntry> methods = null;
+		private byte flags; // guarded by the class lock
+	}
+
+	abstract static class MemberEntry<T extends MemberEntry<T>> extends Entry<T> implements MemberMapping {
+		protected MemberEntry(ClassEntry owner, String srcName, String srcDesc) {
+			super(owner.tree, srcName);
+
+			this.owner = owner;
+			this.srcDesc = srcDesc;
+			this.key = new MemberKey(srcName, srcDesc);
+		}
+
+		protected MemberEntry(ClassEntry owner, MemberMapping src, int srcNsEquivalent) {
+			super(owner.tree, src, srcNsEquivalent);
+
+			this.owner = owner;
+			this.srcDesc = src.getDesc(srcNsEquivalent);
+			this.key = new MemberKey(srcName, srcDesc);
+		}
+
+		@Override
+		public ConcurrentMemoryMappingTree getTree() {
+			return owner.tree;
+		}
+
+		@Override
+		public final ClassEntry getOwner() {
+			return owner;
+		}
+
+		@Override
+		public final String getSrcDesc() {
+			return srcDesc;
+		}
+
+		/**
+		 * Change the src desc and member key, has to be called with the owner's class lock held.
+		 */
+		protected final void updateSrcDesc(String desc, Map<MemberKey, T> members) {
+			MemberKey newKey = new MemberKey(srcName, desc);
+			if (members.containsKey(newKey)) throw new IllegalArgumentException("conflicting name+desc after changing desc to "+desc+" for "+this);
+
+			members.remove(key);
+			srcDesc = desc;
+			key = newKey;
+			@SuppressWarnings("unchecked")
+			T self = (T) this;
+			members.put(newKey, self);
+		}
+
+		protected final boolean acceptMember(MappingVisitor visitor, boolean supplyDstDescs) throws IOException {
+			String srcDesc = this.srcDesc;
+			String[] dstDescs;
+
+			if (!supplyDstDescs || srcDesc == null) {
+				dstDescs = null;
+			} else {
+				ConcurrentMemoryMappingTree tree = owner.tree;
+				dstDescs = new String[dstNames.length()];
+
+				for (int i = 0; i < dstDescs.length; i++) {
+					dstDescs[i] = tree.mapDesc(srcDesc, i);
+				}
+			}
+
+			return acceptElement(visitor, dstDescs);
+		}
+
+		protected final ClassEntry owner;
+		protected volatile String srcDesc;
+		volatile MemberKey key;
+	}
+
+	static final class FieldEntry extends MemberEntry<FieldEntry> implements FieldMapping {
+		FieldEntry(ClassEntry owner, String srcName, String srcDesc) {
+			super(owner, srcName, srcDesc);
+		}
+
+		FieldEntry(ClassEntry owner, FieldMapping src, int srcNsEquivalent) {
+			super(owner, src, srcNsEquivalent);
+		}
+
+		@Override
+		public MappedElementKind getKind() {
+			return MappedElementKind.FIELD;
+		}
+
+		@Override
+		public void setSrcDesc(String desc) {
+			synchronized (owner) {
+				if (Objects.equals(desc, srcDesc)) return;
+
+				updateSrcDesc(desc, owner.fields);
+
+				if (desc != null) {
+					owner.flags |= ClassEntry.FLAG_HAS_ANY_FIELD_DESC;
+				} else {
+					owner.flags |= ClassEntry.FLAG_MISSES_ANY_FIELD_DESC;
+				}
+			}
+		}
+
+		void accept(MappingVisitor visitor, boolean supplyDstDescs) throws IOException {
+			if (visitor.visitField(srcName, srcDesc)) {
+				acceptMember(visitor, supplyDstDescs);
+			}
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%s;;%s", srcName, srcDesc);
+		}
+	}
+
+	static final class MethodEntry extends MemberEntry<MethodEntry> implements MethodMapping {
+		MethodEntry(ClassEntry owner, String srcName, String srcDesc) {
+			super(owner, srcName, srcDesc);
+		}
+
+		MethodEntry(ClassEntry owner, MethodMapping src, int srcNsEquivalent) {
+			super(owner, src, srcNsEquivalent);
+
+			for (MethodArgMapping arg : src.getArgs()) {
+				addArg(arg);
+			}
+
+			for (MethodVarMapping var : src.getVars()) {
+				addVar(var);
+			}
+		}
+
+		@Override
+		public MappedElementKind getKind() {
+			return MappedElementKind.METHOD;
+		}
+
+		@Override
+		public void setSrcDesc(String desc) {
+			synchronized (owner) {
+				if (Objects.equals(desc, srcDesc)) return;
+
+				updateSrcDesc(desc, owner.methods);
+
+				if (desc != null && !desc.endsWith(")")) {
+					owner.flags |= ClassEntry.FLAG_HAS_ANY_METHOD_DESC;
+				} else {
+					owner.flags |= ClassEntry.FLAG_MISSES_ANY_METHOD_DESC;
+				}
+			}
+		}
+
+		@Override
+		public Collection<MethodArgEntry> getArgs() {
+			List<MethodArgEntry> args = this.args;
+			if (args == null) return Collections.emptyList();
+
+			return Collections.unmodifiableList(args);
+		}
+
+		@Override
+		public MethodArgEntry getArg(int argPosition, int lvIndex, String srcName) {
+			List<MethodArgEntry> args = this.args;
+			if (args == null) return null;
+
+			return ArgVarMatcher.getArg(args, argPosition, lvIndex, srcName, SRC_NAMESPACE_ID);
+		}
+
+		@Override
+		public synchronized MethodArgEntry addArg(MethodArgMapping arg) {
+			MethodArgEntry entry = arg instanceof MethodArgEntry && arg.getMethod() == this ? (MethodArgEntry) arg : new MethodArgEntry(this, arg, owner.tree.getSrcNsEquivalent(arg));
+			MethodArgEntry prev = getArg(arg.getArgPosition(), arg.getLvIndex(), arg.getSrcName());
+
+			if (prev == null) {
+				if (args == null) args = new CopyOnWriteArrayList<>();
+				args.add(entry);
+			} else {
+				updateArg(prev, entry, false);
+			}
+
+			return entry;
+		}
+
+		private void updateArg(MethodArgEntry existing, MethodArgEntry toAdd, boolean replace) {
+			if (toAdd.argPosition >= 0 && existing.argPosition < 0) existing.setArgPosition(toAdd.argPosition);
+			if (toAdd.lvIndex >= 0 && existing.lvIndex < 0) existing.setLvIndex(toAdd.lvIndex);
+
+			existing.copyFrom(toAdd, replace);
+		}
+
+		@Override
+		public synchronized MethodArgEntry removeArg(int argPosition, int lvIndex, String srcName) {
+			MethodArgEntry ret = getArg(argPosition, lvIndex, srcName);
+			if (ret != null) args.remove(ret);
+
+			return ret;
+		}
+
+		@Override
+		public Collection<MethodVarEntry> getVars() {
+			List<MethodVarEntry> vars = this.vars;
+			if (vars == null) return Collections.emptyList();
+
+			return Collections.unmodifiableList(vars);
+		}
+
+		@Override
+		public MethodVarEntry getVar(int lvtRowIndex, int lvIndex, int startOpIdx, String srcName) {
+			List<MethodVarEntry> vars = this.vars;
+			if (vars == null) return null;
+
+			return ArgVarMatcher.getVar(vars, lvtRowIndex, lvIndex, startOpIdx, srcName, SRC_NAMESPACE_ID);
+		}
+
+		@Override
+		public synchronized MethodVarEntry addVar(MethodVarMapping var) {
+			MethodVarEntry entry = var instanceof MethodVarEntry && var.getMethod() == this ? (MethodVarEntry) var : new MethodVarEntry(this, var, owner.tree.getSrcNsEquivalent(var));
+			MethodVarEntry prev = getVar(var.getLvtRowIndex(), var.getLvIndex(), var.getStartOpIdx(), var.getSrcName());
+
+			if (prev == null) {
+				if (vars == null) vars = new CopyOnWriteArrayList<>();
+				vars.add(entry);
+			} else {
+				updateVar(prev, entry, false);
+			}
+
+			return entry;
+		}
+
+		private void updateVar(MethodVarEntry existing, MethodVarEntry toAdd, boolean replace) {
+			if (toAdd.lvtRowIndex >= 0 && existing.lvtRowIndex < 0) existing.setLvtRowIndex(toAdd.lvtRowIndex);
+
+			if (toAdd.lvIndex >= 0 && toAdd.startOpIdx >= 0 && (existing.lvIndex < 0 || existing.startOpIdx < 0)) {
+				existing.setLvIndex(toAdd.lvIndex, toAdd.startOpIdx);
+			}
+
+			existing.copyFrom(toAdd, replace);
+		}
+
+		@Override
+		public synchronized MethodVarEntry removeVar(int lvtRowIndex, int lvIndex, int startOpIdx, String srcName) {
+			MethodVarEntry ret = getVar(lvtRowIndex, lvIndex, startOpIdx, srcName);
+			if (ret != null) vars.remove(ret);
+
+			return ret;
+		}
+
+		void accept(MappingVisitor visitor, boolean supplyDstDescs) throws IOException {
+			if (visitor.visitMethod(srcName, srcDesc) && acceptMember(visitor, supplyDstDescs)) {
+				for (MethodArgEntry arg : getArgs()) {
+					arg.accept(visitor);
+				}
+
+				for (MethodVarEntry var : getVars()) {
+					var.accept(visitor);
+				}
+			}
+		}
+
+		@Override
+		protected void copyFrom(MethodEntry o, boolean replace) {
+			super.copyFrom(o, replace);
+
+			synchronized (this) {
+				for (MethodArgEntry oArg : o.getArgs()) {
+					MethodArgEntry arg = getArg(oArg.argPosition, oArg.lvIndex, oArg.srcName);
+
+					if (arg == null) { // missing
+						addArg(oArg);
+					} else {
+						updateArg(arg, oArg, replace);
+					}
+				}
+
+				for (MethodVarEntry oVar : o.getVars()) {
+					MethodVarEntry var = getVar(oVar.lvtRowIndex, oVar.lvIndex, oVar.startOpIdx, oVar.srcName);
+
+					if (var == null) { // missing
+						addVar(oVar);
+					} else {
+						updateVar(var, oVar, replace);
+					}
+				}
+			}
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%s%s", srcName, srcDesc);
+		}
+
+		private volatile List<MethodArgEntry> args = null; // created and modified with the method lock held
+		private volatile List<MethodVarEntry> vars = null;
+	}
+
+	static final class MethodArgEntry extends Entry<MethodArgEntry> implements MethodArgMapping {
+		MethodArgEntry(MethodEntry method, int argPosition, int lvIndex, String srcName) {
+			super(method.owner.tree, srcName);
+
+			this.method = method;
+			this.argPosition = argPosition;
+			this.lvIndex = lvIndex;
+		}
+
+		MethodArgEntry(MethodEntry method, MethodArgMapping src, int srcNsEquivalent) {
+			super(method.owner.tree, src, srcNsEquivalent);
+
+			this.method = method;
+			this.argPosition = src.getArgPosition();
+			this.lvIndex = src.getLvIndex();
+		}
+
+		@Override
+		public ConcurrentMemoryMappingTree getTree() {
+			return method.owner.tree;
+		}
+
+		@Override
+		public MappedElementKind getKind() {
+			return MappedElementKind.METHOD_ARG;
+		}
+
+		@Override
+		public MethodEntry getMethod() {
+			return method;
+		}
+
+		@Override
+		public int getArgPosition() {
+			return argPosition;
+		}
+
+		@Override
+		public void setArgPosition(int position) {
+			this.argPosition = position;
+		}
+
+		@Override
+		public int getLvIndex() {
+			return lvIndex;
+		}
+
+		@Override
+		public void setLvIndex(int index) {
+			this.lvIndex = index;
+		}
+
+		public void setSrcName(String name) {
+			this.srcName = name;
+		}
+
+		void accept(MappingVisitor visitor) throws IOException {
+			if (visitor.visitMethodArg(argPosition, lvIndex, srcName)) {
+				acceptElement(visitor, null);
+			}
+		}
+
+		@Override
+		protected void copyFrom(MethodArgEntry o, boolean replace) {
+			super.copyFrom(o, replace);
+
+			if (o.srcName != null && (replace || srcName == null)) {
+				srcName = o.srcName;
+			}
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%d/%d:%s", argPosition, lvIndex, srcName);
+		}
+
+		private final MethodEntry method;
+		private volatile int argPosition;
+		private volatile int lvIndex;
+	}
+
+	static final class MethodVarEntry extends Entry<MethodVarEntry> implements MethodVarMapping {
+		MethodVarEntry(MethodEntry method, int lvtRowIndex, int lvIndex, int startOpIdx, String srcName) {
+			super(method.owner.tree, srcName);
+
+			this.method = method;
+			this.lvtRowIndex = lvtRowIndex;
+			this.lvIndex = lvIndex;
+			this.startOpIdx = startOpIdx;
+		}
+
+		MethodVarEntry(MethodEntry method, MethodVarMapping src, int srcNs) {
+			super(method.owner.tree, src, srcNs);
+
+			this.method = method;
+			this.lvtRowIndex = src.getLvtRowIndex();
+			this.lvIndex = src.getLvIndex();
+			this.startOpIdx = src.getStartOpIdx();
+		}
+
+		@Override
+		public ConcurrentMemoryMappingTree getTree() {
+			return method.owner.tree;
+		}
+
+		@Override
+		public MappedElementKind getKind() {
+			return MappedElementKind.METHOD_VAR;
+		}
+
+		@Override
+		public MethodEntry getMethod() {
+			return method;
+		}
+
+		@Override
+		public int getLvtRowIndex() {
+			return lvtRowIndex;
+		}
+
+		@Override
+		public void setLvtRowIndex(int index) {
+			this.lvtRowIndex = index;
+		}
+
+		@Override
+		public int getLvIndex() {
+			return lvIndex;
+		}
+
+		@Override
+		public int getStartOpIdx() {
+			return startOpIdx;
+		}
+
+		@Override
+		public void setLvIndex(int lvIndex, int startOpIdx) {
+			this.lvIndex = lvIndex;
+			this.startOpIdx = startOpIdx;
+		}
+
+		public void setSrcName(String name) {
+			this.srcName = name;
+		}
+
+		void accept(MappingVisitor visitor) throws IOException {
+			if (visitor.visitMethodVar(lvtRowIndex, lvIndex, startOpIdx, srcName)) {
+				acceptElement(visitor, null);
+			}
+		}
+
+		@Override
+		protected void copyFrom(MethodVarEntry o, boolean replace) {
+			super.copyFrom(o, replace);
+
+			if (o.srcName != null && (replace || srcName == null)) {
+				srcName = o.srcName;
+			}
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%d/%d@%d:%s", lvtRowIndex, lvIndex, startOpIdx, srcName);
+		}
+
+		private final MethodEntry method;
+		private volatile int lvtRowIndex;
+		private volatile int lvIndex;
+		private volatile int startOpIdx;
+	}
+
+	private volatile String srcNamespace;
+	private volatile List<String> dstNamespaces;
+	private final List<Map.Entry<String, String>> metadata = new CopyOnWriteArrayList<>();
+	private final Map<String, ClassEntry> classesBySrcName = new ConcurrentHashMap<>();
+	private final Map<String, ClassEntry>[] classesByDstNames;
+}
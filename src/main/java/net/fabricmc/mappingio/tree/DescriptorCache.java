@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2021 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.mappingio.tree;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache for {@link MappingTreeView#mapDesc(CharSequence, int, int)} results.
+ *
+ * <p>The same descriptors tend to be mapped over and over, the cache retains the results for the most recently used
+ * (desc, src namespace, dst namespace) combinations and evicts the least recently used beyond its capacity.
+ *
+ * <p>Results are discarded automatically when the class mappings of a {@link MemoryMappingTree} change, other trees
+ * require calling {@link #clear()} after modifying them. The cache is not thread safe.
+ */
+public final class DescriptorCache {
+	public DescriptorCache(MappingTreeView tree) {
+		this(tree, 4096);
+	}
+
+	public DescriptorCache(MappingTreeView tree, int capacity) {
+		if (capacity <= 0) throw new IllegalArgumentException("invalid capacity: "+capacity);
+
+		this.tree = tree;
+		this.capacity = capacity;
+		this.cache = new LinkedHashMap<Key, String>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, String> eldest) {
+				if (size() <= DescriptorCache.this.capacity) return false;
+
+				evictions++;
+
+				return true;
+			}
+		};
+
+		if (tree instanceof MemoryMappingTree) treeStamp = ((MemoryMappingTree) tree).getDstDescsStamp();
+	}
+
+	public MappingTreeView getTree() {
+		return tree;
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	public String mapDesc(String desc, int namespace) {
+		return mapDesc(desc, MappingTreeView.SRC_NAMESPACE_ID, namespace);
+	}
+
+	public String mapDesc(String desc, int srcNamespace, int dstNamespace) {
+		if (srcNamespace == dstNamespace) return desc;
+
+		if (tree instanceof MemoryMappingTree) {
+			int stamp = ((MemoryMappingTree) tree).getDstDescsStamp();
+
+			if (stamp != treeStamp) {
+				cache.clear();
+				treeStamp = stamp;
+			}
+		}
+
+		Key key = new Key(desc, srcNamespace, dstNamespace);
+		String ret = cache.get(key);
+
+		if (ret != null) {
+			hits++;
+		} else {
+			misses++;
+			ret = tree.mapDesc(desc, srcNamespace, dstNamespace);
+			cache.put(key, ret);
+		}
+
+		return ret;
+	}
+
+	/**
+	 * Discard all cached results, required after modifying a tree that doesn't invalidate the cache by itself.
+	 */
+	public void clear() {
+		cache.clear();
+	}
+
+	public int size() {
+		return cache.size();
+	}
+
+	public long getHitCount() {
+		return hits;
+	}
+
+	public long getMissCount() {
+		return misses;
+	}
+
+	public long getEvictionCount() {
+		return evictions;
+	}
+
+	/**
+	 * Get the fraction of lookups that were answered from the cache, 0 if there were none.
+	 */
+	public double getHitRate() {
+		long total = hits + misses;
+
+		return total != 0 ? (double) hits / total : 0;
+	}
+
+	public void resetStats() {
+		hits = misses = evictions = 0;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("DescriptorCache[size=%d/%d, hits=%d, misses=%d, evictions=%d]", cache.size(), capacity, hits, misses, evictions);
+	}
+
+	private static final class Key {
+		Key(String desc, int srcNamespace, int dstNamespace) {
+			this.desc = desc;
+			this.srcNamespace = srcNamespace;
+			this.dstNamespace = dstNamespace;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key)) return false;
+
+			Key o = (Key) obj;
+
+			return srcNamespace == o.srcNamespace && dstNamespace == o.dstNamespace && desc.equals(o.desc);
+		}
+
+		@Override
+		public int hashCode() {
+			return (desc.hashCode() * 31 + srcNamespace) * 31 + dstNamespace;
+		}
+
+		private final String desc;
+		private final int srcNamespace;
+		private final int dstNamespace;
+	}
+
+	private final MappingTreeView tree;
+	private final int capacity;
+	private final LinkedHashMap<Key, String> cache;
+	private int treeStamp;
+	private long hits;
+	private long misses;
+	private long evictions;
+}
@@ -0,0 +1,702 @@
+/*
+ * Copyright (c) 2021 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.mappingio.tree;
+
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import net.fabricmc.mappingio.MappedElementKind;
+import net.fabricmc.mappingio.MappingFlag;
+import net.fabricmc.mappingio.MappingVisitor;
+
+/**
+ * Immutable snapshot of a {@link MappingTreeView} optimized for lookups.
+ *
+ * <p>Classes are indexed by name and members by owner and name for every namespace, member descriptors are
+ * precomputed for every namespace as well. Lookups in any namespace thus don't have to scan, and descriptor mapping
+ * doesn't have to resolve classes over and over.
+ *
+ * <p>The tree and all of its elements are deeply immutable, all state is computed upon construction. Instances can
+ * be shared and queried by any number of threads without synchronization.
+ */
+public final class FrozenMappingTree implements MappingTreeView {
+	public FrozenMappingTree(MappingTreeView src) {
+		srcNamespace = src.getSrcNamespace();
+		dstNamespaces = src.getDstNamespaces() != null ? Collections.unmodifiableList(new ArrayList<>(src.getDstNamespaces())) : Collections.<String>emptyList();
+
+		List<Map.Entry<String, String>> metadata = new ArrayList<>(src.getMetadata().size());
+
+		for (Map.Entry<String, String> entry : src.getMetadata()) {
+			metadata.add(new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), entry.getValue()));
+		}
+
+		this.metadata = Collections.unmodifiableList(metadata);
+
+		int nsCount = dstNamespaces.size() + 1;
+		int srcNs = src.getNamespaceId(srcNamespace);
+		int[] nsMap = new int[nsCount]; // our namespace index -> src namespace id
+		nsMap[0] = srcNs;
+
+		for (int i = 1; i < nsCount; i++) {
+			nsMap[i] = src.getNamespaceId(dstNamespaces.get(i - 1));
+		}
+
+		// copy the elements
+
+		Collection<? extends ClassMappingView> srcClasses = src.getClasses();
+		ClassEntry[] classes = new ClassEntry[srcClasses.size()];
+		int memberCount = 0;
+		int idx = 0;
+
+		for (ClassMappingView cls : srcClasses) {
+			ClassEntry entry = new ClassEntry(this, idx, cls, nsMap);
+			classes[idx++] = entry;
+			memberCount += entry.fields.length + entry.methods.length;
+		}
+
+		this.classes = classes;
+		this.classList = Collections.unmodifiableList(Arrays.asList(classes));
+
+		// index classes, the first of multiple classes with the same name wins like with a sequential scan
+
+		@SuppressWarnings("unchecked")
+		Map<String, ClassEntry>[] classesByName = new Map[nsCount];
+
+		for (int ns = 0; ns < nsCount; ns++) {
+			Map<String, ClassEntry> map = new HashMap<>(classes.length * 4 / 3 + 1);
+
+			for (ClassEntry cls : classes) {
+				String name = cls.names[ns];
+				if (name != null) map.putIfAbsent(name, cls);
+			}
+
+			classesByName[ns] = map;
+		}
+
+		this.classesByName = classesByName;
+
+		// compute member descs for all namespaces, requires the class index
+
+		for (ClassEntry cls : classes) {
+			for (FieldEntry field : cls.fields) {
+				field.initDescs(this);
+			}
+
+			for (MethodEntry method : cls.methods) {
+				method.initDescs(this);
+			}
+		}
+
+		// index members by owner+name, the candidates retain their original order
+
+		@SuppressWarnings("unchecked")
+		Map<NameKey, MemberEntry[]>[] membersByName = new Map[nsCount];
+
+		for (int ns = 0; ns < nsCount; ns++) {
+			Map<NameKey, MemberEntry[]> map = new HashMap<>(memberCount * 4 / 3 + 1);
+
+			for (ClassEntry cls : classes) {
+				indexMembers(cls.fields, ns, map);
+				indexMembers(cls.methods, ns, map);
+			}
+
+			membersByName[ns] = map;
+		}
+
+		this.membersByName = membersByName;
+	}
+
+	private static void indexMembers(MemberEntry[] members, int ns, Map<NameKey, MemberEntry[]> out) {
+		for (MemberEntry member : members) {
+			String name = member.names[ns];
+			if (name == null) continue;
+
+			NameKey key = new NameKey(member.owner.index, member instanceof MethodEntry, name);
+			MemberEntry[] prev = out.get(key);
+
+			if (prev == null) {
+				out.put(key, new MemberEntry[] { member });
+			} else {
+				MemberEntry[] candidates = Arrays.copyOf(prev, prev.length + 1);
+				candidates[prev.length] = member;
+				out.put(key, candidates);
+			}
+		}
+	}
+
+	@Override
+	public String getSrcNamespace() {
+		return srcNamespace;
+	}
+
+	@Override
+	public List<String> getDstNamespaces() {
+		return dstNamespaces;
+	}
+
+	@Override
+	public Collection<Map.Entry<String, String>> getMetadata() {
+		return metadata;
+	}
+
+	@Override
+	public String getMetadata(String key) {
+		for (Map.Entry<String, String> entry : metadata) {
+			if (entry.getKey().equals(key)) return entry.getValue();
+		}
+
+		return null;
+	}
+
+	@Override
+	public Collection<ClassEntry> getClasses() {
+		return classList;
+	}
+
+	@Override
+	public ClassEntry getClass(String srcName) {
+		return classesByName[0].get(srcName);
+	}
+
+	@Override
+	public ClassEntry getClass(String name, int namespace) {
+		return classesByName[namespace + 1].get(name);
+	}
+
+	@Override
+	public FieldEntry getField(String srcOwnerName, String srcName, String srcDesc) {
+		return getField(srcOwnerName, srcName, srcDesc, SRC_NAMESPACE_ID);
+	}
+
+	@Override
+	public FieldEntry getField(String ownerName, String name, String desc, int namespace) {
+		ClassEntry owner = getClass(ownerName, namespace);
+
+		return owner != null ? owner.getField(name, desc, namespace) : null;
+	}
+
+	@Override
+	public MethodEntry getMethod(String srcOwnerName, String srcName, String srcDesc) {
+		return getMethod(srcOwnerName, srcName, srcDesc, SRC_NAMESPACE_ID);
+	}
+
+	@Override
+	public MethodEntry getMethod(String ownerName, String name, String desc, int namespace) {
+		ClassEntry owner = getClass(ownerName, namespace);
+
+		return owner != null ? owner.getMethod(name, desc, namespace) : null;
+	}
+
+	/**
+	 * Find the member best matching name and desc in the specified namespace.
+	 *
+	 * <p>An exact match is preferred, otherwise a missing descriptor on either side or a parameter-only descriptor
+	 * being the prefix of the other descriptor is tolerated.
+	 */
+	private MemberEntry getMember(ClassEntry owner, boolean method, String name, String desc, int namespace) {
+		MemberEntry[] candidates = membersByName[namespace + 1].get(new NameKey(owner.index, method, name));
+		if (candidates == null) return null;
+		if (desc == null) return candidates[0];
+
+		MemberEntry nullDescMatch = null;
+		MemberEntry prefixMatch = null;
+		boolean partialDesc = desc.endsWith(")");
+
+		for (MemberEntry candidate : candidates) {
+			String candidateDesc = candidate.descs[namespace + 1];
+
+			if (desc.equals(candidateDesc)) {
+				return candidate;
+			} else if (candidateDesc == null) {
+				if (nullDescMatch == null) nullDescMatch = candidate;
+			} else if (prefixMatch == null
+					&& (partialDesc ? candidateDesc.startsWith(desc) : candidateDesc.endsWith(")") && desc.startsWith(candidateDesc))) {
+				prefixMatch = candidate;
+			}
+		}
+
+		return nullDescMatch != null ? nullDescMatch : prefixMatch;
+	}
+
+	@Override
+	public void accept(MappingVisitor visitor) throws IOException {
+		do {
+			if (visitor.visitHeader()) {
+				visitor.visitNamespaces(srcNamespace, dstNamespaces);
+
+				for (Map.Entry<String, String> entry : metadata) {
+					visitor.visitMetadata(entry.getKey(), entry.getValue());
+				}
+			}
+
+			if (visitor.visitContent()) {
+				Set<MappingFlag> flags = visitor.getFlags();
+				boolean supplyFieldDstDescs = flags.contains(MappingFlag.NEEDS_DST_FIELD_DESC);
+				boolean supplyMethodDstDescs = flags.contains(MappingFlag.NEEDS_DST_METHOD_DESC);
+
+				for (ClassEntry cls : classes) {
+					cls.accept(visitor, supplyFieldDstDescs, supplyMethodDstDescs);
+				}
+			}
+		} while (!visitor.visitEnd());
+	}
+
+	abstract static class Entry implements ElementMappingView {
+		Entry(ElementMappingView src, int[] nsMap) {
+			String[] names = new String[nsMap.length];
+
+			for (int i = 0; i < names.length; i++) {
+				if (nsMap[i] != NULL_NAMESPACE_ID) names[i] = src.getName(nsMap[i]);
+			}
+
+			this.names = names;
+			this.comment = src.getComment();
+		}
+
+		abstract MappedElementKind getKind();
+
+		@Override
+		public final String getSrcName() {
+			return names[0];
+		}
+
+		@Override
+		public final String getDstName(int namespace) {
+			return names[namespace + 1];
+		}
+
+		@Override
+		public final String getName(int namespace) {
+			return names[namespace + 1];
+		}
+
+		@Override
+		public final String getComment() {
+			return comment;
+		}
+
+		final boolean acceptElement(MappingVisitor visitor, String[] descs) throws IOException {
+			MappedElementKind kind = getKind();
+
+			for (int i = 1; i < names.length; i++) {
+				String dstName = names[i];
+
+				if (dstName != null) visitor.visitDstName(kind, i - 1, dstName);
+			}
+
+			if (descs != null && descs[0] != null) {
+				for (int i = 1; i < descs.length; i++) {
+					visitor.visitDstDesc(kind, i - 1, descs[i]);
+				}
+			}
+
+			if (!visitor.visitElementContent(kind)) {
+				return false;
+			}
+
+			if (comment != null) visitor.visitComment(kind, comment);
+
+			return true;
+		}
+
+		final String[] names; // src name followed by the dst names
+		private final String comment;
+	}
+
+	static final class ClassEntry extends Entry implements ClassMappingView {
+		ClassEntry(FrozenMappingTree tree, int index, ClassMappingView src, int[] nsMap) {
+			super(src, nsMap);
+
+			this.tree = tree;
+			this.index = index;
+
+			Collection<? extends FieldMappingView> srcFields = src.getFields();
+			fields = new FieldEntry[srcFields.size()];
+			int idx = 0;
+
+			for (FieldMappingView field : srcFields) {
+				fields[idx++] = new FieldEntry(this, field, nsMap);
+			}
+
+			Collection<? extends MethodMappingView> srcMethods = src.getMethods();
+			methods = new MethodEntry[srcMethods.size()];
+			idx = 0;
+
+			for (MethodMappingView method : srcMethods) {
+				methods[idx++] = new MethodEntry(this, method, nsMap);
+			}
+
+			fieldList = Collections.unmodifiableList(Arrays.asList(fields));
+			methodList = Collections.unmodifiableList(Arrays.asList(methods));
+		}
+
+		@Override
+		MappedElementKind getKind() {
+			return MappedElementKind.CLASS;
+		}
+
+		@Override
+		public FrozenMappingTree getTree() {
+			return tree;
+		}
+
+		@Override
+		public Collection<FieldEntry> getFields() {
+			return fieldList;
+		}
+
+		@Override
+		public FieldEntry getField(String srcName, String srcDesc) {
+			return (FieldEntry) tree.getMember(this, false, srcName, srcDesc, SRC_NAMESPACE_ID);
+		}
+
+		@Override
+		public FieldEntry getField(String name, String desc, int namespace) {
+			return (FieldEntry) tree.getMember(this, false, name, desc, namespace);
+		}
+
+		@Override
+		public Collection<MethodEntry> getMethods() {
+			return methodList;
+		}
+
+		@Override
+		public MethodEntry getMethod(String srcName, String srcDesc) {
+			return (MethodEntry) tree.getMember(this, true, srcName, srcDesc, SRC_NAMESPACE_ID);
+		}
+
+		@Override
+		public MethodEntry getMethod(String name, String desc, int namespace) {
+			return (MethodEntry) tree.getMember(this, true, name, desc, namespace);
+		}
+
+		void accept(MappingVisitor visitor, boolean supplyFieldDstDescs, boolean supplyMethodDstDescs) throws IOException {
+			if (visitor.visitClass(names[0]) && acceptElement(visitor, null)) {
+				for (FieldEntry field : fields) {
+					field.accept(visitor, supplyFieldDstDescs);
+				}
+
+				for (MethodEntry method : methods) {
+					method.accept(visitor, supplyMethodDstDescs);
+				}
+			}
+		}
+
+		@Override
+		public String toString() {
+			return names[0];
+		}
+
+		private final FrozenMappingTree tree;
+		final int index;
+		final FieldEntry[] fields;
+		final MethodEntry[] methods;
+		private final List<FieldEntry> fieldList;
+		private final List<MethodEntry> methodList;
+	}
+
+	abstract static class MemberEntry extends Entry implements MemberMappingView {
+		MemberEntry(ClassEntry owner, MemberMappingView src, int[] nsMap) {
+			super(src, nsMap);
+
+			this.owner = owner;
+			this.descs = new String[nsMap.length];
+			this.descs[0] = src.getDesc(nsMap[0]);
+		}
+
+		/**
+		 * Derive the dst descs from the src desc, invoked once the tree's class index is available.
+		 */
+		final void initDescs(FrozenMappingTree tree) {
+			String srcDesc = descs[0];
+			if (srcDesc == null) return;
+
+			for (int i = 1; i < descs.length; i++) {
+				descs[i] = tree.mapDesc(srcDesc, i - 1);
+			}
+		}
+
+		@Override
+		public final FrozenMappingTree getTree() {
+			return owner.tree;
+		}
+
+		@Override
+		public final ClassEntry getOwner() {
+			return owner;
+		}
+
+		@Override
+		public final String getSrcDesc() {
+			return descs[0];
+		}
+
+		@Override
+		public final String getDstDesc(int namespace) {
+			return descs[namespace + 1];
+		}
+
+		@Override
+		public final String getDesc(int namespace) {
+			return descs[namespace + 1];
+		}
+
+		final ClassEntry owner;
+		final String[] descs; // src desc followed by the dst descs, effectively final after construction
+	}
+
+	static final class FieldEntry extends MemberEntry implements FieldMappingView {
+		FieldEntry(ClassEntry owner, FieldMappingView src, int[] nsMap) {
+			super(owner, src, nsMap);
+		}
+
+		@Override
+		MappedElementKind getKind() {
+			return MappedElementKind.FIELD;
+		}
+
+		void accept(MappingVisitor visitor, boolean supplyDstDescs) throws IOException {
+			if (visitor.visitField(names[0], descs[0])) {
+				acceptElement(visitor, supplyDstDescs ? descs : null);
+			}
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%s;;%s", names[0], descs[0]);
+		}
+	}
+
+	static final class MethodEntry extends MemberEntry implements MethodMappingView {
+		MethodEntry(ClassEntry owner, MethodMappingView src, int[] nsMap) {
+			super(owner, src, nsMap);
+
+			Collection<? extends MethodArgMappingView> srcArgs = src.getArgs();
+			args = new MethodArgEntry[srcArgs.size()];
+			int idx = 0;
+
+			for (MethodArgMappingView arg : srcArgs) {
+				args[idx++] = new MethodArgEntry(this, arg, nsMap);
+			}
+
+			Collection<? extends MethodVarMappingView> srcVars = src.getVars();
+			vars = new MethodVarEntry[srcVars.size()];
+			idx = 0;
+
+			for (MethodVarMappingView var : srcVars) {
+				vars[idx++] = new MethodVarEntry(this, var, nsMap);
+			}
+
+			argList = Collections.unmodifiableList(Arrays.asList(args));
+			varList = Collections.unmodifiableList(Arrays.asList(vars));
+		}
+
+		@Override
+		MappedElementKind getKind() {
+			return MappedElementKind.METHOD;
+		}
+
+		@Override
+		public Collection<MethodArgEntry> getArgs() {
+			return argList;
+		}
+
+		@Override
+		public MethodArgEntry getArg(int argPosition, int lvIndex, String srcName) {
+			return ArgVarMatcher.getArg(argList, argPosition, lvIndex, srcName, SRC_NAMESPACE_ID);
+		}
+
+		@Override
+		public Collection<MethodVarEntry> getVars() {
+			return varList;
+		}
+
+		@Override
+		public MethodVarEntry getVar(int lvtRowIndex, int lvIndex, int startOpIdx, String srcName) {
+			return ArgVarMatcher.getVar(varList, lvtRowIndex, lvIndex, startOpIdx, srcName, SRC_NAMESPACE_ID);
+		}
+
+		void accept(MappingVisitor visitor, boolean supplyDstDescs) throws IOException {
+			if (visitor.visitMethod(names[0], descs[0]) && acceptElement(visitor, supplyDstDescs ? descs : null)) {
+				for (MethodArgEntry arg : args) {
+					arg.accept(visitor);
+				}
+
+				for (MethodVarEntry var : vars) {
+					var.accept(visitor);
+				}
+			}
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%s%s", names[0], descs[0]);
+		}
+
+		private final MethodArgEntry[] args;
+		private final MethodVarEntry[] vars;
+		private final List<MethodArgEntry> argList;
+		private final List<MethodVarEntry> varList;
+	}
+
+	static final class MethodArgEntry extends Entry implements MethodArgMappingView {
+		MethodArgEntry(MethodEntry method, MethodArgMappingView src, int[] nsMap) {
+			super(src, nsMap);
+
+			this.method = method;
+			this.argPosition = src.getArgPosition();
+			this.lvIndex = src.getLvIndex();
+		}
+
+		@Override
+		MappedElementKind getKind() {
+			return MappedElementKind.METHOD_ARG;
+		}
+
+		@Override
+		public FrozenMappingTree getTree() {
+			return method.getTree();
+		}
+
+		@Override
+		public MethodEntry getMethod() {
+			return method;
+		}
+
+		@Override
+		public int getArgPosition() {
+			return argPosition;
+		}
+
+		@Override
+		public int getLvIndex() {
+			return lvIndex;
+		}
+
+		void accept(MappingVisitor visitor) throws IOException {
+			if (visitor.visitMethodArg(argPosition, lvIndex, names[0])) {
+				acceptElement(visitor, null);
+			}
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%d/%d:%s", argPosition, lvIndex, names[0]);
+		}
+
+		private final MethodEntry method;
+		private final int argPosition;
+		private final int lvIndex;
+	}
+
+	static final class MethodVarEntry extends Entry implements MethodVarMappingView {
+		MethodVarEntry(MethodEntry method, MethodVarMappingView src, int[] nsMap) {
+			super(src, nsMap);
+
+			this.method = method;
+			this.lvtRowIndex = src.getLvtRowIndex();
+			this.lvIndex = src.getLvIndex();
+			this.startOpIdx = src.getStartOpIdx();
+		}
+
+		@Override
+		MappedElementKind getKind() {
+			return MappedElementKind.METHOD_VAR;
+		}
+
+		@Override
+		public FrozenMappingTree getTree() {
+			return method.getTree();
+		}
+
+		@Override
+		public MethodEntry getMethod() {
+			return method;
+		}
+
+		@Override
+		public int getLvtRowIndex() {
+			return lvtRowIndex;
+		}
+
+		@Override
+		public int getLvIndex() {
+			return lvIndex;
+		}
+
+		@Override
+		public int getStartOpIdx() {
+			return startOpIdx;
+		}
+
+		void accept(MappingVisitor visitor) throws IOException {
+			if (visitor.visitMethodVar(lvtRowIndex, lvIndex, startOpIdx, names[0])) {
+				acceptElement(visitor, null);
+			}
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%d/%d@%d:%s", lvtRowIndex, lvIndex, startOpIdx, names[0]);
+		}
+
+		private final MethodEntry method;
+		private final int lvtRowIndex;
+		private final int lvIndex;
+		private final int startOpIdx;
+	}
+
+	private static final class NameKey {
+		NameKey(int owner, boolean method, String name) {
+			this.owner = method ? ~owner : owner;
+			this.name = name;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof NameKey)) return false;
+
+			NameKey o = (NameKey) obj;
+
+			return owner == o.owner && name.equals(o.name);
+		}
+
+		@Override
+		public int hashCode() {
+			return owner * 31 + name.hashCode();
+		}
+
+		private final int owner; // owner class index, inverted for methods
+		private final String name;
+	}
+
+	private final String srcNamespace;
+	private final List<String> dstNamespaces;
+	private final List<Map.Entry<String, String>> metadata;
+	private final ClassEntry[] classes;
+	private final List<ClassEntry> classList;
+	private final Map<String, ClassEntry>[] classesByName; // by namespace id + 1
+	private final Map<NameKey, MemberEntry[]>[] membersByName; // by namespace id + 1
+}
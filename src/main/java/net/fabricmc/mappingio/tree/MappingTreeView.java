@@ -135,11 +135,25 @@ public interface MappingTreeView {
 		return mapDesc(desc, start, end, SRC_NAMESPACE_ID, namespace);
 	}
 
+	/**
+	 * Map the class name name[start..end) from srcNamespace to dstNamespace.
+	 *
+	 * <p>Implementations may look the name up without materializing it as a {@link String}.
+	 *
+	 * @return the mapped name or null if the mapping doesn't change the name
+	 */
+	default String mapClassName(CharSequence name, int start, int end, int srcNamespace, int dstNamespace) {
+		if (srcNamespace == dstNamespace) return null;
+
+		String cls = name.subSequence(start, end).toString();
+		String ret = mapClassName(cls, srcNamespace, dstNamespace);
+
+		return ret != null && !ret.equals(cls) ? ret : null;
+	}
+
 	default String mapDesc(CharSequence desc, int start, int end, int srcNamespace, int dstNamespace) {
 		if (srcNamespace == dstNamespace) return desc.subSequence(start, end).toString();
 
-		StringBuilder ret = null;
-		int copyOffset = start;
 		int offset = start;
 
 		while (offset < end) {
@@ -156,26 +170,65 @@ public interface MappingTreeView {
 
 				if (idEnd >= end) throw new IllegalArgumentException("invalid descriptor: "+desc.subSequence(start, end));
 
-				String cls = desc.subSequence(offset, idEnd).toString();
-				String mappedCls = mapClassName(cls, srcNamespace, dstNamespace);
-
-				if (mappedCls != null && !mappedCls.equals(cls)) {
-					if (ret == null) ret = new StringBuilder(end - start);
+				String mappedCls = mapClassName(desc, offset, idEnd, srcNamespace, dstNamespace);
 
-					ret.append(desc, copyOffset, offset);
+				if (mappedCls != null) { // first change, continue with the appending variant
+					StringBuilder ret = new StringBuilder(end - start + 16);
+					ret.append(desc, start, offset);
 					ret.append(mappedCls);
-					copyOffset = idEnd;
+					mapDesc(desc, idEnd, end, srcNamespace, dstNamespace, ret);
+
+					return ret.toString();
 				}
 
 				offset = idEnd + 1;
 			}
 		}
 
-		if (ret == null) return desc.subSequence(start, end).toString();
+		return desc.subSequence(start, end).toString();
+	}
+
+	/**
+	 * Map the descriptor desc[start..end) from srcNamespace to dstNamespace and append the result to out.
+	 *
+	 * <p>This avoids creating intermediate strings if the caller can consume the descriptor from a reused builder.
+	 */
+	default void mapDesc(CharSequence desc, int start, int end, int srcNamespace, int dstNamespace, StringBuilder out) {
+		if (srcNamespace == dstNamespace) {
+			out.append(desc, start, end);
+			return;
+		}
+
+		int copyOffset = start;
+		int offset = start;
 
-		ret.append(desc, copyOffset, end);
+		while (offset < end) {
+			char c = desc.charAt(offset++);
 
-		return ret.toString();
+			if (c == 'L') {
+				int idEnd = offset; // current identifier end, exclusive
+
+				while (idEnd < end) {
+					c = desc.charAt(idEnd);
+					if (c == ';') break;
+					idEnd++;
+				}
+
+				if (idEnd >= end) throw new IllegalArgumentException("invalid descriptor: "+desc.subSequence(start, end));
+
+				String mappedCls = mapClassName(desc, offset, idEnd, srcNamespace, dstNamespace);
+
+				if (mappedCls != null) {
+					out.append(desc, copyOffset, offset);
+					out.append(mappedCls);
+					copyOffset = idEnd;
+				}
+
+				offset = idEnd + 1;
+			}
+		}
+
+		out.append(desc, copyOffset, end);
 	}
 
 	interface ElementMappingView {
@@ -291,10 +344,16 @@ public interface MappingTreeView {
 
 	interface MethodMappingView extends MemberMappingView {
 		Collection<? extends MethodArgMappingView> getArgs();
-		MethodArgMappingView getArg(int argPosition, int lvIndex, String srcName);
+
+		default MethodArgMappingView getArg(int argPosition, int lvIndex, String srcName) {
+			return ArgVarMatcher.getArg(getArgs(), argPosition, lvIndex, srcName, SRC_NAMESPACE_ID);
+		}
 
 		Collection<? extends MethodVarMappingView> getVars();
-		MethodVarMappingView getVar(int lvtRowIndex, int lvIndex, int startOpIdx, String srcName);
+
+		default MethodVarMappingView getVar(int lvtRowIndex, int lvIndex, int startOpIdx, String srcName) {
+			return ArgVarMatcher.getVar(getVars(), lvtRowIndex, lvIndex, startOpIdx, srcName, SRC_NAMESPACE_ID);
+		}
 	}
 
 	interface MethodArgMappingView extends ElementMappingView {
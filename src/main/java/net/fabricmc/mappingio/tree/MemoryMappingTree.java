@@ -17,9 +17,13 @@
 package net.fabricmc.mappingio.tree;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.AbstractCollection;
 import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -27,11 +31,18 @@ import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 import net.fabricmc.mappingio.MappedElementKind;
 import net.fabricmc.mappingio.MappingFlag;
+import net.fabricmc.mappingio.MappingStringPool;
 import net.fabricmc.mappingio.MappingVisitor;
 
 public final class MemoryMappingTree implements MappingTree, MappingVisitor {
@@ -65,6 +76,7 @@ public final class MemoryMappingTree implements MappingTree, MappingVisitor {
 
 		if (!indexByDstNames) {
 			classesByDstNames = null;
+			invalidateMemberIndices();
 		} else if (dstNamespaces != null) {
 			initClassesByDstNames();
 		}
@@ -72,15 +84,104 @@ public final class MemoryMappingTree implements MappingTree, MappingVisitor {
 		this.indexByDstNames = indexByDstNames;
 	}
 
+	public boolean isCacheDstDescs() {
+		return cacheDstDescs;
+	}
+
+	/**
+	 * Enable caching the dst descriptors of fields and methods.
+	 *
+	 * <p>Dst descriptors are otherwise derived from the src descriptor and the class mappings on every query, including
+	 * when supplying them to visitors that require them. Cached descriptors are invalidated whenever a class dst
+	 * name changes.
+	 */
+	public void setCacheDstDescs(boolean cacheDstDescs) {
+		if (cacheDstDescs == this.cacheDstDescs) return;
+
+		if (!cacheDstDescs) {
+			for (ClassEntry cls : getClasses()) {
+				for (FieldEntry field : cls.getFields()) {
+					field.dstDescs = null;
+				}
+
+				for (MethodEntry method : cls.getMethods()) {
+					method.dstDescs = null;
+				}
+			}
+		}
+
+		this.cacheDstDescs = cacheDstDescs;
+	}
+
+	/**
+	 * Invalidate all cached dst descriptors, to be called whenever class dst names or the dst namespaces change.
+	 */
+	void invalidateDstDescs() {
+		dstDescsStamp++;
+	}
+
+	/**
+	 * Get a value that changes whenever mapped descriptors may have changed, see {@link #invalidateDstDescs()}.
+	 */
+	int getDstDescsStamp() {
+		return dstDescsStamp;
+	}
+
+	public MappingStringPool getStringPool() {
+		return stringPool;
+	}
+
+	/**
+	 * Set a pool to canonicalize names and descriptors added to this tree with.
+	 *
+	 * <p>The pool applies to data added after this call, including data visited by readers. Readers will also use it
+	 * to avoid creating duplicate strings in the first place. Comments are not pooled.
+	 *
+	 * @param stringPool the pool to use or null to disable pooling
+	 */
+	public void setStringPool(MappingStringPool stringPool) {
+		this.stringPool = stringPool;
+	}
+
+	private String intern(String str) {
+		return stringPool != null ? stringPool.intern(str) : str;
+	}
+
+	/**
+	 * Create an immutable, fully indexed snapshot of the current tree state.
+	 *
+	 * <p>Unlike this tree, the snapshot may be queried by multiple threads concurrently. Later modifications to this
+	 * tree are not reflected in the snapshot.
+	 */
+	public FrozenMappingTree freeze() {
+		return new FrozenMappingTree(this);
+	}
+
+	/**
+	 * Get a view of this tree with the source namespace switched with the specified destination namespace.
+	 *
+	 * <p>This yields the same structure as visiting the tree through
+	 * {@link net.fabricmc.mappingio.adapter.MappingSourceNsSwitch}, but without copying. The view reflects later
+	 * modifications to the tree's elements, but not to its namespaces. Enables indexing by dst names since lookups by
+	 * the view's source names are lookups by dst names in this tree.
+	 *
+	 * @param namespace the namespace to use as the source namespace
+	 */
+	public MappingTreeView viewWithSourceNamespace(String namespace) {
+		setIndexByDstNames(true);
+
+		return new NamespaceSwitchedTreeView(this, namespace);
+	}
+
 	@SuppressWarnings("unchecked")
 	private void initClassesByDstNames() {
-		classesByDstNames = new Map[dstNamespaces.size()];
+		classesByDstNames = new NameMap[dstNamespaces.size()];
 
 		for (int i = 0; i < classesByDstNames.length; i++) {
-			classesByDstNames[i] = new HashMap<String, ClassEntry>(classesBySrcName.size());
+			classesByDstNames[i] = new NameMap<ClassEntry>(classesBySrcName.size());
 		}
 
-		for (ClassEntry cls : classesBySrcName.values()) {
+		for (ClassEntry cls : getClasses()) {
 			for (int i = 0; i < cls.dstNames.length; i++) {
 				String dstName = cls.dstNames[i];
 				if (dstName != null) classesByDstNames[i].put(dstName, cls);
@@ -88,6 +189,13 @@ public final class MemoryMappingTree implements MappingTree, MappingVisitor {
 		}
 	}
 
+	private void invalidateMemberIndices() {
+		for (ClassEntry cls : getClasses()) {
+			cls.invalidateFieldIndex();
+			cls.invalidateMethodIndex();
+		}
+	}
+
 	@Override
 	public String getSrcNamespace() {
 		return srcNamespace;
@@ -113,8 +221,11 @@ public final class MemoryMappingTree implements MappingTree, MappingVisitor {
 
 		if (indexByDstNames) {
 			initClassesByDstNames();
+			invalidateMemberIndices();
 		}
 
+		invalidateDstDescs();
+
 		return ret;
 	}
 
@@ -154,7 +265,7 @@ public final class MemoryMappingTree implements MappingTree, MappingVisitor {
 
 	@Override
 	public Collection<ClassEntry> getClasses() {
-		return classesBySrcName.values();
+		return new ClassCollection();
 	}
 
 	@Override
@@ -171,16 +282,41 @@ public final class MemoryMappingTree implements MappingTree, MappingVisitor {
 		}
 	}
 
+	@Override
+	public String mapClassName(CharSequence name, int start, int end, int srcNamespace, int dstNamespace) {
+		if (srcNamespace == dstNamespace) return null;
+
+		ClassEntry cls;
+
+		if (srcNamespace < 0) {
+			cls = classesBySrcName.get(name, start, end);
+		} else if (indexByDstNames) {
+			cls = classesByDstNames[srcNamespace].get(name, start, end);
+		} else {
+			return MappingTree.super.mapClassName(name, start, end, srcNamespace, dstNamespace);
+		}
+
+		if (cls == null) return null;
+
+		String ret = cls.getName(dstNamespace);
+
+		return ret != null && !NameMap.equals(ret, name, start, end) ? ret : null;
+	}
+
 	@Override
 	public ClassEntry addClass(ClassMapping cls) {
 		ClassEntry entry = cls instanceof ClassEntry && cls.getTree() == this ? (ClassEntry) cls : new ClassEntry(this, cls, getSrcNsEquivalent(cls));
-		ClassEntry ret = classesBySrcName.putIfAbsent(cls.getSrcName(), entry);
+		ClassEntry ret = classesBySrcName.get(entry.getSrcName());
 
 		if (ret != null) {
 			ret.copyFrom(entry, false);
 			entry = ret;
+		} else {
+			linkClass(entry);
 		}
 
+		invalidateDstDescs();
+
 		if (indexByDstNames) {
 			for (int i = 0; i < entry.dstNames.length; i++) {
 				String dstName = entry.dstNames[i];
@@ -191,6 +327,37 @@ public final class MemoryMappingTree implements MappingTree, MappingVisitor {
 		return entry;
 	}
 
+	private void linkClass(ClassEntry cls) {
+		classesBySrcName.put(cls.getSrcName(), cls);
+
+		cls.prevClass = lastClass;
+		cls.nextClass = null;
+
+		if (lastClass == null) {
+			firstClass = cls;
+		} else {
+			lastClass.nextClass = cls;
+		}
+
+		lastClass = cls;
+	}
+
+	private void unlinkClass(ClassEntry cls) {
+		if (cls.prevClass == null) {
+			firstClass = cls.nextClass;
+		} else {
+			cls.prevClass.nextClass = cls.nextClass;
+		}
+
+		if (cls.nextClass == null) {
+			lastClass = cls.prevClass;
+		} else {
+			cls.nextClass.prevClass = cls.prevClass;
+		}
+
+		cls.prevClass = cls.nextClass = null;
+	}
+
 	private int getSrcNsEquivalent(ElementMapping mapping) {
 		int ret = mapping.getTree().getNamespaceId(srcNamespace);
 		if (ret == NULL_NAMESPACE_ID) throw new UnsupportedOperationException("can't find source namespace in referenced mapping tree");
@@ -202,6 +369,11 @@ public final class MemoryMappingTree implements MappingTree, MappingVisitor {
 	public ClassEntry removeClass(String srcName) {
 		ClassEntry ret = classesBySrcName.remove(srcName);
 
+		if (ret != null) {
+			unlinkClass(ret);
+			invalidateDstDescs();
+		}
+
 		if (ret != null && indexByDstNames) {
 			for (int i = 0; i < ret.dstNames.length; i++) {
 				String dstName = ret.dstNames[i];
@@ -214,6 +386,157 @@ public final class MemoryMappingTree implements MappingTree, MappingVisitor {
 
 	@Override
 	public void accept(MappingVisitor visitor) throws IOException {
+		accept(visitor, getClasses());
+	}
+
+	/**
+	 * Visit the tree in parallel using the common {@link ForkJoinPool}, see {@link #acceptParallel(Supplier, Function, ForkJoinPool)}.
+	 */
+	public <V extends MappingVisitor> List<V> acceptParallel(Supplier<V> visitorFactory) throws IOException {
+		return acceptParallel(visitorFactory, null, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Visit the tree in parallel on the supplied pool, see {@link #acceptParallel(Supplier, Function, ForkJoinPool)}.
+	 */
+	public <V extends MappingVisitor> List<V> acceptParallel(Supplier<V> visitorFactory, ForkJoinPool pool) throws IOException {
+		return acceptParallel(visitorFactory, null, pool);
+	}
+
+	/**
+	 * Visit the tree concurrently on the supplied pool with a separate visitor for each partition of the classes.
+	 *
+	 * <p>The classes are split into consecutive partitions, each of which is visited by a new visitor from
+	 * visitorFactory going through the regular visitation protocol including the header. This suits visitors that
+	 * shard by class, e.g. writers producing a file per class, or whose results can be merged afterwards.
+	 *
+	 * <p>Classes with an equal non-null partitionKey are kept in the same partition. This is required for visitors
+	 * combining multiple classes in one output, e.g. {@link net.fabricmc.mappingio.format.EnigmaWriter} with
+	 * {@code deleteExistingFiles} disabled appends inner classes to the file of their outer class, so the classes
+	 * have to be keyed by their outer class name in the first destination namespace.
+	 *
+	 * <p>The visitors are created on the calling thread and returned in partition order. Without partitionKey,
+	 * concatenating their results in that order yields the same class order as {@link #accept(MappingVisitor)},
+	 * independent of the partitioning. With partitionKey the classes are grouped by key in order of each key's first
+	 * occurrence instead. The tree must not be modified until this method returns.
+	 *
+	 * @param partitionKey function determining which classes have to be visited by the same visitor, or null
+	 * @return the visitors in partition order
+	 */
+	public <V extends MappingVisitor> List<V> acceptParallel(Supplier<V> visitorFactory, Function<? super ClassMapping, ?> partitionKey, ForkJoinPool pool) throws IOException {
+		List<ClassEntry> classes;
+		BitSet groupStarts; // indices in classes where a partition may start, null for any
+
+		if (partitionKey == null) {
+			classes = new ArrayList<>(getClasses());
+			groupStarts = null;
+		} else {
+			Map<Object, List<ClassEntry>> groups = new LinkedHashMap<>();
+
+			for (ClassEntry cls : getClasses()) {
+				Object key = partitionKey.apply(cls);
+				if (key == null) key = cls; // unkeyed classes form their own group
+
+				groups.computeIfAbsent(key, ignore -> new ArrayList<>()).add(cls);
+			}
+
+			classes = new ArrayList<>(classesBySrcName.size());
+			groupStarts = new BitSet(classesBySrcName.size());
+
+			for (List<ClassEntry> group : groups.values()) {
+				groupStarts.set(classes.size());
+				classes.addAll(group);
+			}
+		}
+
+		int partitionCount = Math.min(pool.getParallelism() * PARTITIONS_PER_THREAD, classes.size());
+		List<List<ClassEntry>> partitions = new ArrayList<>(Math.max(1, partitionCount));
+		int partitionStart = 0;
+
+		for (int i = 1; i <= partitionCount; i++) {
+			int end = (int) ((long) classes.size() * i / partitionCount);
+
+			if (groupStarts != null && end < classes.size()) { // move the boundary to the next group start
+				end = groupStarts.nextSetBit(end);
+				if (end < 0) end = classes.size();
+			}
+
+			if (end > partitionStart) {
+				partitions.add(classes.subList(partitionStart, end));
+				partitionStart = end;
+			}
+		}
+
+		if (partitions.isEmpty()) partitions.add(classes);
+
+		List<V> ret = new ArrayList<>(partitions.size());
+		boolean needsDstDescs = false;
+
+		for (int i = 0; i < partitions.size(); i++) {
+			V visitor = visitorFactory.get();
+			ret.add(visitor);
+
+			Set<MappingFlag> flags = visitor.getFlags();
+			needsDstDescs |= flags.contains(MappingFlag.NEEDS_DST_FIELD_DESC) || flags.contains(MappingFlag.NEEDS_DST_METHOD_DESC);
+		}
+
+		if (partitions.size() == 1) {
+			accept(ret.get(0), partitions.get(0));
+			return ret;
+		}
+
+		if (needsDstDescs && cacheDstDescs) { // fill the caches upfront, the partitions may then only read them
+			for (ClassEntry cls : classes) {
+				for (FieldEntry field : cls.getFields()) {
+					field.fillDstDescCache();
+				}
+
+				for (MethodEntry method : cls.getMethods()) {
+					method.fillDstDescCache();
+				}
+			}
+		}
+
+		List<CompletableFuture<Void>> futures = new ArrayList<>(partitions.size());
+
+		for (int i = 0; i < partitions.size(); i++) {
+			List<ClassEntry> partition = partitions.get(i);
+			MappingVisitor visitor = ret.get(i);
+
+			futures.add(CompletableFuture.runAsync(() -> {
+				try {
+					accept(visitor, partition);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}, pool));
+		}
+
+		for (CompletableFuture<Void> future : futures) {
+			try {
+				future.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException();
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+
+				if (cause instanceof UncheckedIOException) {
+					throw ((UncheckedIOException) cause).getCause();
+				} else if (cause instanceof RuntimeException) {
+					throw (RuntimeException) cause;
+				} else if (cause instanceof Error) {
+					throw (Error) cause;
+				} else {
+					throw new RuntimeException(cause);
+				}
+			}
+		}
+
+		return ret;
+	}
+
+	private void accept(MappingVisitor visitor, Collection<ClassEntry> classes) throws IOException {
 		do {
 			if (visitor.visitHeader()) {
 				visitor.visitNamespaces(srcNamespace, dstNamespaces);
@@ -228,7 +551,7 @@ public final class MemoryMappingTree implements MappingTree, MappingVisitor {
 				boolean supplyFieldDstDescs = flags.contains(MappingFlag.NEEDS_DST_FIELD_DESC);
 				boolean supplyMethodDstDescs = flags.contains(MappingFlag.NEEDS_DST_METHOD_DESC);
 
-				for (ClassEntry cls : classesBySrcName.values()) {
+				for (ClassEntry cls : classes) {
 					cls.accept(visitor, supplyFieldDstDescs, supplyMethodDstDescs);
 				}
 			}
@@ -273,6 +596,7 @@ public final class MemoryMappingTree implements MappingTree, MappingVisitor {
 
 			if (newDstNamespaces > 0) {
 				int newSize = this.dstNamespaces.size();
+				invalidateDstDescs();
 
 				for (ClassEntry cls : getClasses()) {
 					cls.resizeDstNames(newSize);
@@ -298,7 +622,7 @@ public final class MemoryMappingTree implements MappingTree, MappingVisitor {
 					classesByDstNames = Arrays.copyOf(classesByDstNames, newSize);
 
 					for (int i = newSize - newDstNamespaces; i < classesByDstNames.length; i++) {
-						classesByDstNames[i] = new HashMap<String, ClassEntry>(classesBySrcName.size());
+						classesByDstNames[i] = new NameMap<ClassEntry>(classesBySrcName.size());
 					}
 				}
 			}
@@ -334,7 +658,7 @@ public final class MemoryMappingTree implements MappingTree, MappingVisitor {
 			}
 
 			cls = new ClassEntry(this, srcName);
-			classesBySrcName.put(srcName, cls);
+			linkClass(cls);
 		}
 
 		currentEntry = currentClass = cls;
@@ -359,7 +683,7 @@ public final class MemoryMappingTree implements MappingTree, MappingVisitor {
 			field = new FieldEntry(currentClass, srcName, srcDesc);
 			field = currentClass.addField(field);
 		} else if (srcDesc != null && field.srcDesc == null) {
-			field.setSrcDesc(mapDesc(srcDesc, srcNsMap, SRC_NAMESPACE_ID)); // assumes the class mapping is already sufficiently present..
+			field.setSrcDesc(intern(mapDesc(srcDesc, srcNsMap, SRC_NAMESPACE_ID))); // assumes the class mapping is already sufficiently present..
 		}
 
 		currentEntry = field;
@@ -382,7 +706,7 @@ public final class MemoryMappingTree implements MappingTree, MappingVisitor {
 			method = new MethodEntry(currentClass, srcName, srcDesc);
 			method = currentClass.addMethod(method);
 		} else if (srcDesc != null && (method.srcDesc == null || method.srcDesc.endsWith(")") && !srcDesc.endsWith(")"))) {
-			method.setSrcDesc(mapDesc(srcDesc, srcNsMap, SRC_NAMESPACE_ID)); // assumes the class mapping is already sufficiently present..
+			method.setSrcDesc(intern(mapDesc(srcDesc, srcNsMap, SRC_NAMESPACE_ID))); // assumes the class mapping is already sufficiently present..
 		}
 
 		currentEntry = currentMethod = method;
@@ -405,7 +729,7 @@ public final class MemoryMappingTree implements MappingTree, MappingVisitor {
 
 			if (srcName != null) {
 				assert !srcName.isEmpty();
-				arg.setSrcName(srcName);
+				arg.setSrcName(intern(srcName));
 			}
 		}
 
@@ -429,7 +753,7 @@ public final class MemoryMappingTree implements MappingTree, MappingVisitor {
 
 			if (srcName != null) {
 				assert !srcName.isEmpty();
-				var.setSrcName(srcName);
+				var.setSrcName(intern(srcName));
 			}
 		}
 
@@ -452,6 +776,7 @@ public final class MemoryMappingTree implements MappingTree, MappingVisitor {
 		namespace = dstNameMap[namespace];
 
 		if (currentEntry == null) throw new UnsupportedOperationException("Tried to visit mapped name before owner");
+		name = intern(name);
 		currentEntry.setDstName(name, namespace);
 
 		if (indexByDstNames) {
@@ -482,7 +807,7 @@ public final class MemoryMappingTree implements MappingTree, MappingVisitor {
 
 	abstract static class Entry<T extends Entry<T>> implements ElementMapping {
 		protected Entry(MemoryMappingTree tree, String srcName) {
-			this.srcName = srcName;
+			this.srcName = tree.intern(srcName);
 			this.dstNames = new String[tree.dstNamespaces.size()];
 		}
 
@@ -493,7 +818,7 @@ public final class MemoryMappingTree implements MappingTree, MappingVisitor {
 				int dstNsEquivalent = src.getTree().getNamespaceId(tree.dstNamespaces.get(i));
 
 				if (dstNsEquivalent != NULL_NAMESPACE_ID) {
-					setDstName(src.getDstName(dstNsEquivalent), i);
+					setDstName(tree.intern(src.getDstName(dstNsEquivalent)), i);
 				}
 			}
 
@@ -607,11 +932,11 @@ public final class MemoryMappingTree implements MappingTree, MappingVisitor {
 
 		@Override
 		public void setDstName(String name, int namespace) {
-			if (tree.indexByDstNames) {
-				String oldName = dstNames[namespace];
+			String oldName = dstNames[namespace];
 
-				if (!Objects.equals(name, oldName)) {
-					Map<String, ClassEntry> map = tree.classesByDstNames[namespace];
+			if (!Objects.equals(name, oldName)) {
+				if (tree.indexByDstNames) {
+					NameMap<ClassEntry> map = tree.classesByDstNames[namespace];
 					if (oldName != null) map.remove(oldName);
 
 					if (name != null) {
@@ -620,6 +945,8 @@ public final class MemoryMappingTree implements MappingTree, MappingVisitor {
 						map.remove(oldName);
 					}
 				}
+
+				tree.invalidateDstDescs();
 			}
 
 			super.setDstName(name, namespace);
@@ -639,7 +966,14 @@ public final class MemoryMappingTree implements MappingTree, MappingVisitor {
 
 		@Override
 		public FieldEntry getField(String name, String desc, int namespace) {
-			return (FieldEntry) ClassMapping.super.getField(name, desc, namespace);
+			if (namespace < 0 || !tree.indexByDstNames) return (FieldEntry) ClassMapping.super.getField(name, desc, namespace);
+			if (fields == null) return null;
+
+			if (fieldsByDstName == null) fieldsByDstName = newMemberIndex();
+			Map<String, Object> index = fieldsByDstName[namespace];
+			if (index == null) fieldsByDstName[namespace] = index = buildMemberIndex(fields.values(), namespace);
+
+			return getMemberByDstName(index, name, desc, namespace, false);
 		}
 
 		@Override
@@ -647,6 +981,7 @@ public final class MemoryMappingTree implements MappingTree, MappingVisitor {
 			FieldEntry entry = field instanceof FieldEntry && field.getOwner() == this ? (FieldEntry) field : new FieldEntry(this, field, tree.getSrcNsEquivalent(field));
 
 			if (fields == null) fields = new LinkedHashMap<>();
+			invalidateFieldIndex();
 
 			return addMember(entry, fields, FLAG_HAS_ANY_FIELD_DESC, FLAG_MISSES_ANY_FIELD_DESC);
 		}
@@ -654,7 +989,11 @@ public final class MemoryMappingTree implements MappingTree, MappingVisitor {
 		@Override
 		public FieldEntry removeField(String srcName, String srcDesc) {
 			FieldEntry ret = getField(srcName, srcDesc);
-			if (ret != null) fields.remove(ret.key);
+
+			if (ret != null) {
+				fields.remove(ret.key);
+				invalidateFieldIndex();
+			}
 
 			return ret;
 		}
@@ -673,7 +1012,14 @@ public final class MemoryMappingTree implements MappingTree, MappingVisitor {
 
 		@Override
 		public MethodEntry getMethod(String name, String desc, int namespace) {
-			return (MethodEntry) ClassMapping.super.getMethod(name, desc, namespace);
+			if (namespace < 0 || !tree.indexByDstNames) return (MethodEntry) ClassMapping.super.getMethod(name, desc, namespace);
+			if (methods == null) return null;
+
+			if (methodsByDstName == null) methodsByDstName = newMemberIndex();
+			Map<String, Object> index = methodsByDstName[namespace];
+			if (index == null) methodsByDstName[namespace] = index = buildMemberIndex(methods.values(), namespace);
+
+			return getMemberByDstName(index, name, desc, namespace, true);
 		}
 
 		@Override
@@ -681,6 +1027,7 @@ public final class MemoryMappingTree implements MappingTree, MappingVisitor {
 			MethodEntry entry = method instanceof MethodEntry && method.getOwner() == this ? (MethodEntry) method : new MethodEntry(this, method, tree.getSrcNsEquivalent(method));
 
 			if (methods == null) methods = new LinkedHashMap<>();
+			invalidateMethodIndex();
 
 			return addMember(entry, methods, FLAG_HAS_ANY_METHOD_DESC, FLAG_MISSES_ANY_METHOD_DESC);
 		}
@@ -688,11 +1035,146 @@ public final class MemoryMappingTree implements MappingTree, MappingVisitor {
 		@Override
 		public MethodEntry removeMethod(String srcName, String srcDesc) {
 			MethodEntry ret = getMethod(srcName, srcDesc);
-			if (ret != null) methods.remove(ret.key);
+
+			if (ret != null) {
+				methods.remove(ret.key);
+				invalidateMethodIndex();
+			}
 
 			return ret;
 		}
 
+		@SuppressWarnings("unchecked")
+		private Map<String, Object>[] newMemberIndex() {
+			return new Map[tree.dstNamespaces.size()];
+		}
+
+		/**
+		 * Index the members by their dst name in the specified namespace.
+		 *
+		 * <p>The values are either a single entry or an array of all the entries sharing the name, e.g. overloads.
+		 */
+		private static Map<String, Object> buildMemberIndex(Collection<? extends MemberEntry<?>> members, int namespace) {
+			Map<String, Object> ret = new HashMap<>(members.size() * 4 / 3 + 1);
+
+			for (MemberEntry<?> member : members) {
+				String name = member.dstNames[namespace];
+				if (name != null) addToMemberIndex(ret, name, member);
+			}
+
+			return ret;
+		}
+
+		private static void addToMemberIndex(Map<String, Object> index, String name, MemberEntry<?> member) {
+			Object prev = index.putIfAbsent(name, member);
+			if (prev == null) return;
+
+			Object[] candidates;
+
+			if (prev instanceof Object[]) {
+				Object[] prevCandidates = (Object[]) prev;
+				candidates = Arrays.copyOf(prevCandidates, prevCandidates.length + 1);
+				candidates[prevCandidates.length] = member;
+			} else {
+				candidates = new Object[] { prev, member };
+			}
+
+			index.put(name, candidates);
+		}
+
+		private static void removeFromMemberIndex(Map<String, Object> index, String name, MemberEntry<?> member) {
+			Object prev = index.get(name);
+
+			if (prev == member) {
+				index.remove(name);
+			} else if (prev instanceof Object[]) {
+				Object[] candidates = (Object[]) prev;
+
+				for (int i = 0; i < candidates.length; i++) {
+					if (candidates[i] != member) continue;
+
+					if (candidates.length == 2) {
+						index.put(name, candidates[1 - i]);
+					} else {
+						Object[] newCandidates = new Object[candidates.length - 1];
+						System.arraycopy(candidates, 0, newCandidates, 0, i);
+						System.arraycopy(candidates, i + 1, newCandidates, i, newCandidates.length - i);
+						index.put(name, newCandidates);
+					}
+
+					break;
+				}
+			}
+		}
+
+		@SuppressWarnings("unchecked")
+		private static <T extends MemberEntry<T>> T getMemberByDstName(Map<String, Object> index, String name, String desc, int namespace, boolean isMethod) {
+			Object candidates = index.get(name);
+
+			if (candidates == null) {
+				return null;
+			} else if (candidates instanceof Object[]) {
+				for (Object candidate : (Object[]) candidates) {
+					if (isDstDescMatch((T) candidate, desc, namespace, isMethod)) return (T) candidate;
+				}
+
+				return null;
+			} else {
+				return isDstDescMatch((T) candidates, desc, namespace, isMethod) ? (T) candidates : null;
+			}
+		}
+
+		private static boolean isDstDescMatch(MemberEntry<?> member, String desc, int namespace, boolean isMethod) {
+			if (desc == null) return true;
+
+			String mDesc = member.getDesc(namespace);
+
+			return mDesc == null
+					|| desc.equals(mDesc)
+					|| isMethod && desc.endsWith(")") && mDesc.startsWith(desc);
+		}
+
+		/**
+		 * Update the dst name indices for a member about to change its dst name.
+		 */
+		void onMemberDstNameChange(MemberEntry<?> member, String oldName, String newName, int namespace) {
+			Map<String, Object>[] indices;
+			Map<MemberKey, ?> members;
+
+			if (member instanceof FieldEntry) {
+				indices = fieldsByDstName;
+				members = fields;
+			} else {
+				indices = methodsByDstName;
+				members = methods;
+			}
+
+			if (indices == null || indices[namespace] == null
+					|| Objects.equals(oldName, newName)
+					|| members.get(member.key) != member) { // not indexed yet or not part of this class (anymore)
+				return;
+			}
+
+			if (oldName != null) removeFromMemberIndex(indices[namespace], oldName, member);
+			if (newName != null) addToMemberIndex(indices[namespace], newName, member);
+		}
+
+		void invalidateFieldIndex() {
+			fieldsByDstName = null;
+		}
+
+		void invalidateMethodIndex() {
+			methodsByDstName = null;
+		}
+
+		@Override
+		void resizeDstNames(int newSize) {
+			super.resizeDstNames(newSize);
+
+			invalidateFieldIndex();
+			invalidateMethodIndex();
+		}
+
 		private static <T extends MemberEntry<T>> T getMember(String srcName, String srcDesc, Map<MemberKey, T> map, int flags, int flagHasAny, int flagMissesAny) {
 			if (map == null) return null;
 
@@ -767,6 +1249,7 @@ public final class MemoryMappingTree implements MappingTree, MappingVisitor {
 					if (ret != null) { // compatible entry exists, copy desc + extra content
 						ret.key = entry.key;
 						ret.srcDesc = entry.srcDesc;
+						ret.dstDescs = null;
 						map.put(ret.key, ret);
 						ret.copyFrom(entry, false);
 						entry = ret;
@@ -812,6 +1295,11 @@ public final class MemoryMappingTree implements MappingTree, MappingVisitor {
 		protected void copyFrom(ClassEntry o, boolean replace) {
 			super.copyFrom(o, replace);
 
+			// member dst names may get copied without going through setDstName
+			invalidateFieldIndex();
+			invalidateMethodIndex();
+			tree.invalidateDstDescs();
+
 			if (o.fields != null) {
 				for (FieldEntry oField : o.fields.values()) {
 					FieldEntry field = getField(oField.srcName, oField.srcDesc);
@@ -823,6 +1311,7 @@ public final class MemoryMappingTree implements MappingTree, MappingVisitor {
 							fields.remove(field.key);
 							field.key = oField.key;
 							field.srcDesc = oField.srcDesc;
+							field.dstDescs = null;
 							fields.put(field.key, field);
 
 							flags |= FLAG_HAS_ANY_FIELD_DESC;
@@ -844,6 +1333,7 @@ public final class MemoryMappingTree implements MappingTree, MappingVisitor {
 							methods.remove(method.key);
 							method.key = oMethod.key;
 							method.srcDesc = oMethod.srcDesc;
+							method.dstDescs = null;
 							methods.put(method.key, method);
 
 							flags |= FLAG_HAS_ANY_METHOD_DESC;
@@ -868,7 +1358,11 @@ public final class MemoryMappingTree implements MappingTree, MappingVisitor {
 		protected final MemoryMappingTree tree;
 		private Map<MemberKey, FieldEntry> fields = null;
 		private Map<MemberKey, MethodEntry> methods = null;
+		private Map<String, Object>[] fieldsByDstName; // lazily built per dst namespace if the tree indexes by dst names
+		private Map<String, Object>[] methodsByDstName;
 		private byte flags;
+		private ClassEntry prevClass;
+		private ClassEntry nextClass;
 	}
 
 	abstract static class MemberEntry<T extends MemberEntry<T>> extends Entry<T> implements MemberMapping {
@@ -876,15 +1370,15 @@ public final class MemoryMappingTree implements MappingTree, MappingVisitor {
 			super(owner.tree, srcName);
 
 			this.owner = owner;
-			this.srcDesc = srcDesc;
-			this.key = new MemberKey(srcName, srcDesc);
+			this.srcDesc = owner.tree.intern(srcDesc);
+			this.key = new MemberKey(this.srcName, this.srcDesc);
 		}
 
 		protected MemberEntry(ClassEntry owner, MemberMapping src, int srcNsEquivalent) {
 			super(owner.tree, src, srcNsEquivalent);
 
 			this.owner = owner;
-			this.srcDesc = src.getDesc(srcNsEquivalent);
+			this.srcDesc = owner.tree.intern(src.getDesc(srcNsEquivalent));
 			this.key = new MemberKey(srcName, srcDesc);
 		}
 
@@ -903,17 +1397,75 @@ public final class MemoryMappingTree implements MappingTree, MappingVisitor {
 			return srcDesc;
 		}
 
+		@Override
+		public void setDstName(String name, int namespace) {
+			if (owner != null) owner.onMemberDstNameChange(this, dstNames[namespace], name, namespace); // owner is unset while copying in the constructor
+
+			super.setDstName(name, namespace);
+		}
+
+		@Override
+		public final String getDstDesc(int namespace) {
+			if (srcDesc == null) {
+				return null;
+			} else if (owner.tree.cacheDstDescs) {
+				return getCachedDstDesc(namespace);
+			} else {
+				return owner.tree.mapDesc(srcDesc, namespace);
+			}
+		}
+
+		@Override
+		public final String getDesc(int namespace) {
+			return namespace < 0 ? srcDesc : getDstDesc(namespace);
+		}
+
+		private String getCachedDstDesc(int namespace) {
+			MemoryMappingTree tree = owner.tree;
+
+			if (dstDescs == null || dstDescsStamp != tree.dstDescsStamp) {
+				dstDescs = new String[tree.dstNamespaces.size()];
+				dstDescsStamp = tree.dstDescsStamp;
+			}
+
+			String ret = dstDescs[namespace];
+
+			if (ret == null) { // not computed yet, mapDesc never yields null
+				dstDescs[namespace] = ret = tree.intern(tree.mapDesc(srcDesc, namespace));
+			}
+
+			return ret;
+		}
+
+		void fillDstDescCache() {
+			if (srcDesc == null) return;
+
+			for (int i = 0; i < owner.tree.dstNamespaces.size(); i++) {
+				getCachedDstDesc(i);
+			}
+		}
+
 		protected final boolean acceptMember(MappingVisitor visitor, boolean supplyDstDescs) throws IOException {
 			String[] dstDescs;
 
 			if (!supplyDstDescs || srcDesc == null) {
 				dstDescs = null;
 			} else {
-				MappingTree tree = owner.tree;
-				dstDescs = new String[tree.getDstNamespaces().size()];
+				MemoryMappingTree tree = owner.tree;
+				int count = tree.dstNamespaces.size();
 
-				for (int i = 0; i < dstDescs.length; i++) {
-					dstDescs[i] = tree.mapDesc(srcDesc, i);
+				if (tree.cacheDstDescs) {
+					for (int i = 0; i < count; i++) {
+						getCachedDstDesc(i);
+					}
+
+					dstDescs = this.dstDescs;
+				} else {
+					dstDescs = new String[count];
+
+					for (int i = 0; i < count; i++) {
+						dstDescs[i] = tree.mapDesc(srcDesc, i);
+					}
 				}
 			}
 
@@ -923,6 +1475,8 @@ public final class MemoryMappingTree implements MappingTree, MappingVisitor {
 		protected final ClassEntry owner;
 		protected String srcDesc;
 		MemberKey key;
+		String[] dstDescs; // cached dst descs if enabled, valid for dstDescsStamp
+		private int dstDescsStamp;
 	}
 
 	static final class FieldEntry extends MemberEntry<FieldEntry> implements FieldMapping {
@@ -948,6 +1502,7 @@ public final class MemoryMappingTree implements MappingTree, MappingVisitor {
 
 			owner.fields.remove(key);
 			srcDesc = desc;
+			dstDescs = null;
 			key = newKey;
 			owner.fields.put(newKey, this);
 
@@ -1001,6 +1556,7 @@ public final class MemoryMappingTree implements MappingTree, MappingVisitor {
 
 			owner.methods.remove(key);
 			srcDesc = desc;
+			dstDescs = null;
 			key = newKey;
 			owner.methods.put(newKey, this);
 
@@ -1022,26 +1578,7 @@ public final class MemoryMappingTree implements MappingTree, MappingVisitor {
 		public MethodArgEntry getArg(int argPosition, int lvIndex, String srcName) {
 			if (args == null) return null;
 
-			if (argPosition >= 0 || lvIndex >= 0) {
-				for (MethodArgEntry entry : args) {
-					if (argPosition >= 0 && entry.argPosition == argPosition
-							|| lvIndex >= 0 && entry.lvIndex == lvIndex) {
-						return entry;
-					}
-				}
-			}
-
-			if (srcName != null) {
-				for (MethodArgEntry entry : args) {
-					if (srcName.equals(entry.srcName)
-							&& (argPosition < 0 || entry.argPosition < 0)
-							&& (lvIndex < 0 || entry.lvIndex < 0)) {
-						return entry;
-					}
-				}
-			}
-
-			return null;
+			return ArgVarMatcher.getArg(args, argPosition, lvIndex, srcName, SRC_NAMESPACE_ID);
 		}
 
 		@Override
@@ -1085,65 +1622,7 @@ public final class MemoryMappingTree implements MappingTree, MappingVisitor {
 		public MethodVarEntry getVar(int lvtRowIndex, int lvIndex, int startOpIdx, String srcName) {
 			if (vars == null) return null;
 
-			if (lvtRowIndex >= 0) {
-				boolean hasMissing = false;
-
-				for (MethodVarEntry entry : vars) {
-					if (entry.lvtRowIndex == lvtRowIndex) {
-						return entry;
-					} else if (entry.lvtRowIndex < 0) {
-						hasMissing = true;
-					}
-				}
-
-				if (!hasMissing) return null;
-			}
-
-			if (lvIndex >= 0) {
-				boolean hasMissing = false;
-				MethodVarEntry bestMatch = null;
-
-				for (MethodVarEntry entry : vars) {
-					if (entry.lvIndex != lvIndex) {
-						if (entry.lvIndex < 0) hasMissing = true;
-						continue;
-					}
-
-					if (bestMatch == null) {
-						bestMatch = entry;
-					} else {
-						int startOpDeltaImprovement;
-
-						if (startOpIdx < 0 || bestMatch.startOpIdx < 0 && entry.startOpIdx < 0) {
-							startOpDeltaImprovement = 0;
-						} else if (bestMatch.startOpIdx < 0) {
-							startOpDeltaImprovement = 1;
-						} else if (entry.startOpIdx < 0) {
-							startOpDeltaImprovement = -1;
-						} else {
-							startOpDeltaImprovement = Math.abs(bestMatch.startOpIdx - startOpIdx) - Math.abs(entry.startOpIdx - startOpIdx);
-						}
-
-						if (startOpDeltaImprovement > 0 || startOpDeltaImprovement == 0 && srcName != null && srcName.equals(entry.srcName) && !srcName.equals(bestMatch.srcName)) {
-							bestMatch = entry;
-						}
-					}
-				}
-
-				if (!hasMissing || bestMatch != null) return bestMatch;
-			}
-
-			if (srcName != null) {
-				for (MethodVarEntry entry : vars) {
-					if (srcName.equals(entry.srcName)
-							&& (lvtRowIndex < 0 || entry.lvtRowIndex < 0)
-							&& (lvIndex < 0 || entry.lvIndex < 0)) {
-						return entry;
-					}
-				}
-			}
-
-			return null;
+			return ArgVarMatcher.getVar(vars, lvtRowIndex, lvIndex, startOpIdx, srcName, SRC_NAMESPACE_ID);
 		}
 
 		@Override
@@ -1404,6 +1883,47 @@ public final class MemoryMappingTree implements MappingTree, MappingVisitor {
 		private int startOpIdx;
 	}
 
+	/**
+	 * Live view of the classes in insertion order, removals go through {@link MemoryMappingTree#removeClass}.
+	 */
+	private final class ClassCollection extends AbstractCollection<ClassEntry> {
+		@Override
+		public Iterator<ClassEntry> iterator() {
+			return new Iterator<ClassEntry>() {
+				@Override
+				public boolean hasNext() {
+					return next != null;
+				}
+
+				@Override
+				public ClassEntry next() {
+					if (next == null) throw new NoSuchElementException();
+
+					last = next;
+					next = next.nextClass;
+
+					return last;
+				}
+
+				@Override
+				public void remove() {
+					if (last == null) throw new IllegalStateException();
+
+					removeClass(last.getSrcName());
+					last = null;
+				}
+
+				private ClassEntry next = firstClass;
+				private ClassEntry last;
+			};
+		}
+
+		@Override
+		public int size() {
+			return classesBySrcName.size();
+		}
+	}
+
 	static final class MemberKey {
 		MemberKey(String name, String desc) {
 			this.name = name;
@@ -1440,12 +1960,19 @@ public final class MemoryMappingTree implements MappingTree, MappingVisitor {
 		private final int hash;
 	}
 
+	private static final int PARTITIONS_PER_THREAD = 4;
+
 	private boolean indexByDstNames;
+	private boolean cacheDstDescs;
+	private int dstDescsStamp; // incremented whenever cached dst descs may have become stale
 	private String srcNamespace;
 	private List<String> dstNamespaces;
 	private final List<Map.Entry<String, String>> metadata = new ArrayList<>();
-	private final Map<String, ClassEntry> classesBySrcName = new LinkedHashMap<>();
-	private Map<String, ClassEntry>[] classesByDstNames;
+	private final NameMap<ClassEntry> classesBySrcName = new NameMap<>();
+	private ClassEntry firstClass; // insertion order, linked through ClassEntry.prevClass/nextClass
+	private ClassEntry lastClass;
+	private NameMap<ClassEntry>[] classesByDstNames;
+	private MappingStringPool stringPool;
 
 	private int srcNsMap;
 	private int[] dstNameMap;
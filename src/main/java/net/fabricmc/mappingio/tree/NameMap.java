@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2021 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.mappingio.tree;
+
+/**
+ * Hash map from names to values that can also be queried with a char range of any {@link CharSequence}.
+ *
+ * <p>Range lookups hash and compare the characters in place, they don't materialize the name as a {@link String}.
+ */
+final class NameMap<V> {
+	NameMap() {
+		this(16);
+	}
+
+	NameMap(int expectedSize) {
+		int capacity = Integer.highestOneBit(Math.max(expectedSize, 8) * 2 - 1) << 1;
+		keys = new String[capacity];
+		values = new Object[capacity];
+	}
+
+	int size() {
+		return size;
+	}
+
+	V get(String name) {
+		int mask = keys.length - 1;
+
+		for (int slot = mix(name.hashCode()) & mask; ; slot = (slot + 1) & mask) {
+			String key = keys[slot];
+
+			if (key == null) {
+				return null;
+			} else if (key == name || key.hashCode() == name.hashCode() && key.equals(name)) {
+				return getValue(slot);
+			}
+		}
+	}
+
+	V get(CharSequence name, int start, int end) {
+		if (name instanceof String && start == 0 && end == name.length()) return get((String) name);
+
+		int hash = 0;
+
+		for (int i = start; i < end; i++) {
+			hash = 31 * hash + name.charAt(i);
+		}
+
+		int mask = keys.length - 1;
+
+		for (int slot = mix(hash) & mask; ; slot = (slot + 1) & mask) {
+			String key = keys[slot];
+
+			if (key == null) {
+				return null;
+			} else if (key.hashCode() == hash && equals(key, name, start, end)) {
+				return getValue(slot);
+			}
+		}
+	}
+
+	/**
+	 * Determine whether str has the same content as name[start..end).
+	 */
+	static boolean equals(String str, CharSequence name, int start, int end) {
+		if (str.length() != end - start) return false;
+
+		for (int i = 0; i < str.length(); i++) {
+			if (str.charAt(i) != name.charAt(start + i)) return false;
+		}
+
+		return true;
+	}
+
+	V put(String name, V value) {
+		int mask = keys.length - 1;
+
+		for (int slot = mix(name.hashCode()) & mask; ; slot = (slot + 1) & mask) {
+			String key = keys[slot];
+
+			if (key == null) {
+				keys[slot] = name;
+				values[slot] = value;
+				if (++size * 2 > keys.length) rehash();
+
+				return null;
+			} else if (key == name || key.hashCode() == name.hashCode() && key.equals(name)) {
+				V ret = getValue(slot);
+				values[slot] = value;
+
+				return ret;
+			}
+		}
+	}
+
+	V remove(String name) {
+		int mask = keys.length - 1;
+		int hole = mix(name.hashCode()) & mask;
+
+		for (;;) {
+			String key = keys[hole];
+
+			if (key == null) {
+				return null;
+			} else if (key == name || key.hashCode() == name.hashCode() && key.equals(name)) {
+				break;
+			}
+
+			hole = (hole + 1) & mask;
+		}
+
+		V ret = getValue(hole);
+
+		// backward shift deletion: move up later entries of the probe sequence that may occupy the hole
+
+		keys[hole] = null;
+		values[hole] = null;
+		size--;
+
+		for (int slot = (hole + 1) & mask; keys[slot] != null; slot = (slot + 1) & mask) {
+			int home = mix(keys[slot].hashCode()) & mask;
+
+			if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+				keys[hole] = keys[slot];
+				values[hole] = values[slot];
+				keys[slot] = null;
+				values[slot] = null;
+				hole = slot;
+			}
+		}
+
+		return ret;
+	}
+
+	@SuppressWarnings("unchecked")
+	private V getValue(int slot) {
+		return (V) values[slot];
+	}
+
+	private void rehash() {
+		String[] oldKeys = keys;
+		Object[] oldValues = values;
+		keys = new String[oldKeys.length * 2];
+		values = new Object[keys.length];
+		int mask = keys.length - 1;
+
+		for (int i = 0; i < oldKeys.length; i++) {
+			String key = oldKeys[i];
+			if (key == null) continue;
+
+			int slot = mix(key.hashCode()) & mask;
+
+			while (keys[slot] != null) {
+				slot = (slot + 1) & mask;
+			}
+
+			keys[slot] = key;
+			values[slot] = oldValues[i];
+		}
+	}
+
+	private static int mix(int hash) {
+		hash *= 0x9e3779b9; // String.hashCode has poor low bits for short strings, spread them
+
+		return hash ^ hash >>> 16;
+	}
+
+	private String[] keys;
+	private Object[] values;
+	private int size;
+}
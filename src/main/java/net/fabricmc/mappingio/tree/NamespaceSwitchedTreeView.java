@@ -0,0 +1,552 @@
+/*
+ * Copyright (c) 2021 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.fabricmc.mappingio.tree;
+
+import java.io.IOException;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import net.fabricmc.mappingio.MappedElementKind;
+import net.fabricmc.mappingio.MappingFlag;
+import net.fabricmc.mappingio.MappingVisitor;
+
+/**
+ * View of a tree with its source namespace switched with one of the destination namespaces, see
+ * {@link MemoryMappingTree#viewWithSourceNamespace(String)}.
+ *
+ * <p>The view presents "src -> dstA, dstB, dstC, ..." as "dstB -> dstA, src, dstC, ..." like
+ * {@link net.fabricmc.mappingio.adapter.MappingSourceNsSwitch} without copying any data. Elements are wrapped on
+ * demand, lookups by source name are translated to lookups by destination name in the backing tree.
+ *
+ * <p>Elements without a name in the new source namespace keep their original source name, except for method args and
+ * vars whose source name is optional.
+ */
+final class NamespaceSwitchedTreeView implements MappingTreeView {
+	NamespaceSwitchedTreeView(MappingTreeView tree, String newSrcNamespace) {
+		int ns = tree.getNamespaceId(newSrcNamespace);
+		if (ns == NULL_NAMESPACE_ID) throw new IllegalArgumentException("invalid new source ns "+newSrcNamespace+": not in "+tree.getDstNamespaces()+" or "+tree.getSrcNamespace());
+
+		List<String> dstNamespaces = new ArrayList<>(tree.getDstNamespaces());
+		if (ns >= 0) dstNamespaces.set(ns, tree.getSrcNamespace());
+
+		this.tree = tree;
+		this.newSrcNs = ns;
+		this.srcNamespace = newSrcNamespace;
+		this.dstNamespaces = Collections.unmodifiableList(dstNamespaces);
+	}
+
+	/**
+	 * Translate a namespace id of this view to the corresponding namespace id of the backing tree.
+	 */
+	private int toTreeNs(int namespace) {
+		if (namespace < 0) {
+			return newSrcNs;
+		} else if (namespace == newSrcNs) {
+			return SRC_NAMESPACE_ID;
+		} else {
+			return namespace;
+		}
+	}
+
+	@Override
+	public String getSrcNamespace() {
+		return srcNamespace;
+	}
+
+	@Override
+	public List<String> getDstNamespaces() {
+		return dstNamespaces;
+	}
+
+	@Override
+	public Collection<Map.Entry<String, String>> getMetadata() {
+		return tree.getMetadata();
+	}
+
+	@Override
+	public String getMetadata(String key) {
+		return tree.getMetadata(key);
+	}
+
+	@Override
+	public Collection<ClassView> getClasses() {
+		return new MappedCollection<>(tree.getClasses(), ClassView::new);
+	}
+
+	@Override
+	public ClassView getClass(String srcName) {
+		ClassMappingView ret = tree.getClass(srcName, newSrcNs);
+
+		if (ret == null) { // fall back to the original src name for classes without a name in the new src namespace
+			ret = tree.getClass(srcName);
+			if (ret != null && ret.getName(newSrcNs) != null) ret = null;
+		}
+
+		return ret != null ? new ClassView(ret) : null;
+	}
+
+	@Override
+	public ClassView getClass(String name, int namespace) {
+		if (namespace < 0) return getClass(name);
+
+		ClassMappingView ret = tree.getClass(name, toTreeNs(namespace));
+
+		return ret != null ? new ClassView(ret) : null;
+	}
+
+	@Override
+	public void accept(MappingVisitor visitor) throws IOException {
+		do {
+			if (visitor.visitHeader()) {
+				visitor.visitNamespaces(srcNamespace, dstNamespaces);
+
+				for (Map.Entry<String, String> entry : tree.getMetadata()) {
+					visitor.visitMetadata(entry.getKey(), entry.getValue());
+				}
+			}
+
+			if (visitor.visitContent()) {
+				Set<MappingFlag> flags = visitor.getFlags();
+				boolean supplyFieldDstDescs = flags.contains(MappingFlag.NEEDS_DST_FIELD_DESC);
+				boolean supplyMethodDstDescs = flags.contains(MappingFlag.NEEDS_DST_METHOD_DESC);
+
+				for (ClassMappingView cls : tree.getClasses()) {
+					new ClassView(cls).accept(visitor, supplyFieldDstDescs, supplyMethodDstDescs);
+				}
+			}
+		} while (!visitor.visitEnd());
+	}
+
+	private static boolean matchesDesc(String desc, String memberDesc, boolean isMethod) {
+		return desc == null || memberDesc == null || desc.equals(memberDesc)
+				|| isMethod && desc.endsWith(")") && memberDesc.startsWith(desc);
+	}
+
+	abstract class ElementView<T extends ElementMappingView> implements ElementMappingView {
+		ElementView(T element) {
+			this.element = element;
+		}
+
+		abstract MappedElementKind getKind();
+
+		@Override
+		public MappingTreeView getTree() {
+			return NamespaceSwitchedTreeView.this;
+		}
+
+		@Override
+		public String getSrcName() {
+			String ret = element.getName(newSrcNs);
+
+			return ret != null ? ret : element.getSrcName();
+		}
+
+		@Override
+		public String getDstName(int namespace) {
+			return element.getName(toTreeNs(namespace));
+		}
+
+		@Override
+		public String getComment() {
+			return element.getComment();
+		}
+
+		protected final boolean acceptElement(MappingVisitor visitor, boolean supplyDstDescs) throws IOException {
+			MappedElementKind kind = getKind();
+
+			for (int i = 0; i < dstNamespaces.size(); i++) {
+				String dstName = getDstName(i);
+
+				if (dstName != null) visitor.visitDstName(kind, i, dstName);
+			}
+
+			if (supplyDstDescs) {
+				MemberMappingView member = (MemberMappingView) this;
+
+				for (int i = 0; i < dstNamespaces.size(); i++) {
+					String dstDesc = member.getDstDesc(i);
+
+					if (dstDesc != null) visitor.visitDstDesc(kind, i, dstDesc);
+				}
+			}
+
+			if (!visitor.visitElementContent(kind)) {
+				return false;
+			}
+
+			String comment = getComment();
+			if (comment != null) visitor.visitComment(kind, comment);
+
+			return true;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (obj == null || obj.getClass() != getClass()) return false;
+
+			ElementView<?> o = (ElementView<?>) obj;
+
+			return o.getTree() == getTree() && o.element.equals(element);
+		}
+
+		@Override
+		public int hashCode() {
+			return element.hashCode();
+		}
+
+		@Override
+		public String toString() {
+			return getSrcName();
+		}
+
+		final T element;
+	}
+
+	final class ClassView extends ElementView<ClassMappingView> implements ClassMappingView {
+		ClassView(ClassMappingView cls) {
+			super(cls);
+		}
+
+		@Override
+		MappedElementKind getKind() {
+			return MappedElementKind.CLASS;
+		}
+
+		@Override
+		public Collection<FieldView> getFields() {
+			return new MappedCollection<>(element.getFields(), field -> new FieldView(this, field));
+		}
+
+		@Override
+		public FieldView getField(String srcName, String srcDesc) {
+			FieldMappingView ret = element.getField(srcName, srcDesc, newSrcNs);
+
+			if (ret == null) { // fall back to the original src name for fields without a name in the new src namespace
+				for (FieldMappingView field : element.getFields()) {
+					if (field.getName(newSrcNs) == null
+							&& srcName.equals(field.getSrcName())
+							&& matchesDesc(srcDesc, field.getDesc(newSrcNs), false)) {
+						ret = field;
+						break;
+					}
+				}
+			}
+
+			return ret != null ? new FieldView(this, ret) : null;
+		}
+
+		@Override
+		public FieldView getField(String name, String desc, int namespace) {
+			if (namespace < 0) return getField(name, desc);
+
+			FieldMappingView ret = element.getField(name, desc, toTreeNs(namespace));
+
+			return ret != null ? new FieldView(this, ret) : null;
+		}
+
+		@Override
+		public Collection<MethodView> getMethods() {
+			return new MappedCollection<>(element.getMethods(), method -> new MethodView(this, method));
+		}
+
+		@Override
+		public MethodView getMethod(String srcName, String srcDesc) {
+			MethodMappingView ret = element.getMethod(srcName, srcDesc, newSrcNs);
+
+			if (ret == null) { // fall back to the original src name for methods without a name in the new src namespace
+				for (MethodMappingView method : element.getMethods()) {
+					if (method.getName(newSrcNs) == null
+							&& srcName.equals(method.getSrcName())
+							&& matchesDesc(srcDesc, method.getDesc(newSrcNs), true)) {
+						ret = method;
+						break;
+					}
+				}
+			}
+
+			return ret != null ? new MethodView(this, ret) : null;
+		}
+
+		@Override
+		public MethodView getMethod(String name, String desc, int namespace) {
+			if (namespace < 0) return getMethod(name, desc);
+
+			MethodMappingView ret = element.getMethod(name, desc, toTreeNs(namespace));
+
+			return ret != null ? new MethodView(this, ret) : null;
+		}
+
+		void accept(MappingVisitor visitor, boolean supplyFieldDstDescs, boolean supplyMethodDstDescs) throws IOException {
+			if (visitor.visitClass(getSrcName()) && acceptElement(visitor, false)) {
+				for (FieldMappingView field : element.getFields()) {
+					new FieldView(this, field).accept(visitor, supplyFieldDstDescs);
+				}
+
+				for (MethodMappingView method : element.getMethods()) {
+					new MethodView(this, method).accept(visitor, supplyMethodDstDescs);
+				}
+			}
+		}
+	}
+
+	abstract class MemberView<T extends MemberMappingView> extends ElementView<T> implements MemberMappingView {
+		MemberView(ClassView owner, T member) {
+			super(member);
+
+			this.owner = owner;
+		}
+
+		@Override
+		public ClassView getOwner() {
+			return owner;
+		}
+
+		@Override
+		public String getSrcDesc() {
+			return element.getDesc(newSrcNs);
+		}
+
+		@Override
+		public String getDstDesc(int namespace) {
+			return element.getDesc(toTreeNs(namespace));
+		}
+
+		@Override
+		public String getDesc(int namespace) {
+			return namespace < 0 ? getSrcDesc() : getDstDesc(namespace);
+		}
+
+		protected final boolean acceptMember(MappingVisitor visitor, boolean supplyDstDescs) throws IOException {
+			return acceptElement(visitor, supplyDstDescs && element.getSrcDesc() != null);
+		}
+
+		@Override
+		public String toString() {
+			return getSrcName()+getSrcDesc();
+		}
+
+		final ClassView owner;
+	}
+
+	final class FieldView extends MemberView<FieldMappingView> implements FieldMappingView {
+		FieldView(ClassView owner, FieldMappingView field) {
+			super(owner, field);
+		}
+
+		@Override
+		MappedElementKind getKind() {
+			return MappedElementKind.FIELD;
+		}
+
+		void accept(MappingVisitor visitor, boolean supplyDstDescs) throws IOException {
+			if (visitor.visitField(getSrcName(), getSrcDesc())) {
+				acceptMember(visitor, supplyDstDescs);
+			}
+		}
+	}
+
+	final class MethodView extends MemberView<MethodMappingView> implements MethodMappingView {
+		MethodView(ClassView owner, MethodMappingView method) {
+			super(owner, method);
+		}
+
+		@Override
+		MappedElementKind getKind() {
+			return MappedElementKind.METHOD;
+		}
+
+		@Override
+		public Collection<MethodArgView> getArgs() {
+			return new MappedCollection<>(element.getArgs(), arg -> new MethodArgView(this, arg));
+		}
+
+		@Override
+		public MethodArgView getArg(int argPosition, int lvIndex, String srcName) {
+			MethodArgMappingView ret = ArgVarMatcher.getArg(element.getArgs(), argPosition, lvIndex, srcName, newSrcNs);
+
+			return ret != null ? new MethodArgView(this, ret) : null;
+		}
+
+		@Override
+		public Collection<MethodVarView> getVars() {
+			return new MappedCollection<>(element.getVars(), var -> new MethodVarView(this, var));
+		}
+
+		@Override
+		public MethodVarView getVar(int lvtRowIndex, int lvIndex, int startOpIdx, String srcName) {
+			MethodVarMappingView ret = ArgVarMatcher.getVar(element.getVars(), lvtRowIndex, lvIndex, startOpIdx, srcName, newSrcNs);
+
+			return ret != null ? new MethodVarView(this, ret) : null;
+		}
+
+		void accept(MappingVisitor visitor, boolean supplyDstDescs) throws IOException {
+			if (visitor.visitMethod(getSrcName(), getSrcDesc()) && acceptMember(visitor, supplyDstDescs)) {
+				for (MethodArgMappingView arg : element.getArgs()) {
+					new MethodArgView(this, arg).accept(visitor);
+				}
+
+				for (MethodVarMappingView var : element.getVars()) {
+					new MethodVarView(this, var).accept(visitor);
+				}
+			}
+		}
+	}
+
+	final class MethodArgView extends ElementView<MethodArgMappingView> implements MethodArgMappingView {
+		MethodArgView(MethodView method, MethodArgMappingView arg) {
+			super(arg);
+
+			this.method = method;
+		}
+
+		@Override
+		MappedElementKind getKind() {
+			return MappedElementKind.METHOD_ARG;
+		}
+
+		@Override
+		public String getSrcName() {
+			return element.getName(newSrcNs); // optional, no fallback
+		}
+
+		@Override
+		public MethodView getMethod() {
+			return method;
+		}
+
+		@Override
+		public int getArgPosition() {
+			return element.getArgPosition();
+		}
+
+		@Override
+		public int getLvIndex() {
+			return element.getLvIndex();
+		}
+
+		void accept(MappingVisitor visitor) throws IOException {
+			if (visitor.visitMethodArg(getArgPosition(), getLvIndex(), getSrcName())) {
+				acceptElement(visitor, false);
+			}
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%d/%d:%s", getArgPosition(), getLvIndex(), getSrcName());
+		}
+
+		private final MethodView method;
+	}
+
+	final class MethodVarView extends ElementView<MethodVarMappingView> implements MethodVarMappingView {
+		MethodVarView(MethodView method, MethodVarMappingView var) {
+			super(var);
+
+			this.method = method;
+		}
+
+		@Override
+		MappedElementKind getKind() {
+			return MappedElementKind.METHOD_VAR;
+		}
+
+		@Override
+		public String getSrcName() {
+			return element.getName(newSrcNs); // optional, no fallback
+		}
+
+		@Override
+		public MethodView getMethod() {
+			return method;
+		}
+
+		@Override
+		public int getLvtRowIndex() {
+			return element.getLvtRowIndex();
+		}
+
+		@Override
+		public int getLvIndex() {
+			return element.getLvIndex();
+		}
+
+		@Override
+		public int getStartOpIdx() {
+			return element.getStartOpIdx();
+		}
+
+		void accept(MappingVisitor visitor) throws IOException {
+			if (visitor.visitMethodVar(getLvtRowIndex(), getLvIndex(), getStartOpIdx(), getSrcName())) {
+				acceptElement(visitor, false);
+			}
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%d/%d@%d:%s", getLvtRowIndex(), getLvIndex(), getStartOpIdx(), getSrcName());
+		}
+
+		private final MethodView method;
+	}
+
+	/**
+	 * Read-only collection wrapping the elements of another collection on access.
+	 */
+	private static final class MappedCollection<S, T> extends AbstractCollection<T> {
+		MappedCollection(Collection<? extends S> src, Function<S, T> mapper) {
+			this.src = src;
+			this.mapper = mapper;
+		}
+
+		@Override
+		public Iterator<T> iterator() {
+			Iterator<? extends S> it = src.iterator();
+
+			return new Iterator<T>() {
+				@Override
+				public boolean hasNext() {
+					return it.hasNext();
+				}
+
+				@Override
+				public T next() {
+					return mapper.apply(it.next());
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return src.size();
+		}
+
+		private final Collection<? extends S> src;
+		private final Function<S, T> mapper;
+	}
+
+	private final MappingTreeView tree;
+	private final int newSrcNs;
+	private final String srcNamespace;
+	private final List<String> dstNamespaces;
+}